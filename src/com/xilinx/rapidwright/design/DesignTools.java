@@ -2787,41 +2787,61 @@ public class DesignTools {
      */
     public static void copyImplementation(Design src, Design dest, boolean copyStaticNets, boolean copyOnlyInternalNets, boolean lockPlacement,
             boolean lockRouting, Map<String,String> srcToDestInstNames) {
-        // Removing existing logic in target cells in destination design
-        EDIFNetlist destNetlist = dest.getNetlist();
-        for (Entry<String,String> e : srcToDestInstNames.entrySet()) {
-            DesignTools.makeBlackBox(dest, e.getValue());
+        ImplementationCopyPlan plan = planImplementationCopy(src, copyOnlyInternalNets, srcToDestInstNames);
+        applyImplementationCopy(plan, dest, copyStaticNets, lockPlacement, lockRouting);
+    }
+
+    /**
+     * Source-side analysis of {@link #copyImplementation(Design, Design, boolean, boolean, boolean, boolean, Map)}:
+     * the cells, partial nets and trimmed routing to be copied. A plan only reads its source design, so plans
+     * of different source designs can be computed concurrently and applied to the destination one at a time.
+     */
+    public static class ImplementationCopyPlan {
+        private final Design src;
+        private final Map<String,String> srcToDestInstNames;
+        private final Map<String,String> prefixes = new HashMap<>();
+
+        private final List<Cell> cells = new ArrayList<>();
+        private final List<String> newCellNames = new ArrayList<>();
+        private final Set<SiteInst> siteInstsOfCells = new HashSet<>();
+
+        private final List<Net> nets = new ArrayList<>();
+        private final List<String> newNetNames = new ArrayList<>();
+        private final List<Set<PIP>> pipsToRemove = new ArrayList<>();
+        private final List<Set<SitePinInst>> pinsToRemove = new ArrayList<>();
+        private final List<Net> staticNets = new ArrayList<>();
+
+        private ImplementationCopyPlan(Design src, Map<String,String> srcToDestInstNames) {
+            this.src = src;
+            this.srcToDestInstNames = srcToDestInstNames;
         }
-        destNetlist.removeUnusedCellsFromAllWorkLibraries();
 
-        // Populate black boxes with existing logical netlist cells
-        HashSet<String> instsWithSeparator = new HashSet<>();
-        for (Entry<String,String> e : srcToDestInstNames.entrySet()) {
-            EDIFHierCellInst cellInst = e.getKey().length()==0 ? src.getNetlist().getTopHierCellInst()
-                    : src.getNetlist().getHierCellInstFromName(e.getKey());
-            if (e.getValue().length() == 0) {
-                // If its the top cell, remove the top cell from destNetlist
-                EDIFLibrary destLib = destNetlist.getLibrary(cellInst.getCellType().getLibrary().getName());
-                if (destLib == null) {
-                    destLib = destNetlist.getWorkLibrary();
-                }
-                EDIFCell existingCell = destLib.getCell(cellInst.getCellType().getName());
-                if (existingCell != null) {
-                    destLib.removeCell(existingCell);
-                }
-            }
-            destNetlist.copyCellAndSubCells(cellInst.getCellType());
-            EDIFHierCellInst bbInst = destNetlist.getHierCellInstFromName(e.getValue());
-            EDIFCell destCell = destNetlist.getCell(cellInst.getCellType().getName());
-            if (destNetlist.getTopCell() == bbInst.getCellType()) {
-                destNetlist.getDesign().setTopCell(destCell);
-            }
-            bbInst.getInst().setCellType(destCell);
-            instsWithSeparator.add(e.getKey() + EDIFTools.EDIF_HIER_SEP);
+        public Design getSrc() {
+            return src;
+        }
+
+        public int getCellNum() {
+            return cells.size();
         }
-        destNetlist.resetParentNetMap();
 
-        Map<String,String> prefixes = new HashMap<>();
+        public int getNetNum() {
+            return nets.size();
+        }
+    }
+
+    /**
+     * Computes the source-side part of copying the implementation of a set of cells. Only the source
+     * design is read.
+     * @param src The source design (with partial or full implementation)
+     * @param copyOnlyInternalNets Flag indicating if only nets with every terminal inside the cell should be copied
+     * @param srcToDestInstNames A map of source (key) to destination (value) pairs of cell
+     * instances from which to copy the implementation
+     * @return The plan to be passed to {@link #applyImplementationCopy(ImplementationCopyPlan, Design, boolean, boolean, boolean)}
+     */
+    public static ImplementationCopyPlan planImplementationCopy(Design src, boolean copyOnlyInternalNets,
+            Map<String,String> srcToDestInstNames) {
+        ImplementationCopyPlan plan = new ImplementationCopyPlan(src, srcToDestInstNames);
+        Map<String,String> prefixes = plan.prefixes;
         for (String srcPrefix : srcToDestInstNames.keySet()) {
             if (srcPrefix.length()==0) {
                 prefixes.put(srcPrefix, srcPrefix);
@@ -2831,36 +2851,21 @@ public class DesignTools {
         }
 
         // Identify cells to copy placement
-        Set<SiteInst> siteInstsOfCells = new HashSet<>();
         for (Cell cell : src.getCells()) {
             String cellName = cell.getName();
 
             String prefixMatch = null;
             if ((prefixMatch = StringTools.startsWithAny(cellName, prefixes.keySet())) != null) {
-                SiteInst dstSiteInst = dest.getSiteInstFromSite(cell.getSite());
-                SiteInst srcSiteInst = cell.getSiteInst();
-                siteInstsOfCells.add(srcSiteInst);
-                if (dstSiteInst == null) {
-                    dstSiteInst = dest.createSiteInst(srcSiteInst.getName(),
-                                    srcSiteInst.getSiteTypeEnum(), srcSiteInst.getSite());
-                }
-                String newCellName = getNewHierName(cellName, srcToDestInstNames, prefixes, prefixMatch);
-                Cell copy = cell.copyCell(newCellName, cell.getEDIFHierCellInst(), dstSiteInst);
-                dstSiteInst.addCell(copy);
-                copy.setBELFixed(lockPlacement);
-                copy.setSiteFixed(lockPlacement);
-
-                // Preserve site routing from cell pins to site pins
-                copySiteRouting(copy, cell, srcToDestInstNames, prefixes);
+                plan.siteInstsOfCells.add(cell.getSiteInst());
+                plan.cells.add(cell);
+                plan.newCellNames.add(getNewHierName(cellName, srcToDestInstNames, prefixes, prefixMatch));
             }
         }
 
-        List<Net> staticNets = new ArrayList();
-
         // Identify nets to copy routing
         for (Net net : src.getNets()) {
             if (net.isStaticNet()) {
-                staticNets.add(net);
+                plan.staticNets.add(net);
                 continue;
             }
 
@@ -2900,7 +2905,90 @@ public class DesignTools {
             if ((prefixMatch = StringTools.startsWithAny(net.getName(), prefixes.keySet())) != null) {
                 newNetName = getNewHierName(newNetName, srcToDestInstNames, prefixes, prefixMatch);
             }
-            Net copiedNet = dest.createNet(newNetName);
+            plan.nets.add(net);
+            plan.newNetNames.add(newNetName);
+            plan.pipsToRemove.add(pipsToRemove);
+            plan.pinsToRemove.add(pinsToRemove);
+        }
+        return plan;
+    }
+
+    /**
+     * Copies the logic and implementation described by a plan into the destination design. This will
+     * replace the destination logical cell instances with those of the source design.
+     * @param plan The plan computed by {@link #planImplementationCopy(Design, boolean, Map)}
+     * @param dest The destination design (with matching cell instance interfaces)
+     * @param copyStaticNets Flag indicating if static nets should be copied
+     * @param lockPlacement Flag indicating if the destination implementation copy should have the
+     *     placement locked
+     * @param lockRouting Flag indicating if the destination implementation copy should have the
+     *     routing locked
+     */
+    public static void applyImplementationCopy(ImplementationCopyPlan plan, Design dest, boolean copyStaticNets,
+            boolean lockPlacement, boolean lockRouting) {
+        Design src = plan.src;
+        Map<String,String> srcToDestInstNames = plan.srcToDestInstNames;
+        Map<String,String> prefixes = plan.prefixes;
+
+        // Removing existing logic in target cells in destination design
+        EDIFNetlist destNetlist = dest.getNetlist();
+        for (Entry<String,String> e : srcToDestInstNames.entrySet()) {
+            DesignTools.makeBlackBox(dest, e.getValue());
+        }
+        destNetlist.removeUnusedCellsFromAllWorkLibraries();
+
+        // Populate black boxes with existing logical netlist cells
+        HashSet<String> instsWithSeparator = new HashSet<>();
+        for (Entry<String,String> e : srcToDestInstNames.entrySet()) {
+            EDIFHierCellInst cellInst = e.getKey().length()==0 ? src.getNetlist().getTopHierCellInst()
+                    : src.getNetlist().getHierCellInstFromName(e.getKey());
+            if (e.getValue().length() == 0) {
+                // If its the top cell, remove the top cell from destNetlist
+                EDIFLibrary destLib = destNetlist.getLibrary(cellInst.getCellType().getLibrary().getName());
+                if (destLib == null) {
+                    destLib = destNetlist.getWorkLibrary();
+                }
+                EDIFCell existingCell = destLib.getCell(cellInst.getCellType().getName());
+                if (existingCell != null) {
+                    destLib.removeCell(existingCell);
+                }
+            }
+            destNetlist.copyCellAndSubCells(cellInst.getCellType());
+            EDIFHierCellInst bbInst = destNetlist.getHierCellInstFromName(e.getValue());
+            EDIFCell destCell = destNetlist.getCell(cellInst.getCellType().getName());
+            if (destNetlist.getTopCell() == bbInst.getCellType()) {
+                destNetlist.getDesign().setTopCell(destCell);
+            }
+            bbInst.getInst().setCellType(destCell);
+            instsWithSeparator.add(e.getKey() + EDIFTools.EDIF_HIER_SEP);
+        }
+        destNetlist.resetParentNetMap();
+
+        // Copy placement
+        for (int i = 0; i < plan.cells.size(); i++) {
+            Cell cell = plan.cells.get(i);
+            SiteInst dstSiteInst = dest.getSiteInstFromSite(cell.getSite());
+            SiteInst srcSiteInst = cell.getSiteInst();
+            if (dstSiteInst == null) {
+                dstSiteInst = dest.createSiteInst(srcSiteInst.getName(),
+                                srcSiteInst.getSiteTypeEnum(), srcSiteInst.getSite());
+            }
+            Cell copy = cell.copyCell(plan.newCellNames.get(i), cell.getEDIFHierCellInst(), dstSiteInst);
+            dstSiteInst.addCell(copy);
+            copy.setBELFixed(lockPlacement);
+            copy.setSiteFixed(lockPlacement);
+
+            // Preserve site routing from cell pins to site pins
+            copySiteRouting(copy, cell, srcToDestInstNames, prefixes);
+        }
+
+        // Copy routing
+        for (int i = 0; i < plan.nets.size(); i++) {
+            Net net = plan.nets.get(i);
+            Set<PIP> pipsToRemove = plan.pipsToRemove.get(i);
+            Set<SitePinInst> pinsToRemove = plan.pinsToRemove.get(i);
+
+            Net copiedNet = dest.createNet(plan.newNetNames.get(i));
             for (PIP p : net.getPIPs()) {
                 if (pipsToRemove.contains(p)) continue;
                 copiedNet.addPIP(p);
@@ -2919,7 +3007,7 @@ public class DesignTools {
         }
 
         if (copyStaticNets) {
-            copyStaticNets(dest, staticNets, siteInstsOfCells);
+            copyStaticNets(dest, plan.staticNets, plan.siteInstsOfCells);
         }
     }
 
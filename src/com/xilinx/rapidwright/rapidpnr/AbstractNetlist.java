@@ -59,6 +59,11 @@ abstract public class AbstractNetlist {
 
     abstract protected void buildNode2CellInstsMap();
 
+    // nets spanning multiple nodes are expected to be the ones kept by netFilter
+    protected boolean isLegalCutNet(EDIFNet net) {
+        return netFilter.test(net);
+    }
+
     protected void buildEdge2NodeMap() {
         logger.info("Start building mapping between edges and nodes:");
         edge2NodeIds = new ArrayList<>();
@@ -92,7 +97,7 @@ abstract public class AbstractNetlist {
             }
 
             if (incidentGrpIds.size() > 1) {
-                assert netFilter.test(net);
+                assert isLegalCutNet(net);
                 assert sourceGroupId != -1;
                 edge2NodeIds.add(incidentGrpIds);
                 for (Integer groupIdx : incidentGrpIds) {
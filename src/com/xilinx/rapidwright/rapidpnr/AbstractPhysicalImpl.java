@@ -32,8 +32,11 @@ import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
 import com.xilinx.rapidwright.rapidpnr.utils.DirectoryManager;
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
 import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+import com.xilinx.rapidwright.rapidpnr.utils.ImplJobBackend;
 import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.RapidWrightJobBackend;
 import com.xilinx.rapidwright.rapidpnr.utils.StatisticsUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.VivadoJobBackend;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd;
 
 abstract public class AbstractPhysicalImpl {
@@ -44,6 +47,9 @@ abstract public class AbstractPhysicalImpl {
     protected DesignParams designParams;
     protected NetlistDatabase netlistDB;
 
+    // tool running the implementation jobs of islands, boundaries and merge
+    protected ImplJobBackend jobBackend;
+
     // Design Parameters
     ////
     protected String designName;
@@ -82,6 +88,9 @@ abstract public class AbstractPhysicalImpl {
         public Function<Coordinate2D, String> loc2PblockRange = null;
         public Function<Coordinate2D, String> loc2PblockName = null;
         public Boolean setDontTouch = false;
+
+        // partial netlists of all created cells are copied together by extractPartialNetlists()
+        private PartialNetlistExtractor extractor = null;
             
         public void accept(Coordinate2D loc) {
             EDIFNetlist netlist = design.getNetlist();
@@ -94,7 +103,10 @@ abstract public class AbstractPhysicalImpl {
             if (subCellInsts.isEmpty()) return;
 
             EDIFCell newCell = new EDIFCell(workLib, cellName);
-            copyPartialNetlistToCell(newCell, netlistDB.originTopCell, subCellInsts);
+            if (extractor == null) {
+                extractor = new PartialNetlistExtractor(logger, netlistDB.originTopCell, Runtime.getRuntime().availableProcessors());
+            }
+            extractor.addPartition(newCell, subCellInsts);
 
             EDIFCellInst cellInst = newCell.createCellInst(cellName, topCell);
             if (loc2PblockRange != null) {
@@ -111,6 +123,12 @@ abstract public class AbstractPhysicalImpl {
                 VivadoTclCmd.setPropertyDontTouch(design, cellInst);
             }
         }
+
+        public void extractPartialNetlists() {
+            if (extractor == null) return;
+            extractor.run();
+            extractor = null;
+        }
     }
 
     public AbstractPhysicalImpl(HierarchicalLogger logger, DirectoryManager dirManager, DesignParams designParams, NetlistDatabase netlistDB) {
@@ -127,6 +145,13 @@ abstract public class AbstractPhysicalImpl {
 
         clkName2PeriodMap = designParams.getClkPortName2PeriodMap();
 
+        if (designParams.getJobBackend() == DesignParams.JobBackend.RAPIDWRIGHT) {
+            logger.info("Implementation jobs run in RapidWright instead of Vivado");
+            jobBackend = new RapidWrightJobBackend();
+        } else {
+            jobBackend = new VivadoJobBackend();
+        }
+
         // Netlist Database
         this.netlistDB = netlistDB;
         resetPortName = netlistDB.resetPorts.iterator().next().getName();
@@ -319,6 +344,7 @@ abstract public class AbstractPhysicalImpl {
             for (int x = 0; x < vertBoundaryDim.getX(); x++) {
                 lineStr += String.format("%d\t", vertBoundary2Nets[x][y].size());
                 totalBoundaryNetNum += vertBoundary2Nets[x][y].size();
+                logger.getMetrics().setGauge("boundary_nets_of_boundary", vertBoundary2Nets[x][y].size(), "boundary", String.format("vert_%d_%d", x, y));
             }
             logger.info(lineStr);
         }
@@ -329,11 +355,13 @@ abstract public class AbstractPhysicalImpl {
             for (int x = 0; x < horiBoundaryDim.getX(); x++) {
                 lineStr += String.format("%d\t", horiBoundary2Nets[x][y].size());
                 totalBoundaryNetNum += horiBoundary2Nets[x][y].size();
+                logger.getMetrics().setGauge("boundary_nets_of_boundary", horiBoundary2Nets[x][y].size(), "boundary", String.format("hori_%d_%d", x, y));
             }
             logger.info(lineStr);
         }
 
         logger.info("Total number of boundary nets: " + totalBoundaryNetNum);
+        logger.getMetrics().setGauge("boundary_nets", totalBoundaryNetNum);
         logger.info("Complete building net to boundary map");
     }
     
@@ -633,6 +661,7 @@ abstract public class AbstractPhysicalImpl {
             for (int y = 0; y < vertBoundaryDim.getY(); y++) {
                 logger.info(String.format("The number of nets on vert boundary(%d, %d): %d", x, y, vertBoundary2Nets[x][y].size()));
                 totalNumOfBoundaryNet += vertBoundary2Nets[x][y].size();
+                logger.getMetrics().setGauge("boundary_nets_of_boundary", vertBoundary2Nets[x][y].size(), "boundary", String.format("vert_%d_%d", x, y));
             }
         }
         logger.endSubStep();
@@ -643,11 +672,13 @@ abstract public class AbstractPhysicalImpl {
             for (int y = 0; y < horiBoundaryDim.getY(); y++) {
                 logger.info(String.format("The number of nets on hori boundary(%d, %d): %d", x, y, horiBoundary2Nets[x][y].size()));
                 totalNumOfBoundaryNet += horiBoundary2Nets[x][y].size();
+                logger.getMetrics().setGauge("boundary_nets_of_boundary", horiBoundary2Nets[x][y].size(), "boundary", String.format("hori_%d_%d", x, y));
             }
         }
         logger.endSubStep();
 
         logger.info("Total number of boundary nets: " + totalNumOfBoundaryNet);
+        logger.getMetrics().setGauge("boundary_nets", totalNumOfBoundaryNet);
 
         logger.endSubStep();
         logger.info("Complete building net to boundary map");
@@ -803,6 +834,7 @@ abstract public class AbstractPhysicalImpl {
             createCellInst.loc2CellName = NameConvention::getHoriBoundaryName;
             horiBoundaryDim.traverse(createCellInst);
         }
+        createCellInst.extractPartialNetlists();
 
         connectCellInstsOfTopCell(topCell, netlistDB.originTopCell);
         topDesign.setAutoIOBuffers(false);
@@ -951,150 +983,11 @@ abstract public class AbstractPhysicalImpl {
         return blackboxCell;
     }
 
-    protected void copyStaticNetToNewCell(EDIFNet originNet, EDIFCell newCell) {
-        assert originNet.isGND() || originNet.isVCC();
-        assert originNet.getParentCell() != newCell;
-
-        NetType netType = originNet.isGND() ? NetType.GND : NetType.VCC;
-        EDIFNet newNet = EDIFTools.getStaticNet(netType, newCell, newCell.getNetlist());
-
-        for (EDIFPortInst portInst : originNet.getPortInsts()) {
-            EDIFCellInst cellInst = portInst.getCellInst();
-            if (cellInst == null) continue; // Skip top-level port
-            if (cellInst.getCellType().isStaticSource()) continue;
-            String cellName = cellInst.getName();
-            EDIFCellInst newCellInst = newCell.getCellInst(cellName);
-            if (newCellInst != null) {
-                newNet.createPortInst(portInst.getName(), newCellInst);
-            }
-        }
-    }
-
-    protected EDIFNet copyNetToNewCell(EDIFNet srcNet, EDIFCell newCell) {
-        assert !srcNet.isGND() && !srcNet.isVCC();
-        assert newCell.getNet(srcNet.getName()) == null;
-
-        EDIFNet newNet = null;
-        
-        // copy ports for 
-        for (EDIFPortInst portInst : srcNet.getPortInsts()) {
-            EDIFCellInst cellInst = portInst.getCellInst();
-            if (cellInst == null) { // Top-level port
-                continue;
-            }
-
-            EDIFCellInst newCellInst = newCell.getCellInst(cellInst.getName());
-            if (newCellInst == null) {
-                continue;
-            }
-            
-            if (newNet == null) {
-                newNet = newCell.createNet(srcNet.getName());
-            }
-            newNet.createPortInst(portInst.getName(), newCellInst);
-        }
-
-        return newNet;
-    }
-
-    protected void copyCellInstToNewCell(EDIFCellInst cellInst, EDIFCell newCell) {
-
-        EDIFNetlist newNetlist = newCell.getLibrary().getNetlist();
-        //EDIFNetlist newNetlist = newDesign.getNetlist();
-        //EDIFCell newTopCell = newNetlist.getTopCell();
-        EDIFLibrary newPrimLib = newNetlist.getHDIPrimitivesLibrary();
-        EDIFLibrary newWorkLib = newNetlist.getWorkLibrary();
-
-        EDIFCell cellType = cellInst.getCellType();
-        assert !cellType.isStaticSource();
-        
-        EDIFLibrary cellLib = cellType.getLibrary();
-        assert cellLib.getNetlist() != newNetlist;
-
-        //EDIFLibrary targetLib = cellLib.isWorkLibrary() ? newWorkLib : newPrimLib;
-        // EDIFCell newCellType = targetLib.getCell(cellType.getName());
-        // if (newCellType == null) { // copy cellType if it's not found in new netlist
-        //     newCellType = new EDIFCell(targetLib, cellType, cellType.getName());
-        // }
-        EDIFCell newCellType = newNetlist.getCell(cellType.getName());
-        if (newCellType == null) {
-            newNetlist.copyCellAndSubCells(cellType);
-        }
-        newCellType = newNetlist.getCell(cellType.getName());
-
-        EDIFCellInst newCellInst = newCell.createChildCellInst(cellInst.getName(), newCellType);
-        newCellInst.setPropertiesMap(cellInst.createDuplicatePropertiesMap());
-    }
-
     protected EDIFCell copyPartialNetlistToCell(EDIFCell newCell, EDIFCell originCell, Set<EDIFCellInst> originCellInsts) {
         // Copy partial netlist including originCellInsts to newCell
-        logger.info("Copy partial netlist to cell: " + newCell.getName());
-        logger.newSubStep();
-
-        //// Copy partial netlist
-        // Copy CellInsts
-        for (EDIFCellInst cellInst : originCellInsts) {
-            copyCellInstToNewCell(cellInst, newCell);
-        }
-
-        //// Copy Nets
-        int netNum = 0;
-        int partPinNum = 0;
-        for (EDIFNet net : originCell.getNets()) {
-            if (net.isGND() || net.isVCC()) {
-                copyStaticNetToNewCell(net, newCell);
-                continue;
-            }
-
-            EDIFNet newNet = copyNetToNewCell(net, newCell);
-            if (newNet != null) {
-                netNum += 1;
-                // check if the net has out of island portInsts
-                Boolean hasOutOfIslandPortInst = false;
-                Boolean isSrcPortOutOfIsland = false;
-                Boolean isSinkPortOutOfIsland = false;
-                
-                for (EDIFPortInst portInst : net.getPortInsts()) {
-                    EDIFCellInst cellInst = portInst.getCellInst();
-                    if (cellInst == null) { // Skip top-level port
-                        hasOutOfIslandPortInst = true;
-                        if (portInst.isInput()) {
-                            isSrcPortOutOfIsland = true;
-                        } else {
-                            isSinkPortOutOfIsland = true;
-                        }
-                        continue;
-                    }
-
-                    if (newCell.getCellInst(cellInst.getName()) == null) {
-                        hasOutOfIslandPortInst = true;
-                        if (portInst.isOutput()) {
-                            isSrcPortOutOfIsland = true;
-                        } else {
-                            isSinkPortOutOfIsland = true;
-                        }
-                    }
-                }
-
-                //assert isSrcPortOutOfIsland ^ isSinkPortOutOfIsland: String.format("%d", );
-
-                if (hasOutOfIslandPortInst) {
-                    partPinNum += 1;
-                    EDIFDirection dir = isSrcPortOutOfIsland ? EDIFDirection.INPUT : EDIFDirection.OUTPUT;
-                    String partPinName = newNet.getName();
-                    EDIFPort newPort = newCell.createPort(partPinName, dir, 1);
-                    newNet.createPortInst(newPort);
-                    //logger.info("Create partition pin: " + partPinName + " on cell: " + newCell.getName());
-                }
-            }
-        }
-
-        logger.info("Number of cellInsts in the partial netlist: " + originCellInsts.size());
-        logger.info("Number of nets in the partial netlist: " + netNum);
-        logger.info("Number of partition pins in the partial netlist: " + partPinNum);
-
-        logger.endSubStep();
-        logger.info("Complete copying partial netlist to cell: " + newCell.getName());
+        PartialNetlistExtractor extractor = new PartialNetlistExtractor(logger, originCell, 1);
+        extractor.addPartition(newCell, originCellInsts);
+        extractor.run();
         return newCell;
     }
 
@@ -1339,6 +1232,14 @@ abstract public class AbstractPhysicalImpl {
         return getCellInstsOfIsland(loc.getX(), loc.getY());
     }
 
+    protected int getLeafCellNumOfIsland(Coordinate2D loc) {
+        int leafCellNum = 0;
+        for (EDIFCellInst cellInst : getCellInstsOfIsland(loc)) {
+            leafCellNum += NetlistUtils.getLeafCellNum(cellInst.getCellType());
+        }
+        return leafCellNum;
+    }
+
     protected void addCellInstToIsland(EDIFCellInst cellInst, Coordinate2D loc) {
         island2CellInsts[loc.getX()][loc.getY()].add(cellInst);
         cellInst2IslandLocMap.put(cellInst, loc);
@@ -1360,6 +1261,17 @@ abstract public class AbstractPhysicalImpl {
         return getNetsOfHoriBoundary(loc.getX(), loc.getY());
     }
 
+    protected Set<EDIFNet> getNetsOfAllBoundaries() {
+        Set<EDIFNet> boundaryNets = new HashSet<>();
+        vertBoundaryDim.traverse((Coordinate2D loc) -> {
+            boundaryNets.addAll(getNetsOfVertBoundary(loc));
+        });
+        horiBoundaryDim.traverse((Coordinate2D loc) -> {
+            boundaryNets.addAll(getNetsOfHoriBoundary(loc));
+        });
+        return boundaryNets;
+    }
+
     protected Set<EDIFCellInst> getCellInstsOfVertBoundary(int x, int y) {
         return vertBoundary2CellInsts[x][y];
     }
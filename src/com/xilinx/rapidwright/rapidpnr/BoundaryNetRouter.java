@@ -0,0 +1,109 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.design.DesignTools;
+import com.xilinx.rapidwright.design.Net;
+import com.xilinx.rapidwright.design.SitePinInst;
+import com.xilinx.rapidwright.edif.EDIFHierNet;
+import com.xilinx.rapidwright.edif.EDIFNet;
+import com.xilinx.rapidwright.edif.EDIFNetlist;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rwroute.PartialRouter;
+
+// Routes the nets crossing island boundaries of a merged design with RWRoute inside the JVM.
+// Routing copied from islands is preserved, only sinks of boundary nets and of nets that
+// no island could route (clocks, static nets) are routed.
+class BoundaryNetRouter {
+
+    private HierarchicalLogger logger;
+    private Design design;
+    private Set<String> boundaryNetNames = new HashSet<>();
+    private boolean timingDriven = true;
+
+    public BoundaryNetRouter(HierarchicalLogger logger, Design design, Collection<EDIFNet> boundaryNets) {
+        this.logger = logger;
+        this.design = design;
+        for (EDIFNet net : boundaryNets) {
+            boundaryNetNames.add(net.getName());
+        }
+    }
+
+    public void setTimingDriven(boolean timingDriven) {
+        this.timingDriven = timingDriven;
+    }
+
+    public void run(Path outputDcpPath) {
+        logger.info("Start routing boundary nets with RWRoute");
+        logger.newSubStep();
+
+        // rename physical nets after their parent nets and create missing site pins
+        PartialRouter.preprocess(design);
+
+        List<SitePinInst> pinsToRoute = getBoundaryPinsToRoute();
+        int boundaryPinNum = pinsToRoute.size();
+
+        // nets that cross islands without being a boundary net (e.g. clocks and static nets) are
+        // left unrouted by the merge as well and have to be routed for a complete design
+        Set<SitePinInst> boundaryPins = new HashSet<>(pinsToRoute);
+        for (SitePinInst pin : PartialRouter.getUnroutedPins(design)) {
+            if (boundaryPins.contains(pin)) continue;
+            pinsToRoute.add(pin);
+        }
+        logger.info("Number of boundary net pins to route: " + boundaryPinNum);
+        logger.info("Number of other unrouted pins to route: " + (pinsToRoute.size() - boundaryPinNum));
+
+        if (timingDriven) {
+            PartialRouter.routeDesignPartialTimingDriven(design, pinsToRoute, false);
+        } else {
+            PartialRouter.routeDesignPartialNonTimingDriven(design, pinsToRoute, false);
+        }
+
+        int unroutedPinNum = PartialRouter.getUnroutedPins(design).size();
+        if (unroutedPinNum > 0) {
+            logger.warning("Number of pins left unrouted: " + unroutedPinNum);
+        }
+
+        logger.info("Write routed design to " + outputDcpPath.toString());
+        design.writeCheckpoint(outputDcpPath.toString());
+
+        logger.endSubStep();
+        logger.info("Complete routing boundary nets with RWRoute");
+    }
+
+    private List<SitePinInst> getBoundaryPinsToRoute() {
+        EDIFNetlist netlist = design.getNetlist();
+        List<SitePinInst> pinsToRoute = new ArrayList<>();
+        int missingNetNum = 0;
+
+        for (String netName : boundaryNetNames) {
+            Net net = design.getNet(netName);
+            if (net == null) {
+                EDIFHierNet hierNet = netlist.getHierNetFromName(netName);
+                if (hierNet == null) {
+                    missingNetNum++;
+                    continue;
+                }
+                net = design.createNet(hierNet);
+                DesignTools.createMissingSitePinInsts(design, net);
+            }
+
+            if (net.getSource() == null) continue;
+            for (SitePinInst pin : net.getSinkPins()) {
+                if (pin.isRouted()) continue;
+                pinsToRoute.add(pin);
+            }
+        }
+
+        if (missingNetNum > 0) {
+            logger.warning("Number of boundary nets not found in merged design: " + missingNetNum);
+        }
+        return pinsToRoute;
+    }
+}
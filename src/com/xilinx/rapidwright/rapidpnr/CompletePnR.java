@@ -45,9 +45,8 @@ public class CompletePnR extends AbstractPhysicalImpl {
         Design completeDesign = createCompleteDesign();
         // create tcl command file
         TclCmdFile tclCmdFile = createTclCmdFileForCompletePnR();
-        // create project
-        VivadoProject vivadoProject = new VivadoProject(completeDesign, workDir, tclCmdFile);
-        Job vivadoJob = vivadoProject.createVivadoJob();
+        // create job
+        Job vivadoJob = jobBackend.createJob(completeDesign, workDir, tclCmdFile);
 
         // create island designs
         // for (int x = 0; x < gridDim.getX(); x++) {
@@ -14,8 +14,12 @@ import java.util.HashSet;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import com.xilinx.rapidwright.rapidpnr.partitioner.Coarser;
 import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.JobResourceEstimator;
+import com.xilinx.rapidwright.rapidpnr.utils.MetricsRegistry;
 import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.SyntheticNetlistGenerator;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoProject;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd.RouteDirective;
@@ -25,12 +29,38 @@ public class DesignParams {
     public static enum PartitionKernel {
         TRITON,
         FM,
-        CUSTOM;
+        CUSTOM,
+        GRID_KWAY,
+        TRITON_NATIVE;
         public static PartitionKernel fromString(String name) {
             return Enum.valueOf(PartitionKernel.class, name);
         }
     };
 
+    public static enum ClusteringMethod {
+        EDGE_BASED,
+        LABEL_PROPAGATION;
+        public static ClusteringMethod fromString(String name) {
+            return Enum.valueOf(ClusteringMethod.class, name);
+        }
+    };
+
+    public static enum MergeRouter {
+        VIVADO,
+        RWROUTE;
+        public static MergeRouter fromString(String name) {
+            return Enum.valueOf(MergeRouter.class, name);
+        }
+    };
+
+    public static enum JobBackend {
+        VIVADO,
+        RAPIDWRIGHT;
+        public static JobBackend fromString(String name) {
+            return Enum.valueOf(JobBackend.class, name);
+        }
+    };
+
     private String designName;
     private List<String> clkPortNames;
     private String mainClkName;
@@ -42,7 +72,9 @@ public class DesignParams {
 
     private String openroadCmd;
     private Path inputDcpPath;
+    private SyntheticNetlistGenerator.Config syntheticNetlistConfig = null;
     private Path workDir;
+    private Path stageCacheDir = null;
 
     // Layout Parameters
     private Coordinate2D gridDim;
@@ -55,6 +87,8 @@ public class DesignParams {
 
     // Netlist Abstraction Parameters
     private Integer abstractLevel = 2;
+    private ClusteringMethod clusteringMethod = ClusteringMethod.EDGE_BASED;
+    private Integer clusterMaxLeafCellNum = Integer.MAX_VALUE;
 
     // Island Placer Parameters
     private Set<String> prePlaceResTypes;
@@ -62,12 +96,16 @@ public class DesignParams {
     private Double imbalanceFac = 0.01;
     private Integer randomSeed = 999;
     private Integer parallelRunNum = 20;
+    private Integer sharedHierarchyNum = 0; // coarsening hierarchies shared by parallel runs (0: coarsen in each run)
     private Integer ignoreEdgeDegree = Integer.MAX_VALUE;
     private Path extIslandPlacerPath = null;
     private Path islandPlaceResPath = null;
     private PartitionKernel partitionKernel = PartitionKernel.TRITON;
     private Double coarserLevelShrinkRatio = 2.0;
     private Double coarserMaxNodeSizeRatio = 1.0;
+    private Coarser.Scheme coarserScheme = Coarser.Scheme.FC;
+    private Boolean coarserDeterministic = false;
+    private Boolean gridRefine = false;
 
     // Physical Implementation Parameters
     private String boundaryPlaceOpt = null;
@@ -77,9 +115,18 @@ public class DesignParams {
     private Boolean islandRoutePhysSyn = true;
     private Boolean islandIODelayConstr = false;
     private Boolean fullRouteMerge = false;
+    private MergeRouter mergeRouter = MergeRouter.VIVADO;
+    private Boolean mergeRouterTimingDriven = true;
     private Integer boundaryNeighborSize = 5000;
     private Integer boundaryNeighborDist = 1;
     private Double islandPeriodDecrement = 0.0;
+    private Boolean parallelMerge = false;
+    private Integer mergeMaxParallelReads = 4;
+    private Boolean resourceAwareJobs = false;
+    private Integer jobCoreLimit = null;
+    private Integer jobMemoryLimitMB = null;
+    private JobBackend jobBackend = JobBackend.VIVADO;
+    private MetricsRegistry.Format metricsFormat = MetricsRegistry.Format.JSONL;
 
     private class ParamsJson {
         public String designName;
@@ -91,7 +138,9 @@ public class DesignParams {
         public Boolean verbose;
     
         public String inputDcpPath;
+        public SyntheticNetlistGenerator.Config syntheticNetlist;
         public String workDir;
+        public String stageCacheDir;
         public String vivadoCmd;
         public Integer vivadoMaxThreadNum;
         public String openroadCmd;
@@ -99,6 +148,8 @@ public class DesignParams {
         public String layoutInfoJsonPath;
 
         public Integer abstractLevel;
+        public String clusteringMethod;
+        public Integer clusterMaxLeafCellNum;
         
         public List<String> prePlaceResTypes;
         public Boolean singleBoundaryConstr;
@@ -106,14 +157,20 @@ public class DesignParams {
         public Double imbalanceFac;
         public Integer ignoreEdgeDegree;
         public Integer parallelRunNum;
+        public Integer sharedHierarchyNum;
         public String extIslandPlacerPath;
         public String islandPlaceResPath;
         public String partitionKernel;
         public Double coarserLevelShrinkRatio;
         public Double coarserMaxNodeSizeRatio;
+        public String coarserScheme;
+        public Boolean coarserDeterministic;
+        public Boolean gridRefine;
         public Boolean islandIODelayConstr;
 
         public Boolean fullRouteMerge;
+        public String mergeRouter;
+        public Boolean mergeRouterTimingDriven;
         public String boundaryPlaceOpt;
         public String islandRouteOpt;
         public Boolean islandRoutePhysSyn;
@@ -122,6 +179,13 @@ public class DesignParams {
         public Integer boundaryNeighborSize;
         public Integer boundaryNeighborDist;
         public Double islandPeriodDecrement;
+        public Boolean parallelMerge;
+        public Integer mergeMaxParallelReads;
+        public Boolean resourceAwareJobs;
+        public Integer jobCoreLimit;
+        public Integer jobMemoryLimitMB;
+        public String jobBackend;
+        public String metricsFormat;
     }
 
     private class LayoutInfoJson {
@@ -176,12 +240,23 @@ public class DesignParams {
                 this.verbose = params.verbose;
             }
 
-            assert params.inputDcpPath != null: "inputDcpPath not found in json file";
-            inputDcpPath = Path.of(params.inputDcpPath).toAbsolutePath();
+            // a synthetic netlist replaces the input DCP
+            if (params.syntheticNetlist != null) {
+                syntheticNetlistConfig = params.syntheticNetlist;
+                assert clkPortNameSet.contains(syntheticNetlistConfig.clkPortName): "Clock port of synthetic netlist not found: " + syntheticNetlistConfig.clkPortName;
+                assert resetPortNames.contains(syntheticNetlistConfig.resetPortName): "Reset port of synthetic netlist not found: " + syntheticNetlistConfig.resetPortName;
+            } else {
+                assert params.inputDcpPath != null: "inputDcpPath not found in json file";
+                inputDcpPath = Path.of(params.inputDcpPath).toAbsolutePath();
+            }
 
             assert params.workDir != null: "workDir not found in json file";
             workDir = Path.of(params.workDir).toAbsolutePath().resolve(designName);
 
+            if (params.stageCacheDir != null) {
+                stageCacheDir = Path.of(params.stageCacheDir).toAbsolutePath();
+            }
+
             // Vivado Parameters
             if (params.vivadoCmd != null) {
                 VivadoProject.setVivadoCmd(params.vivadoCmd);
@@ -232,6 +307,15 @@ public class DesignParams {
                 this.abstractLevel = params.abstractLevel;
             }
 
+            if (params.clusteringMethod != null) {
+                this.clusteringMethod = ClusteringMethod.fromString(params.clusteringMethod);
+            }
+
+            if (params.clusterMaxLeafCellNum != null) {
+                assert params.clusterMaxLeafCellNum > 0;
+                this.clusterMaxLeafCellNum = params.clusterMaxLeafCellNum;
+            }
+
             // set parameters related with Island Placer
             if (params.singleBoundaryConstr != null) {
                 this.singleBoundaryConstr = params.singleBoundaryConstr;
@@ -269,6 +353,11 @@ public class DesignParams {
                 this.parallelRunNum = params.parallelRunNum;
             }
 
+            if (params.sharedHierarchyNum != null) {
+                this.sharedHierarchyNum = params.sharedHierarchyNum;
+                assert sharedHierarchyNum >= 0;
+            }
+
             if (params.partitionKernel != null) {
                 this.partitionKernel = PartitionKernel.fromString(params.partitionKernel);
             }
@@ -283,10 +372,28 @@ public class DesignParams {
                 assert coarserMaxNodeSizeRatio >= 0.0 && coarserMaxNodeSizeRatio <= 1.0;
             }
 
+            if (params.coarserScheme != null) {
+                this.coarserScheme = Coarser.Scheme.valueOf(params.coarserScheme);
+            }
+
+            if (params.coarserDeterministic != null) {
+                this.coarserDeterministic = params.coarserDeterministic;
+            }
+
+            if (params.gridRefine != null) {
+                this.gridRefine = params.gridRefine;
+            }
+
             // set parameters related with Physical Implementation
             if (params.fullRouteMerge != null) {
                 this.fullRouteMerge = params.fullRouteMerge;
             }
+            if (params.mergeRouter != null) {
+                this.mergeRouter = MergeRouter.fromString(params.mergeRouter);
+            }
+            if (params.mergeRouterTimingDriven != null) {
+                this.mergeRouterTimingDriven = params.mergeRouterTimingDriven;
+            }
             if (params.boundaryNeighborSize != null) {
                 this.boundaryNeighborSize = params.boundaryNeighborSize;
             }
@@ -299,6 +406,33 @@ public class DesignParams {
             if (params.islandIODelayConstr != null) {
                 this.islandIODelayConstr = params.islandIODelayConstr;
             }
+            if (params.parallelMerge != null) {
+                this.parallelMerge = params.parallelMerge;
+            }
+            if (params.mergeMaxParallelReads != null) {
+                assert params.mergeMaxParallelReads > 0;
+                this.mergeMaxParallelReads = params.mergeMaxParallelReads;
+            }
+            if (params.resourceAwareJobs != null) {
+                this.resourceAwareJobs = params.resourceAwareJobs;
+            }
+            if (params.jobCoreLimit != null) {
+                assert params.jobCoreLimit > 0;
+                this.jobCoreLimit = params.jobCoreLimit;
+            }
+            if (params.jobMemoryLimitMB != null) {
+                assert params.jobMemoryLimitMB > 0;
+                this.jobMemoryLimitMB = params.jobMemoryLimitMB;
+            } else {
+                // snapshot once, free memory drops as soon as jobs are running
+                this.jobMemoryLimitMB = Math.toIntExact(JobResourceEstimator.getFreePhysicalMemoryMB());
+            }
+            if (params.jobBackend != null) {
+                this.jobBackend = JobBackend.fromString(params.jobBackend);
+            }
+            if (params.metricsFormat != null) {
+                this.metricsFormat = MetricsRegistry.Format.fromString(params.metricsFormat);
+            }
 
             if (params.boundaryPlaceOpt != null) {
                 assert VivadoTclCmd.PlacerDirective.isVaildDirective(params.boundaryPlaceOpt);
@@ -383,10 +517,26 @@ public class DesignParams {
         return inputDcpPath;
     }
 
+    public boolean isSyntheticNetlist() {
+        return syntheticNetlistConfig != null;
+    }
+
+    public SyntheticNetlistGenerator.Config getSyntheticNetlistConfig() {
+        return syntheticNetlistConfig;
+    }
+
     public Path getWorkDir() {
         return workDir;
     }
 
+    public Path getStageCacheDir() {
+        return stageCacheDir;
+    }
+
+    public boolean isStageCacheEnabled() {
+        return stageCacheDir != null;
+    }
+
     public String getOpenroadCmd() {
         return openroadCmd;
     }
@@ -395,6 +545,14 @@ public class DesignParams {
         return this.abstractLevel;
     }
 
+    public ClusteringMethod getClusteringMethod() {
+        return clusteringMethod;
+    }
+
+    public int getClusterMaxLeafCellNum() {
+        return clusterMaxLeafCellNum;
+    }
+
     public Coordinate2D getGridDim() {
         return new Coordinate2D(gridDim.getX(), gridDim.getY());
     }
@@ -490,6 +648,10 @@ public class DesignParams {
         return parallelRunNum;
     }
 
+    public int getSharedHierarchyNum() {
+        return sharedHierarchyNum;
+    }
+
     public PartitionKernel getPartitionKernel() {
         return partitionKernel;
     }
@@ -502,10 +664,30 @@ public class DesignParams {
         return coarserMaxNodeSizeRatio;
     }
 
+    public Coarser.Scheme getCoarserScheme() {
+        return coarserScheme;
+    }
+
+    public boolean isCoarserDeterministic() {
+        return coarserDeterministic;
+    }
+
+    public boolean isGridRefineEnabled() {
+        return gridRefine;
+    }
+
     public boolean isFullRouteMerge() {
         return fullRouteMerge;
     }
 
+    public MergeRouter getMergeRouter() {
+        return mergeRouter;
+    }
+
+    public boolean isMergeRouterTimingDriven() {
+        return mergeRouterTimingDriven;
+    }
+
     public int getBoundaryNeighborSize() {
         return boundaryNeighborSize;
     }
@@ -522,6 +704,36 @@ public class DesignParams {
         return islandIODelayConstr;
     }
 
+    public boolean isParallelMerge() {
+        return parallelMerge;
+    }
+
+    public int getMergeMaxParallelReads() {
+        return mergeMaxParallelReads;
+    }
+
+    public boolean isResourceAwareJobs() {
+        return resourceAwareJobs;
+    }
+
+    // all cores of the machine by default
+    public int getJobCoreLimit() {
+        return jobCoreLimit != null ? jobCoreLimit : Runtime.getRuntime().availableProcessors();
+    }
+
+    // physical memory that is free when the design params are loaded by default
+    public long getJobMemoryLimitMB() {
+        return jobMemoryLimitMB;
+    }
+
+    public JobBackend getJobBackend() {
+        return jobBackend;
+    }
+
+    public MetricsRegistry.Format getMetricsFormat() {
+        return metricsFormat;
+    }
+
     public String getBoundaryPlaceOpt() {
         return boundaryPlaceOpt;
     }
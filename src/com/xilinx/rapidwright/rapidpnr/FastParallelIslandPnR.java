@@ -14,11 +14,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 
 import com.xilinx.rapidwright.design.Design;
 import com.xilinx.rapidwright.design.DesignTools;
+import com.xilinx.rapidwright.design.DesignTools.ImplementationCopyPlan;
 import com.xilinx.rapidwright.edif.EDIFCell;
 import com.xilinx.rapidwright.edif.EDIFCellInst;
 import com.xilinx.rapidwright.edif.EDIFLibrary;
@@ -34,7 +38,9 @@ import com.xilinx.rapidwright.rapidpnr.timing.SimpleTimingPredictor;
 import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
 import com.xilinx.rapidwright.rapidpnr.utils.DirectoryManager;
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.JobResourceEstimator;
 import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.PipelinedJobRunner;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoProject;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.TclCmdFile;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd;
@@ -42,10 +48,20 @@ import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd.RouteDi
 
 public class FastParallelIslandPnR extends AbstractPhysicalImpl{
 
+    private static final String INGEST_TIMER_NAME = "Island Checkpoint Ingestion";
+    private static final String MERGE_TIMER_NAME = "Merge Islands";
+    private static final String JOB_RESOURCE_HISTORY_NAME = "job_resources.json";
+
     Design completeDesign;
     SimpleTimingPredictor timingPredictor;
     RuntimeTrackerTree rootTimer;
 
+    // implementation copy plans of routed islands, only computed in parallel merge mode
+    private Map<String, ImplementationCopyPlan> islandName2CopyPlan = new ConcurrentHashMap<>();
+
+    // memory estimates of island jobs, only used when jobs are scheduled by resources
+    private JobResourceEstimator jobResourceEstimator;
+
     public FastParallelIslandPnR(HierarchicalLogger logger, DirectoryManager dirManager, DesignParams designParams, NetlistDatabase netlistDB) {
         super(logger, dirManager, designParams, netlistDB);
     }
@@ -102,10 +118,13 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         Path boundaryPath = dirManager.addSubDir("boundary");
         Design boundaryDesign = createBoundaryDesign();
         TclCmdFile boundaryTclFile = createTclFileForBoundaryDesign();
-        VivadoProject boundaryProject = new VivadoProject(boundaryDesign, boundaryPath, boundaryTclFile);
-        Job boundaryJob = boundaryProject.createVivadoJob();
+        Job boundaryJob = jobBackend.createJob(boundaryDesign, boundaryPath, boundaryTclFile);
         jobQueue.addJob(boundaryJob);
 
+        // island designs only depend on the complete design, so they are built while boundary cells are placed
+        PipelinedJobRunner<Design> islandRunner = createIslandRunner(completeDesign);
+        islandRunner.startPreparation();
+
         subTimer = rootTimer.createRuntimeTracker("Boundary Placement", rootTimerName);
         subTimer.start();
         success = jobQueue.runAllToCompletion();
@@ -114,41 +133,42 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         logger.info("Complete placement of boundary cells in " + subTimer.getTimeInSec() + " sec");
 
         logger.info("Start parallel PnR of islands");
-        gridDim.traverse((Coordinate2D loc) -> {
-            Path islandPath = dirManager.addSubDir(getIslandName(loc));
-            
-            Design islandDesign = createIslandDesignWithBoundary(completeDesign, loc, true);
-            setConstraintOnIsland(islandDesign, loc, true);
-            TclCmdFile islandTclFile = createTclFileForIsland(islandDesign, loc, true);
-            VivadoProject islandProject = new VivadoProject(islandDesign, islandPath, islandTclFile);
-            Job islandJob = islandProject.createVivadoJob();
-            jobQueue.addJob(islandJob);
-        });
-
         subTimer = rootTimer.createRuntimeTracker("Parallel Island PnR", rootTimerName);
         subTimer.start();
-        success = jobQueue.runAllToCompletion();
+        success = islandRunner.runAllToCompletion();
         subTimer.stop();
+        if (jobResourceEstimator != null) {
+            jobResourceEstimator.save();
+        }
         assert success: "Parallel Island PnR failed";
         logger.info("Complete parallel PnR of islands in " + subTimer.getTimeInSec() + " sec");
 
         logger.info("Start merging islands and boundaries");
-        subTimer = rootTimer.createRuntimeTracker("Merge Islands", rootTimerName);
+        subTimer = rootTimer.createRuntimeTracker(MERGE_TIMER_NAME, rootTimerName);
         subTimer.start();
         Path mergePath = dirManager.addSubDir("merged");
-        Design mergeDesign = readAndCreateMergedDesign();
-        TclCmdFile mergeTclFile = createTclFileForMergeDesign();
+        Design mergeDesign = readAndCreateMergedDesign(islandRunner.getResults());
         subTimer.stop();
 
-        VivadoProject mergeProject = new VivadoProject(mergeDesign, mergePath, mergeTclFile);
-        Job mergeJob = mergeProject.createVivadoJob();
-        jobQueue.addJob(mergeJob);
+        if (designParams.getMergeRouter() == DesignParams.MergeRouter.RWROUTE) {
+            // island routing is kept as is, only boundary nets are routed without reloading the design in Vivado
+            subTimer = rootTimer.createRuntimeTracker("Reroute Boundary", rootTimerName);
+            subTimer.start();
+            BoundaryNetRouter boundaryRouter = new BoundaryNetRouter(logger, mergeDesign, getNetsOfAllBoundaries());
+            boundaryRouter.setTimingDriven(designParams.isMergeRouterTimingDriven());
+            boundaryRouter.run(mergePath.resolve(VivadoProject.OUTPUT_DCP_NAME));
+            subTimer.stop();
+        } else {
+            TclCmdFile mergeTclFile = createTclFileForMergeDesign();
+            Job mergeJob = jobBackend.createJob(mergeDesign, mergePath, mergeTclFile);
+            jobQueue.addJob(mergeJob);
 
-        subTimer = rootTimer.createRuntimeTracker("Reroute Boundary", rootTimerName);
-        subTimer.start();
-        success = jobQueue.runAllToCompletion();
-        subTimer.stop();
-        assert success: "Merge Islands and Boundaries failed";
+            subTimer = rootTimer.createRuntimeTracker("Reroute Boundary", rootTimerName);
+            subTimer.start();
+            success = jobQueue.runAllToCompletion();
+            subTimer.stop();
+            assert success: "Merge Islands and Boundaries failed";
+        }
         logger.info("Complete merging islands and boundaries in " + subTimer.getTimeInSec() + " sec");
 
         logger.endSubStep();
@@ -156,6 +176,79 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         logger.info(rootTimer.toString());
     }
 
+    // each island job is launched once its checkpoint is written, and its routed checkpoint
+    // is read back as soon as it finishes so the merge does not wait for the slowest island to start reading
+    private PipelinedJobRunner<Design> createIslandRunner(Design completeDesign) {
+        int threadNum = Math.min(gridDim.getX() * gridDim.getY(), Runtime.getRuntime().availableProcessors());
+        PipelinedJobRunner<Design> islandRunner = new PipelinedJobRunner<>(logger, threadNum);
+
+        boolean parallelMerge = designParams.isParallelMerge();
+        // limits the number of checkpoints being deserialized at the same time
+        Semaphore readPermits = new Semaphore(designParams.getMergeMaxParallelReads());
+        if (parallelMerge) {
+            rootTimer.createRuntimeTracker(INGEST_TIMER_NAME, rootTimer.getRootRuntimeTracker());
+        }
+
+        boolean resourceAware = designParams.isResourceAwareJobs();
+        if (resourceAware) {
+            jobResourceEstimator = new JobResourceEstimator(logger, dirManager.getRootDir().resolve(JOB_RESOURCE_HISTORY_NAME));
+            int coreNum = designParams.getJobCoreLimit();
+            long memoryMB = designParams.getJobMemoryLimitMB();
+            logger.info(String.format("Schedule island jobs within %d cores and %d MB memory", coreNum, memoryMB));
+            islandRunner.setResourceLimits(coreNum, memoryMB, jobBackend::setMaxThreadOfJob);
+        }
+
+        gridDim.traverse((Coordinate2D loc) -> {
+            String islandName = getIslandName(loc);
+            Path islandPath = dirManager.addSubDir(islandName);
+            Path dcpPath = islandPath.resolve(VivadoProject.OUTPUT_DCP_NAME);
+            Path logPath = islandPath.resolve(Job.DEFAULT_COMMAND_LOG_FILE);
+            int leafCellNum = getLeafCellNumOfIsland(loc);
+            long memoryMB = resourceAware ? jobResourceEstimator.estimateMemoryMB(islandName, leafCellNum) : 0;
+
+            Callable<Job> prepare = () -> {
+                Design islandDesign = createIslandDesignWithBoundary(completeDesign, loc, true);
+                setConstraintOnIsland(islandDesign, loc, true);
+                TclCmdFile islandTclFile = createTclFileForIsland(islandDesign, loc, true);
+                return jobBackend.createJob(islandDesign, islandPath, islandTclFile);
+            };
+
+            if (!parallelMerge) {
+                islandRunner.addTask(islandName, prepare, () -> {
+                    if (resourceAware) {
+                        jobResourceEstimator.recordJob(islandName, leafCellNum, logPath);
+                    }
+                    return Design.readCheckpoint(dcpPath.toString());
+                }, leafCellNum, VivadoProject.MAX_THREAD, memoryMB);
+                return;
+            }
+
+            // trackers are created here since the tracker tree is not thread-safe
+            RuntimeTracker readTimer = rootTimer.createRuntimeTracker("Read " + islandName, INGEST_TIMER_NAME);
+            RuntimeTracker planTimer = rootTimer.createRuntimeTracker("Plan " + islandName, INGEST_TIMER_NAME);
+            islandRunner.addTask(islandName, prepare, () -> {
+                if (resourceAware) {
+                    jobResourceEstimator.recordJob(islandName, leafCellNum, logPath);
+                }
+                readPermits.acquire();
+                try {
+                    readTimer.start();
+                    Design islandDesign = Design.readCheckpoint(dcpPath.toString());
+                    readTimer.stop();
+
+                    planTimer.start();
+                    ImplementationCopyPlan copyPlan = DesignTools.planImplementationCopy(islandDesign, true, Map.of(islandName, islandName));
+                    islandName2CopyPlan.put(islandName, copyPlan);
+                    planTimer.stop();
+                    return islandDesign;
+                } finally {
+                    readPermits.release();
+                }
+            }, leafCellNum, VivadoProject.MAX_THREAD, memoryMB);
+        });
+        return islandRunner;
+    }
+
     private Set<EDIFCellInst>[][] buildPartialIslands() {
         Set<EDIFCellInst>[][] partialIslands = new HashSet[gridDim.getX()][gridDim.getY()];
         Integer[][] partialIslandSizes = new Integer[gridDim.getX()][gridDim.getY()];
@@ -380,6 +473,7 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         createCellInst.loc2PblockRange = this::getPblockRangeOfVertBoundary;
         createCellInst.setDontTouch = true;
         vertBoundaryDim.traverse(createCellInst);
+        createCellInst.extractPartialNetlists();
 
         connectCellInstsOfCustomCell(topCell, netlistDB.originTopCell);
 
@@ -428,7 +522,6 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
 
     private Design createIslandDesignWithBoundary(Design completeDesign, Coordinate2D islandLoc, boolean blackboxBoundary) {
         logger.info("Start creating design with blackbox boundary for island" + islandLoc.toString());
-        logger.newSubStep();
 
         String designName = getIslandName(islandLoc) + "_boundary";
 
@@ -496,7 +589,6 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         //     }
         // });
 
-        logger.endSubStep();
         logger.info("Complete creating design with blackbox boundary for island" + islandLoc.toString());
 
         design.setAutoIOBuffers(false);
@@ -731,7 +823,7 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
         return design;
     }
 
-    private Design readAndCreateMergedDesign() {
+    private Design readAndCreateMergedDesign(Map<String, Design> islandName2Design) {
         Design design = new Design("complete", netlistDB.partName);
         EDIFNetlist netlist = design.getNetlist();
         EDIFCell topCell = netlist.getTopCell();
@@ -764,13 +856,11 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
             boundaryCellNamesMap.put(cellName, cellName);
         });
 
-        //// copy netlist of island designs
-        Design[][] islandDesigns = new Design[gridDim.getX()][gridDim.getY()];
+        //// copy netlist of island designs, which are read while island jobs are running
         gridDim.traverse((Coordinate2D loc) -> {
             String islandName = getIslandName(loc);
-            Path dcpPath = dirManager.addSubDir(islandName).resolve(VivadoProject.OUTPUT_DCP_NAME);
-            Design islandDesign = Design.readCheckpoint(dcpPath.toString());
-            islandDesigns[loc.getX()][loc.getY()] = islandDesign;
+            Design islandDesign = islandName2Design.get(islandName);
+            assert islandDesign != null: "Routed design of " + islandName + " not found";
 
             EDIFCell islandCell = islandDesign.getNetlist().getCell(islandName);
             netlist.copyCellAndSubCells(islandCell);
@@ -785,9 +875,25 @@ public class FastParallelIslandPnR extends AbstractPhysicalImpl{
 
         gridDim.traverse((Coordinate2D loc) -> {
             String islandName = getIslandName(loc);
-            Design islandDesign = islandDesigns[loc.getX()][loc.getY()];
-            DesignTools.copyImplementation(islandDesign, design, false, true, false, false, Map.of(islandName, islandName));        
+            ImplementationCopyPlan copyPlan = islandName2CopyPlan.get(islandName);
+            if (copyPlan == null) {
+                Design islandDesign = islandName2Design.get(islandName);
+                DesignTools.copyImplementation(islandDesign, design, false, true, false, false, Map.of(islandName, islandName));
+                return;
+            }
+
+            // source-side work is done while reading, only insertion into the merged design is serialized
+            RuntimeTracker applyTimer = rootTimer.createRuntimeTracker("Apply " + islandName, MERGE_TIMER_NAME);
+            applyTimer.start();
+            DesignTools.applyImplementationCopy(copyPlan, design, false, false, false);
+            applyTimer.stop();
+
+            double readTime = rootTimer.getRuntimeTracker("Read " + islandName).getTimeInSec();
+            double planTime = rootTimer.getRuntimeTracker("Plan " + islandName).getTimeInSec();
+            logger.info(String.format("Merge %s: %d cells, %d nets (read %.2f sec, plan %.2f sec, apply %.2f sec)", islandName,
+                copyPlan.getCellNum(), copyPlan.getNetNum(), readTime, planTime, applyTimer.getTimeInSec()));
         });
+        islandName2CopyPlan.clear();
 
         VivadoTclCmd.createClocks(design, clkName2PeriodMap);
         VivadoTclCmd.setAsyncClockGroupsForEachClk(design, clkName2PeriodMap.keySet());
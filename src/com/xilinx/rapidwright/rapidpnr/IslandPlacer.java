@@ -18,8 +18,10 @@ import java.util.stream.Collectors;
 import com.xilinx.rapidwright.rapidpnr.partitioner.AbstractPartitioner;
 import com.xilinx.rapidwright.rapidpnr.partitioner.Coarser;
 import com.xilinx.rapidwright.rapidpnr.partitioner.FMPartitioner;
+import com.xilinx.rapidwright.rapidpnr.partitioner.GridIslandRefiner;
 import com.xilinx.rapidwright.rapidpnr.partitioner.ILPIslandPartitioner;
 import com.xilinx.rapidwright.rapidpnr.partitioner.MultiLevelPartitioner;
+import com.xilinx.rapidwright.rapidpnr.partitioner.TritonNativePartitioner;
 import com.xilinx.rapidwright.rapidpnr.partitioner.TritonPartitionWrapper;
 import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
 import com.xilinx.rapidwright.rapidpnr.utils.DirectoryManager;
@@ -50,7 +52,8 @@ public class IslandPlacer extends AbstractIslandPlacer {
     
     public IslandPlacer(HierarchicalLogger logger, DirectoryManager dirManager, DesignParams designParams) {
         super(logger, dirManager, designParams);
-        assert allowedGridDim.contains(gridDim): "Unsupported grid dimension: " + gridDim.toString();
+        boolean isKWayKernel = designParams.getPartitionKernel() == DesignParams.PartitionKernel.GRID_KWAY;
+        assert allowedGridDim.contains(gridDim) || isKWayKernel: "Unsupported grid dimension: " + gridDim.toString();
     }
 
     public List<Coordinate2D> run(AbstractNetlist abstractNetlist) {
@@ -69,7 +72,22 @@ public class IslandPlacer extends AbstractIslandPlacer {
             singleBoundaryPartitionPlace();
         } else {
             ilpPartialPlace(designParams.getPrePlaceResTypes());
-            genericPartitionPlace();
+            Set<Integer> prePlacedNodes = new HashSet<>();
+            for (int nodeId = 0; nodeId < netlistGraph.getNodeNum(); nodeId++) {
+                if (getXLocOfNode(nodeId) != -1) {
+                    prePlacedNodes.add(nodeId);
+                }
+            }
+
+            if (designParams.getPartitionKernel() == DesignParams.PartitionKernel.GRID_KWAY) {
+                kWayPartitionPlace();
+            } else {
+                genericPartitionPlace();
+            }
+
+            if (designParams.isGridRefineEnabled()) {
+                gridRefinePlace(prePlacedNodes);
+            }
         }
 
         buildNode2IslandMap();
@@ -172,6 +190,130 @@ public class IslandPlacer extends AbstractIslandPlacer {
         logger.info("Complete generic partition-based placement");
     }
 
+    private void kWayPartitionPlace() {
+        logger.info("Start k-way partition-based placement");
+        logger.newSubStep();
+
+        // partition into all islands at once with block id of each island from gridDim.getIdxOf
+        Map<Integer, Integer> fixedNodes = new HashMap<>();
+        for (int nodeId = 0; nodeId < netlistGraph.getNodeNum(); nodeId++) {
+            Coordinate2D loc = getLocOfNode(nodeId);
+            if (loc.getX() != -1) {
+                assert loc.getY() != -1;
+                fixedNodes.put(nodeId, gridDim.getIdxOf(loc));
+            }
+        }
+
+        List<Double> imbFactors = Collections.nCopies(netlistGraph.getNodeWeightDim(), designParams.getImbalanceFac());
+        MultiLevelPartitioner.Config config = new MultiLevelPartitioner.Config();
+        config.gridDim = gridDim;
+        config.blockNum = gridDim.getX() * gridDim.getY();
+        config.imbFactors = imbFactors;
+        config.randomSeed = designParams.getRandomSeed();
+        config.parallelRunNum = designParams.getParallelRunNum();
+        config.sharedHierarchyNum = designParams.getSharedHierarchyNum();
+        config.coarserConfig.levelShrinkRatio = designParams.getCoarserLevelShrinkRatio();
+        config.coarserConfig.maxNodeSizeRatio = designParams.getCoarserMaxNodeSizeRatio();
+        config.coarserConfig.scheme = designParams.getCoarserScheme();
+        config.coarserConfig.deterministic = designParams.isCoarserDeterministic();
+
+        MultiLevelPartitioner partitioner = new MultiLevelPartitioner(logger, config, netlistGraph);
+        partitioner.setFixedNodes(fixedNodes);
+        List<Integer> partResult = partitioner.run();
+
+        List<Integer> node2XLoc = new ArrayList<>();
+        List<Integer> node2YLoc = new ArrayList<>();
+        for (int blockId : partResult) {
+            Coordinate2D loc = gridDim.getLocOf(blockId);
+            node2XLoc.add(loc.getX());
+            node2YLoc.add(loc.getY());
+        }
+        updateXLocOfNodes(node2XLoc);
+        updateYLocOfNodes(node2YLoc);
+
+        logger.endSubStep();
+        logger.info("Complete k-way partition-based placement");
+    }
+
+    private void gridRefinePlace(Set<Integer> prePlacedNodes) {
+        logger.info("Start grid-aware refinement of island placement");
+        logger.newSubStep();
+
+        // node weights of refinement graph: logic size followed by critical resources
+        List<String> resTypes = new ArrayList<>(checkResTypes);
+        Collections.sort(resTypes);
+        List<List<Integer>> singleNodes = new ArrayList<>();
+        for (int nodeId = 0; nodeId < netlistGraph.getNodeNum(); nodeId++) {
+            singleNodes.add(Arrays.asList(nodeId));
+        }
+        HierHyperGraph refineGraph = netlistGraph.createClusteredChildGraph(singleNodes, false);
+        refineGraph.setNodeWeightsFactor(Collections.nCopies(resTypes.size() + 1, 1.0));
+        for (int nodeId = 0; nodeId < refineGraph.getNodeNum(); nodeId++) {
+            int parentId = refineGraph.getParentsOfNode(nodeId).get(0);
+            List<Double> weights = new ArrayList<>();
+            weights.add(netlistGraph.getNodeWeight(parentId, 0));
+            Map<String, Integer> resUtil = abstractNetlist.getResUtilOfNode(parentId);
+            for (String resType : resTypes) {
+                weights.add((double) resUtil.getOrDefault(resType, 0));
+            }
+            refineGraph.setNodeWeights(nodeId, weights);
+        }
+
+        List<Coordinate2D> initialLocs = new ArrayList<>();
+        Set<Integer> fixedNodes = new HashSet<>();
+        for (int nodeId = 0; nodeId < refineGraph.getNodeNum(); nodeId++) {
+            int parentId = refineGraph.getParentsOfNode(nodeId).get(0);
+            initialLocs.add(getLocOfNode(parentId));
+            if (prePlacedNodes.contains(parentId)) {
+                fixedNodes.add(nodeId);
+            }
+        }
+
+        // logic size follows the balance constraint of partitioners and resources follow island limits,
+        // islands already beyond limits are only kept from growing
+        int islandNum = gridDim.getX() * gridDim.getY();
+        double totalLogicSize = refineGraph.getTotalNodeWeight().get(0);
+        double imbFactor = designParams.getImbalanceFac();
+        List<List<Double>> islandSizes = new ArrayList<>();
+        for (int islandId = 0; islandId < islandNum; islandId++) {
+            islandSizes.add(new ArrayList<>(Collections.nCopies(resTypes.size() + 1, 0.0)));
+        }
+        for (int nodeId = 0; nodeId < refineGraph.getNodeNum(); nodeId++) {
+            HyperGraph.accuWeights(islandSizes.get(gridDim.getIdxOf(initialLocs.get(nodeId))), refineGraph.getWeightsOfNode(nodeId));
+        }
+
+        GridIslandRefiner.Config config = new GridIslandRefiner.Config();
+        config.gridDim = gridDim;
+        config.gridLimits = new ArrayList<>();
+        config.gridLowerLimits = new ArrayList<>();
+        for (int islandId = 0; islandId < islandNum; islandId++) {
+            Coordinate2D loc = gridDim.getLocOf(islandId);
+            List<Double> islandSize = islandSizes.get(islandId);
+            List<Double> upperLimits = new ArrayList<>();
+            List<Double> lowerLimits = new ArrayList<>();
+            upperLimits.add(Math.max(totalLogicSize * (1.0 / islandNum + imbFactor), islandSize.get(0)));
+            lowerLimits.add(Math.min(Math.max(totalLogicSize * (1.0 / islandNum - imbFactor), 0.0), islandSize.get(0)));
+            for (int i = 0; i < resTypes.size(); i++) {
+                upperLimits.add(Math.max((double) designParams.getGridLimit(resTypes.get(i), loc), islandSize.get(i + 1)));
+                lowerLimits.add(0.0);
+            }
+            config.gridLimits.add(upperLimits);
+            config.gridLowerLimits.add(lowerLimits);
+        }
+
+        GridIslandRefiner refiner = new GridIslandRefiner(logger, config, refineGraph);
+        refiner.setFixedNodes(fixedNodes);
+        List<Coordinate2D> refinedLocs = refiner.run(initialLocs);
+
+        for (int nodeId = 0; nodeId < refineGraph.getNodeNum(); nodeId++) {
+            int parentId = refineGraph.getParentsOfNode(nodeId).get(0);
+            node2IslandLoc.set(parentId, refinedLocs.get(nodeId));
+        }
+
+        logger.endSubStep();
+        logger.info("Complete grid-aware refinement of island placement");
+    }
+
     private void singleBoundaryPartitionPlace() {
         logger.info("Start partition-based placement with single boundary constraint");
         logger.newSubStep();
@@ -421,14 +563,30 @@ public class IslandPlacer extends AbstractIslandPlacer {
                 break;
             }
 
-            case CUSTOM: {
+            case TRITON_NATIVE: {
+                TritonNativePartitioner.Config config = new TritonNativePartitioner.Config();
+                config.randomSeed = designParams.getRandomSeed();
+                config.imbFactors = imbFactors;
+                config.initialSolutionNum = Math.max(designParams.getParallelRunNum(), 1);
+                config.coarserScheme = designParams.getCoarserScheme();
+                logger.info("Imbalance Factors: " + imbFactors.toString());
+                logger.info("Random Seed: " + config.randomSeed);
+                partitioner = new TritonNativePartitioner(logger, config, graph);
+                break;
+            }
+
+            case CUSTOM:
+            case GRID_KWAY: { // bipartition for flows not supporting k-way
                 MultiLevelPartitioner.Config config = new MultiLevelPartitioner.Config();
                 config.imbFactors = imbFactors;
                 config.randomSeed = designParams.getRandomSeed();
                 config.parallelRunNum = designParams.getParallelRunNum();
+                config.sharedHierarchyNum = designParams.getSharedHierarchyNum();
                 Coarser.Config coarserCfg = config.coarserConfig;
                 coarserCfg.levelShrinkRatio = designParams.getCoarserLevelShrinkRatio();
                 coarserCfg.maxNodeSizeRatio = designParams.getCoarserMaxNodeSizeRatio();
+                coarserCfg.scheme = designParams.getCoarserScheme();
+                coarserCfg.deterministic = designParams.isCoarserDeterministic();
 
                 partitioner = new MultiLevelPartitioner(logger, config, graph);
                 break;
@@ -697,13 +855,20 @@ public class IslandPlacer extends AbstractIslandPlacer {
         logger.info("Std var of boundary cut size: " + boundarySizeStdVar.toString());
         List<Double> maxBoundarySize = StatisticsUtils.getMax(boundarySizes, 0);
         logger.info("Max boundary cut size: " + maxBoundarySize.toString());
+        for (List<Double> boundarySize : boundarySizes) {
+            logger.getMetrics().observe("island_boundary_cut_size", boundarySize.get(0));
+        }
         
         int totalEdgeLen = 0;
+        int cutEdgeWeight = 0;
         Map<Integer, Integer> len2EdgeWeight = new HashMap<>();
         for (int edgeId = 0; edgeId < netlistGraph.getEdgeNum(); edgeId++) {
             int edgeWeight = netlistGraph.getWeightsOfEdge(edgeId).get(0).intValue();
             int edgeLen = edgeLengths.get(edgeId);
             totalEdgeLen += edgeLen * edgeWeight;
+            if (edgeLen > 0) {
+                cutEdgeWeight += edgeWeight;
+            }
             if (len2EdgeWeight.containsKey(edgeLen)) {
                 len2EdgeWeight.put(edgeLen, len2EdgeWeight.get(edgeLen) + edgeWeight);
             } else {
@@ -711,6 +876,8 @@ public class IslandPlacer extends AbstractIslandPlacer {
             }
         }
         logger.info("Total length of edges: " + totalEdgeLen);
+        logger.getMetrics().setGauge("island_placement_edge_length", totalEdgeLen);
+        logger.getMetrics().setGauge("island_placement_cut_size", cutEdgeWeight);
         logger.info("Distribution of edge length:");
         for (Map.Entry<Integer, Integer> entry : len2EdgeWeight.entrySet()) {
             logger.info(entry.getKey() + ": " + entry.getValue());
@@ -0,0 +1,273 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+
+import com.xilinx.rapidwright.edif.EDIFCell;
+import com.xilinx.rapidwright.edif.EDIFCellInst;
+import com.xilinx.rapidwright.edif.EDIFNet;
+import com.xilinx.rapidwright.edif.EDIFPortInst;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.ParallelUtils;
+
+// Parallel counterpart of EdgeBasedClustering: cells and clustering nets are extracted once into an
+// integer-indexed graph and every cell repeatedly adopts the smallest label found on its clustering nets.
+// Without a size limit labels converge to connected components, i.e. the same groups as EdgeBasedClustering.
+// With a size limit a cell only joins a cluster with enough room left, so clustering nets may be cut.
+// Capped joins are applied serially in net order, so the clusters do not depend on the thread number.
+public class LabelPropagationClustering extends AbstractNetlist {
+
+    private static final int CHUNK_SIZE = 256;
+
+    private int threadNum = Runtime.getRuntime().availableProcessors();
+    private int maxLeafCellNum = Integer.MAX_VALUE;
+
+    // integer-indexed cell graph
+    private EDIFCellInst[] cellInsts;
+    private int[] cellLeafCellNum;
+    private int[] net2PinOffsets;
+    private int[] net2Pins;
+
+    private AtomicIntegerArray cell2Label;
+    private AtomicIntegerArray label2LeafCellNum;
+
+    public LabelPropagationClustering(HierarchicalLogger logger, Predicate<EDIFNet> netFilter) {
+        super(logger);
+        this.netFilter = netFilter;
+    }
+
+    public LabelPropagationClustering(HierarchicalLogger logger, Predicate<EDIFNet> netFilter, int maxLeafCellNum, int threadNum) {
+        this(logger, netFilter);
+        assert maxLeafCellNum > 0 && threadNum > 0;
+        this.maxLeafCellNum = maxLeafCellNum;
+        this.threadNum = threadNum;
+    }
+
+    @Override
+    protected boolean isLegalCutNet(EDIFNet net) {
+        return isSizeConstrained() || netFilter.test(net);
+    }
+
+    private boolean isSizeConstrained() {
+        return maxLeafCellNum != Integer.MAX_VALUE;
+    }
+
+    protected void buildNode2CellInstsMap() {
+        logger.info("Start building mapping between nodes and cellInsts");
+        logger.newSubStep();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+        try {
+            buildCellGraph(executor);
+            propagateLabels(executor);
+        } finally {
+            executor.shutdown();
+        }
+        buildNodesFromLabels();
+
+        logger.endSubStep();
+        logger.info("Complete building mapping between nodes and cellInsts");
+    }
+
+    private void buildCellGraph(ExecutorService executor) {
+        Map<EDIFCellInst, Integer> cellInst2Id = new HashMap<>();
+        Map<EDIFCell, Integer> cellType2LeafCellNum = new HashMap<>();
+        List<EDIFCellInst> cellInstList = new ArrayList<>();
+        for (EDIFCellInst cellInst : netlistDatabase.originTopCell.getCellInsts()) {
+            if (netlistDatabase.globalResetTreeCellInsts.contains(cellInst)) continue;
+            if (netlistDatabase.staticSourceCellInsts.contains(cellInst)) continue;
+            cellInst2Id.put(cellInst, cellInstList.size());
+            cellInstList.add(cellInst);
+        }
+
+        cellInsts = cellInstList.toArray(new EDIFCellInst[0]);
+        cellLeafCellNum = new int[cellInsts.length];
+        for (int cellId = 0; cellId < cellInsts.length; cellId++) {
+            EDIFCell cellType = cellInsts[cellId].getCellType();
+            cellLeafCellNum[cellId] = cellType2LeafCellNum.computeIfAbsent(cellType, NetlistUtils::getLeafCellNum);
+        }
+
+        // classify nets in parallel, nets skipped by EdgeBasedClustering are not clustering nets
+        List<EDIFNet> nets = new ArrayList<>(netlistDatabase.originTopCell.getNets());
+        boolean[] isClsNet = new boolean[nets.size()];
+        parallelFor(0, nets.size(), executor, idx -> {
+            EDIFNet net = nets.get(idx);
+            if (net.isVCC() || net.isGND()) return;
+            if (netlistDatabase.globalClockNets.contains(net)) return;
+            if (netlistDatabase.globalResetNets.contains(net)) return;
+            if (netlistDatabase.illegalNets.contains(net)) return;
+            if (netlistDatabase.ignoreNets.contains(net)) return;
+            isClsNet[idx] = !netFilter.test(net);
+        });
+
+        List<Integer> pinOffsets = new ArrayList<>();
+        List<Integer> pins = new ArrayList<>();
+        for (int idx = 0; idx < nets.size(); idx++) {
+            if (!isClsNet[idx]) continue;
+
+            int pinBegin = pins.size();
+            for (EDIFPortInst portInst : nets.get(idx).getPortInsts()) {
+                EDIFCellInst cellInst = portInst.getCellInst();
+                if (cellInst == null) continue; // Skip toplevel ports
+                Integer cellId = cellInst2Id.get(cellInst);
+                if (cellId == null) continue;
+                pins.add(cellId);
+            }
+            if (pins.size() - pinBegin > 1) {
+                pinOffsets.add(pinBegin);
+            } else {
+                pins.subList(pinBegin, pins.size()).clear();
+            }
+        }
+        pinOffsets.add(pins.size());
+
+        net2PinOffsets = pinOffsets.stream().mapToInt(Integer::intValue).toArray();
+        net2Pins = pins.stream().mapToInt(Integer::intValue).toArray();
+
+        logger.info(String.format("Cell graph: %d cells, %d clustering nets, %d pins", cellInsts.length, net2PinOffsets.length - 1, net2Pins.length));
+    }
+
+    // each sweep lowers the labels of all pins of a net to the smallest label on it, updates are applied
+    // in place so labels travel along several nets within one sweep
+    private void propagateLabels(ExecutorService executor) {
+        int cellNum = cellInsts.length;
+        cell2Label = new AtomicIntegerArray(cellNum);
+        label2LeafCellNum = new AtomicIntegerArray(cellNum);
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            cell2Label.set(cellId, cellId);
+            label2LeafCellNum.set(cellId, cellLeafCellNum[cellId]);
+        }
+
+        int netNum = net2PinOffsets.length - 1;
+        AtomicInteger movedCellNum = new AtomicInteger();
+        int sweepNum = 0;
+        if (isSizeConstrained()) {
+            int[] net2MinLabel = new int[netNum];
+            do {
+                movedCellNum.set(0);
+                // find the smallest label of each net in parallel, then join cells in net order
+                parallelFor(0, netNum, executor, netId -> {
+                    int minLabel = Integer.MAX_VALUE;
+                    for (int i = net2PinOffsets[netId]; i < net2PinOffsets[netId + 1]; i++) {
+                        minLabel = Math.min(minLabel, cell2Label.get(net2Pins[i]));
+                    }
+                    net2MinLabel[netId] = minLabel;
+                });
+                for (int netId = 0; netId < netNum; netId++) {
+                    for (int i = net2PinOffsets[netId]; i < net2PinOffsets[netId + 1]; i++) {
+                        if (moveCell(net2Pins[i], net2MinLabel[netId])) {
+                            movedCellNum.incrementAndGet();
+                        }
+                    }
+                }
+                sweepNum++;
+            } while (movedCellNum.get() > 0);
+
+            logger.info(String.format("Label propagation converged after %d sweeps", sweepNum));
+            return;
+        }
+
+        do {
+            movedCellNum.set(0);
+            parallelFor(0, netNum, executor, netId -> {
+                int minLabel = Integer.MAX_VALUE;
+                for (int i = net2PinOffsets[netId]; i < net2PinOffsets[netId + 1]; i++) {
+                    minLabel = Math.min(minLabel, cell2Label.get(net2Pins[i]));
+                }
+
+                int localMovedNum = 0;
+                for (int i = net2PinOffsets[netId]; i < net2PinOffsets[netId + 1]; i++) {
+                    if (moveCell(net2Pins[i], minLabel)) {
+                        localMovedNum++;
+                    }
+                }
+                if (localMovedNum > 0) {
+                    movedCellNum.addAndGet(localMovedNum);
+                }
+            });
+            sweepNum++;
+        } while (movedCellNum.get() > 0);
+
+        logger.info(String.format("Label propagation converged after %d sweeps", sweepNum));
+    }
+
+    // labels only decrease, so propagation terminates and without size limits reaches the component minimum
+    private boolean moveCell(int cellId, int targetLabel) {
+        while (true) {
+            int curLabel = cell2Label.get(cellId);
+            if (targetLabel >= curLabel) return false;
+
+            if (!isSizeConstrained()) {
+                if (cell2Label.compareAndSet(cellId, curLabel, targetLabel)) return true;
+                continue;
+            }
+
+            int leafCellNum = cellLeafCellNum[cellId];
+            if (label2LeafCellNum.addAndGet(targetLabel, leafCellNum) > maxLeafCellNum) {
+                label2LeafCellNum.addAndGet(targetLabel, -leafCellNum);
+                return false;
+            }
+
+            if (cell2Label.compareAndSet(cellId, curLabel, targetLabel)) {
+                label2LeafCellNum.addAndGet(curLabel, -leafCellNum);
+                return true;
+            }
+            label2LeafCellNum.addAndGet(targetLabel, -leafCellNum);
+        }
+    }
+
+    // node ids follow the first cell of each cluster in netlist order, as in EdgeBasedClustering
+    private void buildNodesFromLabels() {
+        cellInst2NodeIdMap = new HashMap<>();
+        node2CellInsts = new ArrayList<>();
+
+        int[] label2NodeId = new int[cellInsts.length];
+        Arrays.fill(label2NodeId, -1);
+        for (int cellId = 0; cellId < cellInsts.length; cellId++) {
+            int label = cell2Label.get(cellId);
+            if (label2NodeId[label] == -1) {
+                label2NodeId[label] = node2CellInsts.size();
+                node2CellInsts.add(new HashSet<>());
+            }
+            int nodeId = label2NodeId[label];
+            node2CellInsts.get(nodeId).add(cellInsts[cellId]);
+            cellInst2NodeIdMap.put(cellInsts[cellId], nodeId);
+        }
+
+        int maxNodeLeafCellNum = 0;
+        int[] node2LeafNum = new int[node2CellInsts.size()];
+        for (int cellId = 0; cellId < cellInsts.length; cellId++) {
+            int nodeId = label2NodeId[cell2Label.get(cellId)];
+            node2LeafNum[nodeId] += cellLeafCellNum[cellId];
+            maxNodeLeafCellNum = Math.max(maxNodeLeafCellNum, node2LeafNum[nodeId]);
+        }
+        logger.info(String.format("Number of clusters: %d, maximum leaf cells in a cluster: %d", node2CellInsts.size(), maxNodeLeafCellNum));
+
+        int grpCellInstsNum = cellInst2NodeIdMap.size();
+        int rstTreeCellInstsNum = netlistDatabase.globalResetTreeCellInsts.size();
+        int totalCellInstsNum = netlistDatabase.originTopCell.getCellInsts().size();
+        int staticSourceCellInstsNum = netlistDatabase.staticSourceCellInsts.size();
+        assert totalCellInstsNum == grpCellInstsNum + rstTreeCellInstsNum + staticSourceCellInstsNum;
+
+        cellInsts = null;
+        cellLeafCellNum = null;
+        net2PinOffsets = null;
+        net2Pins = null;
+        cell2Label = null;
+        label2LeafCellNum = null;
+    }
+
+    private void parallelFor(int begin, int end, ExecutorService executor, ParallelUtils.IndexedTask task) {
+        ParallelUtils.parallelFor(begin, end, CHUNK_SIZE, threadNum, executor, task);
+    }
+}
@@ -50,6 +50,10 @@ public class NetlistDatabase {
     public int calibratedLeafCellNum;
     public Map<EDIFCell, Integer> netlistLeafCellUtilMap;
 
+    //// PortInsts on top-level nets, indexed by dense ids
+    private List<EDIFPortInst> portInsts;
+    private Map<EDIFPortInst, Integer> portInst2IdMap;
+
 
     // Clustered Netlist Info
     public List<Set<EDIFCellInst>> group2CellInst;
@@ -62,6 +66,11 @@ public class NetlistDatabase {
     public List<Integer> group2LeafCellNum;
 
     public NetlistDatabase(HierarchicalLogger logger, Design design, DesignParams params) {
+        this(logger, design, params, null);
+    }
+
+    // traversals of the netlist are skipped if their results can be restored from stageCache
+    NetlistDatabase(HierarchicalLogger logger, Design design, DesignParams params, StageCache stageCache) {
 
         this.logger = logger;
         this.originNetlist = design.getNetlist();
@@ -93,11 +102,16 @@ public class NetlistDatabase {
         logger.info("Start building netlist database:");
         logger.newSubStep();
 
-        traverseGlobalClockNetwork(params.getClkPortNames());
-        traverseGlobalResetNetwork(params.getResetPortNames());
-        filterIllegalNets();
-        filterStaticSourceCellInsts();
-        collectResourceUtilInfo();
+        if (stageCache != null && stageCache.loadNetlistDatabase(this)) {
+            logger.info("Restore global nets, filters and resource utilization from stage cache");
+        } else {
+            traverseGlobalClockNetwork(params.getClkPortNames());
+            traverseGlobalResetNetwork(params.getResetPortNames());
+            filterIllegalNets();
+            filterStaticSourceCellInsts();
+            collectResourceUtilInfo();
+        }
+        indexPortInsts();
 
         logger.endSubStep();
         logger.info("Complete building netlist database");
@@ -290,6 +304,18 @@ public class NetlistDatabase {
         logger.info("Complete collecting resource utilization info");
     }
 
+    private void indexPortInsts() {
+        portInsts = new ArrayList<>();
+        portInst2IdMap = new HashMap<>();
+        for (EDIFNet net : originTopCell.getNets()) {
+            for (EDIFPortInst portInst : net.getPortInsts()) {
+                portInst2IdMap.put(portInst, portInsts.size());
+                portInsts.add(portInst);
+            }
+        }
+        logger.info("Total number of portInsts on top-level nets: " + portInsts.size());
+    }
+
     //
     public Device getTargetDevice() {
         return targetDevice;
@@ -331,6 +357,29 @@ public class NetlistDatabase {
         return staticSourceCellInsts.contains(cellInst);
     }
 
+    public int getPortInstNum() {
+        return portInsts.size();
+    }
+
+    public EDIFPortInst getPortInst(int id) {
+        return portInsts.get(id);
+    }
+
+    // portInsts created after the database was built, e.g. on inserted buffers, are appended
+    public int addPortInst(EDIFPortInst portInst) {
+        Integer id = portInst2IdMap.get(portInst);
+        if (id != null) return id;
+        portInst2IdMap.put(portInst, portInsts.size());
+        portInsts.add(portInst);
+        return portInsts.size() - 1;
+    }
+
+    // returns -1 for portInsts not connected to any top-level net
+    public int getPortInstId(EDIFPortInst portInst) {
+        Integer id = portInst2IdMap.get(portInst);
+        return id == null ? -1 : id;
+    }
+
     public void printToplevelPort() {
         logger.info("Top-level ports of original design: ");
         logger.newSubStep();
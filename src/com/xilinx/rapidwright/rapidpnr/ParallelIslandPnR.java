@@ -67,8 +67,7 @@ public class ParallelIslandPnR extends AbstractPhysicalImpl{
                     tclCmdFile = createTclCmdFileForIslandImpl(loc, false, false, false);
                 }
 
-                VivadoProject islandProject = new VivadoProject(islandDesign, workDir, tclCmdFile);
-                Job islandJob = islandProject.createVivadoJob();
+                Job islandJob = jobBackend.createJob(islandDesign, workDir, tclCmdFile);
                 jobQueue.addJob(islandJob);
             }
         }
@@ -77,8 +76,7 @@ public class ParallelIslandPnR extends AbstractPhysicalImpl{
         Design mergeDesign = createDesignForIslandMerge(loc2DesignWithBoundary);
         Path mergeDir = dirManager.addSubDir("merge");
         TclCmdFile mergeTclFile = createTclCmdFileForIslandMerge(loc2DesignWithBoundary.keySet());
-        VivadoProject mergeProject = new VivadoProject(mergeDesign, mergeDir, mergeTclFile);
-        Job mergeJob = mergeProject.createVivadoJob();
+        Job mergeJob = jobBackend.createJob(mergeDesign, mergeDir, mergeTclFile);
 
         // parallel impl of all islands
         RuntimeTracker subTimer = runtimeTrackerTree.createRuntimeTracker("parallel", rootTimerName);
@@ -141,8 +139,7 @@ public class ParallelIslandPnR extends AbstractPhysicalImpl{
                     tclCmdFile = createTclCmdFileForIslandImpl(loc, false, false, false);
                 }
 
-                VivadoProject islandProject = new VivadoProject(islandDesign, workDir, tclCmdFile);
-                Job islandJob = islandProject.createVivadoJob();
+                Job islandJob = jobBackend.createJob(islandDesign, workDir, tclCmdFile);
                 jobQueue.addJob(islandJob);
 
                 logger.info("Start running PnR of " + getIslandName(loc));
@@ -158,8 +155,7 @@ public class ParallelIslandPnR extends AbstractPhysicalImpl{
         Design mergeDesign = createDesignForIslandMerge(loc2DesignWithBoundary);
         Path mergeDir = dirManager.addSubDir("merge");
         TclCmdFile mergeTclFile = createTclCmdFileForIslandMerge(loc2DesignWithBoundary.keySet());
-        VivadoProject mergeProject = new VivadoProject(mergeDesign, mergeDir, mergeTclFile);
-        Job mergeJob = mergeProject.createVivadoJob();
+        Job mergeJob = jobBackend.createJob(mergeDesign, mergeDir, mergeTclFile);
 
         // parallel impl of all islands
         // RuntimeTracker subTimer = runtimeTrackerTree.createRuntimeTracker("parallel", rootTimerName);
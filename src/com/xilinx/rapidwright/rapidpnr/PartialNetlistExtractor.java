@@ -0,0 +1,224 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.xilinx.rapidwright.design.NetType;
+import com.xilinx.rapidwright.edif.EDIFCell;
+import com.xilinx.rapidwright.edif.EDIFCellInst;
+import com.xilinx.rapidwright.edif.EDIFDirection;
+import com.xilinx.rapidwright.edif.EDIFNet;
+import com.xilinx.rapidwright.edif.EDIFNetlist;
+import com.xilinx.rapidwright.edif.EDIFPort;
+import com.xilinx.rapidwright.edif.EDIFPortInst;
+import com.xilinx.rapidwright.edif.EDIFTools;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+
+// Copies partial netlists of several disjoint sets of cellInsts from the original top cell into new cells.
+// Nets of the original cell are bucketed by the partitions they touch in a single pass, then each partition
+// cell is emitted by its own worker. Partition cells must be created in advance and be distinct.
+class PartialNetlistExtractor {
+
+    private static class Partition {
+        EDIFCell newCell;
+        Set<EDIFCellInst> cellInsts;
+        List<EDIFNet> nets = new ArrayList<>();
+        List<EDIFPortInst> gndPortInsts = new ArrayList<>();
+        List<EDIFPortInst> vccPortInsts = new ArrayList<>();
+        EDIFNet gndNet;
+        EDIFNet vccNet;
+
+        int netNum = 0;
+        int partPinNum = 0;
+    }
+
+    private HierarchicalLogger logger;
+    private EDIFCell originCell;
+    private int threadNum;
+
+    private List<Partition> partitions = new ArrayList<>();
+    private Map<EDIFCellInst, Integer> cellInst2PartId = new HashMap<>();
+
+    public PartialNetlistExtractor(HierarchicalLogger logger, EDIFCell originCell, int threadNum) {
+        assert threadNum > 0;
+        this.logger = logger;
+        this.originCell = originCell;
+        this.threadNum = threadNum;
+    }
+
+    public void addPartition(EDIFCell newCell, Set<EDIFCellInst> cellInsts) {
+        Partition partition = new Partition();
+        partition.newCell = newCell;
+        partition.cellInsts = cellInsts;
+
+        int partId = partitions.size();
+        for (EDIFCellInst cellInst : cellInsts) {
+            Integer prevPartId = cellInst2PartId.put(cellInst, partId);
+            assert prevPartId == null: "CellInst " + cellInst.getName() + " is assigned to multiple partitions";
+        }
+        partitions.add(partition);
+    }
+
+    public void run() {
+        if (partitions.isEmpty()) return;
+
+        bucketNets();
+        prepareSharedCells();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadNum, partitions.size()));
+        List<Future<?>> futures = new ArrayList<>();
+        for (int partId = 0; partId < partitions.size(); partId++) {
+            int curPartId = partId;
+            futures.add(executor.submit(() -> emitPartition(curPartId)));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Partial netlist extraction failed", e);
+        } finally {
+            executor.shutdown();
+        }
+
+        for (Partition partition : partitions) {
+            logger.info("Copy partial netlist to cell: " + partition.newCell.getName());
+            logger.newSubStep();
+            logger.info("Number of cellInsts in the partial netlist: " + partition.cellInsts.size());
+            logger.info("Number of nets in the partial netlist: " + partition.netNum);
+            logger.info("Number of partition pins in the partial netlist: " + partition.partPinNum);
+            logger.endSubStep();
+        }
+    }
+
+    // single pass over the original nets, each net is added to every partition it has a pin in
+    private void bucketNets() {
+        boolean hasGndNet = false;
+        boolean hasVccNet = false;
+        List<Integer> touchedPartIds = new ArrayList<>();
+
+        for (EDIFNet net : originCell.getNets()) {
+            boolean isGnd = net.isGND();
+            if (isGnd || net.isVCC()) {
+                hasGndNet |= isGnd;
+                hasVccNet |= !isGnd;
+                for (EDIFPortInst portInst : net.getPortInsts()) {
+                    EDIFCellInst cellInst = portInst.getCellInst();
+                    if (cellInst == null) continue; // Skip top-level port
+                    if (cellInst.getCellType().isStaticSource()) continue;
+                    Integer partId = cellInst2PartId.get(cellInst);
+                    if (partId == null) continue;
+
+                    Partition partition = partitions.get(partId);
+                    (isGnd ? partition.gndPortInsts : partition.vccPortInsts).add(portInst);
+                }
+                continue;
+            }
+
+            touchedPartIds.clear();
+            for (EDIFPortInst portInst : net.getPortInsts()) {
+                EDIFCellInst cellInst = portInst.getCellInst();
+                if (cellInst == null) continue; // Skip top-level port
+                Integer partId = cellInst2PartId.get(cellInst);
+                if (partId == null || touchedPartIds.contains(partId)) continue;
+                touchedPartIds.add(partId);
+            }
+
+            for (Integer partId : touchedPartIds) {
+                partitions.get(partId).nets.add(net);
+            }
+        }
+
+        // static nets are created in every partition cell as long as the original cell has them
+        for (Partition partition : partitions) {
+            EDIFNetlist newNetlist = partition.newCell.getLibrary().getNetlist();
+            if (hasGndNet) {
+                partition.gndNet = EDIFTools.getStaticNet(NetType.GND, partition.newCell, newNetlist);
+            }
+            if (hasVccNet) {
+                partition.vccNet = EDIFTools.getStaticNet(NetType.VCC, partition.newCell, newNetlist);
+            }
+        }
+    }
+
+    // cell types are copied into the target netlists up front, workers then only modify their own cells
+    private void prepareSharedCells() {
+        for (Partition partition : partitions) {
+            EDIFNetlist newNetlist = partition.newCell.getLibrary().getNetlist();
+            assert !newNetlist.isTrackingCellChanges();
+
+            for (EDIFCellInst cellInst : partition.cellInsts) {
+                EDIFCell cellType = cellInst.getCellType();
+                assert !cellType.isStaticSource();
+                assert cellType.getLibrary().getNetlist() != newNetlist;
+
+                if (newNetlist.getCell(cellType.getName()) == null) {
+                    newNetlist.copyCellAndSubCells(cellType);
+                }
+            }
+        }
+    }
+
+    private void emitPartition(int partId) {
+        Partition partition = partitions.get(partId);
+        EDIFCell newCell = partition.newCell;
+        EDIFNetlist newNetlist = newCell.getLibrary().getNetlist();
+
+        //// Copy CellInsts
+        Map<EDIFCellInst, EDIFCellInst> cellInst2NewCellInst = new HashMap<>();
+        for (EDIFCellInst cellInst : partition.cellInsts) {
+            EDIFCell newCellType = newNetlist.getCell(cellInst.getCellType().getName());
+            EDIFCellInst newCellInst = newCell.createChildCellInst(cellInst.getName(), newCellType);
+            newCellInst.setPropertiesMap(cellInst.createDuplicatePropertiesMap());
+            cellInst2NewCellInst.put(cellInst, newCellInst);
+        }
+
+        //// Copy Nets
+        for (EDIFPortInst portInst : partition.gndPortInsts) {
+            partition.gndNet.createPortInst(portInst.getName(), cellInst2NewCellInst.get(portInst.getCellInst()));
+        }
+        for (EDIFPortInst portInst : partition.vccPortInsts) {
+            partition.vccNet.createPortInst(portInst.getName(), cellInst2NewCellInst.get(portInst.getCellInst()));
+        }
+
+        for (EDIFNet net : partition.nets) {
+            EDIFNet newNet = newCell.createNet(net.getName());
+            partition.netNum += 1;
+
+            // check if the net has out of partition portInsts
+            boolean hasOutOfPartPortInst = false;
+            boolean isSrcPortOutOfPart = false;
+            for (EDIFPortInst portInst : net.getPortInsts()) {
+                EDIFCellInst cellInst = portInst.getCellInst();
+                if (cellInst == null) { // Top-level port
+                    hasOutOfPartPortInst = true;
+                    isSrcPortOutOfPart |= portInst.isInput();
+                    continue;
+                }
+
+                EDIFCellInst newCellInst = cellInst2NewCellInst.get(cellInst);
+                if (newCellInst == null) {
+                    hasOutOfPartPortInst = true;
+                    isSrcPortOutOfPart |= portInst.isOutput();
+                } else {
+                    newNet.createPortInst(portInst.getName(), newCellInst);
+                }
+            }
+
+            if (hasOutOfPartPortInst) {
+                partition.partPinNum += 1;
+                EDIFDirection dir = isSrcPortOutOfPart ? EDIFDirection.INPUT : EDIFDirection.OUTPUT;
+                EDIFPort newPort = newCell.createPort(newNet.getName(), dir, 1);
+                newNet.createPortInst(newPort);
+            }
+        }
+    }
+}
@@ -16,7 +16,9 @@ import com.xilinx.rapidwright.edif.EDIFNet;
 import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
 import com.xilinx.rapidwright.rapidpnr.utils.DirectoryManager;
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.MetricsRegistry;
 import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.SyntheticNetlistGenerator;
 import com.xilinx.rapidwright.util.RuntimeTracker;
 import com.xilinx.rapidwright.util.RuntimeTrackerTree;
 
@@ -52,6 +54,8 @@ public class RapidPnR {
     private AbstractNetlist abstractNetlist;
     private List<Coordinate2D> abstractNodeLoc;
 
+    private StageCache stageCache;
+
     public RapidPnR(String jsonFilePath, Boolean enableLogger) {
         // read design parameters from json file
         Path jsonPath = Path.of(jsonFilePath).toAbsolutePath();
@@ -63,8 +67,14 @@ public class RapidPnR {
         // setup logger
         setupLogger(enableLogger);
 
-        // setup runtime tracker
+        // setup runtime tracker, each stage is recorded in the metrics of the logger
         rootTimer = new RuntimeTrackerTree("RapidPnR", false);
+        logger.getMetrics().setCommonLabel("design", designParams.getDesignName());
+        rootTimer.setListener(logger.getMetrics().createStageListener());
+
+        if (designParams.isStageCacheEnabled()) {
+            stageCache = new StageCache(logger, designParams);
+        }
     }
 
     protected void setupLogger(Boolean enableLogger) {
@@ -85,19 +95,35 @@ public class RapidPnR {
     }
 
     protected void readInputDesign() {
+        RuntimeTracker timer = createSubTimer("Read Design");
+        timer.start();
+        if (designParams.isSyntheticNetlist()) {
+            inputDesign = SyntheticNetlistGenerator.generate(logger, designParams.getDesignName(), designParams.getSyntheticNetlistConfig());
+            timer.stop();
+            return;
+        }
+
         logger.info("Reading input design checkpoint: " + designParams.getInputDcpPath().toString());
 
         inputDesign = Design.readCheckpoint(designParams.getInputDcpPath().toString());
 
         logger.info("Read input design checkpoint successfully");
+        timer.stop();
     }
 
     public void setupNetlistDatabase() {
+        setupNetlistDatabase(false);
+    }
+
+    private void setupNetlistDatabase(boolean restore) {
         RuntimeTracker timer = createSubTimer("Setup NetlistDB");
         timer.start();
 
         logger.infoHeader("Setup Netlist Database");
-        netlistDatabase = new NetlistDatabase(logger, inputDesign, designParams);
+        netlistDatabase = new NetlistDatabase(logger, inputDesign, designParams, restore ? stageCache : null);
+        if (stageCache != null && !stageCache.isLoaded(RapidPnRStep.DATABASE_SETUP)) {
+            stageCache.saveNetlistDatabase(netlistDatabase);
+        }
         
         logger.info("Information of netlist database:");
         logger.newSubStep();
@@ -122,12 +148,32 @@ public class RapidPnR {
         } else {
             netFilter = new EdgeBasedClustering.CLBAwareFilter(abstractLevel);
         }
-        abstractNetlist = new EdgeBasedClustering(logger, netFilter);
+        if (designParams.getClusteringMethod() == DesignParams.ClusteringMethod.LABEL_PROPAGATION) {
+            int threadNum = Runtime.getRuntime().availableProcessors();
+            abstractNetlist = new LabelPropagationClustering(logger, netFilter, designParams.getClusterMaxLeafCellNum(), threadNum);
+        } else {
+            abstractNetlist = new EdgeBasedClustering(logger, netFilter);
+        }
         abstractNetlist.buildAbstractNetlist(netlistDatabase);
         abstractNetlist.printAbstractNetlistInfo();
+        if (stageCache != null) {
+            stageCache.saveAbstractNetlist(abstractNetlist, netlistDatabase);
+        }
         timer.stop();
     }
 
+    private boolean restoreNetlistAbstraction() {
+        RuntimeTracker timer = createSubTimer("Restore Netlist Abstraction");
+        timer.start();
+        logger.infoHeader("Restore Netlist Abstraction");
+        abstractNetlist = stageCache.loadAbstractNetlist(netlistDatabase);
+        if (abstractNetlist != null) {
+            abstractNetlist.printAbstractNetlistInfo();
+        }
+        timer.stop();
+        return abstractNetlist != null;
+    }
+
     private void runIslandPlacement() {
         RuntimeTracker timer = createSubTimer("Island Placement");
         timer.start();
@@ -136,7 +182,19 @@ public class RapidPnR {
 
         islandPlacer = new IslandPlacer(logger, dirManager, designParams);
         abstractNodeLoc = islandPlacer.run(abstractNetlist);
+        if (stageCache != null) {
+            stageCache.saveIslandPlacement(abstractNodeLoc);
+        }
+        timer.stop();
+    }
+
+    private boolean restoreIslandPlacement() {
+        RuntimeTracker timer = createSubTimer("Restore Island Placement");
+        timer.start();
+        logger.infoHeader("Restore Island Placement");
+        abstractNodeLoc = stageCache.loadIslandPlacement(abstractNetlist);
         timer.stop();
+        return abstractNodeLoc != null;
     }
 
     private void runPhysicalImplementation() {
@@ -155,26 +213,44 @@ public class RapidPnR {
     }
 
     public void run(RapidPnRStep endStep) {
+        run(RapidPnRStep.READ_DESIGN, endStep);
+    }
+
+    // results of steps before startStep are restored from the stage cache,
+    // steps without a valid cache entry are run again
+    public void run(RapidPnRStep startStep, RapidPnRStep endStep) {
+        assert startStep.ordinal() <= endStep.ordinal();
         logger.info("Start running RapidPnR");
 
+        if (startStep != RapidPnRStep.READ_DESIGN && stageCache == null) {
+            logger.warning("Stage cache is disabled, run all steps before " + startStep);
+        }
+
         RapidPnRStep[] orderedSteps = RapidPnRStep.getOrderedSteps();
+        boolean restorable = stageCache != null;
 
         for (RapidPnRStep step : orderedSteps) {
+            boolean restore = restorable && step.ordinal() < startStep.ordinal();
             switch (step) {
                 case READ_DESIGN:
+                    // netlist and device of the input design are required by all later steps
                     readInputDesign();
                     break;
 
                 case DATABASE_SETUP:
-                    setupNetlistDatabase();
+                    setupNetlistDatabase(restore);
                     break;
                 
                 case NETLIST_ABSTRACTION:
-                    runNetlistAbstraction();
+                    if (!restore || !restoreNetlistAbstraction()) {
+                        runNetlistAbstraction();
+                    }
                     break;
 
                 case ISLAND_PLACEMENT:
-                    runIslandPlacement();
+                    if (!restore || !restoreIslandPlacement()) {
+                        runIslandPlacement();
+                    }
                     break;
                 
                 case PHYSICAL_IMPLEMENTATION:
@@ -185,16 +261,29 @@ public class RapidPnR {
                     break;
             }
 
+            // results of later steps may depend on details of a rerun step, e.g. ids of abstract nodes
+            restorable = restorable && (step == RapidPnRStep.READ_DESIGN || stageCache.isLoaded(step));
+
             if (step == endStep) {
                 break;
             }
         }
 
         logger.info(rootTimer.toString());
+        exportMetrics();
 
         logger.info("Complete running RapidPnR");
     }
 
+    private void exportMetrics() {
+        MetricsRegistry.Format format = designParams.getMetricsFormat();
+        if (format == MetricsRegistry.Format.NONE) return;
+
+        Path metricsPath = dirManager.getRootDir().resolve("metrics." + format.getFileExtension());
+        logger.getMetrics().export(metricsPath, format);
+        logger.info("Export metrics of RapidPnR to " + metricsPath);
+    }
+
     public void run() {
         run(RapidPnRStep.getLastStep());
     }
@@ -0,0 +1,506 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.gson.Gson;
+
+import com.xilinx.rapidwright.edif.EDIFCell;
+import com.xilinx.rapidwright.edif.EDIFCellInst;
+import com.xilinx.rapidwright.edif.EDIFLibrary;
+import com.xilinx.rapidwright.edif.EDIFNet;
+import com.xilinx.rapidwright.rapidpnr.RapidPnR.RapidPnRStep;
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+
+// On-disk cache of the results of RapidPnR stages, so that a run can resume from any stage.
+// Entries are keyed by a digest of the input DCP and of the DesignParams fields the stage and its
+// predecessors depend on. CellInsts and nets are stored as indices into the top cell of the re-read
+// netlist, a fingerprint of the top cell guards against a different iteration order.
+class StageCache {
+    private static final int CACHE_MAGIC = 0x52505343; // "RPSC"
+    private static final int CACHE_VERSION = 1;
+    private static final int DIGEST_BUFFER_SIZE = 1 << 20;
+
+    private HierarchicalLogger logger;
+    private DesignParams params;
+    private Path cacheDir;
+
+    private byte[] dcpDigest;
+    private Map<RapidPnRStep, String> step2Key = new HashMap<>();
+    private Set<RapidPnRStep> loadedSteps = new HashSet<>();
+
+    // dense ids of top cell objects, built lazily once the netlist has been read
+    private EDIFCell indexedTopCell;
+    private List<EDIFCellInst> cellInsts;
+    private Map<EDIFCellInst, Integer> cellInst2IdMap;
+    private List<EDIFNet> nets;
+    private Map<EDIFNet, Integer> net2IdMap;
+    private long netlistFingerprint;
+
+    public StageCache(HierarchicalLogger logger, DesignParams params) {
+        assert params.isStageCacheEnabled();
+        this.logger = logger;
+        this.params = params;
+        this.cacheDir = params.getStageCacheDir();
+    }
+
+    public boolean isLoaded(RapidPnRStep step) {
+        return loadedSteps.contains(step);
+    }
+
+    //// NetlistDatabase
+    public void saveNetlistDatabase(NetlistDatabase netlistDatabase) {
+        indexNetlist(netlistDatabase.originTopCell);
+        writeEntry(RapidPnRStep.DATABASE_SETUP, output -> {
+            writeNets(output, netlistDatabase.globalClockNets);
+            writeNets(output, netlistDatabase.globalResetNets);
+            writeCellInsts(output, netlistDatabase.globalResetTreeCellInsts);
+            writeNets(output, netlistDatabase.illegalNets);
+            writeCellInsts(output, netlistDatabase.staticSourceCellInsts);
+
+            writeVarInt(output, netlistDatabase.netlistUnisimCellNum);
+            writeVarInt(output, netlistDatabase.netlistLeafCellNum);
+            writeVarInt(output, netlistDatabase.calibratedLeafCellNum);
+            writeVarInt(output, netlistDatabase.netlistLeafCellUtilMap.size());
+            for (Map.Entry<EDIFCell, Integer> entry : netlistDatabase.netlistLeafCellUtilMap.entrySet()) {
+                output.writeUTF(entry.getKey().getLibrary().getName());
+                output.writeUTF(entry.getKey().getName());
+                writeVarInt(output, entry.getValue());
+            }
+        });
+    }
+
+    // fills filters and resource utils of a NetlistDatabase whose traversals were skipped
+    public boolean loadNetlistDatabase(NetlistDatabase netlistDatabase) {
+        indexNetlist(netlistDatabase.originTopCell);
+        return readEntry(RapidPnRStep.DATABASE_SETUP, input -> {
+            Set<EDIFNet> globalClockNets = readNets(input);
+            Set<EDIFNet> globalResetNets = readNets(input);
+            Set<EDIFCellInst> globalResetTreeCellInsts = readCellInsts(input);
+            Set<EDIFNet> illegalNets = readNets(input);
+            Set<EDIFCellInst> staticSourceCellInsts = readCellInsts(input);
+
+            int unisimCellNum = readVarInt(input);
+            int leafCellNum = readVarInt(input);
+            int calibratedLeafCellNum = readVarInt(input);
+            int leafCellTypeNum = readVarInt(input);
+            Map<EDIFCell, Integer> leafCellUtilMap = new HashMap<>();
+            for (int i = 0; i < leafCellTypeNum; i++) {
+                String libName = input.readUTF();
+                String cellName = input.readUTF();
+                EDIFLibrary library = netlistDatabase.originNetlist.getLibrary(libName);
+                EDIFCell cell = library == null ? null : library.getCell(cellName);
+                if (cell == null) {
+                    throw new IOException("Leaf cell not found in netlist: " + libName + "." + cellName);
+                }
+                leafCellUtilMap.put(cell, readVarInt(input));
+            }
+
+            netlistDatabase.globalClockNets = globalClockNets;
+            netlistDatabase.globalResetNets = globalResetNets;
+            netlistDatabase.globalResetTreeCellInsts = globalResetTreeCellInsts;
+            netlistDatabase.illegalNets = illegalNets;
+            netlistDatabase.staticSourceCellInsts = staticSourceCellInsts;
+            netlistDatabase.netlistUnisimCellNum = unisimCellNum;
+            netlistDatabase.netlistLeafCellNum = leafCellNum;
+            netlistDatabase.calibratedLeafCellNum = calibratedLeafCellNum;
+            netlistDatabase.netlistLeafCellUtilMap = leafCellUtilMap;
+        });
+    }
+
+    //// AbstractNetlist
+    public void saveAbstractNetlist(AbstractNetlist abstractNetlist, NetlistDatabase netlistDatabase) {
+        indexNetlist(netlistDatabase.originTopCell);
+        writeEntry(RapidPnRStep.NETLIST_ABSTRACTION, output -> {
+            writeVarInt(output, abstractNetlist.node2CellInsts.size());
+            for (Set<EDIFCellInst> nodeCellInsts : abstractNetlist.node2CellInsts) {
+                writeCellInsts(output, nodeCellInsts);
+            }
+
+            writeVarInt(output, abstractNetlist.edge2NodeIds.size());
+            for (int edgeId = 0; edgeId < abstractNetlist.edge2NodeIds.size(); edgeId++) {
+                writeVarInt(output, net2IdMap.get(abstractNetlist.edge2OriginNet.get(edgeId)));
+                writeVarInt(output, abstractNetlist.edge2SourceNodeId.get(edgeId));
+                Set<Integer> nodeIds = abstractNetlist.edge2NodeIds.get(edgeId);
+                writeVarInt(output, nodeIds.size());
+                for (Integer nodeId : nodeIds) {
+                    writeVarInt(output, nodeId);
+                }
+            }
+        });
+    }
+
+    // returns null if no valid entry exists, resource utils of nodes are recomputed from cell types
+    public AbstractNetlist loadAbstractNetlist(NetlistDatabase netlistDatabase) {
+        indexNetlist(netlistDatabase.originTopCell);
+        RestoredAbstractNetlist abstractNetlist = new RestoredAbstractNetlist(logger);
+        boolean loaded = readEntry(RapidPnRStep.NETLIST_ABSTRACTION, input -> {
+            int nodeNum = readVarInt(input);
+            List<Set<EDIFCellInst>> node2CellInsts = new ArrayList<>(nodeNum);
+            Map<EDIFCellInst, Integer> cellInst2NodeIdMap = new HashMap<>();
+            List<Set<Integer>> node2EdgeIds = new ArrayList<>(nodeNum);
+            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+                Set<EDIFCellInst> nodeCellInsts = readCellInsts(input);
+                for (EDIFCellInst cellInst : nodeCellInsts) {
+                    cellInst2NodeIdMap.put(cellInst, nodeId);
+                }
+                node2CellInsts.add(nodeCellInsts);
+                node2EdgeIds.add(new HashSet<>());
+            }
+
+            int edgeNum = readVarInt(input);
+            List<Set<Integer>> edge2NodeIds = new ArrayList<>(edgeNum);
+            List<EDIFNet> edge2OriginNet = new ArrayList<>(edgeNum);
+            List<Integer> edge2SourceNodeId = new ArrayList<>(edgeNum);
+            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+                edge2OriginNet.add(nets.get(readId(input, nets.size())));
+                edge2SourceNodeId.add(readId(input, nodeNum));
+                int degree = readVarInt(input);
+                Set<Integer> nodeIds = new HashSet<>();
+                for (int i = 0; i < degree; i++) {
+                    int nodeId = readId(input, nodeNum);
+                    nodeIds.add(nodeId);
+                    node2EdgeIds.get(nodeId).add(edgeId);
+                }
+                edge2NodeIds.add(nodeIds);
+            }
+
+            abstractNetlist.cachedNode2CellInsts = node2CellInsts;
+            abstractNetlist.cachedCellInst2NodeIdMap = cellInst2NodeIdMap;
+            abstractNetlist.cachedNode2EdgeIds = node2EdgeIds;
+            abstractNetlist.cachedEdge2NodeIds = edge2NodeIds;
+            abstractNetlist.cachedEdge2OriginNet = edge2OriginNet;
+            abstractNetlist.cachedEdge2SourceNodeId = edge2SourceNodeId;
+        });
+
+        if (!loaded) return null;
+        abstractNetlist.buildAbstractNetlist(netlistDatabase);
+        return abstractNetlist;
+    }
+
+    //// Island Placement
+    public void saveIslandPlacement(List<Coordinate2D> abstractNodeLoc) {
+        writeEntry(RapidPnRStep.ISLAND_PLACEMENT, output -> {
+            writeVarInt(output, abstractNodeLoc.size());
+            for (Coordinate2D loc : abstractNodeLoc) {
+                writeVarInt(output, loc.getX());
+                writeVarInt(output, loc.getY());
+            }
+        });
+    }
+
+    public List<Coordinate2D> loadIslandPlacement(AbstractNetlist abstractNetlist) {
+        List<Coordinate2D> abstractNodeLoc = new ArrayList<>();
+        boolean loaded = readEntry(RapidPnRStep.ISLAND_PLACEMENT, input -> {
+            int nodeNum = readVarInt(input);
+            if (nodeNum != abstractNetlist.getNodeNum()) {
+                throw new IOException("Number of placed nodes mismatches abstract netlist: " + nodeNum);
+            }
+            for (int i = 0; i < nodeNum; i++) {
+                int x = readVarInt(input);
+                int y = readVarInt(input);
+                abstractNodeLoc.add(new Coordinate2D(x, y));
+            }
+        });
+        return loaded ? abstractNodeLoc : null;
+    }
+
+    //// Cache entries
+    private interface EntryWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    private interface EntryReader {
+        void read(DataInputStream input) throws IOException;
+    }
+
+    private void writeEntry(RapidPnRStep step, EntryWriter entryWriter) {
+        Path entryPath = getEntryPath(step);
+        Path tmpPath = entryPath.resolveSibling(entryPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cacheDir);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                output.writeInt(CACHE_MAGIC);
+                output.writeInt(CACHE_VERSION);
+                output.writeInt(step.ordinal());
+                output.writeLong(netlistFingerprint);
+                entryWriter.write(output);
+            }
+            // entries only become visible once complete, an interrupted run never leaves a partial entry
+            Files.move(tmpPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Save result of stage " + step + " to " + entryPath);
+        } catch (IOException e) {
+            logger.warning("Fail to save result of stage " + step + ": " + e.getMessage());
+        }
+    }
+
+    private boolean readEntry(RapidPnRStep step, EntryReader entryReader) {
+        Path entryPath = getEntryPath(step);
+        if (!Files.exists(entryPath)) {
+            logger.info("No cached result of stage " + step + " found in " + cacheDir);
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+            if (input.readInt() != CACHE_MAGIC) {
+                throw new IOException("Not a stage cache file");
+            }
+            int version = input.readInt();
+            if (version != CACHE_VERSION) {
+                throw new IOException("Unsupported stage cache version " + version);
+            }
+            if (input.readInt() != step.ordinal()) {
+                throw new IOException("Stage cache file of another stage");
+            }
+            if (input.readLong() != netlistFingerprint) {
+                throw new IOException("Fingerprint of netlist mismatches");
+            }
+            entryReader.read(input);
+        } catch (IOException e) {
+            logger.warning("Invalid cached result of stage " + step + " in " + entryPath + ": " + e.getMessage());
+            return false;
+        }
+
+        logger.info("Load result of stage " + step + " from " + entryPath);
+        loadedSteps.add(step);
+        return true;
+    }
+
+    private Path getEntryPath(RapidPnRStep step) {
+        String fileName = String.format("%s.%s.%s.bin", params.getDesignName(), step.name().toLowerCase(), getStageKey(step));
+        return cacheDir.resolve(fileName);
+    }
+
+    //// Cache keys
+    // key of a stage covers the input DCP and the parameters of the stage and all its predecessors
+    private String getStageKey(RapidPnRStep step) {
+        String key = step2Key.get(step);
+        if (key != null) return key;
+
+        MessageDigest digest = createDigest();
+        digest.update(getDcpDigest());
+        for (RapidPnRStep prevStep : RapidPnRStep.getOrderedSteps()) {
+            digest.update(getStageParams(prevStep).getBytes(StandardCharsets.UTF_8));
+            if (prevStep == step) break;
+        }
+        key = toHexString(digest.digest()).substring(0, 16);
+        step2Key.put(step, key);
+        return key;
+    }
+
+    private String getStageParams(RapidPnRStep step) {
+        List<String> values = new ArrayList<>();
+        switch (step) {
+            case DATABASE_SETUP:
+                values.add(params.getClkPortNames().toString());
+                values.add(params.getResetPortNames().toString());
+                values.add(new TreeSet<>(params.getIgnoreNetNames()).toString());
+                break;
+
+            case NETLIST_ABSTRACTION:
+                values.add(String.valueOf(params.getAbstractLevel()));
+                values.add(params.getClusteringMethod().toString());
+                values.add(String.valueOf(params.getClusterMaxLeafCellNum()));
+                values.add(String.valueOf(AbstractNetlist.calibrateLUTUtils));
+                break;
+
+            case ISLAND_PLACEMENT:
+                values.add(params.getGridDim().getX() + "x" + params.getGridDim().getY());
+                for (String resType : List.of("BRAM", "DSP", "URAM")) {
+                    values.add(params.getGridLimit(resType).toString());
+                }
+                values.add(new TreeSet<>(params.getPrePlaceResTypes()).toString());
+                values.add(String.valueOf(params.hasSingleBoundaryConstr()));
+                values.add(String.valueOf(params.getImbalanceFac()));
+                values.add(String.valueOf(params.getRandomSeed()));
+                values.add(String.valueOf(params.getParallelRunNum()));
+                values.add(String.valueOf(params.getSharedHierarchyNum()));
+                values.add(String.valueOf(params.getIgnoreEdgeDegree()));
+                values.add(String.valueOf(params.getExtIslandPlacerPath()));
+                values.add(String.valueOf(params.getIslandPlaceResPath()));
+                values.add(params.getPartitionKernel().toString());
+                values.add(String.valueOf(params.getCoarserLevelShrinkRatio()));
+                values.add(String.valueOf(params.getCoarserMaxNodeSizeRatio()));
+                values.add(params.getCoarserScheme().toString());
+                values.add(String.valueOf(params.isCoarserDeterministic()));
+                values.add(String.valueOf(params.isGridRefineEnabled()));
+                break;
+
+            default:
+                break;
+        }
+        return step.name() + values.toString();
+    }
+
+    private byte[] getDcpDigest() {
+        if (dcpDigest != null) return dcpDigest;
+
+        if (params.isSyntheticNetlist()) {
+            // the generator is deterministic for a given config
+            String config = new Gson().toJson(params.getSyntheticNetlistConfig());
+            dcpDigest = createDigest().digest(config.getBytes(StandardCharsets.UTF_8));
+            return dcpDigest;
+        }
+
+        Path dcpPath = params.getInputDcpPath();
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(dcpPath)) {
+            int readNum;
+            while ((readNum = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, readNum);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to compute digest of input DCP: " + dcpPath, e);
+        }
+        dcpDigest = digest.digest();
+        return dcpDigest;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    //// Netlist indexing
+    private void indexNetlist(EDIFCell topCell) {
+        if (indexedTopCell == topCell) return;
+        indexedTopCell = topCell;
+
+        cellInsts = new ArrayList<>(topCell.getCellInsts());
+        cellInst2IdMap = new HashMap<>();
+        long fingerprint = cellInsts.size();
+        for (EDIFCellInst cellInst : cellInsts) {
+            cellInst2IdMap.put(cellInst, cellInst2IdMap.size());
+            fingerprint = fingerprint * 31 + cellInst.getName().hashCode();
+        }
+
+        nets = new ArrayList<>(topCell.getNets());
+        net2IdMap = new HashMap<>();
+        fingerprint = fingerprint * 31 + nets.size();
+        for (EDIFNet net : nets) {
+            net2IdMap.put(net, net2IdMap.size());
+            fingerprint = fingerprint * 31 + net.getName().hashCode();
+        }
+        netlistFingerprint = fingerprint;
+    }
+
+    private void writeCellInsts(DataOutputStream output, Collection<EDIFCellInst> cellInstSet) throws IOException {
+        writeVarInt(output, cellInstSet.size());
+        for (EDIFCellInst cellInst : cellInstSet) {
+            writeVarInt(output, cellInst2IdMap.get(cellInst));
+        }
+    }
+
+    private Set<EDIFCellInst> readCellInsts(DataInputStream input) throws IOException {
+        int size = readVarInt(input);
+        Set<EDIFCellInst> cellInstSet = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            cellInstSet.add(cellInsts.get(readId(input, cellInsts.size())));
+        }
+        return cellInstSet;
+    }
+
+    private void writeNets(DataOutputStream output, Collection<EDIFNet> netSet) throws IOException {
+        writeVarInt(output, netSet.size());
+        for (EDIFNet net : netSet) {
+            writeVarInt(output, net2IdMap.get(net));
+        }
+    }
+
+    private Set<EDIFNet> readNets(DataInputStream input) throws IOException {
+        int size = readVarInt(input);
+        Set<EDIFNet> netSet = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            netSet.add(nets.get(readId(input, nets.size())));
+        }
+        return netSet;
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        assert value >= 0;
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readId(DataInputStream input, int bound) throws IOException {
+        int id = readVarInt(input);
+        if (id >= bound) {
+            throw new IOException("Index out of range: " + id);
+        }
+        return id;
+    }
+
+    // abstract netlist whose nodes and edges are read from the cache instead of being clustered
+    private static class RestoredAbstractNetlist extends AbstractNetlist {
+        private List<Set<EDIFCellInst>> cachedNode2CellInsts;
+        private Map<EDIFCellInst, Integer> cachedCellInst2NodeIdMap;
+        private List<Set<Integer>> cachedNode2EdgeIds;
+        private List<Set<Integer>> cachedEdge2NodeIds;
+        private List<EDIFNet> cachedEdge2OriginNet;
+        private List<Integer> cachedEdge2SourceNodeId;
+
+        public RestoredAbstractNetlist(HierarchicalLogger logger) {
+            super(logger);
+        }
+
+        @Override
+        protected void buildNode2CellInstsMap() {
+            logger.info("Restore mapping between nodes and cellInsts from stage cache");
+            node2CellInsts = cachedNode2CellInsts;
+            cellInst2NodeIdMap = cachedCellInst2NodeIdMap;
+        }
+
+        @Override
+        protected void buildEdge2NodeMap() {
+            logger.info("Restore mapping between edges and nodes from stage cache");
+            node2EdgeIds = cachedNode2EdgeIds;
+            edge2NodeIds = cachedEdge2NodeIds;
+            edge2OriginNet = cachedEdge2OriginNet;
+            edge2SourceNodeId = cachedEdge2SourceNodeId;
+        }
+    }
+}
@@ -55,6 +55,11 @@ abstract public class AbstractPartitioner {
     protected List<List<Double>> blockSizes;
     protected Double cutSize;
 
+    // incremental cut states
+    protected double[] edgeWeightSums;
+    protected int[] edgeBlockPinNum; // number of pins of each edge in each block: [edgeId * blockNum + blockId]
+    protected int[] edgeBlockNum; // number of blocks spanned by each edge
+
 
     public AbstractPartitioner(HierarchicalLogger logger, AbstractConfig config, HyperGraph hyperGraph) {
         this.logger = logger;
@@ -76,6 +81,12 @@ abstract public class AbstractPartitioner {
             blockSizes.add(new ArrayList<>(Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.0)));
         }
         cutSize = 0.0;
+
+        edgeWeightSums = new double[hyperGraph.getEdgeNum()];
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            edgeWeightSums[edgeId] = hyperGraph.getEdgeWeightsSum(edgeId);
+        }
+        setupEdgeBlockPinNum();
     }
 
     // kernel function
@@ -111,10 +122,64 @@ abstract public class AbstractPartitioner {
         vecAccu(blockSizes.get(toBlockId), nodeWeight);
 
         // update node2BlockId & cut-size
-        List<Double> originCutSize = hyperGraph.getCutSizeOfNode(node2BlockId, nodeId);
+        cutSize += updateEdgeBlockPinNum(nodeId, fromBlkId, toBlockId);
         node2BlockId.set(nodeId, toBlockId);
-        List<Double> newCutSize = hyperGraph.getCutSizeOfNode(node2BlockId, nodeId);
-        cutSize += hyperGraph.getEdgeWeightsSum(newCutSize) - hyperGraph.getEdgeWeightsSum(originCutSize);
+    }
+
+    // cut states
+    protected void setupEdgeBlockPinNum() {
+        int blockNum = config.blockNum;
+        edgeBlockPinNum = new int[hyperGraph.getEdgeNum() * blockNum];
+        edgeBlockNum = new int[hyperGraph.getEdgeNum()];
+
+        double totalCutSize = 0.0;
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+                int blockId = node2BlockId.get(hyperGraph.getNodeOfEdge(edgeId, pinIdx));
+                if (blockId == -1) continue;
+
+                if (edgeBlockPinNum[edgeId * blockNum + blockId]++ == 0) {
+                    edgeBlockNum[edgeId]++;
+                }
+            }
+
+            if (edgeBlockNum[edgeId] > 1) {
+                totalCutSize += edgeWeightSums[edgeId];
+            }
+        }
+        cutSize = totalCutSize;
+    }
+
+    // update pin counts of incident edges in O(degree) and return the increase of cut size
+    protected double updateEdgeBlockPinNum(int nodeId, int fromBlkId, int toBlkId) {
+        int blockNum = config.blockNum;
+        double cutSizeIncr = 0.0;
+
+        for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+            int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+            boolean wasCut = edgeBlockNum[edgeId] > 1;
+
+            if (fromBlkId != -1 && --edgeBlockPinNum[edgeId * blockNum + fromBlkId] == 0) {
+                edgeBlockNum[edgeId]--;
+            }
+            if (toBlkId != -1 && edgeBlockPinNum[edgeId * blockNum + toBlkId]++ == 0) {
+                edgeBlockNum[edgeId]++;
+            }
+
+            boolean isCut = edgeBlockNum[edgeId] > 1;
+            if (wasCut != isCut) {
+                cutSizeIncr += isCut ? edgeWeightSums[edgeId] : -edgeWeightSums[edgeId];
+            }
+        }
+        return cutSizeIncr;
+    }
+
+    protected boolean isCutEdge(int edgeId) {
+        return edgeBlockNum[edgeId] > 1;
+    }
+
+    protected int getPinNumOfEdgeInBlock(int edgeId, int blockId) {
+        return edgeBlockPinNum[edgeId * config.blockNum + blockId];
     }
 
     // refinement
@@ -127,7 +192,7 @@ abstract public class AbstractPartitioner {
         Collections.shuffle(randEdgeIds, new Random(config.randomSeed));
 
         for (int edgeId : randEdgeIds) {
-            if (!hyperGraph.isCutEdge(edgeId, node2BlockId)) continue;
+            if (!isCutEdge(edgeId)) continue;
             List<Double> moveGains = new ArrayList<>(Collections.nCopies(config.blockNum, 0.0));
             List<Integer> nodeIds = hyperGraph.getNodesOfEdge(edgeId);
             
@@ -188,7 +253,7 @@ abstract public class AbstractPartitioner {
     
                 for (int blkId = 0; blkId < config.blockNum; blkId++) {
                     if (blkId == node2BlockId.get(nodeId)) continue;
-                    double moveGain = getMoveGainOf(Map.of(nodeId, blkId));
+                    double moveGain = getMoveGainOf(nodeId, blkId);
                     if (maxGainBlkId == -1 || moveGain > maxGain) {
                         maxGain = moveGain;
                         maxGainBlkId = blkId;
@@ -212,29 +277,54 @@ abstract public class AbstractPartitioner {
         Double moveGain = 0.0;
         Map<Integer, Integer> fromBlkIds = new HashMap<>();
 
+        // apply trial moves on pin counts only
         for (int nodeId : movedNodes.keySet()) {
             int fromBlockId = node2BlockId.get(nodeId);
             int toBlockId = movedNodes.get(nodeId);
             if (toBlockId == fromBlockId) continue;
 
             fromBlkIds.put(nodeId, fromBlockId);
-            List<Double> originCutSize = hyperGraph.getCutSizeOfNode(node2BlockId, nodeId);
-
+            moveGain -= updateEdgeBlockPinNum(nodeId, fromBlockId, toBlockId);
             node2BlockId.set(nodeId, toBlockId);
-            List<Double> curCutSize = hyperGraph.getCutSizeOfNode(node2BlockId, nodeId);
-
-            Double gain = hyperGraph.getEdgeWeightsSum(originCutSize) - hyperGraph.getEdgeWeightsSum(curCutSize);
-            moveGain += gain;
         }
 
-        // recover node2BlockId
+        // recover node2BlockId and pin counts
         for (int nodeId : fromBlkIds.keySet()) {
+            updateEdgeBlockPinNum(nodeId, node2BlockId.get(nodeId), fromBlkIds.get(nodeId));
             node2BlockId.set(nodeId, fromBlkIds.get(nodeId));
         }
 
         return moveGain;
     }
 
+    // gain of moving a single node, derived from pin counts without modifying partition states
+    protected double getMoveGainOf(int nodeId, int toBlockId) {
+        int fromBlockId = node2BlockId.get(nodeId);
+        if (fromBlockId == toBlockId) {
+            return 0.0;
+        }
+
+        double moveGain = 0.0;
+        for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+            int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+            int blockNum = edgeBlockNum[edgeId];
+            boolean wasCut = blockNum > 1;
+
+            if (fromBlockId != -1 && getPinNumOfEdgeInBlock(edgeId, fromBlockId) == 1) {
+                blockNum--;
+            }
+            if (getPinNumOfEdgeInBlock(edgeId, toBlockId) == 0) {
+                blockNum++;
+            }
+
+            boolean isCut = blockNum > 1;
+            if (wasCut != isCut) {
+                moveGain += wasCut ? edgeWeightSums[edgeId] : -edgeWeightSums[edgeId];
+            }
+        }
+        return moveGain;
+    }
+
     // checkers
     protected boolean checkSizeConstr() {
 
@@ -264,11 +354,18 @@ abstract public class AbstractPartitioner {
         List<List<Double>> refBlockSizes = hyperGraph.getBlockSize(node2BlockId);
         Double refCutSize = hyperGraph.getEdgeWeightsSum(hyperGraph.getCutSize(node2BlockId));
 
-        if (!refCutSize.equals(cutSize)) {
+        if (Math.abs(refCutSize - cutSize) > 1e-6 * Math.max(1.0, Math.abs(refCutSize))) {
             logger.severe(String.format("Cut size mismatch: %f %f", refCutSize, cutSize));
             return false;
         }
 
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            if (isCutEdge(edgeId) != hyperGraph.isCutEdge(edgeId, node2BlockId)) {
+                logger.severe(String.format("Cut state of edge-%d mismatch", edgeId));
+                return false;
+            }
+        }
+
         for (int blockId = 0; blockId < config.blockNum; blockId++) {
             if (!vecEq(refBlockSizes.get(blockId), blockSizes.get(blockId))) {
                 logger.severe(String.format("Size of block-%d mismatch: %s %s", blockId, refBlockSizes.get(blockId), blockSizes.get(blockId)));
@@ -347,7 +444,7 @@ abstract public class AbstractPartitioner {
             assert checkFixedNodesConstr(): "Initial partition violates fixed nodes constraint";
         }
 
-        cutSize = hyperGraph.getEdgeWeightsSum(hyperGraph.getCutSize(node2BlockId));
+        setupEdgeBlockPinNum();
     }
 
     public void setFixedNodes(Map<Integer, Integer> fixedNodes) {
@@ -368,6 +465,7 @@ abstract public class AbstractPartitioner {
         for (int blockId = 0; blockId < config.blockNum; blockId++) {
             blockSizes.add(new ArrayList<>(Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.0)));
         }
+        setupEdgeBlockPinNum();
     }
 
     public void setRandomSeed(int randomSeed) {
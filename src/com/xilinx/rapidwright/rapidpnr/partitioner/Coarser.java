@@ -10,14 +10,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import com.xilinx.rapidwright.rapidpnr.utils.HierHyperGraph;
+import com.xilinx.rapidwright.rapidpnr.utils.ParallelUtils;
 import com.xilinx.rapidwright.rapidpnr.utils.VecOps;
 
 abstract public class Coarser {
 
     public static enum Scheme {
-        EC, HEC, FC
+        EC, HEC, FC, PFC
     }
 
     public static class Config {
@@ -29,9 +34,19 @@ abstract public class Coarser {
         public Set<Integer> dontTouchNodes = null;
         public boolean disableHeteroNode = false;
 
+        // parallel first-choice coarsening
+        public int threadNum = Runtime.getRuntime().availableProcessors();
+        public boolean deterministic = false; // same clustering for the same seed regardless of thread number
+        public int deterministicSubRoundNum = 16;
+        public WorkerPool workerPool = null; // shared by all levels of a coarsening run, created per level if null
+
         @Override
         public String toString() {
-            return String.format("Coarser Config: Scheme=%s Seed=%d LevelShrinkRatio=%.2f MaxNodeSizeRatio=%.2f", scheme, seed, levelShrinkRatio, maxNodeSizeRatio);
+            String info = String.format("Coarser Config: Scheme=%s Seed=%d LevelShrinkRatio=%.2f MaxNodeSizeRatio=%.2f", scheme, seed, levelShrinkRatio, maxNodeSizeRatio);
+            if (scheme == Scheme.PFC) {
+                info += String.format(" ThreadNum=%d Deterministic=%b", threadNum, deterministic);
+            }
+            return info;
         }
 
         public Config() {
@@ -46,6 +61,10 @@ abstract public class Coarser {
             this.partResult = config.partResult;
             this.dontTouchNodes = config.dontTouchNodes;
             this.disableHeteroNode = config.disableHeteroNode;
+            this.threadNum = config.threadNum;
+            this.deterministic = config.deterministic;
+            this.deterministicSubRoundNum = config.deterministicSubRoundNum;
+            this.workerPool = config.workerPool;
         }
 
         public Config(int seed) {
@@ -83,6 +102,52 @@ abstract public class Coarser {
         }
     };
 
+    // threads and thread-local scratch arrays of parallel first-choice coarsening
+    // scratch arrays are sized by the first (largest) level and reused by coarser levels
+    public static class WorkerPool implements AutoCloseable {
+        private int threadNum;
+        private ExecutorService executor;
+        private double[][] workerRatings;
+        private boolean[][] workerIsTouched;
+        private int[][] workerTouchedNodes;
+
+        public WorkerPool(int threadNum) {
+            assert threadNum >= 1;
+            this.threadNum = threadNum;
+            this.executor = Executors.newFixedThreadPool(threadNum);
+            this.workerRatings = new double[threadNum][];
+            this.workerIsTouched = new boolean[threadNum][];
+            this.workerTouchedNodes = new int[threadNum][];
+        }
+
+        public int getThreadNum() {
+            return threadNum;
+        }
+
+        // scratch arrays are all-zero between uses
+        private void ensureScratch(int workerId, int nodeNum) {
+            if (workerRatings[workerId] == null || workerRatings[workerId].length < nodeNum) {
+                workerRatings[workerId] = new double[nodeNum];
+                workerIsTouched[workerId] = new boolean[nodeNum];
+                workerTouchedNodes[workerId] = new int[nodeNum];
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdown();
+        }
+    }
+
+    // create a worker pool for a coarsening run if the scheme needs one and none is given
+    public static WorkerPool createWorkerPoolIfAbsent(Config config) {
+        if (config.scheme != Scheme.PFC || config.workerPool != null) {
+            return null;
+        }
+        config.workerPool = new WorkerPool(config.threadNum);
+        return config.workerPool;
+    }
+
     public static HierHyperGraph coarsening(Config config, HierHyperGraph hyperGraph) {
         switch (config.scheme) {
             case EC:
@@ -91,6 +156,8 @@ abstract public class Coarser {
                 return hyperEdgeCoarsening(hyperGraph, config);
             case FC:
                 return firstChoiceCoarsening(hyperGraph, config);
+            case PFC:
+                return parallelFirstChoiceCoarsening(hyperGraph, config);
             default:
                 throw new IllegalArgumentException("Unknown coarsening scheme: " + config.scheme);
         }
@@ -399,6 +466,300 @@ abstract public class Coarser {
         return hyperGraph.createClusteredChildGraph(cluster2Nodes, false);
     }
 
+    // multi-threaded first-choice coarsening: nodes are rated in parallel with thread-local dense scratch arrays
+    // and join clusters through CAS on node states, clusters are represented by one of their nodes
+    public static HierHyperGraph parallelFirstChoiceCoarsening(HierHyperGraph hyperGraph, Config config) {
+        // check input parameters
+        if (config.partResult != null) {
+            assert config.partResult.size() == hyperGraph.getNodeNum();
+        }
+        assert config.threadNum >= 1;
+
+        // incidence arrays are read concurrently and must not be rebuilt lazily
+        hyperGraph.seal();
+
+        Random random = new Random(config.seed);
+        List<Double> nodeSizeLimit = vecMulScalar(hyperGraph.getTotalNodeWeight(), config.maxNodeSizeRatio);
+
+        List<Integer> randomNodeIdxSeq = new ArrayList<>();
+        boolean[] isCandidate = new boolean[hyperGraph.getNodeNum()];
+        for (int i = 0; i < hyperGraph.getNodeNum(); i++) {
+            if (config.dontTouchNodes.contains(i)) continue;
+            if (allGreaterEq(hyperGraph.getWeightsOfNode(i), nodeSizeLimit)) continue;
+            if (config.disableHeteroNode && isHeteroNode(hyperGraph, i)) continue;
+
+            isCandidate[i] = true;
+            randomNodeIdxSeq.add(i);
+        }
+        Collections.shuffle(randomNodeIdxSeq, random);
+
+        int[] nodeSeq = new int[randomNodeIdxSeq.size()];
+        for (int i = 0; i < nodeSeq.length; i++) {
+            nodeSeq[i] = randomNodeIdxSeq.get(i);
+        }
+
+        WorkerPool workerPool = config.workerPool != null ? config.workerPool : new WorkerPool(config.threadNum);
+        ParallelClusterMatcher matcher = new ParallelClusterMatcher(hyperGraph, config, isCandidate, nodeSizeLimit, workerPool);
+        try {
+            if (config.deterministic) {
+                matcher.runDeterministic(nodeSeq);
+            } else {
+                matcher.run(nodeSeq);
+            }
+        } finally {
+            if (workerPool != config.workerPool) {
+                workerPool.close();
+            }
+        }
+
+        return hyperGraph.createClusteredChildGraph(matcher.getClusters(), false);
+    }
+
+    private static class ParallelClusterMatcher {
+        private static final int UNMATCHED = 0;
+        private static final int MATCHING = 1;
+        private static final int MATCHED = 2;
+        private static final int CHUNK_SIZE = 64;
+        private static final int LOCK_NUM = 1024;
+
+        private HierHyperGraph hyperGraph;
+        private Config config;
+        private boolean[] isCandidate;
+        private int nodeNum;
+        private int weightDim;
+        private double[] sizeLimit;
+        private double[] edgeRatings; // rating contributed by each edge to a pair of its nodes
+
+        private AtomicIntegerArray node2State;
+        private AtomicIntegerArray node2Rep;
+        private double[] clusterSizes; // [repId * weightDim + dim], guarded by locks of representatives
+        private Object[] locks;
+        private AtomicInteger clusterNum;
+
+        private WorkerPool workerPool;
+
+        public ParallelClusterMatcher(HierHyperGraph hyperGraph, Config config, boolean[] isCandidate, List<Double> nodeSizeLimit, WorkerPool workerPool) {
+            this.hyperGraph = hyperGraph;
+            this.workerPool = workerPool;
+            this.config = config;
+            this.isCandidate = isCandidate;
+            this.nodeNum = hyperGraph.getNodeNum();
+            this.weightDim = hyperGraph.getNodeWeightDim();
+
+            sizeLimit = new double[weightDim];
+            for (int dim = 0; dim < weightDim; dim++) {
+                sizeLimit[dim] = nodeSizeLimit.get(dim);
+            }
+
+            edgeRatings = new double[hyperGraph.getEdgeNum()];
+            for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+                int degree = hyperGraph.getDegreeOfEdge(edgeId);
+                if (degree > 1) {
+                    edgeRatings[edgeId] = hyperGraph.getEdgeWeightsSum(edgeId) / (degree - 1);
+                }
+            }
+
+            node2State = new AtomicIntegerArray(nodeNum);
+            node2Rep = new AtomicIntegerArray(nodeNum);
+            clusterSizes = new double[nodeNum * weightDim];
+            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+                node2Rep.set(nodeId, nodeId);
+                for (int dim = 0; dim < weightDim; dim++) {
+                    clusterSizes[nodeId * weightDim + dim] = hyperGraph.getNodeWeight(nodeId, dim);
+                }
+            }
+
+            locks = new Object[LOCK_NUM];
+            for (int i = 0; i < LOCK_NUM; i++) {
+                locks[i] = new Object();
+            }
+            clusterNum = new AtomicInteger(nodeNum);
+        }
+
+        public void run(int[] nodeSeq) {
+            parallelFor(0, nodeSeq.length, (workerId, idx) -> {
+                if (isShrinkDone()) return;
+
+                int nodeId = nodeSeq[idx];
+                if (node2State.get(nodeId) != UNMATCHED) return;
+
+                int targetId = rate(workerId, nodeId);
+                if (targetId != -1) {
+                    join(nodeId, targetId);
+                }
+            });
+        }
+
+        // nodes are split into sub-rounds: ratings are computed in parallel against the clustering of previous
+        // sub-rounds and applied sequentially in node order, so results only depend on the seed
+        public void runDeterministic(int[] nodeSeq) {
+            int subRoundSize = Math.max(1, (nodeSeq.length + config.deterministicSubRoundNum - 1) / config.deterministicSubRoundNum);
+            int[] targets = new int[subRoundSize];
+
+            for (int begin = 0; begin < nodeSeq.length; begin += subRoundSize) {
+                int end = Math.min(nodeSeq.length, begin + subRoundSize);
+                int subRoundBegin = begin;
+
+                parallelFor(begin, end, (workerId, idx) -> {
+                    int nodeId = nodeSeq[idx];
+                    targets[idx - subRoundBegin] = node2State.get(nodeId) == UNMATCHED ? rate(workerId, nodeId) : -1;
+                });
+
+                for (int idx = begin; idx < end; idx++) {
+                    if (isShrinkDone()) return;
+
+                    int nodeId = nodeSeq[idx];
+                    int targetId = targets[idx - begin];
+                    if (targetId == -1 || node2State.get(nodeId) != UNMATCHED) continue;
+
+                    int repId = node2State.get(targetId) == MATCHED ? node2Rep.get(targetId) : targetId;
+                    if (repId == nodeId || !isSizeLegal(repId, nodeId)) continue;
+
+                    addClusterSize(repId, nodeId);
+                    node2Rep.set(nodeId, repId);
+                    node2State.set(nodeId, MATCHED);
+                    node2State.set(repId, MATCHED);
+                    clusterNum.decrementAndGet();
+                }
+            }
+        }
+
+        public List<List<Integer>> getClusters() {
+            List<List<Integer>> cluster2Nodes = new ArrayList<>();
+            int[] rep2Cluster = new int[nodeNum];
+            Arrays.fill(rep2Cluster, -1);
+
+            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+                int repId = node2Rep.get(nodeId);
+                if (rep2Cluster[repId] == -1) {
+                    rep2Cluster[repId] = cluster2Nodes.size();
+                    cluster2Nodes.add(new ArrayList<>());
+                }
+                cluster2Nodes.get(rep2Cluster[repId]).add(nodeId);
+            }
+            return cluster2Nodes;
+        }
+
+        // return the neighbor with max rating whose cluster can absorb the given node, or -1 if none
+        private int rate(int workerId, int nodeId) {
+            workerPool.ensureScratch(workerId, nodeNum);
+            double[] ratings = workerPool.workerRatings[workerId];
+            boolean[] isTouched = workerPool.workerIsTouched[workerId];
+            int[] touchedNodes = workerPool.workerTouchedNodes[workerId];
+            int touchedNum = 0;
+
+            for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+                int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+                double rating = edgeRatings[edgeId];
+
+                for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+                    int nNodeId = hyperGraph.getNodeOfEdge(edgeId, pinIdx);
+                    if (nNodeId == nodeId || !isCandidate[nNodeId]) continue;
+                    if (!config.isInternalNodes(nodeId, nNodeId)) continue;
+                    if (config.disableHeteroNode && !isHomoNode(hyperGraph, nodeId, nNodeId)) continue;
+
+                    if (!isTouched[nNodeId]) {
+                        isTouched[nNodeId] = true;
+                        touchedNodes[touchedNum++] = nNodeId;
+                    }
+                    ratings[nNodeId] += rating;
+                }
+            }
+
+            int maxRatingNodeId = -1;
+            double maxRating = 0.0;
+            for (int i = 0; i < touchedNum; i++) {
+                int nNodeId = touchedNodes[i];
+                double rating = ratings[nNodeId];
+                ratings[nNodeId] = 0.0;
+                isTouched[nNodeId] = false;
+
+                int repId = node2Rep.get(nNodeId);
+                if (repId == nodeId || !isSizeLegal(repId, nodeId)) continue;
+                if (rating > maxRating || (rating == maxRating && maxRatingNodeId != -1 && nNodeId < maxRatingNodeId)) {
+                    maxRating = rating;
+                    maxRatingNodeId = nNodeId;
+                }
+            }
+            return maxRatingNodeId;
+        }
+
+        private boolean join(int nodeId, int targetId) {
+            if (!node2State.compareAndSet(nodeId, UNMATCHED, MATCHING)) {
+                return false;
+            }
+
+            while (true) {
+                int targetState = node2State.get(targetId);
+
+                if (targetState == MATCHED) {
+                    int repId = node2Rep.get(targetId);
+                    synchronized (getLock(repId)) {
+                        if (isSizeLegal(repId, nodeId)) {
+                            addClusterSize(repId, nodeId);
+                            node2Rep.set(nodeId, repId);
+                            node2State.set(nodeId, MATCHED);
+                            clusterNum.decrementAndGet();
+                            return true;
+                        }
+                    }
+                    break;
+
+                } else if (targetState == UNMATCHED) {
+                    if (!node2State.compareAndSet(targetId, UNMATCHED, MATCHING)) {
+                        continue; // target state changed concurrently
+                    }
+                    synchronized (getLock(targetId)) {
+                        if (isSizeLegal(targetId, nodeId)) {
+                            addClusterSize(targetId, nodeId);
+                            node2Rep.set(nodeId, targetId);
+                            node2State.set(nodeId, MATCHED);
+                            node2State.set(targetId, MATCHED);
+                            clusterNum.decrementAndGet();
+                            return true;
+                        }
+                    }
+                    node2State.set(targetId, UNMATCHED);
+                    break;
+
+                } else {
+                    // target is joining another cluster, give up instead of waiting to avoid cyclic waits
+                    break;
+                }
+            }
+
+            node2State.set(nodeId, UNMATCHED);
+            return false;
+        }
+
+        private boolean isSizeLegal(int repId, int nodeId) {
+            for (int dim = 0; dim < weightDim; dim++) {
+                if (clusterSizes[repId * weightDim + dim] + hyperGraph.getNodeWeight(nodeId, dim) > sizeLimit[dim]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addClusterSize(int repId, int nodeId) {
+            for (int dim = 0; dim < weightDim; dim++) {
+                clusterSizes[repId * weightDim + dim] += hyperGraph.getNodeWeight(nodeId, dim);
+            }
+        }
+
+        private Object getLock(int repId) {
+            return locks[repId % LOCK_NUM];
+        }
+
+        private boolean isShrinkDone() {
+            return ((double) nodeNum / clusterNum.get()) > config.levelShrinkRatio;
+        }
+
+        private void parallelFor(int begin, int end, ParallelUtils.WorkerIndexedTask task) {
+            ParallelUtils.parallelFor(begin, end, CHUNK_SIZE, workerPool.getThreadNum(), workerPool.executor, task);
+        }
+    }
+
     public static boolean isHeteroNode(HierHyperGraph graph, int nodeId) {
         int nonZeroCnt = 0;
         for (double weight : graph.getWeightsOfNode(nodeId)) {
@@ -4,14 +4,12 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
 import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
-import com.xilinx.rapidwright.rapidpnr.utils.SortedList;
+import com.xilinx.rapidwright.rapidpnr.utils.IndexedMaxHeap;
 
 public class FMPartitioner extends AbstractPartitioner {
 
@@ -39,7 +37,9 @@ public class FMPartitioner extends AbstractPartitioner {
 
     private Config config;
     // partition states
-    // private SortedList<Double> node2MoveGain;
+    protected double[] node2MoveGain;
+    protected IndexedMaxHeap[] block2GainHeap;
+    protected List<List<Integer>> block2DeferredNodes;
     
     public FMPartitioner(HierarchicalLogger logger, Config config, HyperGraph hyperGraph) {
         super(logger, config, hyperGraph);
@@ -104,10 +104,7 @@ public class FMPartitioner extends AbstractPartitioner {
         // assgin fixed nodes
         for (int nodeId : fixedNodes.keySet()) {
             int blockId = fixedNodes.get(nodeId);
-
-            node2BlockId.set(nodeId, blockId);
-            List<Double> nodeWeights = hyperGraph.getWeightsOfNode(nodeId);
-            vecAccu(blockSizes.get(blockId), nodeWeights);
+            moveNode(nodeId, blockId);
             assignedNodeNum++;
         }
         assert checkSizeConstr(): "Fixed nodes constraints violate block size constraint";
@@ -118,31 +115,23 @@ public class FMPartitioner extends AbstractPartitioner {
                 continue;
             }
 
-            List<Double> blkId2CutSizeIncr = new ArrayList<>(Collections.nCopies(config.blockNum, 0.0));
+            double[] blkId2CutSizeIncr = new double[config.blockNum];
             List<Boolean> blkId2Legality = new ArrayList<>(Collections.nCopies(config.blockNum, false));
 
-            Set<Integer> alreadyCutEdge = new HashSet<>();
-            for (int edgeId : hyperGraph.getEdgesOfNode(nodeId)) {
-                if (hyperGraph.isCutEdge(edgeId, node2BlockId)) {
-                    alreadyCutEdge.add(edgeId);
-                }
-            }
-
             for (int blockId = 0; blockId < config.blockNum; blockId++) {
                 blkId2Legality.set(blockId, isMoveLegal(nodeId, blockId));
+            }
 
-                node2BlockId.set(nodeId, blockId);
-                for (int edgeId : hyperGraph.getEdgesOfNode(nodeId)) {
-                    if (alreadyCutEdge.contains(edgeId)) {
-                        continue;
-                    }
+            // an uncut edge becomes cut if its assigned pins are all in another block
+            for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+                int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+                if (edgeBlockNum[edgeId] != 1) continue;
 
-                    if (hyperGraph.isCutEdge(edgeId, node2BlockId)) {
-                        Double originCutSizeIncr = blkId2CutSizeIncr.get(blockId);
-                        blkId2CutSizeIncr.set(blockId, originCutSizeIncr + hyperGraph.getEdgeWeightsSum(edgeId));
+                for (int blockId = 0; blockId < config.blockNum; blockId++) {
+                    if (getPinNumOfEdgeInBlock(edgeId, blockId) == 0) {
+                        blkId2CutSizeIncr[blockId] += edgeWeightSums[edgeId];
                     }
                 }
-                node2BlockId.set(nodeId, -1);
             }
 
             if (!(blkId2Legality.get(0) || blkId2Legality.get(1))) {
@@ -154,28 +143,20 @@ public class FMPartitioner extends AbstractPartitioner {
             String.format("No legal move found for node-%d (node size=%s already assigned=%d)", nodeId, hyperGraph.getWeightsOfNode(nodeId), assignedNodeNum);
             
             if (!isMoveLegal(nodeId, 0)) {
-                node2BlockId.set(nodeId, 1);
-                HyperGraph.accuWeights(blockSizes.get(1), hyperGraph.getWeightsOfNode(nodeId));
-
+                moveNode(nodeId, 1);
             } else if (!isMoveLegal(nodeId, 1)) {
-                node2BlockId.set(nodeId, 0);
-                HyperGraph.accuWeights(blockSizes.get(0), hyperGraph.getWeightsOfNode(nodeId));
+                moveNode(nodeId, 0);
             } else {
-                if (blkId2CutSizeIncr.get(0) <= blkId2CutSizeIncr.get(1)) {
-                    node2BlockId.set(nodeId, 0);
-                    HyperGraph.accuWeights(blockSizes.get(0), hyperGraph.getWeightsOfNode(nodeId));
+                if (blkId2CutSizeIncr[0] <= blkId2CutSizeIncr[1]) {
+                    moveNode(nodeId, 0);
                 } else {
-                    node2BlockId.set(nodeId, 1);
-                    HyperGraph.accuWeights(blockSizes.get(1), hyperGraph.getWeightsOfNode(nodeId));
+                    moveNode(nodeId, 1);
                 }
             }
 
             assignedNodeNum++;
         }
 
-        // update other states
-        cutSize = hyperGraph.getEdgeWeightsSum(hyperGraph.getCutSize(node2BlockId));
-
         printPartitionStates();
 
         logger.info("Complete random shuffling and greedy initial partition");
@@ -184,10 +165,18 @@ public class FMPartitioner extends AbstractPartitioner {
     protected void vertexBasedRefine() {
         logger.info("Start vertex-based cut size refinement");
         int iterIdx = 0;
-        SortedList<Double> node2MoveGain = setupNode2MoveGain(node2BlockId);
+        setupNode2MoveGain();
         int maxNoGainMoveNum = (int) (config.passEarlyExitRatio * hyperGraph.getNodeNum());
         //logger.info("Maximum no gain move before early exit: " + maxNoGainMoveNum);
 
+        // gain heaps and deferred nodes are indexed by the block nodes move from
+        block2GainHeap = new IndexedMaxHeap[config.blockNum];
+        block2DeferredNodes = new ArrayList<>();
+        for (int blockId = 0; blockId < config.blockNum; blockId++) {
+            block2GainHeap[blockId] = new IndexedMaxHeap(hyperGraph.getNodeNum());
+            block2DeferredNodes.add(new ArrayList<>());
+        }
+
         logger.newSubStep();
         while (iterIdx < config.maxPassNum) {
             logger.info("Start refinement pass " + iterIdx);
@@ -197,48 +186,50 @@ public class FMPartitioner extends AbstractPartitioner {
             int maxPassGainId = -1;
             int noGainMoveNum = 0;
 
-            List<Boolean> isNodeMoved = new ArrayList<>(Collections.nCopies(hyperGraph.getNodeNum(), false));
             List<Integer> trialMoveNodesSeq = new ArrayList<>();
 
-            while (trialMoveNodesSeq.size() < hyperGraph.getNodeNum()) {
-                List<Integer> sortedNodes = node2MoveGain.getSortedIndices();
+            // fixed nodes never leave their blocks
+            for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+                if (fixedNodes.containsKey(nodeId)) continue;
+                block2GainHeap[node2BlockId.get(nodeId)].insert(nodeId, node2MoveGain[nodeId]);
+            }
 
-                boolean hasLegalMove = false;
-                for (int nodeId : sortedNodes) {
-                    if (isNodeMoved.get(nodeId)) {
-                        continue;
-                    }
+            while (true) {
+                int nodeId = pollBestLegalMove();
+                if (nodeId == -1) {
+                    break;
+                }
 
-                    int fromBlockId = node2BlockId.get(nodeId);
-                    int toBlockId = getOppositeBlkId(fromBlockId);
-
-                    if (isMoveLegal(nodeId, toBlockId)) {
-                        Double nodeGain = node2MoveGain.getValueOf(nodeId);
-                        if (config.verbose) {
-                            logger.info(String.format("Trial move node-%d from blk-%d to blk-%d: gain=%.3f pass_gain=%.3f", 
-                            nodeId, fromBlockId, toBlockId, nodeGain, passGain));
-                        }
-
-                        passGain += nodeGain;
-                        if (passGain > maxPassGain) {
-                            maxPassGain = passGain;
-                            maxPassGainId = trialMoveNodesSeq.size();
-                        }
-                        moveNode(nodeId, toBlockId, node2MoveGain);
-                        isNodeMoved.set(nodeId, true);
-                        trialMoveNodesSeq.add(nodeId);
-                        hasLegalMove = true;
-                        if (nodeGain <= 0) noGainMoveNum++;
-
-                        break;
-                    }
+                int fromBlockId = node2BlockId.get(nodeId);
+                int toBlockId = getOppositeBlkId(fromBlockId);
+                double nodeGain = node2MoveGain[nodeId];
+                if (config.verbose) {
+                    logger.info(String.format("Trial move node-%d from blk-%d to blk-%d: gain=%.3f pass_gain=%.3f", 
+                    nodeId, fromBlockId, toBlockId, nodeGain, passGain));
+                }
+
+                passGain += nodeGain;
+                if (passGain > maxPassGain) {
+                    maxPassGain = passGain;
+                    maxPassGainId = trialMoveNodesSeq.size();
                 }
+                moveNodeAndUpdateGain(nodeId, toBlockId);
+                trialMoveNodesSeq.add(nodeId);
+                if (nodeGain <= 0) noGainMoveNum++;
+
+                // moving out of fromBlock may make deferred moves into it legal again
+                restoreDeferredNodes(toBlockId);
 
-                if (!hasLegalMove || noGainMoveNum > maxNoGainMoveNum) {
+                if (noGainMoveNum > maxNoGainMoveNum) {
                     break;
                 }
             }
 
+            for (int blockId = 0; blockId < config.blockNum; blockId++) {
+                block2GainHeap[blockId].clear();
+                block2DeferredNodes.get(blockId).clear();
+            }
+
             // withdraw node moves after maxPassGainId
             if (config.verbose) {
                 logger.info("Withdraw node moves after maxPassGainId=" + maxPassGainId);
@@ -247,7 +238,7 @@ public class FMPartitioner extends AbstractPartitioner {
                 int nodeId = trialMoveNodesSeq.get(i);
                 int fromBlockId = node2BlockId.get(nodeId);
                 int toBlockId = getOppositeBlkId(fromBlockId);
-                moveNode(nodeId, toBlockId, node2MoveGain);
+                moveNodeAndUpdateGain(nodeId, toBlockId);
             }
 
             if (maxPassGain <= 0) {
@@ -260,13 +251,50 @@ public class FMPartitioner extends AbstractPartitioner {
             iterIdx++;
         }
 
+        block2GainHeap = null;
+        block2DeferredNodes = null;
+
         logger.endSubStep();
 
         logger.info("Complete vertex-based cut size refinement");
     }
 
+    // return the unmoved node with max gain among legal moves, or -1 if there is no legal move
+    protected int pollBestLegalMove() {
+        int bestNodeId = -1;
+
+        for (int fromBlockId = 0; fromBlockId < config.blockNum; fromBlockId++) {
+            IndexedMaxHeap gainHeap = block2GainHeap[fromBlockId];
+            int toBlockId = getOppositeBlkId(fromBlockId);
+
+            // an illegal move stays illegal until the target block shrinks, so defer it instead of rescanning
+            while (!gainHeap.isEmpty() && !isMoveLegal(gainHeap.peek(), toBlockId)) {
+                block2DeferredNodes.get(fromBlockId).add(gainHeap.poll());
+            }
+
+            if (gainHeap.isEmpty()) continue;
+
+            int nodeId = gainHeap.peek();
+            if (bestNodeId == -1 || IndexedMaxHeap.isHigher(nodeId, node2MoveGain[nodeId], bestNodeId, node2MoveGain[bestNodeId])) {
+                bestNodeId = nodeId;
+            }
+        }
+
+        if (bestNodeId != -1) {
+            block2GainHeap[node2BlockId.get(bestNodeId)].remove(bestNodeId);
+        }
+        return bestNodeId;
+    }
+
+    protected void restoreDeferredNodes(int fromBlockId) {
+        List<Integer> deferredNodes = block2DeferredNodes.get(fromBlockId);
+        for (int nodeId : deferredNodes) {
+            block2GainHeap[fromBlockId].insert(nodeId, node2MoveGain[nodeId]);
+        }
+        deferredNodes.clear();
+    }
 
-    protected void moveNode(int nodeId, int toBlockId, SortedList<Double> node2MoveGain) {
+    protected void moveNodeAndUpdateGain(int nodeId, int toBlockId) {
         int fromBlkId = node2BlockId.get(nodeId);
         if (fromBlkId == toBlockId) {
             return;
@@ -279,70 +307,61 @@ public class FMPartitioner extends AbstractPartitioner {
         }
         vecAccu(blockSizes.get(toBlockId), nodeWeight);
 
-        // update cut size
-        cutSize -= node2MoveGain.getValueOf(nodeId);
-
-        // update node2GainMap
+        // update node gains with pin counts before the move
+        updateNodeGain(nodeId, toBlockId);
 
-        updateNodeGain(nodeId, toBlockId, node2MoveGain);
-
-        // update node2BlockId
+        // update pin counts, cut size and node2BlockId
+        cutSize += updateEdgeBlockPinNum(nodeId, fromBlkId, toBlockId);
         node2BlockId.set(nodeId, toBlockId);
     }
 
-    protected void updateNodeGain(int nodeId, int toBlockId, SortedList<Double> node2MoveGain) {
+    protected void updateNodeGain(int nodeId, int toBlockId) {
         int fromBlockId = node2BlockId.get(nodeId);
         if (fromBlockId == toBlockId) {
             return;
         }
 
-        for (int edgeId : hyperGraph.getEdgesOfNode(nodeId)) {
-            Double edgeWeight = hyperGraph.getEdgeWeightsSum(edgeId);
-
-            List<List<Integer>> block2Nodes = new ArrayList<>();
-            for (int blockId = 0; blockId < config.blockNum; blockId++) {
-                block2Nodes.add(new ArrayList<>());
-            }
-
-            for (int nNodeId : hyperGraph.getNodesOfEdge(edgeId)) {
-                if (nNodeId == nodeId) {
-                    continue;
-                }
+        for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+            int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+            double edgeWeight = edgeWeightSums[edgeId];
 
-                int nBlkId = node2BlockId.get(nNodeId);
-                block2Nodes.get(nBlkId).add(nNodeId);
-            }
-
-            if (block2Nodes.get(toBlockId).size() == 0) {
-                for (int nNodeId : block2Nodes.get(fromBlockId)) {
-                    Double originGain = node2MoveGain.getValueOf(nNodeId);
-                    node2MoveGain.update(nNodeId, originGain + edgeWeight);
-                }
+            // pin counts of other nodes on the edge
+            int fromPinNum = getPinNumOfEdgeInBlock(edgeId, fromBlockId) - 1;
+            int toPinNum = getPinNumOfEdgeInBlock(edgeId, toBlockId);
 
-                Double originGain = node2MoveGain.getValueOf(nodeId);
-                node2MoveGain.update(nodeId, originGain + 2 * edgeWeight);
+            if (toPinNum == 0) {
+                updateGainOfEdgeNodes(edgeId, nodeId, fromBlockId, edgeWeight);
+            } else if (toPinNum == 1) {
+                updateGainOfEdgeNodes(edgeId, nodeId, toBlockId, -edgeWeight);
             }
 
-            if (block2Nodes.get(toBlockId).size() == 1) {
-                int nNodeId = block2Nodes.get(toBlockId).get(0);
-                Double originGain = node2MoveGain.getValueOf(nNodeId);
-                node2MoveGain.update(nNodeId, originGain - edgeWeight);
+            if (fromPinNum == 0) {
+                updateGainOfEdgeNodes(edgeId, nodeId, toBlockId, -edgeWeight);
+            } else if (fromPinNum == 1) {
+                updateGainOfEdgeNodes(edgeId, nodeId, fromBlockId, edgeWeight);
             }
+        }
 
-            if (block2Nodes.get(fromBlockId).size() == 0) {
-                for (int nNodeId : block2Nodes.get(toBlockId)) {
-                    Double originGain = node2MoveGain.getValueOf(nNodeId);
-                    node2MoveGain.update(nNodeId, originGain - edgeWeight);
-                }
+        // moving the node back restores every incident edge, so its gain flips sign
+        setNodeGain(nodeId, -node2MoveGain[nodeId]);
+    }
 
-                Double originGain = node2MoveGain.getValueOf(nodeId);
-                node2MoveGain.update(nodeId, originGain - 2 * edgeWeight);
+    private void updateGainOfEdgeNodes(int edgeId, int movedNodeId, int blockId, double gainIncr) {
+        for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+            int nNodeId = hyperGraph.getNodeOfEdge(edgeId, pinIdx);
+            if (nNodeId == movedNodeId || node2BlockId.get(nNodeId) != blockId) {
+                continue;
             }
+            setNodeGain(nNodeId, node2MoveGain[nNodeId] + gainIncr);
+        }
+    }
 
-            if (block2Nodes.get(fromBlockId).size() == 1) {
-                int nNodeId = block2Nodes.get(fromBlockId).get(0);
-                Double originGain = node2MoveGain.getValueOf(nNodeId);
-                node2MoveGain.update(nNodeId, originGain + edgeWeight);
+    private void setNodeGain(int nodeId, double gain) {
+        node2MoveGain[nodeId] = gain;
+        if (block2GainHeap != null) {
+            IndexedMaxHeap gainHeap = block2GainHeap[node2BlockId.get(nodeId)];
+            if (gainHeap.contains(nodeId)) {
+                gainHeap.update(nodeId, gain);
             }
         }
     }
@@ -351,53 +370,39 @@ public class FMPartitioner extends AbstractPartitioner {
         return blkId == 0 ? 1 : 0;
     }
 
-    protected SortedList<Double> setupNode2MoveGain(List<Integer> partResults) {
-        List<Double> node2Gain = new ArrayList<>(Collections.nCopies(hyperGraph.getNodeNum(), 0.0));
-
-        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
-            Double edgeWeight = hyperGraph.getEdgeWeightsSum(edgeId);
-            List<List<Integer>> block2Nodes = new ArrayList<>();
-            for (int blockId = 0; blockId < config.blockNum; blockId++) {
-                block2Nodes.add(new ArrayList<>());
-            }
-            
-            for (int nodeId : hyperGraph.getNodesOfEdge(edgeId)) {
-                int blkId = partResults.get(nodeId);
-                assert isBlkIdLegal(blkId);
-                block2Nodes.get(blkId).add(nodeId);
-            }
+    protected void setupNode2MoveGain() {
+        node2MoveGain = new double[hyperGraph.getNodeNum()];
 
-            if (block2Nodes.get(0).size() == 1 || block2Nodes.get(1).size() == 0) {
-                for (int nodeId : block2Nodes.get(0)) {
-                    if (block2Nodes.get(0).size() == 1) {
-                        node2Gain.set(nodeId, node2Gain.get(nodeId) + edgeWeight);
-                    } else {
-                        node2Gain.set(nodeId, node2Gain.get(nodeId) - edgeWeight);
-                    }
+        // gain = sum of weights of edges with the node as their only pin in its block
+        //      - sum of weights of edges with no pin in the opposite block
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            int blkId = node2BlockId.get(nodeId);
+            assert isBlkIdLegal(blkId);
+            int oppoBlkId = getOppositeBlkId(blkId);
+
+            double gain = 0.0;
+            for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+                int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+                if (getPinNumOfEdgeInBlock(edgeId, blkId) == 1) {
+                    gain += edgeWeightSums[edgeId];
                 }
-            }
-    
-            if (block2Nodes.get(1).size() == 1 || block2Nodes.get(0).size() == 0) {
-                for (int nodeId : block2Nodes.get(1)) {
-                    if (block2Nodes.get(1).size() == 1) {
-                        node2Gain.set(nodeId, node2Gain.get(nodeId) + edgeWeight);
-                    } else {
-                        node2Gain.set(nodeId, node2Gain.get(nodeId) - edgeWeight);
-                    }
+                if (getPinNumOfEdgeInBlock(edgeId, oppoBlkId) == 0) {
+                    gain -= edgeWeightSums[edgeId];
                 }
             }
+            node2MoveGain[nodeId] = gain;
         }
-
-        return new SortedList<Double>(node2Gain, true);
     }
 
     protected List<Integer> getWeightSortedNodeIds() {
-        List<Double> nodeWeights = new ArrayList<>();
+        double[] nodeWeights = new double[hyperGraph.getNodeNum()];
+        List<Integer> sortedNodeIds = new ArrayList<>();
         for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
-            nodeWeights.add(hyperGraph.getNodeWeightsSum(nodeId));
+            nodeWeights[nodeId] = hyperGraph.getNodeWeightsSum(nodeId);
+            sortedNodeIds.add(nodeId);
         }
-        SortedList<Double> sortedNodeWeights = new SortedList<>(nodeWeights, true);
-        return sortedNodeWeights.getSortedIndices();
+        sortedNodeIds.sort((id1, id2) -> Double.compare(nodeWeights[id2], nodeWeights[id1]));
+        return sortedNodeIds;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,528 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+import com.xilinx.rapidwright.rapidpnr.utils.IndexedMaxHeap;
+
+// Refinement of a complete island placement minimizing the distance-weighted cut,
+// i.e. the sum of edge weight times HPWL of the islands spanned by each edge.
+// Adjacent island pairs are grouped into island-disjoint matchings and pairs of a matching are refined by FM concurrently.
+public class GridIslandRefiner {
+
+    public static class Config {
+        public Coordinate2D gridDim = Coordinate2D.of(2, 2);
+        public List<List<Double>> gridLimits = null; // upper limits of islands indexed by gridDim.getIdxOf
+        public List<List<Double>> gridLowerLimits = null; // lower limits of islands, no lower limit when null
+        public int maxRoundNum = 5;
+        public int maxPassNum = 4; // FM passes of each island pair
+        public int maxNonImproveMoveNum = 100; // early exit of FM pass after consecutive non-improving moves
+        public int maxUpdateEdgeDegree = 1000; // gains of pins on larger edges are refreshed lazily
+        public int threadNum = Runtime.getRuntime().availableProcessors();
+    }
+
+    private HierarchicalLogger logger;
+    private Config config;
+    private HyperGraph hyperGraph;
+
+    private Coordinate2D gridDim;
+    private int islandNum;
+    private int weightDim;
+    private double[][] islandUpperLimits;
+    private double[][] islandLowerLimits;
+    private Set<Integer> fixedNodes;
+
+    // refinement states
+    private int[] node2Island;
+    private double[][] islandSizes;
+    private int[] node2LocalIdx; // index of node in the pair refiner it belongs to, written by a single refiner per matching
+
+    public GridIslandRefiner(HierarchicalLogger logger, Config config, HyperGraph hyperGraph) {
+        this.logger = logger;
+        this.config = config;
+        this.hyperGraph = hyperGraph;
+        this.gridDim = config.gridDim;
+        this.islandNum = gridDim.getX() * gridDim.getY();
+        this.weightDim = hyperGraph.getNodeWeightDim();
+
+        assert config.gridLimits != null && config.gridLimits.size() == islandNum;
+        islandUpperLimits = new double[islandNum][];
+        islandLowerLimits = new double[islandNum][];
+        for (int islandId = 0; islandId < islandNum; islandId++) {
+            islandUpperLimits[islandId] = toArray(config.gridLimits.get(islandId));
+            if (config.gridLowerLimits != null) {
+                islandLowerLimits[islandId] = toArray(config.gridLowerLimits.get(islandId));
+            } else {
+                islandLowerLimits[islandId] = new double[weightDim];
+            }
+        }
+        fixedNodes = new HashSet<>();
+    }
+
+    public void setFixedNodes(Set<Integer> fixedNodes) {
+        this.fixedNodes = fixedNodes;
+    }
+
+    public List<Coordinate2D> run(List<Coordinate2D> initialLocs) {
+        logger.info("Start grid-aware parallel island refinement");
+        logger.newSubStep();
+
+        assert initialLocs.size() == hyperGraph.getNodeNum();
+        hyperGraph.seal(); // incidences are read concurrently by pair refiners
+        node2Island = new int[hyperGraph.getNodeNum()];
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            Coordinate2D loc = initialLocs.get(nodeId);
+            assert loc.getX() >= 0 && loc.getY() >= 0: "Node-" + nodeId + " is not placed";
+            node2Island[nodeId] = gridDim.getIdxOf(loc);
+        }
+        node2LocalIdx = new int[hyperGraph.getNodeNum()];
+        setupIslandSizes();
+
+        List<List<int[]>> matchings = getIslandPairMatchings();
+        double curCost = getGridCost();
+        double initialCost = curCost;
+        logger.info(String.format("Initial distance-weighted cut: %.2f", initialCost));
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.threadNum);
+        try {
+            for (int round = 0; round < config.maxRoundNum; round++) {
+                double roundGain = 0.0;
+                for (List<int[]> matching : matchings) {
+                    List<int[]> moves = refineMatching(matching, executor);
+                    if (moves.isEmpty()) continue;
+
+                    applyMoves(moves, false);
+                    double newCost = getGridCost();
+                    if (newCost > curCost + 1e-6) {
+                        // concurrent pairs sharing edges may cancel each other out
+                        applyMoves(moves, true);
+                    } else {
+                        roundGain += curCost - newCost;
+                        curCost = newCost;
+                    }
+                }
+                logger.info(String.format("Round %d: Gain=%.2f Cost=%.2f", round, roundGain, curCost));
+                if (roundGain <= 0.0) break;
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assert Math.abs(curCost - getGridCost()) < 1e-6;
+        logger.endSubStep();
+        logger.info(String.format("Complete grid-aware parallel island refinement: %.2f -> %.2f", initialCost, curCost));
+
+        List<Coordinate2D> locs = new ArrayList<>();
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            locs.add(gridDim.getLocOf(node2Island[nodeId]));
+        }
+        return locs;
+    }
+
+    // horizontal and vertical neighbor pairs split by the parity of their lower coordinate
+    private List<List<int[]>> getIslandPairMatchings() {
+        List<List<int[]>> matchings = new ArrayList<>();
+        for (int parity = 0; parity < 2; parity++) {
+            List<int[]> horiPairs = new ArrayList<>();
+            List<int[]> vertPairs = new ArrayList<>();
+            for (int x = 0; x < gridDim.getX(); x++) {
+                for (int y = 0; y < gridDim.getY(); y++) {
+                    int islandId = gridDim.getIdxOf(Coordinate2D.of(x, y));
+                    if (x % 2 == parity && x + 1 < gridDim.getX()) {
+                        horiPairs.add(new int[] {islandId, gridDim.getIdxOf(Coordinate2D.of(x + 1, y))});
+                    }
+                    if (y % 2 == parity && y + 1 < gridDim.getY()) {
+                        vertPairs.add(new int[] {islandId, gridDim.getIdxOf(Coordinate2D.of(x, y + 1))});
+                    }
+                }
+            }
+            if (!horiPairs.isEmpty()) matchings.add(horiPairs);
+            if (!vertPairs.isEmpty()) matchings.add(vertPairs);
+        }
+        return matchings;
+    }
+
+    private List<int[]> refineMatching(List<int[]> matching, ExecutorService executor) {
+        List<List<Integer>> island2Nodes = new ArrayList<>();
+        for (int islandId = 0; islandId < islandNum; islandId++) {
+            island2Nodes.add(new ArrayList<>());
+        }
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            island2Nodes.get(node2Island[nodeId]).add(nodeId);
+        }
+
+        List<Future<List<int[]>>> futures = new ArrayList<>();
+        for (int[] pair : matching) {
+            List<Integer> pairNodes = new ArrayList<>(island2Nodes.get(pair[0]));
+            pairNodes.addAll(island2Nodes.get(pair[1]));
+            futures.add(executor.submit(new PairRefiner(pair[0], pair[1], pairNodes)));
+        }
+
+        List<int[]> moves = new ArrayList<>();
+        try {
+            for (Future<List<int[]>> future : futures) {
+                moves.addAll(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Parallel island refinement failed", e);
+        }
+        return moves;
+    }
+
+    // move: {nodeId, fromIslandId, toIslandId}
+    private void applyMoves(List<int[]> moves, boolean revert) {
+        for (int[] move : moves) {
+            int nodeId = move[0];
+            int fromIslandId = revert ? move[2] : move[1];
+            int toIslandId = revert ? move[1] : move[2];
+            assert node2Island[nodeId] == fromIslandId;
+            node2Island[nodeId] = toIslandId;
+            for (int dim = 0; dim < weightDim; dim++) {
+                double weight = hyperGraph.getNodeWeight(nodeId, dim);
+                islandSizes[fromIslandId][dim] -= weight;
+                islandSizes[toIslandId][dim] += weight;
+            }
+        }
+    }
+
+    private void setupIslandSizes() {
+        islandSizes = new double[islandNum][weightDim];
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            for (int dim = 0; dim < weightDim; dim++) {
+                islandSizes[node2Island[nodeId]][dim] += hyperGraph.getNodeWeight(nodeId, dim);
+            }
+        }
+    }
+
+    public double getGridCost() {
+        double cost = 0.0;
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < hyperGraph.getDegreeOfEdge(edgeId); i++) {
+                Coordinate2D loc = gridDim.getLocOf(node2Island[hyperGraph.getNodeOfEdge(edgeId, i)]);
+                minX = Math.min(minX, loc.getX());
+                maxX = Math.max(maxX, loc.getX());
+                minY = Math.min(minY, loc.getY());
+                maxY = Math.max(maxY, loc.getY());
+            }
+            if (minX == Integer.MAX_VALUE) continue;
+            cost += hyperGraph.getEdgeWeightsSum(edgeId) * ((maxX - minX) + (maxY - minY));
+        }
+        return cost;
+    }
+
+    private static double[] toArray(List<Double> values) {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    // FM refinement between two adjacent islands with nodes in other islands frozen at the start of the matching
+    private class PairRefiner implements Callable<List<int[]>> {
+        private int[] pairIslands;
+        private int[][] pairLocs; // {x, y} of both islands
+        private int[] nodes;
+        private int[] node2Side;
+        private boolean[] isMovable;
+        private double[][] sideSizes;
+
+        // local edges incident to pair nodes
+        private Map<Integer, Integer> edge2LocalIdx;
+        private int[] localEdges;
+        private double[] localEdgeWeights;
+        private int[][] localEdgePinNum; // [side][localEdgeIdx]
+        private int[] outMinX, outMaxX, outMinY, outMaxY; // bounding box of frozen pins outside the pair
+        private int localEdgeNum;
+
+        // CSR of local edges of each node
+        private int[] nodeEdgeOffsets;
+        private int[] nodeEdges;
+
+        public PairRefiner(int islandA, int islandB, List<Integer> pairNodes) {
+            pairIslands = new int[] {islandA, islandB};
+            pairLocs = new int[2][];
+            for (int side = 0; side < 2; side++) {
+                Coordinate2D loc = gridDim.getLocOf(pairIslands[side]);
+                pairLocs[side] = new int[] {loc.getX(), loc.getY()};
+            }
+            nodes = pairNodes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public List<int[]> call() {
+            setup();
+
+            for (int pass = 0; pass < config.maxPassNum; pass++) {
+                if (runFMPass() <= 0.0) break;
+            }
+
+            List<int[]> moves = new ArrayList<>();
+            for (int localIdx = 0; localIdx < nodes.length; localIdx++) {
+                int nodeId = nodes[localIdx];
+                int toIslandId = pairIslands[node2Side[localIdx]];
+                if (toIslandId != node2Island[nodeId]) {
+                    moves.add(new int[] {nodeId, node2Island[nodeId], toIslandId});
+                }
+            }
+            return moves;
+        }
+
+        private boolean isPairNode(int nodeId) {
+            return node2Island[nodeId] == pairIslands[0] || node2Island[nodeId] == pairIslands[1];
+        }
+
+        private void setup() {
+            node2Side = new int[nodes.length];
+            isMovable = new boolean[nodes.length];
+            for (int localIdx = 0; localIdx < nodes.length; localIdx++) {
+                int nodeId = nodes[localIdx];
+                node2LocalIdx[nodeId] = localIdx;
+                node2Side[localIdx] = node2Island[nodeId] == pairIslands[0] ? 0 : 1;
+                isMovable[localIdx] = !fixedNodes.contains(nodeId);
+            }
+            sideSizes = new double[][] {islandSizes[pairIslands[0]].clone(), islandSizes[pairIslands[1]].clone()};
+
+            edge2LocalIdx = new HashMap<>();
+            int initCapacity = 16;
+            localEdges = new int[initCapacity];
+            localEdgeWeights = new double[initCapacity];
+            localEdgePinNum = new int[2][initCapacity];
+            outMinX = new int[initCapacity];
+            outMaxX = new int[initCapacity];
+            outMinY = new int[initCapacity];
+            outMaxY = new int[initCapacity];
+            localEdgeNum = 0;
+
+            nodeEdgeOffsets = new int[nodes.length + 1];
+            int incidenceNum = 0;
+            for (int localIdx = 0; localIdx < nodes.length; localIdx++) {
+                incidenceNum += hyperGraph.getDegreeOfNode(nodes[localIdx]);
+            }
+            nodeEdges = new int[incidenceNum];
+
+            int pos = 0;
+            for (int localIdx = 0; localIdx < nodes.length; localIdx++) {
+                int nodeId = nodes[localIdx];
+                for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+                    int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+                    Integer localEdgeIdx = edge2LocalIdx.get(edgeId);
+                    if (localEdgeIdx == null) {
+                        localEdgeIdx = addLocalEdge(edgeId);
+                    }
+                    nodeEdges[pos++] = localEdgeIdx;
+                }
+                nodeEdgeOffsets[localIdx + 1] = pos;
+            }
+        }
+
+        private int addLocalEdge(int edgeId) {
+            if (localEdgeNum == localEdges.length) {
+                int capacity = localEdgeNum * 2;
+                localEdges = Arrays.copyOf(localEdges, capacity);
+                localEdgeWeights = Arrays.copyOf(localEdgeWeights, capacity);
+                localEdgePinNum[0] = Arrays.copyOf(localEdgePinNum[0], capacity);
+                localEdgePinNum[1] = Arrays.copyOf(localEdgePinNum[1], capacity);
+                outMinX = Arrays.copyOf(outMinX, capacity);
+                outMaxX = Arrays.copyOf(outMaxX, capacity);
+                outMinY = Arrays.copyOf(outMinY, capacity);
+                outMaxY = Arrays.copyOf(outMaxY, capacity);
+            }
+
+            int localEdgeIdx = localEdgeNum++;
+            localEdges[localEdgeIdx] = edgeId;
+            localEdgeWeights[localEdgeIdx] = hyperGraph.getEdgeWeightsSum(edgeId);
+            outMinX[localEdgeIdx] = outMinY[localEdgeIdx] = Integer.MAX_VALUE;
+            outMaxX[localEdgeIdx] = outMaxY[localEdgeIdx] = Integer.MIN_VALUE;
+
+            for (int i = 0; i < hyperGraph.getDegreeOfEdge(edgeId); i++) {
+                int islandId = node2Island[hyperGraph.getNodeOfEdge(edgeId, i)];
+                if (islandId == pairIslands[0]) {
+                    localEdgePinNum[0][localEdgeIdx]++;
+                } else if (islandId == pairIslands[1]) {
+                    localEdgePinNum[1][localEdgeIdx]++;
+                } else {
+                    Coordinate2D loc = gridDim.getLocOf(islandId);
+                    outMinX[localEdgeIdx] = Math.min(outMinX[localEdgeIdx], loc.getX());
+                    outMaxX[localEdgeIdx] = Math.max(outMaxX[localEdgeIdx], loc.getX());
+                    outMinY[localEdgeIdx] = Math.min(outMinY[localEdgeIdx], loc.getY());
+                    outMaxY[localEdgeIdx] = Math.max(outMaxY[localEdgeIdx], loc.getY());
+                }
+            }
+            edge2LocalIdx.put(edgeId, localEdgeIdx);
+            return localEdgeIdx;
+        }
+
+        private int getSpan(int localEdgeIdx, int pinNum0, int pinNum1) {
+            int minX = outMinX[localEdgeIdx], maxX = outMaxX[localEdgeIdx];
+            int minY = outMinY[localEdgeIdx], maxY = outMaxY[localEdgeIdx];
+            if (pinNum0 > 0) {
+                minX = Math.min(minX, pairLocs[0][0]);
+                maxX = Math.max(maxX, pairLocs[0][0]);
+                minY = Math.min(minY, pairLocs[0][1]);
+                maxY = Math.max(maxY, pairLocs[0][1]);
+            }
+            if (pinNum1 > 0) {
+                minX = Math.min(minX, pairLocs[1][0]);
+                maxX = Math.max(maxX, pairLocs[1][0]);
+                minY = Math.min(minY, pairLocs[1][1]);
+                maxY = Math.max(maxY, pairLocs[1][1]);
+            }
+            if (minX == Integer.MAX_VALUE) {
+                return 0;
+            }
+            return (maxX - minX) + (maxY - minY);
+        }
+
+        // decrease of distance-weighted cut when moving the node to the other island
+        private double getMoveGain(int localIdx) {
+            int fromSide = node2Side[localIdx];
+            double gain = 0.0;
+            for (int i = nodeEdgeOffsets[localIdx]; i < nodeEdgeOffsets[localIdx + 1]; i++) {
+                int localEdgeIdx = nodeEdges[i];
+                if (localEdgeWeights[localEdgeIdx] == 0.0) continue;
+                int pinNum0 = localEdgePinNum[0][localEdgeIdx];
+                int pinNum1 = localEdgePinNum[1][localEdgeIdx];
+                int originSpan = getSpan(localEdgeIdx, pinNum0, pinNum1);
+                int newSpan = fromSide == 0 ? getSpan(localEdgeIdx, pinNum0 - 1, pinNum1 + 1) : getSpan(localEdgeIdx, pinNum0 + 1, pinNum1 - 1);
+                gain += localEdgeWeights[localEdgeIdx] * (originSpan - newSpan);
+            }
+            return gain;
+        }
+
+        private boolean isMoveLegal(int localIdx) {
+            int nodeId = nodes[localIdx];
+            int fromSide = node2Side[localIdx];
+            int toSide = 1 - fromSide;
+            double[] toUpperLimits = islandUpperLimits[pairIslands[toSide]];
+            double[] fromLowerLimits = islandLowerLimits[pairIslands[fromSide]];
+            for (int dim = 0; dim < weightDim; dim++) {
+                double weight = hyperGraph.getNodeWeight(nodeId, dim);
+                if (weight <= 0.0) continue;
+                if (sideSizes[toSide][dim] + weight > toUpperLimits[dim]) return false;
+                if (sideSizes[fromSide][dim] - weight < fromLowerLimits[dim]) return false;
+            }
+            return true;
+        }
+
+        private void moveNode(int localIdx) {
+            int nodeId = nodes[localIdx];
+            int fromSide = node2Side[localIdx];
+            int toSide = 1 - fromSide;
+            for (int i = nodeEdgeOffsets[localIdx]; i < nodeEdgeOffsets[localIdx + 1]; i++) {
+                int localEdgeIdx = nodeEdges[i];
+                localEdgePinNum[fromSide][localEdgeIdx]--;
+                localEdgePinNum[toSide][localEdgeIdx]++;
+            }
+            for (int dim = 0; dim < weightDim; dim++) {
+                double weight = hyperGraph.getNodeWeight(nodeId, dim);
+                sideSizes[fromSide][dim] -= weight;
+                sideSizes[toSide][dim] += weight;
+            }
+            node2Side[localIdx] = toSide;
+        }
+
+        private boolean isBoundaryNode(int localIdx) {
+            int otherSide = 1 - node2Side[localIdx];
+            for (int i = nodeEdgeOffsets[localIdx]; i < nodeEdgeOffsets[localIdx + 1]; i++) {
+                int localEdgeIdx = nodeEdges[i];
+                if (localEdgePinNum[otherSide][localEdgeIdx] > 0 || outMinX[localEdgeIdx] != Integer.MAX_VALUE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // FM pass with rollback to the best prefix of moves, return the gain of the pass
+        private double runFMPass() {
+            IndexedMaxHeap gainHeap = new IndexedMaxHeap(nodes.length);
+            boolean[] isLocked = new boolean[nodes.length];
+            for (int localIdx = 0; localIdx < nodes.length; localIdx++) {
+                if (isMovable[localIdx] && isBoundaryNode(localIdx)) {
+                    gainHeap.insert(localIdx, getMoveGain(localIdx));
+                }
+            }
+
+            int[] movedNodes = new int[16];
+            int moveNum = 0;
+            int bestMoveNum = 0;
+            double accuGain = 0.0;
+            double bestGain = 0.0;
+            int nonImproveMoveNum = 0;
+
+            while (!gainHeap.isEmpty() && nonImproveMoveNum < config.maxNonImproveMoveNum) {
+                double heapGain = gainHeap.peekKey();
+                int localIdx = gainHeap.poll();
+
+                // gains on large edges are not refreshed eagerly
+                double gain = getMoveGain(localIdx);
+                if (gain < heapGain - 1e-9) {
+                    gainHeap.insert(localIdx, gain);
+                    continue;
+                }
+                if (!isMoveLegal(localIdx)) continue;
+
+                moveNode(localIdx);
+                isLocked[localIdx] = true;
+                if (moveNum == movedNodes.length) {
+                    movedNodes = Arrays.copyOf(movedNodes, moveNum * 2);
+                }
+                movedNodes[moveNum++] = localIdx;
+                accuGain += gain;
+
+                if (accuGain > bestGain + 1e-9) {
+                    bestGain = accuGain;
+                    bestMoveNum = moveNum;
+                    nonImproveMoveNum = 0;
+                } else {
+                    nonImproveMoveNum++;
+                }
+
+                updateNeighborGains(localIdx, gainHeap, isLocked);
+            }
+
+            // rollback moves after the best prefix
+            for (int i = moveNum - 1; i >= bestMoveNum; i--) {
+                moveNode(movedNodes[i]);
+            }
+            return bestGain;
+        }
+
+        private void updateNeighborGains(int localIdx, IndexedMaxHeap gainHeap, boolean[] isLocked) {
+            for (int i = nodeEdgeOffsets[localIdx]; i < nodeEdgeOffsets[localIdx + 1]; i++) {
+                int edgeId = localEdges[nodeEdges[i]];
+                int degree = hyperGraph.getDegreeOfEdge(edgeId);
+                if (degree > config.maxUpdateEdgeDegree) continue;
+
+                for (int j = 0; j < degree; j++) {
+                    int nodeId = hyperGraph.getNodeOfEdge(edgeId, j);
+                    if (!isPairNode(nodeId)) continue;
+                    int nLocalIdx = node2LocalIdx[nodeId];
+                    if (isLocked[nLocalIdx] || !isMovable[nLocalIdx]) continue;
+
+                    double gain = getMoveGain(nLocalIdx);
+                    if (gainHeap.contains(nLocalIdx)) {
+                        gainHeap.update(nLocalIdx, gain);
+                    } else {
+                        gainHeap.insert(nLocalIdx, gain);
+                    }
+                }
+            }
+        }
+    }
+}
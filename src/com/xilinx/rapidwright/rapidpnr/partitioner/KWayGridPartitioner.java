@@ -0,0 +1,538 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+import com.xilinx.rapidwright.rapidpnr.utils.IndexedMaxHeap;
+
+// Direct k-way partitioner that maps blocks onto an island grid (blockId = gridDim.getIdxOf(loc)).
+// The objective is the grid connectivity: sum of edge weight * HPWL of the islands spanned by the edge,
+// so that cuts between adjacent islands cost less than cuts between distant ones.
+public class KWayGridPartitioner extends AbstractPartitioner {
+
+    public static class Config extends AbstractConfig {
+        public Coordinate2D gridDim = Coordinate2D.of(2, 1);
+        public int maxPassNum = 10; // maximum number of label propagation passes
+        public int initialTrialNum = 10; // number of greedy initial partitions tried
+        public double extremeLargeRatio = 0.05; // extremely large nodes are assigned first
+        public boolean gridAware = true; // minimize plain cut size instead of grid connectivity when false
+
+        public Config() {
+            super();
+        }
+
+        public Config(AbstractConfig config, Coordinate2D gridDim) {
+            super(config);
+            this.gridDim = gridDim;
+            this.blockNum = gridDim.getX() * gridDim.getY();
+        }
+
+        public Config(Config config) {
+            super(config);
+            this.gridDim = config.gridDim;
+            this.maxPassNum = config.maxPassNum;
+            this.initialTrialNum = config.initialTrialNum;
+            this.extremeLargeRatio = config.extremeLargeRatio;
+            this.gridAware = config.gridAware;
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + String.format(" GridDim=%s GridAware=%b", gridDim, gridAware);
+        }
+    }
+
+    private Config config;
+    private int[] block2X;
+    private int[] block2Y;
+
+    // grid connectivity of current partition
+    protected double gridCost;
+
+    public KWayGridPartitioner(HierarchicalLogger logger, Config config, HyperGraph hyperGraph) {
+        super(logger, config, hyperGraph);
+        this.config = config;
+
+        assert config.blockNum == config.gridDim.getX() * config.gridDim.getY(): "Block number mismatches grid dimension";
+
+        block2X = new int[config.blockNum];
+        block2Y = new int[config.blockNum];
+        for (int blockId = 0; blockId < config.blockNum; blockId++) {
+            Coordinate2D loc = config.gridDim.getLocOf(blockId);
+            block2X[blockId] = loc.getX();
+            block2Y[blockId] = loc.getY();
+        }
+        gridCost = 0.0;
+    }
+
+    public List<Integer> run() {
+        logger.info("Start k-way grid partition");
+        logger.newSubStep();
+
+        Random random = new Random(config.randomSeed);
+        List<Integer> bestPartRes = null;
+        double bestGridCost = Double.MAX_VALUE;
+
+        for (int trialId = 0; trialId < config.initialTrialNum; trialId++) {
+            greedyInitialPart(random.nextInt());
+            rebalance();
+            labelPropagationRefine();
+
+            boolean isLegal = checkSizeConstr() && checkFixedNodesConstr();
+            if (isLegal && gridCost < bestGridCost) {
+                bestGridCost = gridCost;
+                bestPartRes = new ArrayList<>(node2BlockId);
+            }
+            if (config.verbose) {
+                logger.info(String.format("Initial trial-%d: legal=%b grid cost=%.3f", trialId, isLegal, gridCost));
+            }
+        }
+
+        if (bestPartRes == null) {
+            logger.warning("No legal k-way initial partition found");
+        } else {
+            setPartResult(bestPartRes, false);
+        }
+        printPartitionInfo();
+
+        logger.endSubStep();
+        logger.info("Complete k-way grid partition");
+        return Collections.unmodifiableList(node2BlockId);
+    }
+
+    public List<Integer> run(List<Integer> initialPartRes) {
+        logger.info("Start k-way grid partition refinement");
+        logger.newSubStep();
+
+        setPartResult(initialPartRes, false);
+        double initialGridCost = gridCost;
+
+        rebalance();
+        labelPropagationRefine();
+
+        logger.info(String.format("Cut size=%.3f grid cost=%.3f", cutSize, gridCost));
+
+        logger.endSubStep();
+        logger.info("Complete k-way grid partition refinement with grid cost reduction of " + (initialGridCost - gridCost));
+        return Collections.unmodifiableList(node2BlockId);
+    }
+
+    protected void greedyInitialPart(int seed) {
+        Random random = new Random(seed);
+        clearPartResult();
+
+        // assign fixed nodes
+        for (int nodeId : fixedNodes.keySet()) {
+            moveNode(nodeId, fixedNodes.get(nodeId));
+        }
+
+        // extremely large nodes first, then grow regions in BFS order from random seeds
+        List<Double> largeNodeWeight = vecMulScalar(hyperGraph.getTotalNodeWeight(), config.extremeLargeRatio);
+        List<Integer> nodeSeq = new ArrayList<>();
+        List<Integer> shuffleNodes = new ArrayList<>();
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            if (!vecLessEq(hyperGraph.getWeightsOfNode(nodeId), largeNodeWeight)) {
+                nodeSeq.add(nodeId);
+            } else {
+                shuffleNodes.add(nodeId);
+            }
+        }
+        Collections.shuffle(shuffleNodes, random);
+
+        boolean[] isVisited = new boolean[hyperGraph.getNodeNum()];
+        for (int nodeId : nodeSeq) {
+            isVisited[nodeId] = true;
+        }
+        Queue<Integer> searchQueue = new ArrayDeque<>();
+        for (int seedNodeId : shuffleNodes) {
+            if (isVisited[seedNodeId]) continue;
+            isVisited[seedNodeId] = true;
+            searchQueue.add(seedNodeId);
+
+            while (!searchQueue.isEmpty()) {
+                int nodeId = searchQueue.poll();
+                nodeSeq.add(nodeId);
+                for (int nNodeId : hyperGraph.getNeighborsOfNode(nodeId)) {
+                    if (isVisited[nNodeId]) continue;
+                    isVisited[nNodeId] = true;
+                    searchQueue.add(nNodeId);
+                }
+            }
+        }
+
+        // grow each block up to the average size so that no block is left underloaded
+        List<Double> avgBlockSize = vecMulScalar(hyperGraph.getTotalNodeWeight(), 1.0 / config.blockNum);
+        for (int nodeId : nodeSeq) {
+            if (node2BlockId.get(nodeId) != -1) continue;
+
+            int bestBlockId = -1;
+            double bestGain = Double.NEGATIVE_INFINITY;
+            int lightestBlockId = -1;
+            List<Double> nodeWeights = hyperGraph.getWeightsOfNode(nodeId);
+            for (int blockId = 0; blockId < config.blockNum; blockId++) {
+                if (lightestBlockId == -1 || isLighter(blockId, lightestBlockId)) {
+                    lightestBlockId = blockId;
+                }
+                if (!vecLessEq(vecAdd(blockSizes.get(blockId), nodeWeights), avgBlockSize)) continue;
+
+                double gain = getGridMoveGainOf(nodeId, blockId);
+                if (gain > bestGain || (gain == bestGain && isLighter(blockId, bestBlockId))) {
+                    bestGain = gain;
+                    bestBlockId = blockId;
+                }
+            }
+
+            // left for rebalance when the lightest block cannot hold the node
+            moveNode(nodeId, bestBlockId != -1 ? bestBlockId : lightestBlockId);
+        }
+    }
+
+    // k-way label propagation: move boundary nodes to the neighboring block with max positive gain
+    protected void labelPropagationRefine() {
+        Random random = new Random(config.randomSeed);
+        List<Integer> randNodeIds = new ArrayList<>();
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            if (fixedNodes.containsKey(nodeId)) continue;
+            randNodeIds.add(nodeId);
+        }
+
+        boolean[] isCandBlock = new boolean[config.blockNum];
+        List<Integer> candBlockIds = new ArrayList<>();
+
+        int passId = 0;
+        double totalGain = 0.0;
+        while (passId < config.maxPassNum) {
+            double passGain = 0.0;
+            int moveNum = 0;
+            Collections.shuffle(randNodeIds, random);
+
+            for (int nodeId : randNodeIds) {
+                int fromBlockId = node2BlockId.get(nodeId);
+
+                // candidate blocks are those spanned by incident edges
+                for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+                    int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+                    if (!isCutEdge(edgeId)) continue;
+                    for (int blockId = 0; blockId < config.blockNum; blockId++) {
+                        if (isCandBlock[blockId] || blockId == fromBlockId) continue;
+                        if (getPinNumOfEdgeInBlock(edgeId, blockId) == 0) continue;
+                        isCandBlock[blockId] = true;
+                        candBlockIds.add(blockId);
+                    }
+                }
+
+                int bestBlockId = -1;
+                double bestGain = 0.0;
+                for (int blockId : candBlockIds) {
+                    isCandBlock[blockId] = false;
+                    if (!isMoveBalanced(nodeId, blockId)) continue;
+
+                    double gain = getGridMoveGainOf(nodeId, blockId);
+                    boolean isBetter = gain > bestGain;
+                    // zero-gain moves are only taken when they improve balance
+                    if (gain == bestGain && gain == 0.0) {
+                        isBetter = isLighterAfterMove(nodeId, fromBlockId, bestBlockId == -1 ? fromBlockId : bestBlockId, blockId);
+                    }
+                    if (isBetter) {
+                        bestGain = gain;
+                        bestBlockId = blockId;
+                    }
+                }
+                candBlockIds.clear();
+
+                if (bestBlockId != -1) {
+                    moveNode(nodeId, bestBlockId);
+                    passGain += bestGain;
+                    moveNum++;
+                }
+            }
+
+            if (config.verbose) {
+                logger.info(String.format("Complete pass-%d of k-way refinement with %d nodes moved and gain=%.3f", passId, moveNum, passGain));
+            }
+            passId++;
+            totalGain += passGain;
+            if (passGain <= 0.0) break;
+        }
+
+        logger.info(String.format("Complete %d passes of k-way refinement with gain=%.3f", passId, totalGain));
+    }
+
+    // move nodes out of overloaded blocks with minimum loss of grid cost
+    // candidates are kept in a gain heap: neighbors of moved nodes are updated eagerly,
+    // legality changes due to filled target blocks are caught lazily when a candidate is polled
+    protected void rebalance() {
+        List<List<Integer>> block2NodeIds = null;
+        IndexedMaxHeap gainHeap = null;
+        int[] node2ToBlockId = null;
+
+        for (int blockId = 0; blockId < config.blockNum; blockId++) {
+            if (vecLessEq(blockSizes.get(blockId), blockSizeUpperBound)) continue;
+
+            if (block2NodeIds == null) {
+                // nodes only leave overloaded blocks for legal targets, so the lists stay valid across blocks
+                block2NodeIds = new ArrayList<>();
+                for (int i = 0; i < config.blockNum; i++) {
+                    block2NodeIds.add(new ArrayList<>());
+                }
+                for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+                    if (fixedNodes.containsKey(nodeId) || node2BlockId.get(nodeId) == -1) continue;
+                    block2NodeIds.get(node2BlockId.get(nodeId)).add(nodeId);
+                }
+                gainHeap = new IndexedMaxHeap(hyperGraph.getNodeNum());
+                node2ToBlockId = new int[hyperGraph.getNodeNum()];
+            }
+
+            for (int nodeId : block2NodeIds.get(blockId)) {
+                if (node2BlockId.get(nodeId) != blockId) continue;
+                double gain = findRebalanceMove(nodeId, node2ToBlockId);
+                if (node2ToBlockId[nodeId] != -1) {
+                    gainHeap.insert(nodeId, gain);
+                }
+            }
+
+            while (!vecLessEq(blockSizes.get(blockId), blockSizeUpperBound) && !gainHeap.isEmpty()) {
+                double key = gainHeap.peekKey();
+                int nodeId = gainHeap.poll();
+                double gain = findRebalanceMove(nodeId, node2ToBlockId);
+                if (node2ToBlockId[nodeId] == -1) continue;
+                if (gain < key && !gainHeap.isEmpty() && gain < gainHeap.peekKey()) {
+                    // stale candidate, retry after the others that are now better
+                    gainHeap.insert(nodeId, gain);
+                    continue;
+                }
+                moveNode(nodeId, node2ToBlockId[nodeId]);
+                updateRebalanceGains(nodeId, gainHeap, node2ToBlockId);
+            }
+            gainHeap.clear();
+
+            if (!vecLessEq(blockSizes.get(blockId), blockSizeUpperBound)) {
+                logger.info(String.format("Fail to rebalance block-%d: %s", blockId, blockSizes.get(blockId)));
+            }
+        }
+    }
+
+    // gains of candidates sharing edges with a moved node change, e.g. when a cluster can now follow it
+    private void updateRebalanceGains(int movedNodeId, IndexedMaxHeap gainHeap, int[] node2ToBlockId) {
+        for (int i = 0; i < hyperGraph.getDegreeOfNode(movedNodeId); i++) {
+            int edgeId = hyperGraph.getEdgeOfNode(movedNodeId, i);
+            for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+                int nNodeId = hyperGraph.getNodeOfEdge(edgeId, pinIdx);
+                if (!gainHeap.contains(nNodeId)) continue;
+                double gain = findRebalanceMove(nNodeId, node2ToBlockId);
+                if (node2ToBlockId[nNodeId] == -1) {
+                    gainHeap.remove(nNodeId);
+                } else {
+                    gainHeap.update(nNodeId, gain);
+                }
+            }
+        }
+    }
+
+    // best legal move of a node out of its block, stored in node2ToBlockId (-1 if none), returns its gain
+    private double findRebalanceMove(int nodeId, int[] node2ToBlockId) {
+        int fromBlockId = node2BlockId.get(nodeId);
+        int bestToBlockId = -1;
+        double bestGain = Double.NEGATIVE_INFINITY;
+        for (int toBlockId = 0; toBlockId < config.blockNum; toBlockId++) {
+            if (toBlockId == fromBlockId || !isMoveLegal(nodeId, toBlockId)) continue;
+            double gain = getGridMoveGainOf(nodeId, toBlockId);
+            if (gain > bestGain) {
+                bestGain = gain;
+                bestToBlockId = toBlockId;
+            }
+        }
+        node2ToBlockId[nodeId] = bestToBlockId;
+        return bestGain;
+    }
+
+    @Override
+    protected void moveNode(int nodeId, int toBlockId) {
+        if (node2BlockId.get(nodeId) == toBlockId) {
+            return;
+        }
+        gridCost -= getGridMoveGainOf(nodeId, toBlockId);
+        super.moveNode(nodeId, toBlockId);
+    }
+
+    @Override
+    protected void setPartResult(List<Integer> partRes, boolean checkConstr) {
+        super.setPartResult(partRes, checkConstr);
+
+        gridCost = 0.0;
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            gridCost += edgeWeightSums[edgeId] * getGridSpanOfEdge(edgeId, -1, -1);
+        }
+    }
+
+    protected void clearPartResult() {
+        List<Double> zeroBlockSize = Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.0);
+        for (int blockId = 0; blockId < config.blockNum; blockId++) {
+            blockSizes.set(blockId, new ArrayList<>(zeroBlockSize));
+        }
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            node2BlockId.set(nodeId, -1);
+        }
+        setupEdgeBlockPinNum();
+        gridCost = 0.0;
+    }
+
+    // decrease of grid cost when moving the node to toBlockId
+    protected double getGridMoveGainOf(int nodeId, int toBlockId) {
+        int fromBlockId = node2BlockId.get(nodeId);
+        if (fromBlockId == toBlockId) {
+            return 0.0;
+        }
+
+        double gain = 0.0;
+        for (int i = 0; i < hyperGraph.getDegreeOfNode(nodeId); i++) {
+            int edgeId = hyperGraph.getEdgeOfNode(nodeId, i);
+            double edgeWeight = edgeWeightSums[edgeId];
+            if (edgeWeight == 0.0) continue;
+
+            int originSpan;
+            int newSpan;
+            if (edgeBlockNum[edgeId] == 0) {
+                originSpan = newSpan = 0;
+            } else if (edgeBlockNum[edgeId] == 1 && fromBlockId != -1) {
+                // uncut edges only span the source block
+                originSpan = 0;
+                newSpan = getPinNumOfEdgeInBlock(edgeId, fromBlockId) == 1 ? 0 : getDist(fromBlockId, toBlockId);
+            } else {
+                originSpan = getGridSpanOfEdge(edgeId, -1, -1);
+                newSpan = getGridSpanOfEdge(edgeId, fromBlockId, toBlockId);
+            }
+            gain += edgeWeight * (originSpan - newSpan);
+        }
+        return gain;
+    }
+
+    // HPWL of blocks spanned by an edge after removing one pin from removedBlockId and adding one pin to addedBlockId
+    // without grid awareness, the span of a cut edge is 1
+    private int getGridSpanOfEdge(int edgeId, int removedBlockId, int addedBlockId) {
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        int spannedBlockNum = 0;
+
+        for (int blockId = 0; blockId < config.blockNum; blockId++) {
+            int pinNum = getPinNumOfEdgeInBlock(edgeId, blockId);
+            if (blockId == removedBlockId) pinNum--;
+            if (blockId == addedBlockId) pinNum++;
+            if (pinNum <= 0) continue;
+
+            spannedBlockNum++;
+            minX = Math.min(minX, block2X[blockId]);
+            maxX = Math.max(maxX, block2X[blockId]);
+            minY = Math.min(minY, block2Y[blockId]);
+            maxY = Math.max(maxY, block2Y[blockId]);
+        }
+
+        if (minX == Integer.MAX_VALUE) {
+            return 0;
+        }
+        if (!config.gridAware) {
+            return spannedBlockNum > 1 ? 1 : 0;
+        }
+        return (maxX - minX) + (maxY - minY);
+    }
+
+    // moves in k-way refinement keep both upper and lower bounds of block sizes
+    protected boolean isMoveBalanced(int nodeId, int toBlockId) {
+        if (!isMoveLegal(nodeId, toBlockId)) {
+            return false;
+        }
+        int fromBlockId = node2BlockId.get(nodeId);
+        if (fromBlockId == -1 || fromBlockId == toBlockId) {
+            return true;
+        }
+        List<Double> fromBlockSize = vecSub(blockSizes.get(fromBlockId), hyperGraph.getWeightsOfNode(nodeId));
+        return vecGreaterEq(fromBlockSize, blockSizeLowerBound);
+    }
+
+    private int getDist(int blockId1, int blockId2) {
+        if (!config.gridAware) {
+            return blockId1 == blockId2 ? 0 : 1;
+        }
+        return Math.abs(block2X[blockId1] - block2X[blockId2]) + Math.abs(block2Y[blockId1] - block2Y[blockId2]);
+    }
+
+    private double getRelativeSize(List<Double> blockSize) {
+        double relativeSize = 0.0;
+        for (int i = 0; i < blockSize.size(); i++) {
+            relativeSize = Math.max(relativeSize, blockSize.get(i) / Math.max(blockSizeUpperBound.get(i), Double.MIN_VALUE));
+        }
+        return relativeSize;
+    }
+
+    private boolean isLighter(int blockId1, int blockId2) {
+        if (blockId2 == -1) return true;
+        return getRelativeSize(blockSizes.get(blockId1)) < getRelativeSize(blockSizes.get(blockId2));
+    }
+
+    // check if moving the node to newBlockId leaves a lighter maximum block than moving it to curBlockId
+    private boolean isLighterAfterMove(int nodeId, int fromBlockId, int curBlockId, int newBlockId) {
+        List<Double> nodeWeights = hyperGraph.getWeightsOfNode(nodeId);
+        List<Double> fromBlockSize = vecSub(blockSizes.get(fromBlockId), nodeWeights);
+
+        double curMaxSize;
+        if (curBlockId == fromBlockId) {
+            curMaxSize = getRelativeSize(blockSizes.get(fromBlockId));
+        } else {
+            curMaxSize = Math.max(getRelativeSize(fromBlockSize), getRelativeSize(vecAdd(blockSizes.get(curBlockId), nodeWeights)));
+        }
+        double newMaxSize = Math.max(getRelativeSize(fromBlockSize), getRelativeSize(vecAdd(blockSizes.get(newBlockId), nodeWeights)));
+        return newMaxSize < curMaxSize;
+    }
+
+    protected boolean checkGridCost() {
+        double refGridCost = getGridCost(hyperGraph, node2BlockId, config.gridDim, config.gridAware);
+        return Math.abs(refGridCost - gridCost) <= 1e-6 * Math.max(1.0, Math.abs(refGridCost));
+    }
+
+    public double getGridCost() {
+        return gridCost;
+    }
+
+    public static double getGridCost(HyperGraph hyperGraph, List<Integer> partRes, Coordinate2D gridDim) {
+        return getGridCost(hyperGraph, partRes, gridDim, true);
+    }
+
+    public static double getGridCost(HyperGraph hyperGraph, List<Integer> partRes, Coordinate2D gridDim, boolean gridAware) {
+        double totalCost = 0.0;
+        List<Coordinate2D> locs = new ArrayList<>();
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            locs.clear();
+            int firstBlockId = -1;
+            boolean isCut = false;
+            for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+                int blockId = partRes.get(hyperGraph.getNodeOfEdge(edgeId, pinIdx));
+                if (blockId == -1) continue;
+                locs.add(gridDim.getLocOf(blockId));
+                if (firstBlockId == -1) {
+                    firstBlockId = blockId;
+                } else if (blockId != firstBlockId) {
+                    isCut = true;
+                }
+            }
+            if (locs.isEmpty()) continue;
+            if (gridAware) {
+                totalCost += hyperGraph.getEdgeWeightsSum(edgeId) * Coordinate2D.getHPWL(locs);
+            } else if (isCut) {
+                totalCost += hyperGraph.getEdgeWeightsSum(edgeId);
+            }
+        }
+        return totalCost;
+    }
+
+    @Override
+    public String getStatesInfo() {
+        return super.getStatesInfo() + String.format("\n  Grid Cost=%.3f", gridCost);
+    }
+}
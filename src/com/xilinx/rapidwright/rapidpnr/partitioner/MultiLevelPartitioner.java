@@ -4,9 +4,15 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
 import com.xilinx.rapidwright.rapidpnr.utils.HierHyperGraph;
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
 import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
@@ -26,9 +32,18 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
 
         //
         public int parallelRunNum = 1;
+        public int parallelThreadNum = Runtime.getRuntime().availableProcessors();
+        public int sharedHierarchyNum = 0; // coarsening hierarchies shared by parallel runs (0: coarsen in each run)
         public boolean vCycleRefine = false;
         public double vCycleUncoarseLevelRatio = 0.5;
 
+        // direct k-way partition onto island grid (bipartition when null)
+        public Coordinate2D gridDim = null;
+        public int kWayMaxPassNum = 10;
+        public int kWayInitialTrialNum = 10;
+        public int kWayCoarsenNodeNumPerBlock = 10;
+        public boolean kWayGridAware = true; // plain k-way cut minimization when false
+
         @Override
         public String toString() {
             return super.toString() + "\n" + coarserConfig.toString();
@@ -46,8 +61,15 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
             fmPassEarlyExitRatio = config.fmPassEarlyExitRatio;
             fmExtremeLargeRatio = config.fmExtremeLargeRatio;
             parallelRunNum = config.parallelRunNum;
+            parallelThreadNum = config.parallelThreadNum;
+            sharedHierarchyNum = config.sharedHierarchyNum;
             vCycleRefine = config.vCycleRefine;
             vCycleUncoarseLevelRatio = config.vCycleUncoarseLevelRatio;
+            gridDim = config.gridDim;
+            kWayMaxPassNum = config.kWayMaxPassNum;
+            kWayInitialTrialNum = config.kWayInitialTrialNum;
+            kWayCoarsenNodeNumPerBlock = config.kWayCoarsenNodeNumPerBlock;
+            kWayGridAware = config.kWayGridAware;
         }
     }
 
@@ -92,20 +114,6 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
         }
     }
 
-    public static class PartitionThread extends Thread {
-        public MultiLevelPartitioner partitioner;
-
-        public PartitionThread(Config config, HyperGraph hyperGraph) {
-            HierarchicalLogger dummyLogger = HierarchicalLogger.createPseduoLogger("partition");
-            partitioner = new MultiLevelPartitioner(dummyLogger, config, hyperGraph);
-        }
-
-        @Override
-        public void run() {
-            partitioner.run();
-        }
-    }
-
     // configuration parameters
     Config config;
     HierHyperGraph originHierGraph;
@@ -115,6 +123,8 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
         super(logger, config, hyperGraph);
         this.config = config;
         this.originHierGraph = HierHyperGraph.convertToHierHyperGraph(hyperGraph);
+
+        assert !isGridMode() || config.blockNum == config.gridDim.getX() * config.gridDim.getY(): "Block number mismatches grid dimension";
     }
 
     public List<Integer> run() {
@@ -166,62 +176,99 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
         logger.info("Start parallel initial multi-level partitioning");
         logger.newSubStep();
 
-        List<PartitionThread> partitionThreads = new ArrayList<>();
         Random random = new Random(config.randomSeed);
+        List<Integer> seeds = new ArrayList<>();
+        for (int id = 0; id < parallelNum; id++) {
+            seeds.add(random.nextInt());
+        }
+
+        // coarsening hierarchies are read-only after construction and can be shared by runs
+        List<HierHyperGraph> sharedCoarsestGraphs = new ArrayList<>();
+        int hierarchyNum = Math.min(config.sharedHierarchyNum, parallelNum);
+        for (int id = 0; id < hierarchyNum; id++) {
+            logger.info("Build shared coarsening hierarchy " + id);
+            sharedCoarsestGraphs.add(coarsen(originHierGraph, seeds.get(id)));
+        }
+
+        int threadNum = Math.max(1, Math.min(parallelNum, config.parallelThreadNum));
+        ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+        List<Future<List<Integer>>> partResultFutures = new ArrayList<>();
 
         for (int id = 0; id < parallelNum; id++) {
-            logger.info("Launch partition thread " + id);
-            Config newConfig = new Config(config);
+            logger.info("Launch partition task " + id);
+            int seed = seeds.get(id);
+
+            if (hierarchyNum > 0) {
+                HierHyperGraph coarsestGraph = sharedCoarsestGraphs.get(id % hierarchyNum);
+                partResultFutures.add(executor.submit(() -> {
+                    HierarchicalLogger dummyLogger = HierarchicalLogger.createPseduoLogger("partition");
+                    List<Integer> initialPartRes = initialPartition(coarsestGraph, seed, dummyLogger);
+                    return uncoarsenAndRefine(coarsestGraph, initialPartRes, seed, dummyLogger);
+                }));
+                continue;
+            }
 
+            Config newConfig = new Config(config);
             // disable v-cycle refinement for parallel runs
             newConfig.vCycleRefine = false;
             // set single run
             newConfig.parallelRunNum = 1;
-            // reset random seed for each thread
-            newConfig.randomSeed = random.nextInt();
-            newConfig.coarserConfig.seed = newConfig.randomSeed;
-
-            PartitionThread thread = new PartitionThread(newConfig, hyperGraph);
-
-            thread.start();
-            partitionThreads.add(thread);
+            // reset random seed for each run
+            newConfig.randomSeed = seed;
+            newConfig.coarserConfig.seed = seed;
+            // share cores among parallel runs
+            newConfig.coarserConfig.threadNum = Math.max(1, config.coarserConfig.threadNum / threadNum);
+
+            partResultFutures.add(executor.submit(() -> {
+                HierarchicalLogger dummyLogger = HierarchicalLogger.createPseduoLogger("partition");
+                MultiLevelPartitioner partitioner = new MultiLevelPartitioner(dummyLogger, newConfig, hyperGraph);
+                partitioner.setFixedNodes(fixedNodes);
+                return partitioner.run();
+            }));
         }
+        executor.shutdown();
 
-        List<Boolean> threadComplete = new ArrayList<>(Collections.nCopies(parallelNum, false));
-        int completeThreadNum = 0;
         Double minCutSize = Double.MAX_VALUE;
-        int minCutThreadId = -1;
-
-        while (completeThreadNum < parallelNum) {
-            for (int id = 0; id < parallelNum; id++) {
-                if (threadComplete.get(id)) continue;
-                PartitionThread thread = partitionThreads.get(id);
-                if (thread.isAlive()) continue;
-
-                threadComplete.set(id, true);
-                completeThreadNum++;
+        int minCutTaskId = -1;
+        List<Integer> bestPartResult = null;
+        Throwable firstFailure = null;
 
-                Boolean isFail = thread.partitioner.node2BlockId.stream().anyMatch(blockId -> blockId < 0);
-                if (isFail) {
-                    logger.info(String.format("Partition thread %d failed", id));
-                    continue;
+        for (int id = 0; id < parallelNum; id++) {
+            List<Integer> partResult;
+            try {
+                partResult = partResultFutures.get(id).get();
+            } catch (ExecutionException e) {
+                logger.warning(String.format("Partition task %d failed: %s", id, e.getCause()));
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
                 }
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for partition tasks", e);
+            }
 
-                Double cutSize = thread.partitioner.cutSize;
-                int seed = thread.partitioner.config.randomSeed;
-                logger.info(String.format("Partition thread %d completes successfully with cutSize=%.2f seed=%d", id, cutSize, seed));
-                if (cutSize < minCutSize) {
-                    minCutSize = cutSize;
-                    minCutThreadId = id;
-                }
-            }            
+            Boolean isFail = partResult.stream().anyMatch(blockId -> blockId < 0);
+            if (isFail) {
+                logger.warning(String.format("Partition task %d failed with unassigned nodes", id));
+                continue;
+            }
+
+            Double cutSize = getPartitionCost(hyperGraph, partResult);
+            logger.info(String.format("Partition task %d completes successfully with cutSize=%.2f seed=%d", id, cutSize, seeds.get(id)));
+            logger.getMetrics().observe("partition_task_cut_size", cutSize);
+            if (cutSize < minCutSize) {
+                minCutSize = cutSize;
+                minCutTaskId = id;
+                bestPartResult = partResult;
+            }
         }
 
-        logger.info(String.format("Find best partition from thread %d with cut size %.2f", minCutThreadId, minCutSize));
+        if (bestPartResult == null) {
+            throw new RuntimeException(String.format("All %d partition tasks failed", parallelNum), firstFailure);
+        }
 
-        List<Integer> bestPartResult = partitionThreads.get(minCutThreadId).partitioner.node2BlockId;
-        // setPartResult(bestPartResult, true);
-        // printPartitionInfo();
+        logger.info(String.format("Find best partition from task %d with cut size %.2f", minCutTaskId, minCutSize));
 
         logger.endSubStep();
         logger.info("Complete parallel initial multi-level partitioning");
@@ -229,32 +276,47 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
     }
 
     protected HierHyperGraph coarsen(HierHyperGraph initGraph) {
+        return coarsen(initGraph, config.randomSeed);
+    }
+
+    protected HierHyperGraph coarsen(HierHyperGraph initGraph, int seed) {
         logger.info("Start coarsening phase");
         logger.newSubStep();
 
         int coarseLevel = 0;
         HierHyperGraph curGraph = initGraph;
         Coarser.Config coarserConfig = new Coarser.Config(config.coarserConfig);
-        coarserConfig.seed = config.randomSeed;
+        coarserConfig.seed = seed;
+        coarserConfig.dontTouchNodes = new HashSet<>(coarserConfig.dontTouchNodes);
+        int coarsenStopNodeNum = config.coarsenStopNodeNum;
+
+        if (isGridMode()) {
+            // keep enough and small enough coarse nodes for each block
+            coarsenStopNodeNum = Math.max(coarsenStopNodeNum, config.kWayCoarsenNodeNumPerBlock * config.blockNum);
+            coarserConfig.maxNodeSizeRatio = Math.min(coarserConfig.maxNodeSizeRatio, 0.5 / config.blockNum);
+        }
 
         logger.info("Original Hypergraph: \n" + curGraph.getHyperGraphInfo(true), true);
 
-        while(curGraph.getNodeNum() > config.coarsenStopNodeNum) {
-            logger.info(String.format("The level of coarsening %d", coarseLevel));
+        // threads and scratch arrays of parallel coarsening are shared by all levels
+        try (Coarser.WorkerPool workerPool = Coarser.createWorkerPoolIfAbsent(coarserConfig)) {
+            while(curGraph.getNodeNum() > coarsenStopNodeNum) {
+                logger.info(String.format("The level of coarsening %d", coarseLevel));
 
-            int originNodeNum = curGraph.getNodeNum();
-            coarserConfig.dontTouchNodes.addAll(curGraph.getFixedNodes().keySet());
-            curGraph = Coarser.coarsening(coarserConfig, curGraph);
-            int newNodeNum = curGraph.getNodeNum();
+                int originNodeNum = curGraph.getNodeNum();
+                coarserConfig.dontTouchNodes.addAll(curGraph.getFixedNodes().keySet());
+                curGraph = Coarser.coarsening(coarserConfig, curGraph);
+                int newNodeNum = curGraph.getNodeNum();
 
-            logger.info("Coarsened Hypergraph: \n" + curGraph.getHyperGraphInfo(false), true);
-            
-            coarseLevel++;
-            coarserConfig.seed++; // modify random seed for next coarsening
+                logger.info("Coarsened Hypergraph: \n" + curGraph.getHyperGraphInfo(false), true);
 
-            if (originNodeNum == newNodeNum) {
-                logger.info("Coarsening aborta due to no reduction in node amount");
-                break;
+                coarseLevel++;
+                coarserConfig.seed++; // modify random seed for next coarsening
+
+                if (originNodeNum == newNodeNum) {
+                    logger.info("Coarsening aborta due to no reduction in node amount");
+                    break;
+                }
             }
         }
 
@@ -266,11 +328,28 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
     }
 
     protected List<Integer> initialPartition(HierHyperGraph hyperGraph) {
+        return initialPartition(hyperGraph, config.randomSeed, logger);
+    }
+
+    protected List<Integer> initialPartition(HierHyperGraph hyperGraph, int seed, HierarchicalLogger logger) {
         logger.info("Start initial partition of coarsest hypergraph");
 
         logger.newSubStep();
+        if (isGridMode()) {
+            KWayGridPartitioner.Config kWayConfig = getKWayConfig();
+            kWayConfig.randomSeed = seed;
+            KWayGridPartitioner kWayPartitioner = new KWayGridPartitioner(logger, kWayConfig, hyperGraph);
+            kWayPartitioner.setFixedNodes(hyperGraph.getFixedNodes());
+            List<Integer> partResults = kWayPartitioner.run();
+
+            logger.endSubStep();
+            logger.info("Complete initial partition of coarsest hypergraph");
+            return partResults;
+        }
+
         // FM-based initial partitioning
         FMPartitioner.Config fmPartConfig = new FMPartitioner.Config(config);
+        fmPartConfig.randomSeed = seed;
         FMPartitioner fmPartitioner = new FMPartitioner(logger, fmPartConfig, hyperGraph);
         fmPartitioner.setFixedNodes(hyperGraph.getFixedNodes());
 
@@ -282,6 +361,10 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
     }
 
     protected List<Integer> uncoarsenAndRefine(HierHyperGraph coarsestGraph, List<Integer> initPart) {
+        return uncoarsenAndRefine(coarsestGraph, initPart, config.randomSeed, logger);
+    }
+
+    protected List<Integer> uncoarsenAndRefine(HierHyperGraph coarsestGraph, List<Integer> initPart, int seed, HierarchicalLogger logger) {
         logger.info("Start uncoarsening and refinement");
         HierHyperGraph curHyperGraph = coarsestGraph;
         List<Integer> curPartResult = initPart;
@@ -289,6 +372,7 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
         logger.newSubStep();
         FMPartitioner.Config refinerConfig = new FMPartitioner.Config(config, config.fmMaxPassNum, config.fmPassEarlyExitRatio, config.fmExtremeLargeRatio);
         refinerConfig.verbose = false;
+        refinerConfig.randomSeed = seed;
         int iterCount = 0;
         while (!curHyperGraph.isRootGraph()) {
             logger.info(String.format("Start iter-%d of uncoarsening and refinement", iterCount));
@@ -304,10 +388,18 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
             logger.info(parentGraph.getHyperGraphInfo(false), true);
 
             // refine partition
-            FMRefiner refiner = new FMRefiner(logger, refinerConfig, parentGraph);
-            refiner.setFixedNodes(parentGraph.getFixedNodes());
-            
-            curPartResult = refiner.run(parentPartResult, config.refineEdgeNum, config.randRefineNodeNum);
+            if (isGridMode()) {
+                KWayGridPartitioner.Config kWayConfig = getKWayConfig();
+                kWayConfig.randomSeed = refinerConfig.randomSeed;
+                KWayGridPartitioner refiner = new KWayGridPartitioner(logger, kWayConfig, parentGraph);
+                refiner.setFixedNodes(parentGraph.getFixedNodes());
+                curPartResult = refiner.run(parentPartResult);
+            } else {
+                FMRefiner refiner = new FMRefiner(logger, refinerConfig, parentGraph);
+                refiner.setFixedNodes(parentGraph.getFixedNodes());
+
+                curPartResult = refiner.run(parentPartResult, config.refineEdgeNum, config.randRefineNodeNum);
+            }
             curHyperGraph = parentGraph;
 
             logger.endSubStep();
@@ -343,15 +435,17 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
                 coarseConfig.partResult = curPartRes;
                 int coarseLevel = 0;
 
-                while (curGraph.getNodeNum() > config.coarsenStopNodeNum) {
-                    logger.info(String.format("Coarse Level %d: ", coarseLevel));
-                    curGraph = Coarser.coarsening(coarseConfig, curGraph);
-                    curPartRes = curGraph.getPartResultFromParent(curPartRes);
-                    logger.info("Coarse HyperGraph Info: \n" + curGraph.getHyperGraphInfo(false), true);
-                    
-                    coarseLevel++;
-                    coarseConfig.seed++;
-                    coarseConfig.partResult = curPartRes;
+                try (Coarser.WorkerPool workerPool = Coarser.createWorkerPoolIfAbsent(coarseConfig)) {
+                    while (curGraph.getNodeNum() > config.coarsenStopNodeNum) {
+                        logger.info(String.format("Coarse Level %d: ", coarseLevel));
+                        curGraph = Coarser.coarsening(coarseConfig, curGraph);
+                        curPartRes = curGraph.getPartResultFromParent(curPartRes);
+                        logger.info("Coarse HyperGraph Info: \n" + curGraph.getHyperGraphInfo(false), true);
+
+                        coarseLevel++;
+                        coarseConfig.seed++;
+                        coarseConfig.partResult = curPartRes;
+                    }
                 }
 
                 logger.endSubStep();
@@ -365,18 +459,27 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
                 refinerConfig.verbose = false;
                 refinerConfig.randomSeed = seed;
 
-                double initialCutSize = curGraph.getEdgeWeightsSum(curGraph.getCutSize(curPartRes));
+                double initialCutSize = getPartitionCost(curGraph, curPartRes);
 
                 while (curGraph.getHierarchicalLevel() > stopLevel) {
                     logger.info("Start refining coarse graph of level " + curGraph.getHierarchicalLevel());
                     curPartRes = curGraph.getPartResultOfParent(curPartRes);
                     curGraph = curGraph.getParentGraph();
 
-                    FMRefiner refiner = new FMRefiner(logger, refinerConfig, curGraph);
-                    curPartRes = refiner.run(curPartRes);
+                    if (isGridMode()) {
+                        KWayGridPartitioner.Config kWayConfig = getKWayConfig();
+                        kWayConfig.randomSeed = seed;
+                        KWayGridPartitioner refiner = new KWayGridPartitioner(logger, kWayConfig, curGraph);
+                        refiner.setFixedNodes(curGraph.getFixedNodes());
+                        curPartRes = refiner.run(curPartRes);
+                    } else {
+                        FMRefiner refiner = new FMRefiner(logger, refinerConfig, curGraph);
+                        refiner.setFixedNodes(curGraph.getFixedNodes());
+                        curPartRes = refiner.run(curPartRes);
+                    }
                 }
 
-                double finalCutSize = curGraph.getEdgeWeightsSum(curGraph.getCutSize(curPartRes));
+                double finalCutSize = getPartitionCost(curGraph, curPartRes);
                 logger.endSubStep();
                 logger.info("Complete uncoarsening and refinement");
                 return initialCutSize - finalCutSize;
@@ -417,6 +520,31 @@ public class MultiLevelPartitioner extends AbstractPartitioner{
         return vCycleIter.curPartRes;
     }
 
+    protected boolean isGridMode() {
+        return config.gridDim != null;
+    }
+
+    protected KWayGridPartitioner.Config getKWayConfig() {
+        KWayGridPartitioner.Config kWayConfig = new KWayGridPartitioner.Config(config, config.gridDim);
+        kWayConfig.maxPassNum = config.kWayMaxPassNum;
+        kWayConfig.initialTrialNum = config.kWayInitialTrialNum;
+        kWayConfig.gridAware = config.kWayGridAware;
+        kWayConfig.verbose = false;
+        return kWayConfig;
+    }
+
+    // cut size for bipartition and grid connectivity for k-way grid partition
+    protected double getPartitionCost(HyperGraph graph, List<Integer> partRes) {
+        if (isGridMode()) {
+            return KWayGridPartitioner.getGridCost(graph, partRes, config.gridDim, config.kWayGridAware);
+        }
+        return graph.getEdgeWeightsSum(graph.getCutSize(partRes));
+    }
+
+    public double getPartitionCost() {
+        return getPartitionCost(hyperGraph, node2BlockId);
+    }
+
     public static void main(String[] args) {
         Path inputGraphPath = Path.of("workspace/test/nvdla-tpw-cls.hgr").toAbsolutePath();
         // Path inputGraphPath = Path.of("workspace/test/blue-rdma-cls.hgr").toAbsolutePath();
@@ -0,0 +1,122 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.xilinx.rapidwright.util.RuntimeTracker;
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// In-JVM counterpart of TritonPartitionWrapper following the TritonPart flow:
+// coarsen once, try multiple initial solutions on the coarsest graph, refine the best one with V-cycles.
+// The hypergraph is handed over in memory, so no hMETIS files or OpenROAD process are involved.
+public class TritonNativePartitioner extends AbstractPartitioner {
+    public static class Config extends AbstractConfig {
+        public int initialSolutionNum = 10; // initial solutions derived from the shared coarsest graph
+        public int threadNum = Runtime.getRuntime().availableProcessors();
+        public int coarsenStopNodeNum = 200;
+        public double maxNodeSizeRatio = 0.1; // maximum cluster size relative to the total size
+        public Coarser.Scheme coarserScheme = Coarser.Scheme.FC;
+        public boolean vCycleRefine = true;
+        public int fmMaxPassNum = 5;
+
+        public Config() {
+            super();
+        }
+
+        public Config(AbstractConfig config) {
+            super(config);
+        }
+
+        public Config(int blockNum, int seed, List<Double> imbFactors, boolean verbose) {
+            super(blockNum, seed, imbFactors, verbose);
+        }
+
+        public Config(Config config) {
+            super(config);
+            this.initialSolutionNum = config.initialSolutionNum;
+            this.threadNum = config.threadNum;
+            this.coarsenStopNodeNum = config.coarsenStopNodeNum;
+            this.maxNodeSizeRatio = config.maxNodeSizeRatio;
+            this.coarserScheme = config.coarserScheme;
+            this.vCycleRefine = config.vCycleRefine;
+            this.fmMaxPassNum = config.fmMaxPassNum;
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + String.format(" InitialSolutionNum=%d Threads=%d", initialSolutionNum, threadNum);
+        }
+    }
+
+    private Config config;
+
+    public TritonNativePartitioner(HierarchicalLogger logger, Config config, HyperGraph hyperGraph) {
+        super(logger, config, hyperGraph);
+        this.config = config;
+    }
+
+    public List<Integer> run() {
+        logger.info("Start running native TritonPart");
+        logger.newSubStep();
+
+        RuntimeTracker timer = new RuntimeTracker("TritonNative", (short) 0);
+        timer.start();
+
+        MultiLevelPartitioner partitioner = new MultiLevelPartitioner(logger, getMultiLevelConfig(), hyperGraph);
+        partitioner.setFixedNodes(fixedNodes);
+        List<Integer> partResult = new ArrayList<>(partitioner.run());
+
+        timer.stop();
+
+        setPartResult(partResult, false);
+        assert checkFixedNodesConstr(): "Fixed nodes constraints are violated";
+        printPartitionInfo();
+
+        logger.endSubStep();
+        logger.info(String.format("Complete running native TritonPart(Time Elapsed: %.2f sec)", timer.getTimeInSec()));
+        return partResult;
+    }
+
+    private MultiLevelPartitioner.Config getMultiLevelConfig() {
+        MultiLevelPartitioner.Config mlConfig = new MultiLevelPartitioner.Config();
+        mlConfig.blockNum = config.blockNum;
+        mlConfig.randomSeed = config.randomSeed;
+        mlConfig.imbFactors = config.imbFactors;
+        mlConfig.verbose = config.verbose;
+
+        mlConfig.parallelRunNum = config.initialSolutionNum;
+        mlConfig.parallelThreadNum = config.threadNum;
+        mlConfig.sharedHierarchyNum = 1;
+        mlConfig.vCycleRefine = config.vCycleRefine;
+        mlConfig.coarsenStopNodeNum = config.coarsenStopNodeNum;
+        mlConfig.fmMaxPassNum = config.fmMaxPassNum;
+
+        Coarser.Config coarserConfig = mlConfig.coarserConfig;
+        coarserConfig.scheme = config.coarserScheme;
+        coarserConfig.maxNodeSizeRatio = config.maxNodeSizeRatio;
+        coarserConfig.threadNum = config.threadNum;
+
+        if (config.blockNum > 2) {
+            // k-way cut minimization without grid awareness
+            mlConfig.gridDim = Coordinate2D.of(config.blockNum, 1);
+            mlConfig.kWayGridAware = false;
+        }
+        return mlConfig;
+    }
+
+    public static void main(String[] args) {
+        Path inputGraphPath = Path.of("workspace/test/nvdla-tpw-cls.hgr").toAbsolutePath();
+        HierarchicalLogger logger = HierarchicalLogger.createLogger("TestTritonNative", null, true);
+
+        List<Double> weightFac = Arrays.asList(1.0);
+        HyperGraph hyperGraph = HyperGraph.readGraphFromHmetisFormat(inputGraphPath, weightFac, weightFac);
+
+        Config config = new Config(2, 999, Arrays.asList(0.01), true);
+        TritonNativePartitioner partitioner = new TritonNativePartitioner(logger, config, hyperGraph);
+        partitioner.run();
+    }
+}
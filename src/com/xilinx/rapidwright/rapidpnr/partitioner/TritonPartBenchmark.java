@@ -0,0 +1,130 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.xilinx.rapidwright.util.RuntimeTracker;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// Compare TritonNativePartitioner against results left by TritonPartitionWrapper in its work directories
+// usage: TritonPartBenchmark <blockNum> <imbFactor> <workDir>...
+public class TritonPartBenchmark {
+
+    private static HierarchicalLogger logger = HierarchicalLogger.createLogger("TritonPartBenchmark", null, true);
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            logger.info("Usage: TritonPartBenchmark <blockNum> <imbFactor> <workDir>...");
+            return;
+        }
+        int blockNum = Integer.parseInt(args[0]);
+        double imbFactor = Double.parseDouble(args[1]);
+        int seed = Integer.getInteger("seed", 999);
+        int vertexDim = Integer.getInteger("vertexDim", 1);
+        int edgeDim = Integer.getInteger("edgeDim", 1);
+
+        logger.info(String.format("%-24s %12s %10s %12s %12s %10s %12s", "Design", "ExtCut", "ExtImb", "ExtTime(s)", "NativeCut", "NativeImb", "NativeTime(s)"));
+        for (int i = 2; i < args.length; i++) {
+            Path workDir = Path.of(args[i]).toAbsolutePath();
+            benchmark(workDir, blockNum, imbFactor, seed, vertexDim, edgeDim);
+        }
+    }
+
+    private static void benchmark(Path workDir, int blockNum, double imbFactor, int seed, int vertexDim, int edgeDim) {
+        Path graphPath = workDir.resolve(TritonPartitionWrapper.GRAPH_FILE_NAME);
+        Path resultPath = workDir.resolve(TritonPartitionWrapper.GRAPH_FILE_NAME + ".part." + blockNum);
+        if (!graphPath.toFile().exists() || !resultPath.toFile().exists()) {
+            logger.warning("Skip " + workDir + ": missing input hypergraph or TritonPart results");
+            return;
+        }
+
+        HyperGraph hyperGraph = HyperGraph.readGraphFromHmetisFormat(graphPath, Collections.nCopies(vertexDim, 1.0), Collections.nCopies(edgeDim, 1.0));
+        Map<Integer, Integer> fixedNodes = readFixedFile(workDir.resolve(TritonPartitionWrapper.FIXED_FILE_NAME));
+
+        List<Integer> extPartRes = readIntegers(resultPath);
+        assert extPartRes.size() == hyperGraph.getNodeNum();
+        Double extRuntime = readRuntime(workDir.resolve(TritonPartitionWrapper.RUNTIME_FILE_NAME));
+
+        TritonNativePartitioner.Config config = new TritonNativePartitioner.Config(blockNum, seed, Collections.nCopies(vertexDim, imbFactor), false);
+        TritonNativePartitioner partitioner = new TritonNativePartitioner(HierarchicalLogger.createPseduoLogger("TritonNative"), config, hyperGraph);
+        partitioner.setFixedNodes(fixedNodes);
+
+        RuntimeTracker timer = new RuntimeTracker("TritonNative", (short) 0);
+        timer.start();
+        List<Integer> nativePartRes = partitioner.run();
+        timer.stop();
+
+        String designName = workDir.getFileName().toString();
+        logger.info(String.format("%-24s %12.1f %10.4f %12s %12.1f %10.4f %12.2f", designName,
+            getCut(hyperGraph, extPartRes), getImbalance(hyperGraph, extPartRes, blockNum),
+            extRuntime == null ? "N/A" : String.format("%.2f", extRuntime),
+            getCut(hyperGraph, nativePartRes), getImbalance(hyperGraph, nativePartRes, blockNum),
+            timer.getTimeInSec()));
+    }
+
+    private static double getCut(HyperGraph hyperGraph, List<Integer> partRes) {
+        return hyperGraph.getEdgeWeightsSum(hyperGraph.getCutSize(partRes));
+    }
+
+    // maximum relative excess of block sizes over the average block size across all dimensions
+    private static double getImbalance(HyperGraph hyperGraph, List<Integer> partRes, int blockNum) {
+        List<Double> totalWeights = hyperGraph.getTotalNodeWeight();
+        double imbalance = 0.0;
+        for (List<Double> blockSize : hyperGraph.getBlockSize(partRes)) {
+            for (int dim = 0; dim < blockSize.size(); dim++) {
+                double avgSize = totalWeights.get(dim) / blockNum;
+                if (avgSize <= 0.0) continue;
+                imbalance = Math.max(imbalance, blockSize.get(dim) / avgSize - 1.0);
+            }
+        }
+        return imbalance;
+    }
+
+    private static Map<Integer, Integer> readFixedFile(Path filePath) {
+        Map<Integer, Integer> fixedNodes = new HashMap<>();
+        if (!filePath.toFile().exists()) {
+            return fixedNodes;
+        }
+        List<Integer> blockIds = readIntegers(filePath);
+        for (int nodeId = 0; nodeId < blockIds.size(); nodeId++) {
+            if (blockIds.get(nodeId) != -1) {
+                fixedNodes.put(nodeId, blockIds.get(nodeId));
+            }
+        }
+        return fixedNodes;
+    }
+
+    private static List<Integer> readIntegers(Path filePath) {
+        List<Integer> values = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                values.add(Integer.parseInt(line));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return values;
+    }
+
+    private static Double readRuntime(Path filePath) {
+        if (!filePath.toFile().exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath.toFile()))) {
+            return Double.parseDouble(reader.readLine().trim());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
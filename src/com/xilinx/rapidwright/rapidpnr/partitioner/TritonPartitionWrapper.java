@@ -45,6 +45,7 @@ public class TritonPartitionWrapper extends AbstractPartitioner {
     public static String TCL_FILE_NAME = "openroad.tcl";
     public static String GRAPH_FILE_NAME = "input.hgr";
     public static String FIXED_FILE_NAME = "input.fixed";
+    public static String RUNTIME_FILE_NAME = "triton_part.runtime";
 
     private Config config;
 
@@ -81,6 +82,7 @@ public class TritonPartitionWrapper extends AbstractPartitioner {
         boolean success = jobQueue.runAllToCompletion();
         timer.stop();
         assert success;
+        writeRuntimeFile(timer.getTimeInSec());
 
         // read partition results
         List<Integer> partResult = readPartitionResults();
@@ -111,6 +113,16 @@ public class TritonPartitionWrapper extends AbstractPartitioner {
         }
     }
 
+    // elapsed time of TritonPart is kept for offline comparison with TritonNativePartitioner
+    private void writeRuntimeFile(double runtime) {
+        Path filePath = config.workDir.resolve(RUNTIME_FILE_NAME);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath.toFile()))) {
+            writer.write(String.format("%.3f\n", runtime));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
     private void writeOpenroadTclCmdFile() {
         Path filePath = config.workDir.resolve(TCL_FILE_NAME);
         TclCmdFile tclCmdFile = new TclCmdFile();
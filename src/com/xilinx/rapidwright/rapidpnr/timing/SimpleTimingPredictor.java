@@ -1,12 +1,14 @@
 package com.xilinx.rapidwright.rapidpnr.timing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.traverse.TopologicalOrderIterator;
@@ -19,20 +21,60 @@ import com.xilinx.rapidwright.edif.EDIFPortInst;
 import com.xilinx.rapidwright.rapidpnr.NetlistDatabase;
 import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
 import com.xilinx.rapidwright.rapidpnr.utils.NetlistUtils;
+import com.xilinx.rapidwright.rapidpnr.utils.ParallelUtils;
 
 public class SimpleTimingPredictor {
+    private static final int CHUNK_SIZE = 256;
+
     private HierarchicalLogger logger;
     private NetlistDatabase netlistDB;
 
     private EDIFNetlist topNetlist;
     private EDIFCell topCell;
 
-    private DefaultDirectedGraph<TimingVertex, TimingEdge> timingGraph;
-    private Map<EDIFPortInst, TimingVertex> portInstToVertexMap;
+    // timing graph in CSR form, vertex ids are the portInst ids assigned by NetlistDatabase
+    private int vertexNum;
+    private boolean[] isVertexInGraph;
+
+    private int edgeNum; // including removed edges until the next compaction
+    private int removedEdgeNum;
+    private int[] edgeSrc; // -1 for removed edges
+    private int[] edgeDst;
+    private int[] edgeNetFanout; // 0 for logic edges
+    private double[] edgeDelay;
+
+    private Adjacency fanouts;
+    private Adjacency fanins;
+
+    // scratch of incremental updates, a vertex is marked when its stamp equals curStamp
+    private int[] vertexStamps;
+    private int curStamp;
+    private int[] inDegrees;
+
+    // vertices sorted by topological level, fanins of a vertex are all in lower levels
+    private int levelNum;
+    private int[] levelOffsets;
+    private int[] levelVertexIds;
+
+    private int threadNum;
+
+    // properties of timing vertices
+    private int[] driveLogicLevel;
+    private int[] recvLogicLevel;
+    private int[] driveFanout;
+    private int[] recvFanout;
+    private double[] driveDelay;
+    private double[] recvDelay;
 
     public SimpleTimingPredictor(HierarchicalLogger logger, NetlistDatabase netlistDB) {
+        this(logger, netlistDB, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SimpleTimingPredictor(HierarchicalLogger logger, NetlistDatabase netlistDB, int threadNum) {
         this.logger = logger;
         this.netlistDB = netlistDB;
+        assert threadNum > 0;
+        this.threadNum = threadNum;
 
         this.topNetlist = netlistDB.getTopNetlist();
         this.topCell = topNetlist.getTopCell();
@@ -41,45 +83,78 @@ public class SimpleTimingPredictor {
         computeLogicLevelAndFanout();
     }
 
+    // timing graph given directly by its edges instead of a netlist, all vertices are in the graph
+    SimpleTimingPredictor(HierarchicalLogger logger, int vertexNum, int[] edgeSrc, int[] edgeDst, int[] edgeNetFanout, int threadNum) {
+        assert edgeSrc.length == edgeDst.length && edgeSrc.length == edgeNetFanout.length;
+        assert threadNum > 0;
+        this.logger = logger;
+        this.threadNum = threadNum;
+
+        this.vertexNum = vertexNum;
+        this.isVertexInGraph = new boolean[vertexNum];
+        Arrays.fill(isVertexInGraph, true);
+        this.edgeSrc = new int[edgeSrc.length];
+        this.edgeDst = new int[edgeSrc.length];
+        this.edgeNetFanout = new int[edgeSrc.length];
+        this.edgeDelay = new double[edgeSrc.length];
+        for (int edgeId = 0; edgeId < edgeSrc.length; edgeId++) {
+            addEdge(edgeSrc[edgeId], edgeDst[edgeId], edgeNetFanout[edgeId]);
+        }
+        buildAdjacency();
+
+        computeLogicLevelAndFanout();
+    }
+
+    int[] getDriveLogicLevels() {
+        return Arrays.copyOf(driveLogicLevel, vertexNum);
+    }
+
+    int[] getRecvLogicLevels() {
+        return Arrays.copyOf(recvLogicLevel, vertexNum);
+    }
+
+    int[] getDriveFanouts() {
+        return Arrays.copyOf(driveFanout, vertexNum);
+    }
+
+    int[] getRecvFanouts() {
+        return Arrays.copyOf(recvFanout, vertexNum);
+    }
+
+    double[] getDriveDelays() {
+        return Arrays.copyOf(driveDelay, vertexNum);
+    }
+
+    double[] getRecvDelays() {
+        return Arrays.copyOf(recvDelay, vertexNum);
+    }
+
     public Integer getDriveLogicLevelOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getDriveLogicLevel();
+        return driveLogicLevel[getVertexIdOf(portInst)];
     }
 
     public Integer getRecvLogicLevelOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getRecvLogicLevel();
+        return recvLogicLevel[getVertexIdOf(portInst)];
     }
 
     public Integer getDriveFanoutOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getDriveFanout();
+        return driveFanout[getVertexIdOf(portInst)];
     }
 
     public Integer getRecvFanoutOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getRecvFanout();
+        return recvFanout[getVertexIdOf(portInst)];
     }
 
     public Double getDriveDelayOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getDriveDelay();
+        return driveDelay[getVertexIdOf(portInst)];
     }
 
     public Double getRecvDelayOf(EDIFPortInst portInst) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
-        return vertex.getRecvDelay();
+        return recvDelay[getVertexIdOf(portInst)];
     }
 
     public Double predictOutputDelayOf(EDIFPortInst portInst, Double clkPeriod) {
-        assert portInstToVertexMap.containsKey(portInst);
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
+        int vertexId = getVertexIdOf(portInst);
 
         // Integer totalLogicLevel = vertex.getDriveLogicLevel() + vertex.getRecvLogicLevel();
 
@@ -87,190 +162,743 @@ public class SimpleTimingPredictor {
         // String mainClkName = designParams.getMainClkName();
         // Double mainClkPeriod = designParams.getClkPeriod(mainClkName);
 
-        double totalDelay = vertex.getDriveDelay() + vertex.getRecvDelay();
-        Double ratio = vertex.getDriveDelay() / totalDelay;
+        double totalDelay = driveDelay[vertexId] + recvDelay[vertexId];
+        Double ratio = driveDelay[vertexId] / totalDelay;
         Double estimatedDelay = ratio * clkPeriod;
 
-        logger.info(String.format("Prediction of output delay of %s: drive-delay=%f recv-delay=%f delay=%f", portInst.getFullName(), vertex.getDriveDelay(), vertex.getRecvDelay(), estimatedDelay));
+        logger.info(String.format("Prediction of output delay of %s: drive-delay=%f recv-delay=%f delay=%f", portInst.getFullName(), driveDelay[vertexId], recvDelay[vertexId], estimatedDelay));
 
         return estimatedDelay;
     }
 
     public Double predictInputDelayOf(EDIFPortInst portInst, Double clkPeriod) {
-        assert portInstToVertexMap.containsKey(portInst);
-
-        TimingVertex vertex = portInstToVertexMap.get(portInst);
+        int vertexId = getVertexIdOf(portInst);
 
         // Integer totalLogicLevel = vertex.getDriveLogicLevel() + vertex.getRecvLogicLevel();
         // Double ratio = (vertex.getRecvLogicLevel() + 1.0) / (totalLogicLevel + 2.0);
 
-        double totalDelay = vertex.getDriveDelay() + vertex.getRecvDelay();
-        Double ratio = vertex.getRecvDelay() / totalDelay;
+        double totalDelay = driveDelay[vertexId] + recvDelay[vertexId];
+        Double ratio = recvDelay[vertexId] / totalDelay;
         Double estimatedDelay = ratio * clkPeriod;
 
-        logger.info(String.format("Prediction of input delay of %s: drive-delay=%f recv-delay=%f delay=%f", portInst.getFullName(), vertex.getDriveDelay(), vertex.getRecvDelay(), estimatedDelay));
+        logger.info(String.format("Prediction of input delay of %s: drive-delay=%f recv-delay=%f delay=%f", portInst.getFullName(), driveDelay[vertexId], recvDelay[vertexId], estimatedDelay));
 
         return estimatedDelay;
     }
 
+    public void updateTimingOfNets(Collection<EDIFNet> changedNets) {
+        updateTiming(changedNets, Collections.emptyList());
+    }
+
+    public void updateTimingOfPortInsts(Collection<EDIFPortInst> changedPortInsts) {
+        updateTiming(Collections.emptyList(), changedPortInsts);
+    }
+
+    // Rebuilds timing edges of the changed top-level nets, of the nets of changed portInsts and of the cells
+    // they belong to, then re-propagates only the fanout cone (recv) and the fanin cone (drive) of the touched vertices.
+    // Newly created nets and cellInsts must be passed in as well, removed portInsts are dropped from the graph.
+    // Edges are patched in place within the adjacency lists, so the cost follows the changed nets and the cones.
+    // Nets that lost a sink to a changed net, e.g. a sink moved behind a buffer, get their fanout refreshed as well.
+    public void updateTiming(Collection<EDIFNet> changedNets, Collection<EDIFPortInst> changedPortInsts) {
+        Set<EDIFNet> affectedNets = new LinkedHashSet<>();
+        Set<EDIFCellInst> affectedCellInsts = new LinkedHashSet<>();
+        List<Integer> affectedVertexIds = new ArrayList<>();
+
+        for (EDIFNet net : changedNets) {
+            if (net.getParentCell() != topCell) continue;
+            affectedNets.add(net);
+        }
+        for (EDIFPortInst portInst : changedPortInsts) {
+            EDIFNet net = portInst.getNet();
+            if (net == null) { // disconnected portInst
+                int vertexId = netlistDB.getPortInstId(portInst);
+                if (vertexId != -1 && vertexId < vertexNum) {
+                    affectedVertexIds.add(vertexId);
+                }
+            } else if (net.getParentCell() == topCell) {
+                affectedNets.add(net);
+            }
+            if (portInst.getCellInst() != null) {
+                affectedCellInsts.add(portInst.getCellInst());
+            }
+        }
+        for (EDIFNet net : affectedNets) {
+            for (EDIFPortInst portInst : net.getPortInsts()) {
+                affectedVertexIds.add(getOrCreateVertexOf(portInst));
+                if (portInst.getCellInst() != null) {
+                    affectedCellInsts.add(portInst.getCellInst());
+                }
+            }
+        }
+
+        // endpoints of removed and added edges seed the re-propagation
+        List<Integer> seedVertexIds = new ArrayList<>();
+        int seedStamp = nextStamp();
+        // drivers of removed and added net edges, whose net fanout may have changed
+        Set<Integer> netSrcVertexIds = new LinkedHashSet<>();
+
+        //// remove stale edges, net edges of the vertices on affected nets and logic edges of affected cellInsts
+        int oldRemovedEdgeNum = removedEdgeNum;
+        for (int vertexId : affectedVertexIds) {
+            removeEdgesOf(vertexId, false, seedStamp, seedVertexIds, netSrcVertexIds);
+        }
+        for (EDIFCellInst cellInst : affectedCellInsts) {
+            for (EDIFPortInst portInst : cellInst.getPortInsts()) {
+                int vertexId = netlistDB.getPortInstId(portInst);
+                if (vertexId == -1 || vertexId >= vertexNum) continue;
+                removeEdgesOf(vertexId, true, seedStamp, seedVertexIds, netSrcVertexIds);
+            }
+        }
+        int removedNum = removedEdgeNum - oldRemovedEdgeNum;
+
+        //// add edges of the current netlist
+        for (int vertexId : affectedVertexIds) {
+            isVertexInGraph[vertexId] = false;
+        }
+        int firstNewEdgeId = edgeNum;
+        for (EDIFNet net : affectedNets) {
+            addNetEdges(net);
+        }
+        for (EDIFCellInst cellInst : affectedCellInsts) {
+            if (cellInst.getParentCell() != topCell) continue; // removed cellInst
+            addLogicEdges(cellInst);
+        }
+        markNewEdges(firstNewEdgeId, seedStamp, seedVertexIds, netSrcVertexIds);
+        int addedNum = edgeNum - firstNewEdgeId;
+        for (int vertexId : affectedVertexIds) {
+            markVertex(vertexId, seedStamp, seedVertexIds);
+        }
+
+        propagateIncrementally(seedStamp, seedVertexIds, netSrcVertexIds, String.format("%d nets", affectedNets.size()), removedNum, addedNum);
+    }
+
+    // edge-level counterpart of updateTiming: removes the edge from removedSrc[i] to removedDst[i] for each i, adds the
+    // given edges (netFanout 0 for logic edges) and re-propagates. Fanouts of net edges are refreshed to the net edge
+    // count of their driver, which is the fanout a full build would assign.
+    void updateEdges(int[] removedSrc, int[] removedDst, int[] addedSrc, int[] addedDst, int[] addedNetFanout) {
+        assert removedSrc.length == removedDst.length;
+        assert addedSrc.length == addedDst.length && addedSrc.length == addedNetFanout.length;
+        List<Integer> seedVertexIds = new ArrayList<>();
+        int seedStamp = nextStamp();
+        Set<Integer> netSrcVertexIds = new LinkedHashSet<>();
+
+        for (int i = 0; i < removedSrc.length; i++) {
+            int edgeId = findEdge(removedSrc[i], removedDst[i]);
+            assert edgeId != -1: "No timing edge from " + removedSrc[i] + " to " + removedDst[i];
+            removeEdgeAndMark(edgeId, seedStamp, seedVertexIds, netSrcVertexIds);
+        }
+
+        int firstNewEdgeId = edgeNum;
+        for (int i = 0; i < addedSrc.length; i++) {
+            addEdge(addedSrc[i], addedDst[i], addedNetFanout[i]);
+        }
+        markNewEdges(firstNewEdgeId, seedStamp, seedVertexIds, netSrcVertexIds);
+
+        propagateIncrementally(seedStamp, seedVertexIds, netSrcVertexIds, String.format("%d edges", removedSrc.length + addedSrc.length), removedSrc.length, addedSrc.length);
+    }
+
+    private void markNewEdges(int firstNewEdgeId, int stamp, List<Integer> markedVertexIds, Set<Integer> netSrcVertexIds) {
+        for (int edgeId = firstNewEdgeId; edgeId < edgeNum; edgeId++) {
+            markVertex(edgeSrc[edgeId], stamp, markedVertexIds);
+            markVertex(edgeDst[edgeId], stamp, markedVertexIds);
+            if (edgeNetFanout[edgeId] != 0) {
+                netSrcVertexIds.add(edgeSrc[edgeId]);
+            }
+        }
+    }
+
+    // refreshes the fanout of nets whose sinks changed, then re-propagates the cones of all marked vertices
+    private void propagateIncrementally(int seedStamp, List<Integer> seedVertexIds, Set<Integer> netSrcVertexIds, String what, int removedNum, int addedNum) {
+        for (int srcVertexId : netSrcVertexIds) {
+            refreshNetFanoutOf(srcVertexId, seedStamp, seedVertexIds);
+        }
+
+        //// re-propagate affected cones
+        int[] fwdConeVertexIds = getConeInTopologicalOrder(seedVertexIds, true);
+        for (int vertexId : fwdConeVertexIds) {
+            updateRecvOf(vertexId);
+        }
+
+        int[] bwdConeVertexIds = getConeInTopologicalOrder(seedVertexIds, false);
+        for (int vertexId : bwdConeVertexIds) {
+            updateDriveOf(vertexId);
+        }
+
+        // rebuild the graph once removed edges or moved adjacency ranges make up half of it
+        if (removedEdgeNum * 2 > edgeNum || fanouts.isFragmented() || fanins.isFragmented()) {
+            compactEdges();
+        }
+
+        logger.info(String.format("Incremental timing update of %s: %d edges removed, %d edges added, %d vertices in fanout cone, %d vertices in fanin cone",
+            what, removedNum, addedNum, fwdConeVertexIds.length, bwdConeVertexIds.length));
+    }
+
+    // all net edges of a driver belong to its net, so their count is the net fanout
+    private void refreshNetFanoutOf(int srcVertexId, int stamp, List<Integer> markedVertexIds) {
+        int netFanout = 0;
+        for (int i = fanouts.begins[srcVertexId]; i < fanouts.ends[srcVertexId]; i++) {
+            if (edgeNetFanout[fanouts.edges[i]] != 0) {
+                netFanout++;
+            }
+        }
+        for (int i = fanouts.begins[srcVertexId]; i < fanouts.ends[srcVertexId]; i++) {
+            int edgeId = fanouts.edges[i];
+            if (edgeNetFanout[edgeId] == 0 || edgeNetFanout[edgeId] == netFanout) continue;
+            edgeNetFanout[edgeId] = netFanout;
+            edgeDelay[edgeId] = TimingEdge.predictDelay(false, netFanout);
+            markVertex(srcVertexId, stamp, markedVertexIds);
+            markVertex(edgeDst[edgeId], stamp, markedVertexIds);
+        }
+    }
+
+    private int findEdge(int srcVertexId, int dstVertexId) {
+        for (int i = fanouts.begins[srcVertexId]; i < fanouts.ends[srcVertexId]; i++) {
+            if (edgeDst[fanouts.edges[i]] == dstVertexId) {
+                return fanouts.edges[i];
+            }
+        }
+        return -1;
+    }
+
+    // removes either the logic edges or the net edges incident to a vertex and marks their endpoints
+    private void removeEdgesOf(int vertexId, boolean isLogicEdge, int stamp, List<Integer> markedVertexIds, Set<Integer> netSrcVertexIds) {
+        for (Adjacency adjacency : Arrays.asList(fanouts, fanins)) {
+            // removal swaps the last edge of the range into the hole, so walk backwards
+            for (int i = adjacency.ends[vertexId] - 1; i >= adjacency.begins[vertexId]; i--) {
+                int edgeId = adjacency.edges[i];
+                if ((edgeNetFanout[edgeId] == 0) != isLogicEdge) continue;
+                removeEdgeAndMark(edgeId, stamp, markedVertexIds, netSrcVertexIds);
+            }
+        }
+    }
+
+    private void removeEdgeAndMark(int edgeId, int stamp, List<Integer> markedVertexIds, Set<Integer> netSrcVertexIds) {
+        markVertex(edgeSrc[edgeId], stamp, markedVertexIds);
+        markVertex(edgeDst[edgeId], stamp, markedVertexIds);
+        if (edgeNetFanout[edgeId] != 0) {
+            netSrcVertexIds.add(edgeSrc[edgeId]);
+        }
+        removeEdge(edgeId);
+    }
+
+    private int nextStamp() {
+        if (curStamp == Integer.MAX_VALUE) {
+            Arrays.fill(vertexStamps, 0);
+            curStamp = 0;
+        }
+        return ++curStamp;
+    }
+
+    private void markVertex(int vertexId, int stamp, List<Integer> markedVertexIds) {
+        if (vertexStamps[vertexId] == stamp) return;
+        vertexStamps[vertexId] = stamp;
+        markedVertexIds.add(vertexId);
+    }
+
+    // vertices reachable from seeds in the given direction, ordered so that every vertex comes after
+    // its predecessors in that direction
+    private int[] getConeInTopologicalOrder(List<Integer> seedVertexIds, boolean isForward) {
+        Adjacency succAdjacency = isForward ? fanouts : fanins;
+        int[] succVertices = isForward ? edgeDst : edgeSrc;
+
+        int coneStamp = nextStamp();
+        List<Integer> coneVertexIds = new ArrayList<>();
+        for (int vertexId : seedVertexIds) {
+            markVertex(vertexId, coneStamp, coneVertexIds);
+        }
+        for (int head = 0; head < coneVertexIds.size(); head++) {
+            int vertexId = coneVertexIds.get(head);
+            for (int i = succAdjacency.begins[vertexId]; i < succAdjacency.ends[vertexId]; i++) {
+                markVertex(succVertices[succAdjacency.edges[i]], coneStamp, coneVertexIds);
+            }
+        }
+
+        // Kahn's algorithm restricted to the cone, which is closed under successors
+        int coneSize = coneVertexIds.size();
+        for (int vertexId : coneVertexIds) {
+            for (int i = succAdjacency.begins[vertexId]; i < succAdjacency.ends[vertexId]; i++) {
+                inDegrees[succVertices[succAdjacency.edges[i]]]++;
+            }
+        }
+
+        int[] orderedVertexIds = new int[coneSize];
+        int orderedNum = 0;
+        for (int vertexId : coneVertexIds) {
+            if (inDegrees[vertexId] == 0) {
+                orderedVertexIds[orderedNum++] = vertexId;
+            }
+        }
+        for (int head = 0; head < orderedNum; head++) {
+            int vertexId = orderedVertexIds[head];
+            for (int i = succAdjacency.begins[vertexId]; i < succAdjacency.ends[vertexId]; i++) {
+                int succVertexId = succVertices[succAdjacency.edges[i]];
+                if (--inDegrees[succVertexId] == 0) {
+                    orderedVertexIds[orderedNum++] = succVertexId;
+                }
+            }
+        }
+
+        if (orderedNum != coneSize) {
+            for (int vertexId : coneVertexIds) {
+                inDegrees[vertexId] = 0;
+            }
+            throw new IllegalArgumentException("Timing graph is not a DAG");
+        }
+        return orderedVertexIds;
+    }
+
+    private int getVertexIdOf(EDIFPortInst portInst) {
+        int vertexId = netlistDB.getPortInstId(portInst);
+        assert vertexId != -1 && isVertexInGraph[vertexId]: "No timing vertex for portInst " + portInst.getFullName();
+        return vertexId;
+    }
+
     private void buildTimingGraph() {
         logger.info("Start building timing graph");
 
-        timingGraph = new DefaultDirectedGraph<>(TimingEdge.class);
-        portInstToVertexMap = new HashMap<>();
+        vertexNum = netlistDB.getPortInstNum();
+        isVertexInGraph = new boolean[vertexNum];
+
+        edgeNum = 0;
+        edgeSrc = new int[vertexNum];
+        edgeDst = new int[vertexNum];
+        edgeNetFanout = new int[vertexNum];
+        edgeDelay = new double[vertexNum];
 
         // add net edges
         for (EDIFNet net : topCell.getNets()) { // only consider top-level nets
-            if (net.isVCC() || net.isGND()) continue;
-            if (netlistDB.isGlobalClockNet(net)) continue;
-            if (netlistDB.isGlobalResetNet(net)) continue;
-            if (netlistDB.isIgnoreNet(net)) continue;
-            if (netlistDB.isIllegalNet(net)) continue;
+            addNetEdges(net);
+        }
 
-            TimingVertex srcVertex = null;
-            Set<TimingVertex> dstVertices = new HashSet<>();
+        // add logical timing edges
+        for (EDIFCellInst cellInst : topCell.getCellInsts()) {
+            addLogicEdges(cellInst);
+        }
 
-            for (EDIFPortInst portInst : net.getPortInsts()) {
-                
-                EDIFCellInst cellInst = portInst.getCellInst();
-
-                TimingVertex vertex = new TimingVertex(portInst.getFullName(), portInst);
-                timingGraph.addVertex(vertex);
-                portInstToVertexMap.put(portInst, vertex);
-
-                if (cellInst == null) { // top-level port
-                    if (portInst.isInput()) {
-                        assert srcVertex == null: "Multiple source vertices in a net";
-                        srcVertex = vertex;
-                    } else {
-                        dstVertices.add(vertex);
-                    }
-                } else {
-                    if (portInst.isInput()) {
-                        dstVertices.add(vertex);
-                    } else {
-                        assert srcVertex == null: "Multiple source vertices in a net";
-                        srcVertex = vertex;
-                    }
-                }
+        buildAdjacency();
+
+        // check timing graph
+        assert checkTimingGraph();
+
+        logger.info(String.format("Timing graph: %d vertices, %d edges", vertexNum, edgeNum));
+        logger.info("Complete building timing graph");
+
+    }
+
+    private void addNetEdges(EDIFNet net) {
+        if (net.isVCC() || net.isGND()) return;
+        if (netlistDB.isGlobalClockNet(net)) return;
+        if (netlistDB.isGlobalResetNet(net)) return;
+        if (netlistDB.isIgnoreNet(net)) return;
+        if (netlistDB.isIllegalNet(net)) return;
+
+        int srcVertexId = -1;
+        List<Integer> dstVertexIds = new ArrayList<>();
+
+        for (EDIFPortInst portInst : net.getPortInsts()) {
+            EDIFCellInst cellInst = portInst.getCellInst();
+
+            int vertexId = getOrCreateVertexOf(portInst);
+            isVertexInGraph[vertexId] = true;
+
+            // top-level input ports and output pins of cells drive the net
+            boolean isSrc = cellInst == null ? portInst.isInput() : !portInst.isInput();
+            if (isSrc) {
+                assert srcVertexId == -1: "Multiple source vertices in a net";
+                srcVertexId = vertexId;
+            } else {
+                dstVertexIds.add(vertexId);
             }
+        }
 
-            // add timing edges
-            assert srcVertex != null: "No source vertex on net " + net.getName();
-            assert !dstVertices.isEmpty(): "No destination vertices on net " + net.getName();
+        // add timing edges
+        assert srcVertexId != -1: "No source vertex on net " + net.getName();
+        assert !dstVertexIds.isEmpty(): "No destination vertices on net " + net.getName();
 
-            int netFanout = dstVertices.size();
-            for (TimingVertex dstVertex : dstVertices) {
-                TimingEdge edge = new TimingEdge(false, netFanout);
-                assert timingGraph.addEdge(srcVertex, dstVertex, edge);
+        int netFanout = dstVertexIds.size();
+        for (int dstVertexId : dstVertexIds) {
+            addEdge(srcVertexId, dstVertexId, netFanout);
+        }
+    }
+
+    // vertices of the nets incident to the cellInst must have been added before
+    private void addLogicEdges(EDIFCellInst cellInst) {
+        if (cellInst.getCellType().isStaticSource()) return;
+        if (NetlistUtils.isSequentialLogic(cellInst)) return;
+        if (!cellInst.getCellType().isLeafCellOrBlackBox()) return;
+
+        List<EDIFPortInst> inputPorts = new ArrayList<>();
+        List<Integer> outputVertexIds = new ArrayList<>();
+
+        for (EDIFPortInst portInst : cellInst.getPortInsts()) {
+            if (portInst.isInput()) {
+                inputPorts.add(portInst);
+                continue;
             }
+
+            EDIFNet net = portInst.getNet();
+            if (net == null || netlistDB.isIllegalNet(net)) continue;
+            int dstVertexId = netlistDB.getPortInstId(portInst);
+            assert dstVertexId != -1 && isVertexInGraph[dstVertexId]: String.format("No timing vertex for port %s on cell %s (%s)", portInst.getName(), cellInst.getName(), cellInst.getCellName());
+            outputVertexIds.add(dstVertexId);
         }
 
-        // add logical timing edges
-        for (EDIFCellInst cellInst : topCell.getCellInsts()) {
-            if (cellInst.getCellType().isStaticSource()) continue;
-            if (NetlistUtils.isSequentialLogic(cellInst)) continue;
-            if (!cellInst.getCellType().isLeafCellOrBlackBox()) continue;
+        for (EDIFPortInst inputPort : inputPorts) {
+            int srcVertexId = netlistDB.getPortInstId(inputPort);
 
-            List<EDIFPortInst> inputPorts = new ArrayList<>();
-            List<EDIFPortInst> outputPorts = new ArrayList<>();
+            if (srcVertexId == -1 || !isVertexInGraph[srcVertexId]) {
+                EDIFNet incidentNet = inputPort.getNet();
 
-            for (EDIFPortInst portInst : cellInst.getPortInsts()) {
-                if (portInst.isInput()) {
-                    inputPorts.add(portInst);
-                } else {
-                    outputPorts.add(portInst);
-                }
+                assert incidentNet == null || incidentNet.isGND() || incidentNet.isVCC() || netlistDB.isSpecialNet(incidentNet);
+                    //    netlistDB.isIgnoreNet(incidentNet) || netlistDB.isIllegalNet(incidentNet) || 
+                    //    netlistDB.isGlobalResetNet(incidentNet): incidentNet.getName() + cellInst.getName() + ": " + cellInst.getCellName();
+                continue;
             }
-            assert inputPorts.size() >= 1 && outputPorts.size() >= 1;
 
-            for (EDIFPortInst inputPort : inputPorts) {
-                TimingVertex srcVertex = portInstToVertexMap.get(inputPort);
+            for (int dstVertexId : outputVertexIds) {
+                addEdge(srcVertexId, dstVertexId, 0);
+            }
+        }
+    }
 
-                if (srcVertex == null) {
-                    EDIFNet incidentNet = inputPort.getNet();
-                    
-                    assert incidentNet.isGND() || incidentNet.isVCC() || netlistDB.isSpecialNet(incidentNet);
-                        //    netlistDB.isIgnoreNet(incidentNet) || netlistDB.isIllegalNet(incidentNet) || 
-                        //    netlistDB.isGlobalResetNet(incidentNet): incidentNet.getName() + cellInst.getName() + ": " + cellInst.getCellName();
-                    continue;
-                }
+    // portInsts created after the netlist database was built get new vertex ids
+    private int getOrCreateVertexOf(EDIFPortInst portInst) {
+        int vertexId = netlistDB.getPortInstId(portInst);
+        if (vertexId == -1) {
+            vertexId = netlistDB.addPortInst(portInst);
+        }
+        if (vertexId >= vertexNum) {
+            int newVertexNum = Math.max(vertexId + 1, vertexNum + vertexNum / 2);
+            isVertexInGraph = Arrays.copyOf(isVertexInGraph, newVertexNum);
+            if (fanouts != null) {
+                fanouts.growVertices(newVertexNum);
+                fanins.growVertices(newVertexNum);
+                vertexStamps = Arrays.copyOf(vertexStamps, newVertexNum);
+                inDegrees = Arrays.copyOf(inDegrees, newVertexNum);
+            }
+            if (driveLogicLevel != null) {
+                driveLogicLevel = Arrays.copyOf(driveLogicLevel, newVertexNum);
+                recvLogicLevel = Arrays.copyOf(recvLogicLevel, newVertexNum);
+                driveFanout = Arrays.copyOf(driveFanout, newVertexNum);
+                recvFanout = Arrays.copyOf(recvFanout, newVertexNum);
+                driveDelay = Arrays.copyOf(driveDelay, newVertexNum);
+                recvDelay = Arrays.copyOf(recvDelay, newVertexNum);
+            }
+            vertexNum = newVertexNum;
+        }
+        return vertexId;
+    }
 
-                for (EDIFPortInst outputPort : outputPorts) {
-                    EDIFNet net = outputPort.getNet();
-                    if (netlistDB.isIllegalNet(net)) continue;
-                    TimingVertex dstVertex = portInstToVertexMap.get(outputPort);
-                    assert dstVertex != null: String.format("No timing vertex for port %s on cell %s (%s)", outputPort.getName(), cellInst.getName(), cellInst.getCellName());
+    private void buildAdjacency() {
+        fanouts = new Adjacency(vertexNum, edgeNum, edgeSrc);
+        fanins = new Adjacency(vertexNum, edgeNum, edgeDst);
+        vertexStamps = new int[vertexNum];
+        curStamp = 0;
+        inDegrees = new int[vertexNum];
+    }
 
-                    TimingEdge edge = new TimingEdge(true, 0);
-                    assert timingGraph.addEdge(srcVertex, dstVertex, edge);
-                }
+    // drops removed edges, renumbers the remaining ones and rebuilds the adjacency lists without holes
+    private void compactEdges() {
+        int keptEdgeNum = 0;
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            if (edgeSrc[edgeId] == -1) continue;
+            edgeSrc[keptEdgeNum] = edgeSrc[edgeId];
+            edgeDst[keptEdgeNum] = edgeDst[edgeId];
+            edgeNetFanout[keptEdgeNum] = edgeNetFanout[edgeId];
+            edgeDelay[keptEdgeNum] = edgeDelay[edgeId];
+            keptEdgeNum++;
+        }
+        edgeNum = keptEdgeNum;
+        removedEdgeNum = 0;
+        fanouts = new Adjacency(vertexNum, edgeNum, edgeSrc);
+        fanins = new Adjacency(vertexNum, edgeNum, edgeDst);
+    }
+
+    // edges added after the adjacency lists are built are inserted into them right away
+    private void addEdge(int srcVertexId, int dstVertexId, int netFanout) {
+        if (edgeNum == edgeSrc.length) {
+            int newCapacity = Math.max(16, edgeNum * 2);
+            edgeSrc = Arrays.copyOf(edgeSrc, newCapacity);
+            edgeDst = Arrays.copyOf(edgeDst, newCapacity);
+            edgeNetFanout = Arrays.copyOf(edgeNetFanout, newCapacity);
+            edgeDelay = Arrays.copyOf(edgeDelay, newCapacity);
+        }
+        int edgeId = edgeNum++;
+        edgeSrc[edgeId] = srcVertexId;
+        edgeDst[edgeId] = dstVertexId;
+        edgeNetFanout[edgeId] = netFanout;
+        edgeDelay[edgeId] = TimingEdge.predictDelay(netFanout == 0, netFanout);
+        if (fanouts != null) {
+            fanouts.add(srcVertexId, edgeId);
+            fanins.add(dstVertexId, edgeId);
+        }
+    }
+
+    private void removeEdge(int edgeId) {
+        fanouts.remove(edgeSrc[edgeId], edgeId);
+        fanins.remove(edgeDst[edgeId], edgeId);
+        edgeSrc[edgeId] = -1;
+        edgeDst[edgeId] = -1;
+        removedEdgeNum++;
+    }
+
+    // edge lists of all vertices packed in one array, the edges of vertex v are in [begins[v], ends[v])
+    // and its range may grow up to limits[v]. A full range is moved to the end of the array with doubled room,
+    // leaving a hole behind, so that edges are added and removed in place without touching other vertices.
+    private static class Adjacency {
+        private int[] begins;
+        private int[] ends;
+        private int[] limits;
+        private int[] edges;
+        private int size;
+        private int holeSize;
+        private int[] edgeId2Pos;
+
+        // counting sort of edge ids by the given endpoint, removed edges are skipped
+        private Adjacency(int vertexNum, int edgeNum, int[] edgeEndpoints) {
+            begins = new int[vertexNum];
+            ends = new int[vertexNum];
+            limits = new int[vertexNum];
+            edgeId2Pos = new int[edgeEndpoints.length];
+            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+                if (edgeEndpoints[edgeId] == -1) continue;
+                ends[edgeEndpoints[edgeId]]++;
+            }
+            int offset = 0;
+            for (int vertexId = 0; vertexId < vertexNum; vertexId++) {
+                begins[vertexId] = offset;
+                offset += ends[vertexId];
+                limits[vertexId] = offset;
+                ends[vertexId] = begins[vertexId];
             }
+            edges = new int[offset];
+            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+                if (edgeEndpoints[edgeId] == -1) continue;
+                add(edgeEndpoints[edgeId], edgeId);
+            }
+            size = offset;
+            holeSize = 0;
         }
 
-        // check timing graph
-        for (TimingVertex vertex : timingGraph.vertexSet()) {
-            if (vertex.isStartpoint()) {
-                assert timingGraph.inDegreeOf(vertex) == 0;
+        // new vertices have empty ranges without room
+        private void growVertices(int vertexNum) {
+            begins = Arrays.copyOf(begins, vertexNum);
+            ends = Arrays.copyOf(ends, vertexNum);
+            limits = Arrays.copyOf(limits, vertexNum);
+        }
+
+        private void add(int vertexId, int edgeId) {
+            if (ends[vertexId] == limits[vertexId]) {
+                relocate(vertexId);
             }
-            if (vertex.isEndpoint()) {
-                assert timingGraph.outDegreeOf(vertex) == 0;
+            if (edgeId >= edgeId2Pos.length) {
+                edgeId2Pos = Arrays.copyOf(edgeId2Pos, Math.max(16, Math.max(edgeId + 1, edgeId2Pos.length * 2)));
             }
+            int pos = ends[vertexId]++;
+            edges[pos] = edgeId;
+            edgeId2Pos[edgeId] = pos;
         }
 
-        logger.info("Complete building timing graph");
+        private void remove(int vertexId, int edgeId) {
+            int pos = edgeId2Pos[edgeId];
+            assert pos >= begins[vertexId] && pos < ends[vertexId] && edges[pos] == edgeId;
+            int lastPos = --ends[vertexId];
+            int lastEdgeId = edges[lastPos];
+            edges[pos] = lastEdgeId;
+            edgeId2Pos[lastEdgeId] = pos;
+        }
+
+        private void relocate(int vertexId) {
+            int degree = ends[vertexId] - begins[vertexId];
+            int capacity = Math.max(4, degree * 2);
+            if (size + capacity > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(size + capacity, edges.length * 2));
+            }
+            System.arraycopy(edges, begins[vertexId], edges, size, degree);
+            for (int pos = size; pos < size + degree; pos++) {
+                edgeId2Pos[edges[pos]] = pos;
+            }
+            holeSize += limits[vertexId] - begins[vertexId];
+            begins[vertexId] = size;
+            ends[vertexId] = size + degree;
+            limits[vertexId] = size + capacity;
+            size += capacity;
+        }
 
+        private boolean isFragmented() {
+            return holeSize * 2 > size;
+        }
+    }
+
+    private boolean checkTimingGraph() {
+        for (int vertexId = 0; vertexId < vertexNum; vertexId++) {
+            if (!isVertexInGraph[vertexId]) continue;
+            EDIFPortInst portInst = netlistDB.getPortInst(vertexId);
+            EDIFCellInst cellInst = portInst.getCellInst();
+
+            boolean isStartpoint;
+            boolean isEndpoint;
+            if (cellInst == null) { // top-level port
+                isEndpoint = portInst.isOutput();
+                isStartpoint = portInst.isInput();
+            } else {
+                // Treat all non-primitive cells in flat netlist as sequential logic
+                boolean isSequential = !cellInst.getCellType().isPrimitive() || NetlistUtils.isSequentialLogic(cellInst);
+                if (isSequential) {
+                    assert !NetlistUtils.isClkPort(portInst);
+                }
+                isEndpoint = isSequential && portInst.isInput();
+                isStartpoint = isSequential && portInst.isOutput();
+            }
+
+            if (isStartpoint) {
+                assert fanins.begins[vertexId] == fanins.ends[vertexId];
+            }
+            if (isEndpoint) {
+                assert fanouts.begins[vertexId] == fanouts.ends[vertexId];
+            }
+        }
+        return true;
     }
 
     private void computeLogicLevelAndFanout() {
         logger.info("Start computing logic level, fanout and delay of timing vertices");
-        List<TimingVertex> orderedTimingVertexs = new ArrayList<>();
-        TopologicalOrderIterator<TimingVertex, TimingEdge> iterator = new TopologicalOrderIterator<>(timingGraph);
 
-        while (iterator.hasNext()) {
-            TimingVertex vertex = iterator.next();
-            orderedTimingVertexs.add(vertex);
+        driveLogicLevel = new int[vertexNum];
+        recvLogicLevel = new int[vertexNum];
+        driveFanout = new int[vertexNum];
+        recvFanout = new int[vertexNum];
+        driveDelay = new double[vertexNum];
+        recvDelay = new double[vertexNum];
+
+        levelizeTimingGraph();
+
+        // each vertex only writes its own entries and reads those of finished levels,
+        // so vertices of a level are updated concurrently without locks
+        ForkJoinPool pool = new ForkJoinPool(threadNum);
+        try {
+            // forward propagation
+            for (int level = 0; level < levelNum; level++) {
+                parallelFor(levelOffsets[level], levelOffsets[level + 1], pool, idx -> updateRecvOf(levelVertexIds[idx]));
+            }
+
+            // backward propagation
+            for (int level = levelNum - 1; level >= 0; level--) {
+                parallelFor(levelOffsets[level], levelOffsets[level + 1], pool, idx -> updateDriveOf(levelVertexIds[idx]));
+            }
+        } finally {
+            pool.shutdown();
         }
 
-        // forward propagation
-        for (TimingVertex srcVertex : orderedTimingVertexs) {
-            for (TimingEdge outEdge : timingGraph.outgoingEdgesOf(srcVertex)) {
-                TimingVertex dstVertex = timingGraph.getEdgeTarget(outEdge);
-                Integer accuFanout = srcVertex.getRecvFanout() + outEdge.getNetFanout();
-                dstVertex.setMaxRecvFanout(accuFanout);
-
-                Integer accuLogicLevel = srcVertex.getRecvLogicLevel();
-                if (outEdge.isLogic()) {
-                    accuLogicLevel += 1;
-                }
-                dstVertex.setMaxRecvLogicLevel(accuLogicLevel);
+        logger.info("Complete computing logic level, fanout and delay of timing vertices");
+    }
+
+    private void updateRecvOf(int dstVertexId) {
+        int maxFanout = 0;
+        int maxLogicLevel = 0;
+        double maxDelay = 0;
+        for (int i = fanins.begins[dstVertexId]; i < fanins.ends[dstVertexId]; i++) {
+            int edgeId = fanins.edges[i];
+            int srcVertexId = edgeSrc[edgeId];
+
+            maxFanout = Math.max(maxFanout, recvFanout[srcVertexId] + edgeNetFanout[edgeId]);
 
-                double accuDelay = srcVertex.getRecvDelay() + outEdge.predictDelay();
-                dstVertex.setMaxRecvDelay(accuDelay);
+            int accuLogicLevel = recvLogicLevel[srcVertexId];
+            if (edgeNetFanout[edgeId] == 0) {
+                accuLogicLevel += 1;
             }
+            maxLogicLevel = Math.max(maxLogicLevel, accuLogicLevel);
+
+            maxDelay = Math.max(maxDelay, recvDelay[srcVertexId] + edgeDelay[edgeId]);
         }
+        recvFanout[dstVertexId] = maxFanout;
+        recvLogicLevel[dstVertexId] = maxLogicLevel;
+        recvDelay[dstVertexId] = maxDelay;
+    }
 
-        Collections.reverse(orderedTimingVertexs);
+    private void updateDriveOf(int srcVertexId) {
+        int maxFanout = 0;
+        int maxLogicLevel = 0;
+        double maxDelay = 0;
+        for (int i = fanouts.begins[srcVertexId]; i < fanouts.ends[srcVertexId]; i++) {
+            int edgeId = fanouts.edges[i];
+            int dstVertexId = edgeDst[edgeId];
 
-        // backward propagation
-        for (TimingVertex dstVertex : orderedTimingVertexs) {
-            for (TimingEdge inEdge : timingGraph.incomingEdgesOf(dstVertex)) {
-                TimingVertex srcVertex = timingGraph.getEdgeSource(inEdge);
-                Integer accuFanout = dstVertex.getDriveFanout() + inEdge.getNetFanout();
-                srcVertex.setMaxDriveFanout(accuFanout);
-
-                Integer accuLogicLevel = dstVertex.getDriveLogicLevel();
-                if (inEdge.isLogic()) {
-                    accuLogicLevel += 1;
-                }
-                srcVertex.setMaxDriveLogicLevel(accuLogicLevel);
+            maxFanout = Math.max(maxFanout, driveFanout[dstVertexId] + edgeNetFanout[edgeId]);
+
+            int accuLogicLevel = driveLogicLevel[dstVertexId];
+            if (edgeNetFanout[edgeId] == 0) {
+                accuLogicLevel += 1;
+            }
+            maxLogicLevel = Math.max(maxLogicLevel, accuLogicLevel);
 
-                double accuDelay = dstVertex.getDriveDelay() + inEdge.predictDelay();
-                srcVertex.setMaxDriveDelay(accuDelay);
+            maxDelay = Math.max(maxDelay, driveDelay[dstVertexId] + edgeDelay[edgeId]);
+        }
+        driveFanout[srcVertexId] = maxFanout;
+        driveLogicLevel[srcVertexId] = maxLogicLevel;
+        driveDelay[srcVertexId] = maxDelay;
+    }
+
+    // level of a vertex is the length of the longest path reaching it
+    private void levelizeTimingGraph() {
+        int[] orderedVertexIds = getTopologicalOrder();
+        int[] vertex2Level = new int[vertexNum];
+        levelNum = 0;
+        for (int vertexId : orderedVertexIds) {
+            int level = 0;
+            for (int i = fanins.begins[vertexId]; i < fanins.ends[vertexId]; i++) {
+                level = Math.max(level, vertex2Level[edgeSrc[fanins.edges[i]]] + 1);
             }
+            vertex2Level[vertexId] = level;
+            levelNum = Math.max(levelNum, level + 1);
         }
 
-        logger.info("Complete computing logic level, fanout and delay of timing vertices");
+        levelOffsets = new int[levelNum + 1];
+        for (int vertexId = 0; vertexId < vertexNum; vertexId++) {
+            levelOffsets[vertex2Level[vertexId] + 1]++;
+        }
+        for (int level = 0; level < levelNum; level++) {
+            levelOffsets[level + 1] += levelOffsets[level];
+        }
+        levelVertexIds = new int[vertexNum];
+        int[] fillPos = Arrays.copyOf(levelOffsets, levelNum);
+        for (int vertexId = 0; vertexId < vertexNum; vertexId++) {
+            levelVertexIds[fillPos[vertex2Level[vertexId]]++] = vertexId;
+        }
+
+        logger.info("Number of topological levels in timing graph: " + levelNum);
+    }
+
+    private void parallelFor(int begin, int end, ExecutorService executor, ParallelUtils.IndexedTask task) {
+        ParallelUtils.parallelFor(begin, end, CHUNK_SIZE, threadNum, executor, task);
+    }
+
+    // Kahn's algorithm over the fanout lists
+    private int[] getTopologicalOrder() {
+        int[] inDegree = new int[vertexNum];
+        int[] orderedVertexIds = new int[vertexNum];
+        int orderedNum = 0;
+        for (int vertexId = 0; vertexId < vertexNum; vertexId++) {
+            inDegree[vertexId] = fanins.ends[vertexId] - fanins.begins[vertexId];
+            if (inDegree[vertexId] == 0) {
+                orderedVertexIds[orderedNum++] = vertexId;
+            }
+        }
+
+        for (int head = 0; head < orderedNum; head++) {
+            int srcVertexId = orderedVertexIds[head];
+            for (int i = fanouts.begins[srcVertexId]; i < fanouts.ends[srcVertexId]; i++) {
+                int dstVertexId = edgeDst[fanouts.edges[i]];
+                if (--inDegree[dstVertexId] == 0) {
+                    orderedVertexIds[orderedNum++] = dstVertexId;
+                }
+            }
+        }
+
+        if (orderedNum != vertexNum) {
+            throw new IllegalArgumentException("Timing graph is not a DAG");
+        }
+        return orderedVertexIds;
     }
 
     public static class TestTimingVertex {
@@ -34,6 +34,10 @@ public class TimingEdge extends DefaultEdge {
     }
 
     public double predictDelay() {
+        return predictDelay(isLogic, netFanout);
+    }
+
+    public static double predictDelay(boolean isLogic, int netFanout) {
         if (isLogic) {
             return 1.0;
         } else {
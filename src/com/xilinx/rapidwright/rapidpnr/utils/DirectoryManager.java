@@ -20,7 +20,7 @@ public class DirectoryManager {
         name2SubDirMap = new HashMap<>();
     }
 
-    public Path addSubDir(String subDirName) {
+    public synchronized Path addSubDir(String subDirName) {
         if (name2SubDirMap.containsKey(subDirName)) {
             return name2SubDirMap.get(subDirName);
         }
@@ -6,6 +6,7 @@ import java.util.Set;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,15 +14,18 @@ import java.util.HashSet;
 public class HierHyperGraph extends HyperGraph {
 
     protected HierHyperGraph parentGraph;
-    protected List<List<Integer>> child2ParentMap;
-    protected List<Boolean> isExternalVirtualNode;
+    // CSR storage of parents: parents of node-i are child2Parents[child2ParentOffsets[i], child2ParentOffsets[i + 1])
+    protected int[] child2ParentOffsets;
+    protected int[] child2Parents;
+    protected BitSet isExternalVirtualNode;
     protected Map<Integer, Integer> fixedNodes;
 
     public HierHyperGraph(List<Double> nodeWeightFac, List<Double> edgeWeightFac) {
         super(nodeWeightFac, edgeWeightFac);
         this.parentGraph = null;
-        this.child2ParentMap = new ArrayList<>();
-        this.isExternalVirtualNode = new ArrayList<>();
+        this.child2ParentOffsets = new int[] {0};
+        this.child2Parents = new int[0];
+        this.isExternalVirtualNode = new BitSet();
         fixedNodes = new HashMap<>();
     }
 
@@ -29,11 +33,13 @@ public class HierHyperGraph extends HyperGraph {
         super(parentGraph.getNodeWeightsFactor(), parentGraph.getEdgeWeightsFactor());
 
         this.parentGraph = parentGraph;
-        this.child2ParentMap = new ArrayList<>();
-        this.isExternalVirtualNode = new ArrayList<>();
+        this.child2ParentOffsets = new int[] {0};
+        this.child2Parents = new int[0];
+        this.isExternalVirtualNode = new BitSet();
         this.fixedNodes = new HashMap<>();
 
         buildChildGraph(child2Parent, addExtVirtualNodes);
+        trimToSize();
     }
 
     public HierHyperGraph(HierHyperGraph parentGraph, List<List<Integer>> child2Parent, int blkNum, List<Integer> partResult) {
@@ -46,25 +52,19 @@ public class HierHyperGraph extends HyperGraph {
         setEdgeWeightsFactor(parentGraph.getEdgeWeightsFactor());
 
         this.parentGraph = parentGraph;
-        this.child2ParentMap = new ArrayList<>();
-        this.isExternalVirtualNode = new ArrayList<>();
+        this.child2ParentOffsets = new int[] {0};
+        this.child2Parents = new int[0];
+        this.isExternalVirtualNode = new BitSet();
 
         buildChildGraph(child2Parent, blkNum, partResult);
+        trimToSize();
     }
     
     private void buildChildGraph(List<List<Integer>> child2Parent, boolean addExtVirtualNodes) {
-        List<Integer> parent2Child = new ArrayList<>(Collections.nCopies(parentGraph.getNodeNum(), -1));
+        int[] parent2Child = buildParent2ChildMap(child2Parent);
 
         Map<Integer, Integer> parentfixedNodes = parentGraph.getFixedNodes();
 
-        for (int childId = 0; childId < child2Parent.size(); childId++) {
-            for (int parentId : child2Parent.get(childId)) {
-                assert parentId < parentGraph.getNodeNum(): "Index of parent node is out of range";
-                assert parent2Child.get(parentId) == -1: String.format("Parent node-%d are included in more than one child nodes", parentId);
-                parent2Child.set(parentId, childId);
-            }
-        }
-
         // add nodes to child hypergraph
         for (List<Integer> parents : child2Parent) {
             List<Boolean> isVirtualParents = new ArrayList<>();
@@ -82,11 +82,10 @@ public class HierHyperGraph extends HyperGraph {
             }
 
             int nodeId = super.addNode(weights);
-            this.child2ParentMap.add(new ArrayList<>(parents));
+            appendParents(parents);
 
             boolean hasVirtualParent = isVirtualParents.contains(true);
             assert !hasVirtualParent: "Virtual nodes aren't permitted in child2Parent";
-            this.isExternalVirtualNode.add(false);
 
             assert fixedBlkIds.size() <= 1: "Multiple fixed blocks are assigned to a child node";
             if (fixedBlkIds.size() == 1) {
@@ -99,8 +98,9 @@ public class HierHyperGraph extends HyperGraph {
             Set<Integer> childNodeIds = new HashSet<>();
             Set<Integer> externalNodes = new HashSet<>();
 
-            for (int parentNodeId : parentGraph.getNodesOfEdge(parentEdgeId)) {
-                int childId = parent2Child.get(parentNodeId);
+            for (int pinIdx = 0; pinIdx < parentGraph.getDegreeOfEdge(parentEdgeId); pinIdx++) {
+                int parentNodeId = parentGraph.getNodeOfEdge(parentEdgeId, pinIdx);
+                int childId = parent2Child[parentNodeId];
                 if (childId != -1 && !isExtVirtualNode(childId)) {
                     childNodeIds.add(childId);
                 } else {
@@ -112,12 +112,12 @@ public class HierHyperGraph extends HyperGraph {
             boolean hasInternalNode = childNodeIds.size() > 0;
             if (addExtVirtualNodes && hasExternalNode && hasInternalNode) {
                 for (int extNodeId : externalNodes) {
-                    int childId = parent2Child.get(extNodeId);
+                    int childId = parent2Child[extNodeId];
                     if (childId == -1) {
                         childId = super.addNode(Collections.nCopies(nodeWeightDim, 0.0));
-                        child2ParentMap.add(new ArrayList<>(Arrays.asList(extNodeId)));
-                        isExternalVirtualNode.add(true);
-                        parent2Child.set(extNodeId, childId);
+                        appendParents(Arrays.asList(extNodeId));
+                        isExternalVirtualNode.set(childId);
+                        parent2Child[extNodeId] = childId;
                     }
                     childNodeIds.add(childId);
                 }
@@ -131,15 +131,7 @@ public class HierHyperGraph extends HyperGraph {
 
 
     private void buildChildGraph(List<List<Integer>> child2Parent, int blkNum, List<Integer> partResult) {
-        List<Integer> parent2Child = new ArrayList<>(Collections.nCopies(parentGraph.getNodeNum(), -1));
-
-        for (int childId = 0; childId < child2Parent.size(); childId++) {
-            for (int parentId : child2Parent.get(childId)) {
-                assert parentId < parentGraph.getNodeNum(): "Index of parent node is out of range";
-                assert parent2Child.get(parentId) == -1: String.format("Parent node-%d are included in more than one child nodes", parentId);
-                parent2Child.set(parentId, childId);
-            }
-        }
+        int[] parent2Child = buildParent2ChildMap(child2Parent);
 
         // add nodes to child hypergraph
         for (List<Integer> parents : child2Parent) {
@@ -165,17 +157,17 @@ public class HierHyperGraph extends HyperGraph {
             assert !hasVirtualParent: "Virtual nodes aren't permitted in child2Parent";
 
             super.addNode(totalWeights);
-            this.child2ParentMap.add(new ArrayList<>(parents));
-            this.isExternalVirtualNode.add(false);
+            appendParents(parents);
         }
 
         // add edges to child hypergraph
         for (int parentEdgeId = 0; parentEdgeId < parentGraph.getEdgeNum(); parentEdgeId++) {
             Set<Integer> childNodeIds = new HashSet<>();
 
-            for (int parentNodeId : parentGraph.getNodesOfEdge(parentEdgeId)) {
-                if (parent2Child.get(parentNodeId) != -1) {
-                    childNodeIds.add(parent2Child.get(parentNodeId));
+            for (int pinIdx = 0; pinIdx < parentGraph.getDegreeOfEdge(parentEdgeId); pinIdx++) {
+                int childId = parent2Child[parentGraph.getNodeOfEdge(parentEdgeId, pinIdx)];
+                if (childId != -1) {
+                    childNodeIds.add(childId);
                 }
             }
 
@@ -185,14 +177,45 @@ public class HierHyperGraph extends HyperGraph {
         }
     }
 
+    private int[] buildParent2ChildMap(List<List<Integer>> child2Parent) {
+        int[] parent2Child = new int[parentGraph.getNodeNum()];
+        Arrays.fill(parent2Child, -1);
+
+        for (int childId = 0; childId < child2Parent.size(); childId++) {
+            for (int parentId : child2Parent.get(childId)) {
+                assert parentId < parentGraph.getNodeNum(): "Index of parent node is out of range";
+                assert parent2Child[parentId] == -1: String.format("Parent node-%d are included in more than one child nodes", parentId);
+                parent2Child[parentId] = childId;
+            }
+        }
+        return parent2Child;
+    }
+
+    private void appendParents(List<Integer> parents) {
+        int childNum = nodeNum - 1;
+        int offset = child2ParentOffsets[childNum];
+        child2ParentOffsets = growArray(child2ParentOffsets, childNum + 2);
+        child2Parents = growArray(child2Parents, offset + parents.size());
+        for (int parentId : parents) {
+            child2Parents[offset++] = parentId;
+        }
+        child2ParentOffsets[childNum + 1] = offset;
+    }
+
     @Override
     public int addNode(List<Double> weights) { // add nodes to root hierhypergraph
         int nodeId = super.addNode(weights);
-        child2ParentMap.add(new ArrayList<>());
-        isExternalVirtualNode.add(false);
+        appendParents(Collections.emptyList());
         return nodeId;
     }
 
+    @Override
+    public void trimToSize() {
+        super.trimToSize();
+        child2ParentOffsets = Arrays.copyOf(child2ParentOffsets, nodeNum + 1);
+        child2Parents = Arrays.copyOf(child2Parents, child2ParentOffsets[nodeNum]);
+    }
+
     public HierHyperGraph createClusteredChildGraph(List<List<Integer>> cluster2Nodes, boolean addExtVirtualNodes) {
         return new HierHyperGraph(this, cluster2Nodes, addExtVirtualNodes);
     }
@@ -211,6 +234,7 @@ public class HierHyperGraph extends HyperGraph {
     }
 
     public boolean isExtVirtualNode(int nodeId) {
+        assert nodeId < nodeNum;
         return isExternalVirtualNode.get(nodeId);
     }
 
@@ -224,7 +248,7 @@ public class HierHyperGraph extends HyperGraph {
 
     public List<Integer> getParentsOfNode(int nodeId) {
         assert nodeId < nodeNum;
-        return Collections.unmodifiableList(child2ParentMap.get(nodeId));
+        return new IntSliceView(child2Parents, child2ParentOffsets[nodeId], child2ParentOffsets[nodeId + 1]);
     }
 
     public List<Integer> getRootParentsOfNode(int nodeId) {
@@ -248,7 +272,7 @@ public class HierHyperGraph extends HyperGraph {
         assert parentPartResult.size() == parentGraph.getNodeNum();
         
         for (int childNodeId = 0; childNodeId < childPartResult.size(); childNodeId++) {
-            for (int parentNodeId : child2ParentMap.get(childNodeId)) {
+            for (int parentNodeId : getParentsOfNode(childNodeId)) {
                 parentPartResult.set(parentNodeId, childPartResult.get(childNodeId));
             }
         }
@@ -258,7 +282,7 @@ public class HierHyperGraph extends HyperGraph {
         assert childLocs.size() == nodeNum;
         assert parentLocs.size() == parentGraph.getNodeNum();
         for (int childId = 0; childId < nodeNum; childId++) {
-            for (int parentId : child2ParentMap.get(childId)) {
+            for (int parentId : getParentsOfNode(childId)) {
                 Coordinate2D childLoc = childLocs.get(childId);
                 parentLocs.set(parentId, Coordinate2D.of(childLoc.getX(), childLoc.getY()));
             }
@@ -271,7 +295,7 @@ public class HierHyperGraph extends HyperGraph {
         List<Integer> parentPartResult = new ArrayList<>(Collections.nCopies(parentGraph.getNodeNum(), -1));
         
         for (int childNodeId = 0; childNodeId < partResult.size(); childNodeId++) {
-            for (int parentNodeId : child2ParentMap.get(childNodeId)) {
+            for (int parentNodeId : getParentsOfNode(childNodeId)) {
                 parentPartResult.set(parentNodeId, partResult.get(childNodeId));
             }
         }
@@ -284,7 +308,7 @@ public class HierHyperGraph extends HyperGraph {
         List<Integer> childPartRes = new ArrayList<>(Collections.nCopies(nodeNum, -1));
 
         for (int childNodeId = 0; childNodeId < nodeNum; childNodeId++) {
-            for (int parentNodeId : child2ParentMap.get(childNodeId)) {
+            for (int parentNodeId : getParentsOfNode(childNodeId)) {
 
                 int childPartId = childPartRes.get(childNodeId);
                 int parentPartId = parentPartRes.get(parentNodeId);
@@ -316,7 +340,7 @@ public class HierHyperGraph extends HyperGraph {
         List<Coordinate2D> parentLocs = new ArrayList<>(Collections.nCopies(parentGraph.getNodeNum(), null));
 
         for (int childNodeId = 0; childNodeId < nodeNum; childNodeId++) {
-            for (int parentNodeId : child2ParentMap.get(childNodeId)) {
+            for (int parentNodeId : getParentsOfNode(childNodeId)) {
                 parentLocs.set(parentNodeId, loc.get(childNodeId));
             }
         }
@@ -327,22 +351,26 @@ public class HierHyperGraph extends HyperGraph {
     public static HierHyperGraph convertToHierHyperGraph(HyperGraph hyperGraph) {
         HierHyperGraph hierHyperGraph = new HierHyperGraph(hyperGraph.getNodeWeightsFactor(), hyperGraph.getEdgeWeightsFactor());
 
+        // seal before sharing the CSR arrays, they are treated as read-only afterwards
+        hyperGraph.seal();
+
         hierHyperGraph.nodeNum = hyperGraph.nodeNum;
         hierHyperGraph.edgeNum = hyperGraph.edgeNum;
-        
-        hierHyperGraph.node2Edges = hyperGraph.node2Edges;
-        hierHyperGraph.node2Weights = hyperGraph.node2Weights;
-        hierHyperGraph.edge2Nodes = hyperGraph.edge2Nodes;
-        hierHyperGraph.edge2Weights = hyperGraph.edge2Weights;
+        hierHyperGraph.pinNum = hyperGraph.pinNum;
 
-        hierHyperGraph.parentGraph = null;
-        hierHyperGraph.child2ParentMap = new ArrayList<>();
-        hierHyperGraph.isExternalVirtualNode = new ArrayList<>();
+        hierHyperGraph.edgePinOffsets = hyperGraph.edgePinOffsets;
+        hierHyperGraph.edgePins = hyperGraph.edgePins;
+        hierHyperGraph.nodeEdgeOffsets = hyperGraph.nodeEdgeOffsets;
+        hierHyperGraph.nodeEdges = hyperGraph.nodeEdges;
+        hierHyperGraph.sealedNodeNum = hyperGraph.sealedNodeNum;
+        hierHyperGraph.sealedPinNum = hyperGraph.sealedPinNum;
+        hierHyperGraph.nodeWeights = hyperGraph.nodeWeights;
+        hierHyperGraph.edgeWeights = hyperGraph.edgeWeights;
 
-        for (int nodeId = 0; nodeId < hierHyperGraph.getNodeNum(); nodeId++) {
-            hierHyperGraph.child2ParentMap.add(new ArrayList<>());
-            hierHyperGraph.isExternalVirtualNode.add(false);
-        }
+        hierHyperGraph.parentGraph = null;
+        hierHyperGraph.child2ParentOffsets = new int[hierHyperGraph.getNodeNum() + 1];
+        hierHyperGraph.child2Parents = new int[0];
+        hierHyperGraph.isExternalVirtualNode = new BitSet();
 
         return hierHyperGraph;
     }
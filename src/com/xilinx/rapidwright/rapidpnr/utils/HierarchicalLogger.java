@@ -19,6 +19,8 @@ public class HierarchicalLogger {
 
     private Logger logger;
     private int logHierDepth = 0;
+    // metrics of the run are recorded next to its log, the logger is passed to every step
+    private MetricsRegistry metrics = new MetricsRegistry();
 
     public HierarchicalLogger(String name) {
         logger = Logger.getLogger(name);
@@ -42,6 +44,13 @@ public class HierarchicalLogger {
             msg = "#".repeat(logHierDepth) + " " + msg;
         }
         logger.log(level, msg);
+        if (level.intValue() >= Level.WARNING.intValue()) {
+            metrics.incCounter("log_messages_total", "level", level.getName());
+        }
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
     }
 
     public void severe(String msg) {
@@ -1,5 +1,6 @@
 package com.xilinx.rapidwright.rapidpnr.utils;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -9,18 +10,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.nio.file.Path;
 
 public class HyperGraph {
     protected int nodeNum;
     protected int edgeNum;
+    protected int pinNum;
 
     protected int nodeWeightDim;
     protected int edgeWeightDim;
@@ -28,11 +26,25 @@ public class HyperGraph {
     protected List<Double> nodeWeightFactor;
     protected List<Double> edgeWeightFactor;
 
-    protected List<List<Integer>> edge2Nodes;
-    protected List<List<Double>> edge2Weights;
+    // CSR storage of hyperedges: pins of edge-i are edgePins[edgePinOffsets[i], edgePinOffsets[i + 1])
+    protected int[] edgePinOffsets;
+    protected int[] edgePins;
 
-    protected List<List<Integer>> node2Edges;
-    protected List<List<Double>> node2Weights;
+    // CSR storage of node incidences, derived from edge pins when the graph is sealed
+    protected int[] nodeEdgeOffsets;
+    protected int[] nodeEdges;
+    protected int sealedNodeNum;
+    protected int sealedPinNum;
+
+    // incidences of pins added after the last seal, kept as per-node linked lists
+    protected int[] pendingHead;
+    protected int[] pendingNext;
+    protected int[] pendingEdge;
+    protected int pendingPinNum;
+
+    // flat row-major weight matrices: weights of node-i are nodeWeights[i * nodeWeightDim, (i + 1) * nodeWeightDim)
+    protected double[] edgeWeights;
+    protected double[] nodeWeights;
 
     public HyperGraph(int nodeWeightDim, int edgeWeightDim) {
         setupGraph(Collections.nCopies(nodeWeightDim, 1.0), Collections.nCopies(edgeWeightDim, 1.0));
@@ -45,38 +57,54 @@ public class HyperGraph {
     private void setupGraph(List<Double> nodeWeightFactor, List<Double> edgeWeightFactor) {
         this.nodeNum = 0;
         this.edgeNum = 0;
+        this.pinNum = 0;
 
         this.edgeWeightDim = edgeWeightFactor.size();
         this.nodeWeightDim = nodeWeightFactor.size();
 
         this.nodeWeightFactor = new ArrayList<>(nodeWeightFactor);
-        this.edgeWeightFactor = new ArrayList<>(edgeWeightFactor); 
+        this.edgeWeightFactor = new ArrayList<>(edgeWeightFactor);
 
-        edge2Nodes = new ArrayList<>();
-        edge2Weights = new ArrayList<>();
+        edgePinOffsets = new int[] {0};
+        edgePins = new int[0];
+        edgeWeights = new double[0];
+        nodeWeights = new double[0];
 
-        node2Edges = new ArrayList<>();
-        node2Weights = new ArrayList<>();
+        nodeEdgeOffsets = new int[] {0};
+        nodeEdges = new int[0];
+        sealedNodeNum = 0;
+        sealedPinNum = 0;
+        clearPendingPins();
     }
 
     public void setEdgeWeights(int edgeId, List<Double> weights) {
         assert weights.size() == edgeWeightDim;
         assert edgeId < edgeNum;
-        edge2Weights.set(edgeId, new ArrayList<>(weights));
+        for (int i = 0; i < edgeWeightDim; i++) {
+            edgeWeights[edgeId * edgeWeightDim + i] = weights.get(i);
+        }
     }
 
     public void setNodeWeights(int nodeId, List<Double> weights) {
         assert weights.size() == nodeWeightDim;
         assert nodeId < nodeNum;
-        node2Weights.set(nodeId, new ArrayList<>(weights));
+        for (int i = 0; i < nodeWeightDim; i++) {
+            nodeWeights[nodeId * nodeWeightDim + i] = weights.get(i);
+        }
     }
 
     public int addNode(List<Double> weights) {
         assert weights.size() == nodeWeightDim;
 
-        node2Weights.add(new ArrayList<>(weights));
-        node2Edges.add(new ArrayList<>());
-        
+        nodeWeights = growArray(nodeWeights, (nodeNum + 1) * nodeWeightDim);
+        for (int i = 0; i < nodeWeightDim; i++) {
+            nodeWeights[nodeNum * nodeWeightDim + i] = weights.get(i);
+        }
+
+        if (pendingHead != null) {
+            pendingHead = growArray(pendingHead, nodeNum + 1, -1);
+        }
+
         int nodeId = nodeNum;
         nodeNum++;
         return nodeId;
@@ -86,49 +114,136 @@ public class HyperGraph {
         assert weights.size() == edgeWeightDim;
         assert nodeIds.size() > 1;
 
-        edge2Nodes.add(new ArrayList<>(nodeIds));
-        edge2Weights.add(new ArrayList<>(weights));
         int edgeId = edgeNum;
+        int degree = nodeIds.size();
+
+        edgePinOffsets = growArray(edgePinOffsets, edgeNum + 2);
+        edgePins = growArray(edgePins, pinNum + degree);
+        edgeWeights = growArray(edgeWeights, (edgeNum + 1) * edgeWeightDim);
+
+        for (int i = 0; i < edgeWeightDim; i++) {
+            edgeWeights[edgeId * edgeWeightDim + i] = weights.get(i);
+        }
 
         for (int nodeId : nodeIds) {
             assert nodeId < nodeNum;
-            node2Edges.get(nodeId).add(edgeId);
+            edgePins[pinNum] = nodeId;
+            addPendingPin(nodeId, edgeId);
+            pinNum++;
         }
+        edgePinOffsets[edgeNum + 1] = pinNum;
         edgeNum++;
         return edgeId;
     }
 
+    private void addPendingPin(int nodeId, int edgeId) {
+        if (pendingHead == null) {
+            pendingHead = new int[Math.max(nodeNum, 16)];
+            Arrays.fill(pendingHead, -1);
+            pendingNext = new int[16];
+            pendingEdge = new int[16];
+        }
+        pendingNext = growArray(pendingNext, pendingPinNum + 1);
+        pendingEdge = growArray(pendingEdge, pendingPinNum + 1);
+
+        pendingEdge[pendingPinNum] = edgeId;
+        pendingNext[pendingPinNum] = pendingHead[nodeId];
+        pendingHead[nodeId] = pendingPinNum;
+        pendingPinNum++;
+    }
+
+    private void clearPendingPins() {
+        pendingHead = null;
+        pendingNext = null;
+        pendingEdge = null;
+        pendingPinNum = 0;
+    }
+
+    // rebuild the node incidence CSR from edge pins with a counting sort, edges of each node are kept in ascending order
+    public synchronized void seal() {
+        if (sealedPinNum == pinNum && sealedNodeNum == nodeNum) {
+            return;
+        }
+
+        int[] offsets = new int[nodeNum + 1];
+        for (int pinId = 0; pinId < pinNum; pinId++) {
+            offsets[edgePins[pinId] + 1]++;
+        }
+        for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+            offsets[nodeId + 1] += offsets[nodeId];
+        }
+
+        int[] incidences = new int[pinNum];
+        int[] fillPos = Arrays.copyOf(offsets, nodeNum);
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+                incidences[fillPos[edgePins[pinId]]++] = edgeId;
+            }
+        }
+
+        nodeEdgeOffsets = offsets;
+        nodeEdges = incidences;
+        sealedNodeNum = nodeNum;
+        sealedPinNum = pinNum;
+        clearPendingPins();
+    }
+
+    private void sealIfPending() {
+        if (pendingPinNum > 0) {
+            seal();
+        }
+    }
+
+    // take over CSR arrays built by bulk loaders such as HyperGraphIO, bypassing incremental construction
+    void loadCSR(int nodeNum, double[] nodeWeights, int edgeNum, int[] edgePinOffsets, int[] edgePins, double[] edgeWeights) {
+        assert this.nodeNum == 0 && this.edgeNum == 0: "Bulk loading requires an empty graph";
+        this.nodeNum = nodeNum;
+        this.edgeNum = edgeNum;
+        this.pinNum = edgePinOffsets[edgeNum];
+        this.nodeWeights = nodeWeights;
+        this.edgePinOffsets = edgePinOffsets;
+        this.edgePins = edgePins;
+        this.edgeWeights = edgeWeights;
+        clearPendingPins();
+        trimToSize();
+    }
+
+    // release the spare capacity reserved for incremental construction
+    public void trimToSize() {
+        seal();
+        edgePinOffsets = Arrays.copyOf(edgePinOffsets, edgeNum + 1);
+        edgePins = Arrays.copyOf(edgePins, pinNum);
+        edgeWeights = Arrays.copyOf(edgeWeights, edgeNum * edgeWeightDim);
+        nodeWeights = Arrays.copyOf(nodeWeights, nodeNum * nodeWeightDim);
+    }
+
     public void setNodeWeightsFactor(List<Double> weightFactor) {
         assert weightFactor.size() > 0;
+        nodeWeights = resizeWeightDim(nodeWeights, nodeNum, nodeWeightDim, weightFactor.size());
         nodeWeightFactor = new ArrayList<>(weightFactor);
         nodeWeightDim = weightFactor.size();
-
-        for (int nodeId = 0; nodeId < getNodeNum(); nodeId++) {
-            List<Double> weights = node2Weights.get(nodeId);
-            int originWeightDim = weights.size();
-            if (originWeightDim < nodeWeightDim) {
-                weights.addAll(Collections.nCopies(nodeWeightDim - originWeightDim, 1.0));
-            } else if (originWeightDim > nodeWeightDim) {
-                weights = weights.subList(0, nodeWeightDim);
-            }
-            
-        }
     }
 
     public void setEdgeWeightsFactor(List<Double> weightFactor) {
         assert weightFactor.size() > 0;
+        edgeWeights = resizeWeightDim(edgeWeights, edgeNum, edgeWeightDim, weightFactor.size());
         edgeWeightFactor = new ArrayList<>(weightFactor);
         edgeWeightDim = weightFactor.size();
+    }
 
-        for (int edgeId = 0; edgeId < getEdgeNum(); edgeId++) {
-            List<Double> weights = edge2Weights.get(edgeId);
-            int originWeightDim = weights.size();
-            if (originWeightDim < edgeWeightDim) {
-                weights.addAll(Collections.nCopies(edgeWeightDim - originWeightDim, 1.0));
-            } else if (originWeightDim > edgeWeightDim) {
-                weights = weights.subList(0, edgeWeightDim);
-            }
+    private static double[] resizeWeightDim(double[] weights, int rowNum, int originDim, int newDim) {
+        if (originDim == newDim) {
+            return weights;
         }
+
+        // missing dimensions are padded with 1.0 and surplus dimensions are dropped
+        double[] newWeights = new double[rowNum * newDim];
+        int copyDim = Math.min(originDim, newDim);
+        for (int row = 0; row < rowNum; row++) {
+            System.arraycopy(weights, row * originDim, newWeights, row * newDim, copyDim);
+            Arrays.fill(newWeights, row * newDim + copyDim, (row + 1) * newDim, 1.0);
+        }
+        return newWeights;
     }
 
     // getters
@@ -149,11 +264,19 @@ public class HyperGraph {
     }
 
     public Double getNodeWeightsSum(int nodeId) {
-        return getNodeWeightsSum(getWeightsOfNode(nodeId));
+        double sum = 0.0;
+        for (int i = 0; i < nodeWeightDim; i++) {
+            sum += nodeWeights[nodeId * nodeWeightDim + i] * nodeWeightFactor.get(i);
+        }
+        return sum;
     }
 
     public Double getEdgeWeightsSum(int edgeId) {
-        return getEdgeWeightsSum(getWeightsOfEdge(edgeId));
+        double sum = 0.0;
+        for (int i = 0; i < edgeWeightDim; i++) {
+            sum += edgeWeights[edgeId * edgeWeightDim + i] * edgeWeightFactor.get(i);
+        }
+        return sum;
     }
 
     public List<Double> getCutSize(List<Integer> partResult) {
@@ -162,7 +285,7 @@ public class HyperGraph {
 
         for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
             if (isCutEdge(edgeId, partResult)) {
-                accuWeights(cutSizes, edge2Weights.get(edgeId));
+                accuEdgeWeights(cutSizes, edgeId);
             }
         }
 
@@ -170,13 +293,13 @@ public class HyperGraph {
     }
 
     public List<Double> getCutSizeOfNode(List<Integer> partResult, Integer nodeId) {
-        
+        sealIfPending();
         List<Double> cutSize = new ArrayList<>(Collections.nCopies(edgeWeightDim, 0.0));
 
-        for (int edgeId : node2Edges.get(nodeId)) {
-
+        for (int i = getIncidenceBegin(nodeId); i < getIncidenceEnd(nodeId); i++) {
+            int edgeId = nodeEdges[i];
             if (isCutEdge(edgeId, partResult)) {
-                accuWeights(cutSize, edge2Weights.get(edgeId));
+                accuEdgeWeights(cutSize, edgeId);
             }
         }
 
@@ -197,7 +320,7 @@ public class HyperGraph {
             int blockId = partResult.get(nodeId);
             assert blockId != -1;
             //if (blockId == -1) continue;
-            accuWeights(blockSizes.get(blockId), node2Weights.get(nodeId));
+            accuNodeWeights(blockSizes.get(blockId), nodeId);
         }
 
         return blockSizes;
@@ -214,8 +337,8 @@ public class HyperGraph {
 
         for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
             Set<Integer> blockIds = new HashSet<>();
-            for (int nodeId : edge2Nodes.get(edgeId)) {
-                int blockId = partResult.get(nodeId);
+            for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+                int blockId = partResult.get(edgePins[pinId]);
                 if (blockId != -1) {
                     blockIds.add(blockId);
                 }
@@ -223,7 +346,7 @@ public class HyperGraph {
 
             if (blockIds.size() > 1) {
                 for (int blockId : blockIds) {
-                    accuWeights(blockCutSizes.get(blockId), edge2Weights.get(edgeId));
+                    accuEdgeWeights(blockCutSizes.get(blockId), edgeId);
                 }
             }
         }
@@ -234,16 +357,19 @@ public class HyperGraph {
     public boolean isCutEdge(int edgeId, List<Integer> partResult) {
         assert partResult.size() == nodeNum;
 
-        Set<Integer> edge2Blocks = new HashSet<>();
-
-        for (int nodeId : edge2Nodes.get(edgeId)) {
-            int blockId = partResult.get(nodeId);
+        int firstBlockId = -1;
+        for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+            int blockId = partResult.get(edgePins[pinId]);
             if (blockId == -1) continue;
 
-            edge2Blocks.add(blockId);
+            if (firstBlockId == -1) {
+                firstBlockId = blockId;
+            } else if (blockId != firstBlockId) {
+                return true;
+            }
         }
 
-        return edge2Blocks.size() > 1;
+        return false;
     }
 
     public int getEdgeNum() {
@@ -254,6 +380,10 @@ public class HyperGraph {
         return nodeNum;
     }
 
+    public int getPinNum() {
+        return pinNum;
+    }
+
     public int getEdgeWeightDim() {
         return edgeWeightDim;
     }
@@ -263,48 +393,99 @@ public class HyperGraph {
     }
 
     public List<Integer> getNodesOfEdge(int edgeId) {
-        return Collections.unmodifiableList(edge2Nodes.get(edgeId));
+        assert edgeId < edgeNum;
+        return new IntSliceView(edgePins, edgePinOffsets[edgeId], edgePinOffsets[edgeId + 1]);
     }
 
     public List<Integer> getEdgesOfNode(int nodeId) {
-        return Collections.unmodifiableList(node2Edges.get(nodeId));
+        assert nodeId < nodeNum;
+        sealIfPending();
+        return new IntSliceView(nodeEdges, getIncidenceBegin(nodeId), getIncidenceEnd(nodeId));
+    }
+
+    // allocation-free accessors of the CSR storage
+    public int getNodeOfEdge(int edgeId, int pinIdx) {
+        assert pinIdx < getDegreeOfEdge(edgeId);
+        return edgePins[edgePinOffsets[edgeId] + pinIdx];
+    }
+
+    public int getEdgeOfNode(int nodeId, int incidenceIdx) {
+        sealIfPending();
+        assert incidenceIdx < getDegreeOfNode(nodeId);
+        return nodeEdges[getIncidenceBegin(nodeId) + incidenceIdx];
+    }
+
+    public int getDegreeOfNode(int nodeId) {
+        sealIfPending();
+        return getIncidenceEnd(nodeId) - getIncidenceBegin(nodeId);
+    }
+
+    public double getNodeWeight(int nodeId, int dim) {
+        assert dim < nodeWeightDim;
+        return nodeWeights[nodeId * nodeWeightDim + dim];
+    }
+
+    public double getEdgeWeight(int edgeId, int dim) {
+        assert dim < edgeWeightDim;
+        return edgeWeights[edgeId * edgeWeightDim + dim];
+    }
+
+    private int getIncidenceBegin(int nodeId) {
+        return nodeId < sealedNodeNum ? nodeEdgeOffsets[nodeId] : 0;
+    }
+
+    private int getIncidenceEnd(int nodeId) {
+        return nodeId < sealedNodeNum ? nodeEdgeOffsets[nodeId + 1] : 0;
     }
 
     public int getDegreeOfEdge(int edgeId) {
-        return edge2Nodes.get(edgeId).size();
+        return edgePinOffsets[edgeId + 1] - edgePinOffsets[edgeId];
     }
 
     public int getMaxEdgeDegree() {
-        List<Integer> edgeDegrees = edge2Nodes.stream().map(nodes -> nodes.size()).collect(Collectors.toList());
-        return Collections.max(edgeDegrees);
+        assert edgeNum > 0;
+        int maxDegree = 0;
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            maxDegree = Math.max(maxDegree, getDegreeOfEdge(edgeId));
+        }
+        return maxDegree;
     }
 
     public int getMaxNodeWeight(int dim) {
         assert dim < nodeWeightDim;
-        List<Double> nodeWeights = node2Weights.stream().map(weights -> weights.get(dim)).collect(Collectors.toList());
-        return Collections.max(nodeWeights).intValue();
+        assert nodeNum > 0;
+        double maxWeight = Double.NEGATIVE_INFINITY;
+        for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+            maxWeight = Math.max(maxWeight, getNodeWeight(nodeId, dim));
+        }
+        return (int) maxWeight;
     }
 
     public List<Double> getWeightsOfNode(int nodeId) {
-        return Collections.unmodifiableList(node2Weights.get(nodeId));
+        assert nodeId < nodeNum;
+        return new DoubleSliceView(nodeWeights, nodeId * nodeWeightDim, (nodeId + 1) * nodeWeightDim);
     }
 
     public List<Double> getWeightsOfEdge(int edgeId) {
-        return Collections.unmodifiableList(edge2Weights.get(edgeId));
+        assert edgeId < edgeNum;
+        return new DoubleSliceView(edgeWeights, edgeId * edgeWeightDim, (edgeId + 1) * edgeWeightDim);
     }
 
     public List<Double> getTotalNodeWeightsOfEdge(int edgeId) {
         List<Double> weights = new ArrayList<>(Collections.nCopies(nodeWeightDim, 0.0));
-        for (int nodeId : edge2Nodes.get(edgeId)) {
-            accuWeights(weights, node2Weights.get(nodeId));
+        for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+            accuNodeWeights(weights, edgePins[pinId]);
         }
         return weights;
     }
 
     public List<Integer> getNeighborsOfNode(int nodeId) {
+        sealIfPending();
         Set<Integer> neighbors = new HashSet<>();
-        for (int edgeId : node2Edges.get(nodeId)) {
-            for (int neighborNodeId : edge2Nodes.get(edgeId)) {
+        for (int i = getIncidenceBegin(nodeId); i < getIncidenceEnd(nodeId); i++) {
+            int edgeId = nodeEdges[i];
+            for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+                int neighborNodeId = edgePins[pinId];
                 if (neighborNodeId != nodeId) {
                     neighbors.add(neighborNodeId);
                 }
@@ -315,7 +496,8 @@ public class HyperGraph {
 
     public List<Integer> getNeighborsOfNode(int nodeId, int edgeId) {
         Set<Integer> neighbors = new HashSet<>();
-        for (int nNodeId : getNodesOfEdge(edgeId)) {
+        for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+            int nNodeId = edgePins[pinId];
             if (nNodeId != nodeId) {
                 neighbors.add(nNodeId);
             }
@@ -324,8 +506,26 @@ public class HyperGraph {
     }
 
     public boolean hasConnection(int node1, int node2) {
-        for (int edgeId : node2Edges.get(node1)) {
-            if (edge2Nodes.get(edgeId).contains(node2)) {
+        // check incidences in sealed CSR and those added afterwards without forcing a rebuild
+        for (int i = getIncidenceBegin(node1); i < getIncidenceEnd(node1); i++) {
+            if (isPinOfEdge(nodeEdges[i], node2)) {
+                return true;
+            }
+        }
+
+        if (pendingHead != null) {
+            for (int i = pendingHead[node1]; i != -1; i = pendingNext[i]) {
+                if (isPinOfEdge(pendingEdge[i], node2)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isPinOfEdge(int edgeId, int nodeId) {
+        for (int pinId = edgePinOffsets[edgeId]; pinId < edgePinOffsets[edgeId + 1]; pinId++) {
+            if (edgePins[pinId] == nodeId) {
                 return true;
             }
         }
@@ -335,26 +535,31 @@ public class HyperGraph {
     public List<Double> getMaxNodeWeight() {
         List<Double> maxNodeWeights = new ArrayList<>(Collections.nCopies(nodeWeightDim, 0.0));
         for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
-            List<Double> nodeWeights = node2Weights.get(nodeId);
-            maxNodeWeights = VecOps.getMax(maxNodeWeights, nodeWeights);
+            for (int i = 0; i < nodeWeightDim; i++) {
+                maxNodeWeights.set(i, Math.max(maxNodeWeights.get(i), getNodeWeight(nodeId, i)));
+            }
         }
         return maxNodeWeights;
     }
 
     public List<Double> getTotalEdgeWeight() {
-        List<Double> totalEdgeWeights = new ArrayList<>(Collections.nCopies(edgeWeightDim, 0.0));
+        double[] totalEdgeWeights = new double[edgeWeightDim];
         for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
-            accuWeights(totalEdgeWeights, edge2Weights.get(edgeId));
+            for (int i = 0; i < edgeWeightDim; i++) {
+                totalEdgeWeights[i] += getEdgeWeight(edgeId, i);
+            }
         }
-        return totalEdgeWeights;
+        return toList(totalEdgeWeights);
     }
 
     public List<Double> getTotalNodeWeight() {
-        List<Double> totalNodeWeights = new ArrayList<>(Collections.nCopies(nodeWeightDim, 0.0));
+        double[] totalNodeWeights = new double[nodeWeightDim];
         for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
-            accuWeights(totalNodeWeights, node2Weights.get(nodeId));
+            for (int i = 0; i < nodeWeightDim; i++) {
+                totalNodeWeights[i] += getNodeWeight(nodeId, i);
+            }
         }
-        return totalNodeWeights;
+        return toList(totalNodeWeights);
     }
 
     public List<List<Integer>> getDistance2Nodes(Integer nodeId, Integer maxDistance) {
@@ -388,7 +593,7 @@ public class HyperGraph {
             }
 
         }
-        
+
         return dist2Nodes;
     }
 
@@ -423,7 +628,7 @@ public class HyperGraph {
             }
 
         }
-        
+
         return dist2Nodes;
     }
 
@@ -450,6 +655,7 @@ public class HyperGraph {
         for (Set<Integer> nodeIds : compressedEdges.keySet()) {
             compressedGraph.addEdge(nodeIds, compressedEdges.get(nodeIds));
         }
+        compressedGraph.trimToSize();
 
         return compressedGraph;
     }
@@ -467,7 +673,7 @@ public class HyperGraph {
         for (Integer dim = 0; dim < nodeWeightDim; dim++) {
             List<Double> nodeWeights = new ArrayList<>();
             for (int nodeId = 0; nodeId < getNodeNum(); nodeId++) {
-                nodeWeights.add(getWeightsOfNode(nodeId).get(dim));
+                nodeWeights.add(getNodeWeight(nodeId, dim));
             }
 
             if (verbose) {
@@ -480,7 +686,10 @@ public class HyperGraph {
             }
         }
 
-        List<Double> edgeWeights = edge2Weights.stream().map(weights -> getEdgeWeightsSum(weights)).collect(Collectors.toList());
+        List<Double> edgeWeights = new ArrayList<>();
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            edgeWeights.add(getEdgeWeightsSum(edgeId));
+        }
         if (verbose) {
             distInfo = StatisticsUtils.getValueDistInfo(edgeWeights, 6);
             distInfo = HierarchicalLogger.insertAtHeadOfEachLine("  ", distInfo);
@@ -490,8 +699,11 @@ public class HyperGraph {
             graphInfo += String.format("Edge weight: %s\n", distInfo);
         }
 
-        List<Double> edgeDegrees = edge2Nodes.stream().map(nodes -> (double) nodes.size()).collect(Collectors.toList());
-        
+        List<Double> edgeDegrees = new ArrayList<>();
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            edgeDegrees.add((double) getDegreeOfEdge(edgeId));
+        }
+
         if (verbose) {
             distInfo = StatisticsUtils.getValueDistInfo(edgeDegrees, 6);
             distInfo = HierarchicalLogger.insertAtHeadOfEachLine("  ", distInfo);
@@ -506,45 +718,8 @@ public class HyperGraph {
 
     // IO
     public void saveGraphInHmetisFormat(Path outputFilePath) {
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath.toFile()))) {
-            writer.write(String.format("%d %d 11", edgeNum, nodeNum));
-            writer.newLine();
-
-            // save edges
-            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
-                String edgeLineString = "";
-
-                for (double weight : edge2Weights.get(edgeId)) {
-                    if (edgeLineString.length() != 0) {
-                        edgeLineString += " ";
-                    }
-                    edgeLineString += String.format("%.2f", weight);
-                }
-
-                for (int nodeId : edge2Nodes.get(edgeId)) {
-                    nodeId += 1;
-                    edgeLineString += String.format(" %d", nodeId);
-                }
-
-                writer.write(edgeLineString);
-                writer.newLine();
-            }
-
-            // save nodes
-            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
-                String nodeLineString = "";
-
-                for (double weight : node2Weights.get(nodeId)) {
-                    if (nodeLineString.length() != 0) {
-                        nodeLineString += " ";
-                    }
-                    nodeLineString += String.format("%.2f", weight);
-                }
-                writer.write(nodeLineString);
-                writer.newLine();
-            }
-
+        try {
+            HyperGraphIO.writeHmetis(this, outputFilePath);
         } catch (Exception e) {
             // TODO: handle exception
             e.printStackTrace();
@@ -552,82 +727,51 @@ public class HyperGraph {
     }
 
     public static HyperGraph readGraphFromHmetisFormat(Path inputFilePath, List<Double> nodeWeightFactor, List<Double> edgeWeightFactor) {
-        HyperGraph hyperGraph = new HyperGraph(nodeWeightFactor, edgeWeightFactor);
-        int edgeWeightDim = hyperGraph.getEdgeWeightDim();
-        int nodeWeightDim = hyperGraph.getNodeWeightDim();
-
-        List<List<Double>> edgeWeights = new ArrayList<>();
-        List<Set<Integer>> edge2NodeIds = new ArrayList<>();
-        List<List<Double>> nodeWeights = new ArrayList<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFilePath.toFile()))) {
-            String line;
-
-            // read header
-            line = reader.readLine();
-            String[] tokens = line.split(" ");
-            int edgeNum = Integer.parseInt(tokens[0]);
-            int nodeNum = Integer.parseInt(tokens[1]);
-            boolean hasEdgeWeights = false;
-            boolean hasNodeWeights = false;
-            if (tokens.length > 2) {
-                assert tokens[2].length() == 2;
-                hasEdgeWeights = tokens[2].charAt(0) == '1';
-                hasNodeWeights = tokens[2].charAt(1) == '1';
-            }
-
-            for (int i = 0; i < edgeNum; i++) {
-                line = reader.readLine();
-                assert line != null;
-                tokens = line.split(" ");
-
-                List<Double> weights = new ArrayList<>(Collections.nCopies(edgeWeightDim, 1.0));
-                if (hasEdgeWeights) {
-                    assert tokens.length > edgeWeightDim;
-                    for (int j = 0; j < edgeWeightDim; j++) {
-                        weights.set(j, Double.parseDouble(tokens[j]));
-                    }
-                }
-
-                int nodeIdsOffset = hasEdgeWeights ? edgeWeightDim : 0;
-                Set<Integer> nodeIds = new HashSet<>();
-                for (int j = nodeIdsOffset; j < tokens.length; j++) {
-                    nodeIds.add(Integer.parseInt(tokens[j]) - 1); // hmetis node index starts from 1
-                }
-
-                edgeWeights.add(weights);
-                edge2NodeIds.add(nodeIds);
-            }
-
-            for (int i = 0; i < nodeNum; i++) {
-                List<Double> weights = new ArrayList<>(Collections.nCopies(nodeWeightDim, 1.0));
-                if (hasNodeWeights) {
-                    line = reader.readLine();
-                    tokens = line.split(" ");
-                    assert tokens.length == nodeWeightDim;
-                    for (int j = 0; j < nodeWeightDim; j++) {
-                        weights.set(j, Double.parseDouble(tokens[j]));
-                    }
-                }
-                nodeWeights.add(weights);
-            }
-
-            for (int i = 0; i < nodeNum; i++) {
-                hyperGraph.addNode(nodeWeights.get(i));
-            }
+        try {
+            return HyperGraphIO.readHmetis(inputFilePath, nodeWeightFactor, edgeWeightFactor);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new HyperGraph(nodeWeightFactor, edgeWeightFactor);
+        }
+    }
 
-            for (int i = 0; i < edgeNum; i++) {
-                hyperGraph.addEdge(edge2NodeIds.get(i), edgeWeights.get(i));
-            }
+    // compact binary format keeping weight factors and exact weights, used for caching graphs between runs
+    public void saveGraphInBinaryFormat(Path outputFilePath) {
+        try {
+            HyperGraphIO.writeBinary(this, outputFilePath);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
+    // return null when the file is missing or corrupted
+    public static HyperGraph readGraphFromBinaryFormat(Path inputFilePath) {
+        if (!inputFilePath.toFile().exists()) {
+            return null;
+        }
+        try {
+            return HyperGraphIO.readBinary(inputFilePath);
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    //
+    private void accuNodeWeights(List<Double> target, int nodeId) {
+        assert target.size() == nodeWeightDim;
+        for (int i = 0; i < nodeWeightDim; i++) {
+            target.set(i, target.get(i) + getNodeWeight(nodeId, i));
         }
+    }
 
-        return hyperGraph;
+    private void accuEdgeWeights(List<Double> target, int edgeId) {
+        assert target.size() == edgeWeightDim;
+        for (int i = 0; i < edgeWeightDim; i++) {
+            target.set(i, target.get(i) + getEdgeWeight(edgeId, i));
+        }
     }
 
-    // 
     public static void accuWeights(List<Double> target, List<Double> source) {
         assert target.size() == source.size();
         for (int i = 0; i < target.size(); i++) {
@@ -659,4 +803,86 @@ public class HyperGraph {
         }
         return sum;
     }
+
+    private static List<Double> toList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    protected static int[] growArray(int[] array, int minCapacity) {
+        if (array.length >= minCapacity) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(minCapacity, array.length + (array.length >> 1) + 16));
+    }
+
+    protected static int[] growArray(int[] array, int minCapacity, int fillValue) {
+        int originLength = array.length;
+        int[] newArray = growArray(array, minCapacity);
+        if (newArray != array) {
+            Arrays.fill(newArray, originLength, newArray.length, fillValue);
+        }
+        return newArray;
+    }
+
+    protected static double[] growArray(double[] array, int minCapacity) {
+        if (array.length >= minCapacity) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(minCapacity, array.length + (array.length >> 1) + 16));
+    }
+
+    // read-only list views over slices of the flat arrays, so existing getters don't copy
+    protected static class IntSliceView extends AbstractList<Integer> implements RandomAccess {
+        private final int[] array;
+        private final int begin;
+        private final int end;
+
+        public IntSliceView(int[] array, int begin, int end) {
+            this.array = array;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= end - begin) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return array[begin + index];
+        }
+
+        @Override
+        public int size() {
+            return end - begin;
+        }
+    }
+
+    protected static class DoubleSliceView extends AbstractList<Double> implements RandomAccess {
+        private final double[] array;
+        private final int begin;
+        private final int end;
+
+        public DoubleSliceView(double[] array, int begin, int end) {
+            this.array = array;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= end - begin) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return array[begin + index];
+        }
+
+        @Override
+        public int size() {
+            return end - begin;
+        }
+    }
 }
@@ -0,0 +1,487 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Streaming readers and writers of HyperGraph files.
+// Readers scan memory-mapped windows of the file byte by byte and fill the CSR arrays of HyperGraph directly.
+class HyperGraphIO {
+    private static final int BINARY_MAGIC = 0x52504847; // "RPHG"
+    private static final int BINARY_VERSION = 1;
+
+    // hMETIS text format
+    static void writeHmetis(HyperGraph graph, Path outputFilePath) throws IOException {
+        try (ByteWriter writer = new ByteWriter(outputFilePath)) {
+            writer.writeInt(graph.edgeNum);
+            writer.writeByte(' ');
+            writer.writeInt(graph.nodeNum);
+            writer.writeAscii(" 11\n");
+
+            for (int edgeId = 0; edgeId < graph.edgeNum; edgeId++) {
+                for (int i = 0; i < graph.edgeWeightDim; i++) {
+                    if (i != 0) {
+                        writer.writeByte(' ');
+                    }
+                    writer.writeFixed2(graph.edgeWeights[edgeId * graph.edgeWeightDim + i]);
+                }
+                for (int pinId = graph.edgePinOffsets[edgeId]; pinId < graph.edgePinOffsets[edgeId + 1]; pinId++) {
+                    writer.writeByte(' ');
+                    writer.writeInt(graph.edgePins[pinId] + 1); // hmetis node index starts from 1
+                }
+                writer.writeByte('\n');
+            }
+
+            for (int nodeId = 0; nodeId < graph.nodeNum; nodeId++) {
+                for (int i = 0; i < graph.nodeWeightDim; i++) {
+                    if (i != 0) {
+                        writer.writeByte(' ');
+                    }
+                    writer.writeFixed2(graph.nodeWeights[nodeId * graph.nodeWeightDim + i]);
+                }
+                writer.writeByte('\n');
+            }
+        }
+    }
+
+    static HyperGraph readHmetis(Path inputFilePath, List<Double> nodeWeightFactor, List<Double> edgeWeightFactor) throws IOException {
+        HyperGraph graph = new HyperGraph(nodeWeightFactor, edgeWeightFactor);
+        int edgeWeightDim = graph.getEdgeWeightDim();
+        int nodeWeightDim = graph.getNodeWeightDim();
+
+        try (MappedScanner scanner = new MappedScanner(inputFilePath)) {
+            // header: <edgeNum> <nodeNum> [fmt], fmt digits mark node weights (tens) and edge weights (units)
+            scanner.skipCommentLines();
+            int edgeNum = scanner.nextInt();
+            int nodeNum = scanner.nextInt();
+            boolean hasEdgeWeights = false;
+            boolean hasNodeWeights = false;
+            if (!scanner.isLineEnd()) {
+                int fmt = scanner.nextInt();
+                hasEdgeWeights = fmt % 10 == 1;
+                hasNodeWeights = (fmt / 10) % 10 == 1;
+            }
+            scanner.skipLine();
+
+            int[] edgePinOffsets = new int[edgeNum + 1];
+            int[] edgePins = new int[Math.max(16, edgeNum * 2)];
+            double[] edgeWeights = new double[edgeNum * edgeWeightDim];
+            int[] node2LastEdge = new int[nodeNum]; // remove duplicated pins within an edge
+            Arrays.fill(node2LastEdge, -1);
+
+            int pinNum = 0;
+            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+                scanner.skipCommentLines();
+                assert scanner.hasRemaining(): "Unexpected end of file at edge " + edgeId;
+                for (int i = 0; i < edgeWeightDim; i++) {
+                    edgeWeights[edgeId * edgeWeightDim + i] = hasEdgeWeights ? scanner.nextDouble() : 1.0;
+                }
+                while (!scanner.isLineEnd()) {
+                    int nodeId = scanner.nextInt() - 1;
+                    assert nodeId >= 0 && nodeId < nodeNum: "Invalid node index in edge " + edgeId;
+                    if (node2LastEdge[nodeId] == edgeId) continue;
+                    node2LastEdge[nodeId] = edgeId;
+                    edgePins = HyperGraph.growArray(edgePins, pinNum + 1);
+                    edgePins[pinNum++] = nodeId;
+                }
+                scanner.skipLine();
+                edgePinOffsets[edgeId + 1] = pinNum;
+            }
+
+            double[] nodeWeights = new double[nodeNum * nodeWeightDim];
+            for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+                if (hasNodeWeights) {
+                    scanner.skipCommentLines();
+                    for (int i = 0; i < nodeWeightDim; i++) {
+                        nodeWeights[nodeId * nodeWeightDim + i] = scanner.nextDouble();
+                    }
+                    scanner.skipLine();
+                } else {
+                    Arrays.fill(nodeWeights, nodeId * nodeWeightDim, (nodeId + 1) * nodeWeightDim, 1.0);
+                }
+            }
+
+            graph.loadCSR(nodeNum, nodeWeights, edgeNum, edgePinOffsets, edgePins, edgeWeights);
+        }
+        return graph;
+    }
+
+    // compact binary format:
+    // magic, version, nodeNum, edgeNum, pinNum, nodeWeightDim, edgeWeightDim (varints after magic and version)
+    // node and edge weight factors, per-edge degree and pins (varints), edge weights and node weights (raw doubles)
+    static void writeBinary(HyperGraph graph, Path outputFilePath) throws IOException {
+        try (ByteWriter writer = new ByteWriter(outputFilePath)) {
+            writer.writeFixedInt(BINARY_MAGIC);
+            writer.writeFixedInt(BINARY_VERSION);
+            writer.writeVarInt(graph.nodeNum);
+            writer.writeVarInt(graph.edgeNum);
+            writer.writeVarInt(graph.pinNum);
+            writer.writeVarInt(graph.nodeWeightDim);
+            writer.writeVarInt(graph.edgeWeightDim);
+            for (double factor : graph.nodeWeightFactor) {
+                writer.writeDouble(factor);
+            }
+            for (double factor : graph.edgeWeightFactor) {
+                writer.writeDouble(factor);
+            }
+
+            for (int edgeId = 0; edgeId < graph.edgeNum; edgeId++) {
+                writer.writeVarInt(graph.edgePinOffsets[edgeId + 1] - graph.edgePinOffsets[edgeId]);
+                for (int pinId = graph.edgePinOffsets[edgeId]; pinId < graph.edgePinOffsets[edgeId + 1]; pinId++) {
+                    writer.writeVarInt(graph.edgePins[pinId]);
+                }
+            }
+            for (int i = 0; i < graph.edgeNum * graph.edgeWeightDim; i++) {
+                writer.writeDouble(graph.edgeWeights[i]);
+            }
+            for (int i = 0; i < graph.nodeNum * graph.nodeWeightDim; i++) {
+                writer.writeDouble(graph.nodeWeights[i]);
+            }
+        }
+    }
+
+    static HyperGraph readBinary(Path inputFilePath) throws IOException {
+        try (MappedScanner scanner = new MappedScanner(inputFilePath)) {
+            if (scanner.nextFixedInt() != BINARY_MAGIC) {
+                throw new IOException("Not a binary hypergraph file: " + inputFilePath);
+            }
+            int version = scanner.nextFixedInt();
+            if (version != BINARY_VERSION) {
+                throw new IOException("Unsupported binary hypergraph version " + version + ": " + inputFilePath);
+            }
+
+            int nodeNum = scanner.nextVarInt();
+            int edgeNum = scanner.nextVarInt();
+            int pinNum = scanner.nextVarInt();
+            int nodeWeightDim = scanner.nextVarInt();
+            int edgeWeightDim = scanner.nextVarInt();
+
+            List<Double> nodeWeightFactor = new ArrayList<>(nodeWeightDim);
+            for (int i = 0; i < nodeWeightDim; i++) {
+                nodeWeightFactor.add(scanner.nextRawDouble());
+            }
+            List<Double> edgeWeightFactor = new ArrayList<>(edgeWeightDim);
+            for (int i = 0; i < edgeWeightDim; i++) {
+                edgeWeightFactor.add(scanner.nextRawDouble());
+            }
+
+            int[] edgePinOffsets = new int[edgeNum + 1];
+            int[] edgePins = new int[pinNum];
+            int pinId = 0;
+            for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+                int degree = scanner.nextVarInt();
+                for (int i = 0; i < degree; i++) {
+                    edgePins[pinId++] = scanner.nextVarInt();
+                }
+                edgePinOffsets[edgeId + 1] = pinId;
+            }
+            if (pinId != pinNum) {
+                throw new IOException("Corrupted binary hypergraph file: " + inputFilePath);
+            }
+
+            double[] edgeWeights = new double[edgeNum * edgeWeightDim];
+            for (int i = 0; i < edgeWeights.length; i++) {
+                edgeWeights[i] = scanner.nextRawDouble();
+            }
+            double[] nodeWeights = new double[nodeNum * nodeWeightDim];
+            for (int i = 0; i < nodeWeights.length; i++) {
+                nodeWeights[i] = scanner.nextRawDouble();
+            }
+
+            HyperGraph graph = new HyperGraph(nodeWeightFactor, edgeWeightFactor);
+            graph.loadCSR(nodeNum, nodeWeights, edgeNum, edgePinOffsets, edgePins, edgeWeights);
+            return graph;
+        }
+    }
+
+    // sequential reader over memory-mapped windows, so files larger than 2GB can be scanned
+    private static class MappedScanner implements Closeable {
+        private static final long WINDOW_SIZE = 1L << 26;
+        private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private long windowBase;
+        private MappedByteBuffer window;
+        private byte[] token = new byte[64];
+
+        public MappedScanner(Path filePath) throws IOException {
+            channel = FileChannel.open(filePath, StandardOpenOption.READ);
+            fileSize = channel.size();
+            windowBase = 0;
+            mapWindow();
+        }
+
+        private void mapWindow() throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowBase, Math.min(WINDOW_SIZE, fileSize - windowBase));
+        }
+
+        private boolean ensureWindow() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            windowBase += window.limit();
+            if (windowBase >= fileSize) {
+                return false;
+            }
+            mapWindow();
+            return true;
+        }
+
+        public boolean hasRemaining() throws IOException {
+            return ensureWindow();
+        }
+
+        public int peek() throws IOException {
+            return ensureWindow() ? window.get(window.position()) : -1;
+        }
+
+        public int get() throws IOException {
+            if (!ensureWindow()) {
+                throw new IOException("Unexpected end of file");
+            }
+            return window.get();
+        }
+
+        private void skipBlanks() throws IOException {
+            int c = peek();
+            while (c == ' ' || c == '\t' || c == '\r') {
+                window.get();
+                c = peek();
+            }
+        }
+
+        public boolean isLineEnd() throws IOException {
+            skipBlanks();
+            int c = peek();
+            return c == '\n' || c == -1;
+        }
+
+        public void skipLine() throws IOException {
+            int c = peek();
+            while (c != -1) {
+                window.get();
+                if (c == '\n') break;
+                c = peek();
+            }
+        }
+
+        public void skipCommentLines() throws IOException {
+            while (peek() == '%') {
+                skipLine();
+            }
+        }
+
+        private int nextToken() throws IOException {
+            skipBlanks();
+            int len = 0;
+            int c = peek();
+            while (c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                if (len == token.length) {
+                    token = Arrays.copyOf(token, len * 2);
+                }
+                token[len++] = window.get();
+                c = peek();
+            }
+            if (len == 0) {
+                throw new IOException("Missing token at offset " + (windowBase + window.position()));
+            }
+            return len;
+        }
+
+        public int nextInt() throws IOException {
+            int len = nextToken();
+            int idx = 0;
+            boolean negative = token[0] == '-';
+            if (negative || token[0] == '+') idx++;
+            long value = 0;
+            for (; idx < len; idx++) {
+                int digit = token[idx] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IOException("Invalid integer: " + new String(token, 0, len, StandardCharsets.US_ASCII));
+                }
+                value = value * 10 + digit;
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        // exact fast path for short decimals, other forms fall back to Double.parseDouble
+        public double nextDouble() throws IOException {
+            int len = nextToken();
+            int idx = 0;
+            boolean negative = token[0] == '-';
+            if (negative || token[0] == '+') idx++;
+
+            long mantissa = 0;
+            int digitNum = 0;
+            int exp10 = 0;
+            boolean seenDot = false;
+            boolean fastPath = idx < len;
+            for (; idx < len && fastPath; idx++) {
+                int c = token[idx];
+                if (c == '.' && !seenDot) {
+                    seenDot = true;
+                } else if (c >= '0' && c <= '9') {
+                    if (mantissa == 0 && c == '0') {
+                        if (seenDot) exp10--;
+                        continue;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    digitNum++;
+                    if (seenDot) exp10--;
+                } else if ((c == 'e' || c == 'E') && idx + 1 < len) {
+                    try {
+                        exp10 += Integer.parseInt(new String(token, idx + 1, len - idx - 1, StandardCharsets.US_ASCII));
+                    } catch (NumberFormatException e) {
+                        fastPath = false;
+                    }
+                    break;
+                } else {
+                    fastPath = false;
+                }
+            }
+
+            if (fastPath && digitNum <= 15 && Math.abs(exp10) < POW10.length) {
+                double value = exp10 >= 0 ? mantissa * POW10[exp10] : mantissa / POW10[-exp10];
+                return negative ? -value : value;
+            }
+            return Double.parseDouble(new String(token, 0, len, StandardCharsets.US_ASCII));
+        }
+
+        public int nextFixedInt() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (get() & 0xFF);
+            }
+            return value;
+        }
+
+        public int nextVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            while (true) {
+                int b = get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+                shift += 7;
+                if (shift > 28) {
+                    throw new IOException("Malformed varint");
+                }
+            }
+            return value;
+        }
+
+        public double nextRawDouble() throws IOException {
+            if (window.remaining() >= 8) {
+                return window.getDouble();
+            }
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (get() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+
+    // buffered writer emitting numbers without intermediate strings
+    private static class ByteWriter implements Closeable {
+        private final OutputStream output;
+        private final byte[] buffer = new byte[1 << 16];
+        private final byte[] digits = new byte[20];
+        private int size = 0;
+
+        public ByteWriter(Path filePath) throws IOException {
+            output = new FileOutputStream(filePath.toFile());
+        }
+
+        public void writeByte(int b) throws IOException {
+            if (size == buffer.length) {
+                flushBuffer();
+            }
+            buffer[size++] = (byte) b;
+        }
+
+        public void writeAscii(String str) throws IOException {
+            for (int i = 0; i < str.length(); i++) {
+                writeByte(str.charAt(i));
+            }
+        }
+
+        public void writeInt(long value) throws IOException {
+            if (value < 0) {
+                writeByte('-');
+                value = -value;
+            }
+            int len = 0;
+            do {
+                digits[len++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (len > 0) {
+                writeByte(digits[--len]);
+            }
+        }
+
+        // same output as String.format("%.2f", value), integral weights avoid the formatter
+        public void writeFixed2(double value) throws IOException {
+            boolean isNegativeZero = value == 0.0 && Double.doubleToRawLongBits(value) != 0;
+            if (value == Math.rint(value) && Math.abs(value) < 1e15 && !isNegativeZero) {
+                writeInt((long) value);
+                writeAscii(".00");
+            } else {
+                writeAscii(String.format("%.2f", value));
+            }
+        }
+
+        public void writeFixedInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            assert value >= 0;
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            output.write(buffer, 0, size);
+            size = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushBuffer();
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.nio.file.Path;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.util.Job;
+import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.TclCmdFile;
+
+// Creates jobs that implement a design with a tcl command file in a work directory.
+// A job reads VivadoProject.INPUT_DCP_NAME from its work directory and writes the checkpoints
+// requested by the commands, so flows do not depend on which tool runs the commands.
+public interface ImplJobBackend {
+
+    Job createJob(Design design, Path workDir, TclCmdFile tclCmdFile);
+
+    // overrides the thread limit of a prepared job, only valid before the job is launched
+    void setMaxThreadOfJob(Job job, int maxThread);
+}
@@ -0,0 +1,134 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.util.Arrays;
+
+// Binary max-heap over integer indices in [0, capacity) with double keys.
+// Supports O(log n) insert/update/remove of any index and O(1) lookup of the max.
+// Ties are broken by the smaller index so that results are deterministic.
+public class IndexedMaxHeap {
+
+    private int size;
+    private int[] heap; // heap position -> index
+    private int[] index2Pos; // index -> heap position, -1 if absent
+    private double[] index2Key;
+
+    public IndexedMaxHeap(int capacity) {
+        this.size = 0;
+        this.heap = new int[capacity];
+        this.index2Pos = new int[capacity];
+        this.index2Key = new double[capacity];
+        Arrays.fill(index2Pos, -1);
+    }
+
+    public void insert(int idx, double key) {
+        assert !contains(idx): "Index " + idx + " is already in heap";
+        index2Key[idx] = key;
+        heap[size] = idx;
+        index2Pos[idx] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    public void update(int idx, double key) {
+        assert contains(idx);
+        double originKey = index2Key[idx];
+        index2Key[idx] = key;
+        if (key > originKey) {
+            siftUp(index2Pos[idx]);
+        } else if (key < originKey) {
+            siftDown(index2Pos[idx]);
+        }
+    }
+
+    public void remove(int idx) {
+        assert contains(idx);
+        int pos = index2Pos[idx];
+        size--;
+        if (pos != size) {
+            setPos(pos, heap[size]);
+            index2Pos[idx] = -1;
+            siftDown(pos);
+            siftUp(pos);
+        } else {
+            index2Pos[idx] = -1;
+        }
+    }
+
+    public int peek() {
+        assert size > 0;
+        return heap[0];
+    }
+
+    public double peekKey() {
+        return index2Key[peek()];
+    }
+
+    public int poll() {
+        int idx = peek();
+        remove(idx);
+        return idx;
+    }
+
+    public void clear() {
+        for (int pos = 0; pos < size; pos++) {
+            index2Pos[heap[pos]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean contains(int idx) {
+        return index2Pos[idx] != -1;
+    }
+
+    public double getKey(int idx) {
+        assert contains(idx);
+        return index2Key[idx];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static boolean isHigher(int idx1, double key1, int idx2, double key2) {
+        return key1 > key2 || (key1 == key2 && idx1 < idx2);
+    }
+
+    private boolean isHigher(int idx1, int idx2) {
+        return isHigher(idx1, index2Key[idx1], idx2, index2Key[idx2]);
+    }
+
+    private void setPos(int pos, int idx) {
+        heap[pos] = idx;
+        index2Pos[idx] = pos;
+    }
+
+    private void siftUp(int pos) {
+        int idx = heap[pos];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >> 1;
+            if (!isHigher(idx, heap[parentPos])) break;
+            setPos(pos, heap[parentPos]);
+            pos = parentPos;
+        }
+        setPos(pos, idx);
+    }
+
+    private void siftDown(int pos) {
+        int idx = heap[pos];
+        while (true) {
+            int childPos = 2 * pos + 1;
+            if (childPos >= size) break;
+            if (childPos + 1 < size && isHigher(heap[childPos + 1], heap[childPos])) {
+                childPos++;
+            }
+            if (!isHigher(heap[childPos], idx)) break;
+            setPos(pos, heap[childPos]);
+            pos = childPos;
+        }
+        setPos(pos, idx);
+    }
+}
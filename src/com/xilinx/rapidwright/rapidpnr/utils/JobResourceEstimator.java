@@ -0,0 +1,123 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+// Estimates peak memory of Vivado jobs from the number of leaf cells they implement.
+// Peak memory reported in logs of finished jobs is kept in a json file, so later runs of the
+// same design scale their estimates from measured values instead of the default model.
+public class JobResourceEstimator {
+    private static final double BASE_MEMORY_MB = 3072.0; // device database and tool baseline
+    private static final double DEFAULT_MEMORY_MB_PER_LEAF_CELL = 0.04;
+    private static final double MEMORY_MARGIN = 1.2;
+    private static final Pattern PEAK_MEMORY_PATTERN = Pattern.compile("Memory \\(MB\\): peak = ([0-9]+(\\.[0-9]+)?)");
+
+    private static class JobRecord {
+        public int leafCellNum;
+        public double peakMemoryMB;
+    }
+
+    private HierarchicalLogger logger;
+    private Path historyPath;
+    private Map<String, JobRecord> name2Record = new HashMap<>();
+
+    public JobResourceEstimator(HierarchicalLogger logger, Path historyPath) {
+        this.logger = logger;
+        this.historyPath = historyPath;
+
+        if (!Files.exists(historyPath)) return;
+        Gson gson = new GsonBuilder().create();
+        try (FileReader reader = new FileReader(historyPath.toFile())) {
+            Map<String, JobRecord> records = gson.fromJson(reader, new TypeToken<Map<String, JobRecord>>(){}.getType());
+            if (records != null) {
+                name2Record.putAll(records);
+            }
+        } catch (Exception e) {
+            logger.warning("Fail to read job resource history " + historyPath + ": " + e.getMessage());
+        }
+        logger.info("Read resource records of " + name2Record.size() + " jobs from " + historyPath);
+    }
+
+    public synchronized long estimateMemoryMB(String jobName, int leafCellNum) {
+        JobRecord record = name2Record.get(jobName);
+        double memoryMB;
+        if (record != null && record.leafCellNum > 0) {
+            // same job in a previous run, only the size of its netlist may have changed
+            double scale = (double) leafCellNum / record.leafCellNum;
+            memoryMB = BASE_MEMORY_MB + Math.max(0.0, record.peakMemoryMB - BASE_MEMORY_MB) * scale;
+        } else {
+            memoryMB = BASE_MEMORY_MB + getMemoryMBPerLeafCell() * leafCellNum;
+        }
+        return (long) Math.ceil(memoryMB * MEMORY_MARGIN);
+    }
+
+    // records peak memory reported in the log of a finished job
+    public synchronized void recordJob(String jobName, int leafCellNum, Path logPath) {
+        double peakMemoryMB = parsePeakMemoryMB(logPath);
+        if (peakMemoryMB <= 0.0) {
+            logger.warning("No peak memory found in log of job " + jobName + ": " + logPath);
+            return;
+        }
+
+        JobRecord record = new JobRecord();
+        record.leafCellNum = leafCellNum;
+        record.peakMemoryMB = peakMemoryMB;
+        name2Record.put(jobName, record);
+    }
+
+    public synchronized void save() {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try {
+            Files.write(historyPath, gson.toJson(name2Record).getBytes());
+        } catch (IOException e) {
+            logger.warning("Fail to write job resource history " + historyPath + ": " + e.getMessage());
+        }
+    }
+
+    // largest per-cell memory of recorded jobs, so estimates of unknown jobs err on the safe side
+    private double getMemoryMBPerLeafCell() {
+        double memoryMBPerLeafCell = 0.0;
+        for (JobRecord record : name2Record.values()) {
+            if (record.leafCellNum <= 0) continue;
+            double ratio = Math.max(0.0, record.peakMemoryMB - BASE_MEMORY_MB) / record.leafCellNum;
+            memoryMBPerLeafCell = Math.max(memoryMBPerLeafCell, ratio);
+        }
+        return memoryMBPerLeafCell > 0.0 ? memoryMBPerLeafCell : DEFAULT_MEMORY_MB_PER_LEAF_CELL;
+    }
+
+    public static double parsePeakMemoryMB(Path logPath) {
+        double peakMemoryMB = 0.0;
+        if (!Files.exists(logPath)) return peakMemoryMB;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(logPath.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = PEAK_MEMORY_PATTERN.matcher(line);
+                while (matcher.find()) {
+                    peakMemoryMB = Math.max(peakMemoryMB, Double.parseDouble(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            return 0.0;
+        }
+        return peakMemoryMB;
+    }
+
+    public static long getFreePhysicalMemoryMB() {
+        com.sun.management.OperatingSystemMXBean osBean =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        return osBean.getFreePhysicalMemorySize() >> 20;
+    }
+}
@@ -0,0 +1,338 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import com.xilinx.rapidwright.util.RuntimeTracker;
+
+// Counters, gauges and histograms of a RapidPnR run, exported as JSON Lines or Prometheus text
+// so that runs can be compared without parsing the log.
+// Metrics are identified by name and label pairs, common labels (e.g. the design name) are added to all of them.
+public class MetricsRegistry {
+    public static enum Format {
+        NONE,
+        JSONL,
+        PROMETHEUS;
+
+        public static Format fromString(String name) {
+            return Enum.valueOf(Format.class, name);
+        }
+
+        public String getFileExtension() {
+            return this == PROMETHEUS ? "prom" : "jsonl";
+        }
+    }
+
+    public static enum MetricType {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    private static final String NAME_PREFIX = "rapidpnr_";
+    // histogram buckets are powers of two from 2^MIN_BUCKET_EXP to 2^MAX_BUCKET_EXP
+    private static final int MIN_BUCKET_EXP = -10;
+    private static final int MAX_BUCKET_EXP = 40;
+
+    private static class Metric {
+        MetricType type;
+        String name;
+        Map<String, String> labels;
+        double value = 0.0;
+        // histogram only
+        long count = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        long[] bucketCounts;
+
+        Metric(MetricType type, String name, Map<String, String> labels) {
+            this.type = type;
+            this.name = name;
+            this.labels = labels;
+            if (type == MetricType.HISTOGRAM) {
+                bucketCounts = new long[MAX_BUCKET_EXP - MIN_BUCKET_EXP + 2];
+            }
+        }
+
+        void observe(double sample) {
+            count++;
+            value += sample;
+            min = Math.min(min, sample);
+            max = Math.max(max, sample);
+            int exp = sample > 0 ? (int) Math.ceil(Math.log(sample) / Math.log(2)) : MIN_BUCKET_EXP;
+            bucketCounts[Math.min(Math.max(exp, MIN_BUCKET_EXP), MAX_BUCKET_EXP + 1) - MIN_BUCKET_EXP]++;
+        }
+    }
+
+    private Map<String, String> commonLabels = new LinkedHashMap<>();
+    private Map<String, Metric> key2Metric = new LinkedHashMap<>();
+
+    public synchronized void setCommonLabel(String key, String value) {
+        commonLabels.put(key, value);
+    }
+
+    public synchronized void incCounter(String name, double delta, String... labelPairs) {
+        assert delta >= 0: "Counter " + name + " can not decrease";
+        getMetric(MetricType.COUNTER, name, labelPairs).value += delta;
+    }
+
+    public void incCounter(String name, String... labelPairs) {
+        incCounter(name, 1.0, labelPairs);
+    }
+
+    public synchronized void setGauge(String name, double value, String... labelPairs) {
+        getMetric(MetricType.GAUGE, name, labelPairs).value = value;
+    }
+
+    public synchronized void setMaxGauge(String name, double value, String... labelPairs) {
+        Metric metric = getMetric(MetricType.GAUGE, name, labelPairs);
+        metric.value = metric.count++ == 0 ? value : Math.max(metric.value, value);
+    }
+
+    public synchronized void observe(String name, double sample, String... labelPairs) {
+        getMetric(MetricType.HISTOGRAM, name, labelPairs).observe(sample);
+    }
+
+    private Metric getMetric(MetricType type, String name, String... labelPairs) {
+        assert labelPairs.length % 2 == 0: "Labels of metric " + name + " are not key-value pairs";
+        StringBuilder key = new StringBuilder(name);
+        for (String label : labelPairs) {
+            key.append('\0').append(label);
+        }
+
+        Metric metric = key2Metric.get(key.toString());
+        if (metric == null) {
+            Map<String, String> labels = new LinkedHashMap<>();
+            for (int i = 0; i < labelPairs.length; i += 2) {
+                labels.put(labelPairs[i], labelPairs[i + 1]);
+            }
+            metric = new Metric(type, name, labels);
+            key2Metric.put(key.toString(), metric);
+        }
+        assert metric.type == type: String.format("Metric %s is a %s, not a %s", name, metric.type, type);
+        return metric;
+    }
+
+    public synchronized void export(Path filePath, Format format) {
+        List<String> lines = format == Format.PROMETHEUS ? toPrometheusLines() : toJsonLines();
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to export metrics to " + filePath, e);
+        }
+    }
+
+    // one json object per metric
+    private List<String> toJsonLines() {
+        Gson gson = new Gson();
+        long timestamp = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>();
+        for (Metric metric : key2Metric.values()) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            object.put("timestamp", timestamp);
+            object.put("name", NAME_PREFIX + metric.name);
+            object.put("type", metric.type.name().toLowerCase());
+            object.put("labels", getLabels(metric));
+            if (metric.type == MetricType.HISTOGRAM) {
+                object.put("count", metric.count);
+                object.put("sum", metric.value);
+                object.put("min", metric.min);
+                object.put("max", metric.max);
+                Map<String, Long> buckets = new LinkedHashMap<>();
+                for (int i = 0; i < metric.bucketCounts.length; i++) {
+                    if (metric.bucketCounts[i] == 0) continue;
+                    buckets.put(getBucketBound(i), metric.bucketCounts[i]);
+                }
+                object.put("buckets", buckets);
+            } else {
+                object.put("value", metric.value);
+            }
+            lines.add(gson.toJson(object));
+        }
+        return lines;
+    }
+
+    // text exposition format with cumulative buckets between the first and last non-empty one
+    private List<String> toPrometheusLines() {
+        // samples of a metric family have to be grouped under its TYPE line
+        Map<String, List<Metric>> name2Metrics = new LinkedHashMap<>();
+        for (Metric metric : key2Metric.values()) {
+            name2Metrics.computeIfAbsent(NAME_PREFIX + metric.name, k -> new ArrayList<>()).add(metric);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, List<Metric>> entry : name2Metrics.entrySet()) {
+            String name = entry.getKey();
+            lines.add(String.format("# TYPE %s %s", name, entry.getValue().get(0).type.name().toLowerCase()));
+            for (Metric metric : entry.getValue()) {
+                appendPrometheusLines(lines, name, metric);
+            }
+        }
+        return lines;
+    }
+
+    private void appendPrometheusLines(List<String> lines, String name, Metric metric) {
+        Map<String, String> labels = getLabels(metric);
+
+        if (metric.type != MetricType.HISTOGRAM) {
+            lines.add(name + toPrometheusLabels(labels) + " " + metric.value);
+            return;
+        }
+
+        int firstBucket = 0;
+        int lastBucket = metric.bucketCounts.length - 1;
+        while (firstBucket < lastBucket && metric.bucketCounts[firstBucket] == 0) firstBucket++;
+        while (lastBucket > firstBucket && metric.bucketCounts[lastBucket] == 0) lastBucket--;
+        long cumulativeCount = 0;
+        for (int i = firstBucket; i <= Math.min(lastBucket, metric.bucketCounts.length - 2); i++) {
+            cumulativeCount += metric.bucketCounts[i];
+            Map<String, String> bucketLabels = new LinkedHashMap<>(labels);
+            bucketLabels.put("le", getBucketBound(i));
+            lines.add(name + "_bucket" + toPrometheusLabels(bucketLabels) + " " + cumulativeCount);
+        }
+        Map<String, String> infLabels = new LinkedHashMap<>(labels);
+        infLabels.put("le", "+Inf");
+        lines.add(name + "_bucket" + toPrometheusLabels(infLabels) + " " + metric.count);
+        lines.add(name + "_sum" + toPrometheusLabels(labels) + " " + metric.value);
+        lines.add(name + "_count" + toPrometheusLabels(labels) + " " + metric.count);
+    }
+
+    private Map<String, String> getLabels(Metric metric) {
+        Map<String, String> labels = new LinkedHashMap<>(commonLabels);
+        labels.putAll(metric.labels);
+        return labels;
+    }
+
+    private static String getBucketBound(int bucketId) {
+        int exp = bucketId + MIN_BUCKET_EXP;
+        return exp > MAX_BUCKET_EXP ? "+Inf" : String.valueOf(Math.pow(2, exp));
+    }
+
+    private static String toPrometheusLabels(Map<String, String> labels) {
+        if (labels.isEmpty()) return "";
+        List<String> labelStrs = new ArrayList<>();
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            String value = entry.getValue().replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            labelStrs.add(entry.getKey() + "=\"" + value + "\"");
+        }
+        return "{" + String.join(",", labelStrs) + "}";
+    }
+
+    public RuntimeTracker.Listener createStageListener() {
+        return new StageListener();
+    }
+
+    // Wall time, process CPU time, allocated bytes and peak heap usage between start and stop of runtime trackers.
+    // Allocations are summed over threads alive at stop, so allocations of threads exiting within a stage are lost.
+    // The peak of heap pools is reset at start of each stage and propagated to enclosing stages.
+    // Frames above a stopped tracker belong to stages that threw or were not stopped in order, they are dropped.
+    private class StageListener implements RuntimeTracker.Listener {
+        private class Frame {
+            RuntimeTracker tracker;
+            long cpuTime;
+            Map<Long, Long> thread2AllocatedBytes;
+            long peakHeapBytes;
+        }
+
+        private Deque<Frame> activeFrames = new ArrayDeque<>();
+
+        public synchronized void onStart(RuntimeTracker tracker) {
+            long peakHeapBytes = getPeakHeapBytes();
+            for (Frame frame : activeFrames) {
+                frame.peakHeapBytes = Math.max(frame.peakHeapBytes, peakHeapBytes);
+            }
+            resetPeakHeap();
+
+            Frame frame = new Frame();
+            frame.tracker = tracker;
+            frame.cpuTime = getProcessCpuTime();
+            frame.thread2AllocatedBytes = getAllocatedBytes();
+            activeFrames.push(frame);
+        }
+
+        public synchronized void onStop(RuntimeTracker tracker, long elapsedTime) {
+            if (activeFrames.stream().noneMatch(frame -> frame.tracker == tracker)) return; // not started by this listener
+            long peakHeapBytes = getPeakHeapBytes();
+            Frame frame = activeFrames.pop();
+            while (frame.tracker != tracker) {
+                peakHeapBytes = Math.max(peakHeapBytes, frame.peakHeapBytes);
+                frame = activeFrames.pop();
+            }
+            peakHeapBytes = Math.max(peakHeapBytes, frame.peakHeapBytes);
+            String stage = tracker.getName().replaceAll(":$", "");
+            if (!activeFrames.isEmpty()) {
+                activeFrames.peek().peakHeapBytes = Math.max(activeFrames.peek().peakHeapBytes, peakHeapBytes);
+            }
+
+            incCounter("stage_runs_total", "stage", stage);
+            observe("stage_wall_seconds", elapsedTime * 1e-9, "stage", stage);
+            observe("stage_cpu_seconds", (getProcessCpuTime() - frame.cpuTime) * 1e-9, "stage", stage);
+            long allocatedBytes = 0;
+            for (Map.Entry<Long, Long> entry : getAllocatedBytes().entrySet()) {
+                allocatedBytes += entry.getValue() - frame.thread2AllocatedBytes.getOrDefault(entry.getKey(), 0L);
+            }
+            incCounter("stage_allocated_bytes_total", Math.max(0, allocatedBytes), "stage", stage);
+            setMaxGauge("stage_peak_heap_bytes", peakHeapBytes, "stage", stage);
+        }
+
+        private long getProcessCpuTime() {
+            java.lang.management.OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+            if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+            }
+            return 0;
+        }
+
+        private Map<Long, Long> getAllocatedBytes() {
+            Map<Long, Long> thread2AllocatedBytes = new HashMap<>();
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return thread2AllocatedBytes;
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (!sunThreadBean.isThreadAllocatedMemoryEnabled()) return thread2AllocatedBytes;
+
+            long[] threadIds = threadBean.getAllThreadIds();
+            long[] allocatedBytes = sunThreadBean.getThreadAllocatedBytes(threadIds);
+            for (int i = 0; i < threadIds.length; i++) {
+                if (allocatedBytes[i] < 0) continue; // thread exited
+                thread2AllocatedBytes.put(threadIds[i], allocatedBytes[i]);
+            }
+            return thread2AllocatedBytes;
+        }
+
+        private long getPeakHeapBytes() {
+            long peakBytes = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                    peakBytes += pool.getPeakUsage().getUsed();
+                }
+            }
+            return peakBytes;
+        }
+
+        private void resetPeakHeap() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Parallel loops over integer index ranges with dynamic scheduling of fixed-size chunks.
+// The executor is owned by the caller so that it can be reused across loops.
+public class ParallelUtils {
+
+    public interface IndexedTask {
+        void run(int idx);
+    }
+
+    // workerId is in [0, threadNum) and no two concurrent runs share it, e.g. for per-worker scratch arrays
+    public interface WorkerIndexedTask {
+        void run(int workerId, int idx);
+    }
+
+    public static void parallelFor(int begin, int end, int chunkSize, int threadNum, ExecutorService executor, IndexedTask task) {
+        parallelFor(begin, end, chunkSize, threadNum, executor, (workerId, idx) -> task.run(idx));
+    }
+
+    // ranges fitting into a single chunk or a single thread are run inline as worker 0
+    public static void parallelFor(int begin, int end, int chunkSize, int threadNum, ExecutorService executor, WorkerIndexedTask task) {
+        assert chunkSize > 0 && threadNum > 0;
+        int workerNum = Math.min(threadNum, (end - begin + chunkSize - 1) / chunkSize);
+        if (workerNum <= 1) {
+            for (int idx = begin; idx < end; idx++) {
+                task.run(0, idx);
+            }
+            return;
+        }
+
+        AtomicInteger nextChunkBegin = new AtomicInteger(begin);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int workerId = 0; workerId < workerNum; workerId++) {
+            int curWorkerId = workerId;
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    int chunkBegin = nextChunkBegin.getAndAdd(chunkSize);
+                    if (chunkBegin >= end) break;
+                    int chunkEnd = Math.min(end, chunkBegin + chunkSize);
+                    for (int idx = chunkBegin; idx < chunkEnd; idx++) {
+                        task.run(curWorkerId, idx);
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for parallel loop", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parallel loop failed", e.getCause());
+        }
+    }
+}
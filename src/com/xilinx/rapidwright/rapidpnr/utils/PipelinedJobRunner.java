@@ -0,0 +1,308 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.xilinx.rapidwright.util.Job;
+import com.xilinx.rapidwright.util.JobQueue;
+import com.xilinx.rapidwright.util.LocalJob;
+
+// Pipelined counterpart of JobQueue.runAllToCompletion:
+// jobs are prepared on a worker pool and launched as soon as their inputs are on disk,
+// outputs of finished jobs are consumed on the same pool while other jobs are still running.
+// Only the slowest job serializes the flow instead of the sum of all preparation work.
+// In resource-aware mode jobs are admitted by free cores and memory instead of a fixed job count:
+// biggest jobs are launched first and the thread count of each job is sized to its share of the cores.
+// The scheduler sleeps until a job is prepared or exits, only jobs without exit notification (LSF) are polled.
+public class PipelinedJobRunner<T> {
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private class Task {
+        String name;
+        Callable<Job> prepare;
+        Callable<T> consume;
+
+        double workload;
+        int maxThreadNum;
+        long memoryMB;
+        int threadNum;
+
+        Job job;
+        boolean isExitNotified;
+        Exception prepException;
+        Future<T> consumeFuture;
+
+        long submitTime;
+        long readyTime;
+        long launchTime;
+        long exitTime;
+    }
+
+    private HierarchicalLogger logger;
+    private int maxRunningJobNum;
+    private ExecutorService executor;
+
+    private boolean resourceAware = false;
+    private int coreNum;
+    private long memoryMB;
+    private BiConsumer<Job, Integer> threadNumSetter;
+
+    private List<Task> tasks = new ArrayList<>();
+    // tasks whose job is prepared (not launched yet) or has exited (launched)
+    private BlockingQueue<Task> taskEvents = new LinkedBlockingQueue<>();
+    private boolean prepStarted = false;
+
+    public PipelinedJobRunner(HierarchicalLogger logger, int threadNum) {
+        this(logger, threadNum, JobQueue.isLSFAvailable() ? JobQueue.MAX_LSF_CONCURRENT_JOBS : JobQueue.MAX_LOCAL_CONCURRENT_JOBS);
+    }
+
+    public PipelinedJobRunner(HierarchicalLogger logger, int threadNum, int maxRunningJobNum) {
+        assert threadNum > 0 && maxRunningJobNum > 0;
+        this.logger = logger;
+        this.maxRunningJobNum = maxRunningJobNum;
+        this.executor = Executors.newFixedThreadPool(threadNum);
+    }
+
+    // prepare creates the job and writes its inputs, consume reads its outputs once it exits successfully
+    public void addTask(String name, Callable<Job> prepare, Callable<T> consume) {
+        addTask(name, prepare, consume, 0.0, 1, 0);
+    }
+
+    // workload orders jobs and splits cores among them, maxThreadNum and memoryMB are only used in resource-aware mode
+    public void addTask(String name, Callable<Job> prepare, Callable<T> consume, double workload, int maxThreadNum, long memoryMB) {
+        assert !prepStarted: "Tasks must be added before preparation starts";
+        assert maxThreadNum > 0 && memoryMB >= 0;
+        Task task = new Task();
+        task.name = name;
+        task.prepare = prepare;
+        task.consume = consume;
+        task.workload = workload;
+        task.maxThreadNum = maxThreadNum;
+        task.memoryMB = memoryMB;
+        tasks.add(task);
+    }
+
+    // threadNumSetter adapts a prepared job to the number of threads it is granted right before launch
+    public void setResourceLimits(int coreNum, long memoryMB, BiConsumer<Job, Integer> threadNumSetter) {
+        assert !prepStarted: "Resource limits must be set before preparation starts";
+        assert coreNum > 0 && memoryMB > 0;
+        this.resourceAware = true;
+        this.coreNum = coreNum;
+        this.memoryMB = memoryMB;
+        this.threadNumSetter = threadNumSetter;
+    }
+
+    // start preparing jobs in background, e.g. while an upstream job is still running
+    public void startPreparation() {
+        if (prepStarted) return;
+        prepStarted = true;
+
+        // biggest jobs are prepared first since they are launched first
+        List<Task> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparingDouble((Task task) -> task.workload).reversed());
+        for (Task task : sortedTasks) {
+            task.submitTime = System.nanoTime();
+            executor.submit(() -> {
+                try {
+                    task.job = task.prepare.call();
+                } catch (Exception e) {
+                    task.prepException = e;
+                }
+                task.readyTime = System.nanoTime();
+                taskEvents.add(task);
+            });
+        }
+    }
+
+    public boolean runAllToCompletion() {
+        startPreparation();
+
+        int pendingPrepNum = tasks.size();
+        List<Task> waitingTasks = new ArrayList<>();
+        List<Task> runningTasks = new ArrayList<>();
+        List<Task> failedTasks = new ArrayList<>();
+
+        int freeCoreNum = coreNum;
+        long freeMemoryMB = memoryMB;
+        double unfinishedWorkload = 0.0;
+        for (Task task : tasks) {
+            unfinishedWorkload += task.workload;
+        }
+
+        try {
+            while (pendingPrepNum > 0 || !waitingTasks.isEmpty() || !runningTasks.isEmpty()) {
+                // wake up as soon as a job is ready or exits, running jobs without exit notification are polled
+                boolean needsPolling = runningTasks.stream().anyMatch(task -> !task.isExitNotified);
+                Task eventTask = needsPolling ? taskEvents.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS) : taskEvents.take();
+                while (eventTask != null) {
+                    if (eventTask.launchTime != 0) {
+                        // exited jobs are collected from runningTasks below
+                    } else if (eventTask.prepException != null) {
+                        pendingPrepNum--;
+                        logger.severe("Preparation of job " + eventTask.name + " failed: " + eventTask.prepException);
+                        failedTasks.add(eventTask);
+                        unfinishedWorkload -= eventTask.workload;
+                    } else {
+                        pendingPrepNum--;
+                        waitingTasks.add(eventTask);
+                    }
+                    eventTask = taskEvents.poll();
+                }
+
+                for (int i = runningTasks.size() - 1; i >= 0; i--) {
+                    Task task = runningTasks.get(i);
+                    if (!task.job.isFinished()) continue;
+
+                    task.exitTime = System.nanoTime();
+                    runningTasks.remove(i);
+                    freeCoreNum += task.threadNum;
+                    freeMemoryMB += task.memoryMB;
+                    unfinishedWorkload -= task.workload;
+                    if (task.job.jobWasSuccessful()) {
+                        logger.info(String.format("Job %s completed (prep %.1f sec, run %.1f sec)", task.name,
+                            toSec(task.readyTime - task.submitTime), toSec(task.exitTime - task.launchTime)));
+                        MetricsRegistry metrics = logger.getMetrics();
+                        metrics.incCounter("jobs_total", "result", "success");
+                        metrics.setGauge("job_prep_seconds", toSec(task.readyTime - task.submitTime), "job", task.name);
+                        metrics.setGauge("job_run_seconds", toSec(task.exitTime - task.launchTime), "job", task.name);
+                        metrics.setGauge("job_threads", task.threadNum, "job", task.name);
+                        if (task.consume != null) {
+                            task.consumeFuture = executor.submit(task.consume);
+                        }
+                    } else {
+                        reportFailedJob(task);
+                        logger.getMetrics().incCounter("jobs_total", "result", "failure");
+                        failedTasks.add(task);
+                    }
+                }
+
+                while (!waitingTasks.isEmpty()) {
+                    Task task;
+                    if (resourceAware) {
+                        task = getBiggestFittingTask(waitingTasks, freeMemoryMB, runningTasks.isEmpty());
+                        if (task == null || freeCoreNum == 0) break;
+                        task.threadNum = getThreadNumOf(task, freeCoreNum, unfinishedWorkload);
+                        threadNumSetter.accept(task.job, task.threadNum);
+                        freeCoreNum -= task.threadNum;
+                        freeMemoryMB -= task.memoryMB;
+                    } else {
+                        if (runningTasks.size() >= maxRunningJobNum) break;
+                        task = waitingTasks.get(0);
+                    }
+                    waitingTasks.remove(task);
+
+                    long pid = task.job.launchJob();
+                    task.launchTime = System.nanoTime();
+                    runningTasks.add(task);
+                    CompletableFuture<?> exitFuture = getExitFutureOf(task.job);
+                    if (exitFuture != null) {
+                        task.isExitNotified = true;
+                        exitFuture.whenComplete((result, e) -> taskEvents.add(task));
+                    }
+                    logger.info("Running job " + task.name + " [" + pid + "] " + task.job.getCommand() + " in " + task.job.getRunDir());
+                    if (resourceAware) {
+                        logger.info(String.format("Job %s granted %d threads and %d MB (free: %d cores, %d MB)",
+                            task.name, task.threadNum, task.memoryMB, freeCoreNum, freeMemoryMB));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Task task : tasks) {
+                if (task.job != null && task.launchTime != 0 && !task.job.isFinished()) {
+                    task.job.killJob();
+                }
+            }
+            executor.shutdownNow();
+            throw new RuntimeException("ERROR: Jobs killed due to InterruptedException");
+        }
+
+        for (Task task : tasks) {
+            if (task.consumeFuture == null) continue;
+            try {
+                task.consumeFuture.get();
+            } catch (InterruptedException | ExecutionException e) {
+                logger.severe("Consuming results of job " + task.name + " failed: " + e);
+                failedTasks.add(task);
+            }
+        }
+        executor.shutdown();
+
+        if (!failedTasks.isEmpty()) {
+            logger.severe("Failed Job Count: " + failedTasks.size());
+        }
+        return failedTasks.isEmpty();
+    }
+
+    // results of consume in the order tasks were added, only valid after runAllToCompletion succeeded
+    public Map<String, T> getResults() {
+        Map<String, T> name2Result = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            if (task.consumeFuture == null) continue;
+            try {
+                name2Result.put(task.name, task.consumeFuture.get());
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException("Results of job " + task.name + " are not available", e);
+            }
+        }
+        return name2Result;
+    }
+
+    // jobs running on a thread or a local process notify their exit, others like LSF jobs have to be polled
+    private static CompletableFuture<?> getExitFutureOf(Job job) {
+        if (job instanceof RapidWrightJob) {
+            return ((RapidWrightJob) job).onExit();
+        }
+        if (job instanceof LocalJob) {
+            return ProcessHandle.of(job.getJobNumber()).map(ProcessHandle::onExit).orElse(null);
+        }
+        return null;
+    }
+
+    // a job exceeding the free memory is only launched when nothing else is running, so it can not starve
+    private Task getBiggestFittingTask(List<Task> waitingTasks, long freeMemoryMB, boolean idle) {
+        Task biggestTask = null;
+        for (Task task : waitingTasks) {
+            if (task.memoryMB > freeMemoryMB && !idle) continue;
+            if (biggestTask == null || task.workload > biggestTask.workload) {
+                biggestTask = task;
+            }
+        }
+        return biggestTask;
+    }
+
+    // cores are split in proportion to the workload of all unfinished jobs, including those still being prepared
+    private int getThreadNumOf(Task task, int freeCoreNum, double unfinishedWorkload) {
+        int threadNum = task.maxThreadNum;
+        if (unfinishedWorkload > 0.0) {
+            threadNum = (int) Math.round(coreNum * task.workload / unfinishedWorkload);
+        }
+        threadNum = Math.max(1, Math.min(threadNum, task.maxThreadNum));
+        return Math.min(threadNum, freeCoreNum);
+    }
+
+    private void reportFailedJob(Task task) {
+        logger.severe("Job " + task.name + " failed, log file: " + task.job.getLogFilename());
+        task.job.getLastLogLines().ifPresent(lastLogLines -> {
+            for (String line : lastLogLines) {
+                logger.severe(line);
+            }
+        });
+    }
+
+    private static double toSec(long nanoTime) {
+        return nanoTime / 1e9;
+    }
+}
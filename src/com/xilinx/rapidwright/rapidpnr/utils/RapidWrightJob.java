@@ -0,0 +1,282 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.xilinx.rapidwright.design.Cell;
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.design.DesignTools;
+import com.xilinx.rapidwright.design.SitePinInst;
+import com.xilinx.rapidwright.edif.EDIFHierCellInst;
+import com.xilinx.rapidwright.edif.EDIFNetlist;
+import com.xilinx.rapidwright.edif.EDIFTools;
+import com.xilinx.rapidwright.rwroute.PartialRouter;
+import com.xilinx.rapidwright.util.Job;
+import com.xilinx.rapidwright.util.JobState;
+
+// Runs the tcl command file of a job on a thread of the JVM, interpreting the subset of commands
+// emitted by VivadoTclCmd that is needed to pass checkpoints through the flow:
+// open/read/write_checkpoint, write_edif, place_design (first free compatible site of each cell)
+// and route_design (RWRoute on unrouted pins, existing routing is preserved).
+// Constraints, properties and reports have no effect, commands are echoed to the job log.
+// set_param general.maxThreads has no effect either, RWRoute runs on the JVM-wide ParallelismTools pool.
+public class RapidWrightJob extends Job {
+    private static final AtomicLong jobCount = new AtomicLong();
+
+    private Thread thread;
+    private volatile boolean success = false;
+    private volatile boolean exited = false;
+    private CompletableFuture<Void> exitFuture = new CompletableFuture<>();
+
+    private Path runDir;
+    private PrintWriter log;
+    private Design design;
+
+    public long launchJob() {
+        runDir = Path.of(getRunDir());
+        thread = new Thread(this::runCmdFile, "RapidWrightJob-" + runDir.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+        setJobNumber(jobCount.incrementAndGet());
+        return getJobNumber();
+    }
+
+    public JobState getJobState() {
+        if (thread == null) return JobState.PENDING;
+        return exited ? JobState.EXITED : JobState.RUNNING;
+    }
+
+    public boolean jobWasSuccessful() {
+        return success;
+    }
+
+    // completes once all commands are run or the job failed, the job state is EXITED by then
+    public CompletableFuture<Void> onExit() {
+        return exitFuture;
+    }
+
+    // the interrupt is checked between commands, a running command like route_design is not aborted
+    public void killJob() {
+        if (thread == null) return;
+        thread.interrupt();
+    }
+
+    private void runCmdFile() {
+        try (PrintWriter logWriter = new PrintWriter(Files.newBufferedWriter(Path.of(getLogFilename())), true)) {
+            log = logWriter;
+            try {
+                for (String cmdLine : Files.readAllLines(runDir.resolve(VivadoProject.BUILD_TCL_NAME))) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.println("ERROR: job interrupted");
+                        return;
+                    }
+                    List<String> tokens = splitCmd(cmdLine);
+                    if (tokens.isEmpty()) continue;
+
+                    long startTime = System.nanoTime();
+                    log.println("Command: " + cmdLine);
+                    runCmd(tokens);
+                    log.println(String.format("Time (s): elapsed = %.2f", (System.nanoTime() - startTime) / 1e9));
+                }
+                success = true;
+            } catch (Exception e) {
+                log.println("ERROR: " + e);
+                e.printStackTrace(log);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            exited = true;
+            exitFuture.complete(null);
+        }
+    }
+
+    private void runCmd(List<String> tokens) {
+        String cmd = tokens.get(0);
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> args = new ArrayList<>();
+        parseArgs(tokens, options, args);
+
+        switch (cmd) {
+            case "open_checkpoint":
+                design = Design.readCheckpoint(resolve(args.get(0)).toString());
+                break;
+
+            case "read_checkpoint":
+                readCellCheckpoints(options, args);
+                break;
+
+            case "place_design":
+                placeDesign();
+                break;
+
+            case "route_design":
+                routeDesign();
+                break;
+
+            case "write_checkpoint":
+                writeCheckpoint(options.get("-cell"), resolve(args.get(0)));
+                break;
+
+            case "write_edif":
+                writeEDIF(options.get("-cell"), resolve(args.get(0)));
+                break;
+
+            case "report_timing_summary":
+                if (options.containsKey("-file")) {
+                    writeLines(resolve(options.get("-file")), List.of("No timing analysis is run by " + getClass().getSimpleName()));
+                }
+                break;
+
+            default:
+                log.println("INFO: command has no effect in " + getClass().getSimpleName());
+                break;
+        }
+    }
+
+    // read_checkpoint -cell <cell> <dcp> or read_checkpoint -dcp_cell_list {<cell> <dcp> ...}
+    private void readCellCheckpoints(Map<String, String> options, List<String> args) {
+        Map<String, Path> cellName2DcpPath = new LinkedHashMap<>();
+        if (options.containsKey("-dcp_cell_list")) {
+            String[] pairs = options.get("-dcp_cell_list").trim().split("\\s+");
+            for (int i = 0; i + 1 < pairs.length; i += 2) {
+                cellName2DcpPath.put(pairs[i], resolve(pairs[i + 1]));
+            }
+        } else if (options.containsKey("-cell")) {
+            cellName2DcpPath.put(options.get("-cell"), resolve(args.get(0)));
+        } else {
+            throw new IllegalArgumentException("read_checkpoint is only supported for cells");
+        }
+
+        for (Map.Entry<String, Path> entry : cellName2DcpPath.entrySet()) {
+            Design cellDesign = Design.readCheckpoint(entry.getValue().toString());
+            DesignTools.copyImplementation(cellDesign, design, false, false, Map.of("", entry.getKey()));
+            log.println("INFO: implementation of cell " + entry.getKey() + " read from " + entry.getValue());
+        }
+    }
+
+    private void placeDesign() {
+        int placedCellNum = 0;
+        int failedCellNum = 0;
+        for (EDIFHierCellInst leafCellInst : design.getNetlist().getAllLeafHierCellInstances()) {
+            if (leafCellInst.getCellType().isStaticSource()) continue;
+
+            String cellName = leafCellInst.getFullHierarchicalInstName();
+            Cell cell = design.getCell(cellName);
+            if (cell != null && cell.isPlaced()) continue;
+            if (cell == null) {
+                cell = design.createCell(cellName, leafCellInst.getInst());
+            }
+
+            if (DesignTools.placeCell(cell, design)) {
+                placedCellNum++;
+            } else {
+                failedCellNum++;
+            }
+        }
+        design.routeSites();
+
+        log.println("INFO: number of placed cells: " + placedCellNum);
+        if (failedCellNum > 0) {
+            log.println("WARNING: number of cells without a free compatible site: " + failedCellNum);
+        }
+    }
+
+    private void routeDesign() {
+        PartialRouter.preprocess(design);
+        DesignTools.createMissingSitePinInsts(design);
+        List<SitePinInst> pinsToRoute = PartialRouter.getUnroutedPins(design);
+        log.println("INFO: number of unrouted pins to route: " + pinsToRoute.size());
+        PartialRouter.routeDesignPartialNonTimingDriven(design, pinsToRoute, false);
+
+        int unroutedPinNum = PartialRouter.getUnroutedPins(design).size();
+        if (unroutedPinNum > 0) {
+            log.println("WARNING: number of pins left unrouted: " + unroutedPinNum);
+        }
+    }
+
+    private void writeCheckpoint(String cellName, Path dcpPath) {
+        if (cellName == null) {
+            design.writeCheckpoint(dcpPath.toString());
+            return;
+        }
+
+        Design cellDesign = new Design(cellName, design.getPartName());
+        DesignTools.copyImplementation(design, cellDesign, false, false, Map.of(cellName, ""));
+        cellDesign.writeCheckpoint(dcpPath.toString());
+    }
+
+    private void writeEDIF(String cellName, Path edifPath) {
+        EDIFNetlist netlist = design.getNetlist();
+        if (cellName != null) {
+            netlist = EDIFTools.createNewNetlist(netlist.getHierCellInstFromName(cellName).getInst());
+        }
+        netlist.exportEDIF(edifPath.toString());
+    }
+
+    private Path resolve(String path) {
+        return runDir.resolve(path);
+    }
+
+    private static void writeLines(Path path, List<String> lines) {
+        try {
+            Files.write(path, lines);
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to write " + path, e);
+        }
+    }
+
+    // options are tokens starting with '-', followed by a value unless the next token is an option as well
+    private static void parseArgs(List<String> tokens, Map<String, String> options, List<String> args) {
+        for (int i = 1; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!token.startsWith("-")) {
+                args.add(token);
+                continue;
+            }
+            boolean hasValue = i + 1 < tokens.size() && !tokens.get(i + 1).startsWith("-");
+            // a trailing value of the last option is the positional argument, e.g. write_checkpoint -cell c c.dcp
+            if (hasValue && token.equals("-force")) {
+                hasValue = false;
+            }
+            options.put(token, hasValue ? tokens.get(++i) : "");
+        }
+    }
+
+    // splits a tcl command into words, braces and brackets group words and outer braces are dropped
+    static List<String> splitCmd(String cmdLine) {
+        List<String> tokens = new ArrayList<>();
+        String line = cmdLine.trim();
+        if (line.isEmpty() || line.startsWith("#")) return tokens;
+
+        StringBuilder token = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '{' || c == '[') {
+                if (depth++ == 0 && c == '{') continue;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0 && c == '}') continue;
+            } else if (Character.isWhitespace(c) && depth == 0) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+                continue;
+            }
+            token.append(c);
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.nio.file.Path;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.util.Job;
+import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.TclCmdFile;
+
+// Stand-in for Vivado that runs the tcl command file of a job inside the JVM, see RapidWrightJob.
+// Work directories get the same input and output files as with Vivado, so the orchestration,
+// netlist splitting and merge paths can be run and profiled on machines without Vivado.
+public class RapidWrightJobBackend implements ImplJobBackend {
+
+    public Job createJob(Design design, Path workDir, TclCmdFile tclCmdFile) {
+        VivadoProject project = new VivadoProject(design, workDir, tclCmdFile);
+        project.writeJobInputs();
+
+        Job job = new RapidWrightJob();
+        job.setRunDir(workDir.toString());
+        job.setCommand("rapidwright -source " + workDir.resolve(VivadoProject.BUILD_TCL_NAME));
+        return job;
+    }
+
+    public void setMaxThreadOfJob(Job job, int maxThread) {
+        VivadoProject.setMaxThreadOfJob(job, maxThread);
+    }
+}
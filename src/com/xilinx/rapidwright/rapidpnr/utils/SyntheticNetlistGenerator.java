@@ -0,0 +1,563 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.design.NetType;
+import com.xilinx.rapidwright.design.Unisim;
+import com.xilinx.rapidwright.edif.EDIFCell;
+import com.xilinx.rapidwright.edif.EDIFCellInst;
+import com.xilinx.rapidwright.edif.EDIFDirection;
+import com.xilinx.rapidwright.edif.EDIFLibrary;
+import com.xilinx.rapidwright.edif.EDIFNet;
+import com.xilinx.rapidwright.edif.EDIFNetlist;
+import com.xilinx.rapidwright.edif.EDIFPort;
+import com.xilinx.rapidwright.edif.EDIFTools;
+
+// Generates flat, unplaced netlists with Rent's-rule connectivity for scaling studies of the RapidPnR front end.
+// Cells are leaves of a binary hierarchy given by their index: each data input picks a level of the hierarchy
+// with probability proportional to 2^(level * (rentExponent - 1)) and draws its driver from the subtree of the
+// sink at that level. Combinational cells only take inputs from lower logic levels, so registers, DSPs and BRAMs
+// cut every cycle and pipelineDepth bounds the LUT levels between them.
+// Clock, reset and clock-enable nets follow the shape NetlistDatabase expects from synthesized designs:
+// the clock port drives all clock pins, the reset port drives replicated reset registers whose outputs drive R pins.
+public class SyntheticNetlistGenerator {
+
+    public static class Config {
+        public String partName = "xcvu3p-ffvc1517-1-e";
+        public Integer cellNum = 100000;
+        public Long seed = 999L;
+
+        // cell mix, ratios are normalized by their sum
+        public Double lutRatio = 0.55;
+        public Double ffRatio = 0.40;
+        public Double carryRatio = 0.03;
+        public Double dspRatio = 0.01;
+        public Double bramRatio = 0.01;
+        // relative frequency of LUT2 to LUT6
+        public List<Double> lutSizeWeights = Arrays.asList(0.10, 0.20, 0.20, 0.15, 0.35);
+        public Integer carryChainLength = 4;
+
+        public Double rentExponent = 0.65;
+        public Integer pipelineDepth = 4;
+
+        // fanout of data nets: each input takes the least loaded of driverChoiceNum sampled drivers,
+        // 1 keeps the heavy tail of uniform sampling and larger values even out fanouts
+        public Integer driverChoiceNum = 2;
+        public Integer maxFanout = 32;
+
+        // high-fanout control nets: clock enables spanning equal ranges of the hierarchy and replicated resets
+        public Integer highFanoutNetNum = 16;
+        public Double clkEnableRatio = 0.3;
+        public Double resetRatio = 0.5;
+        public Integer maxResetFanout = 128;
+
+        public Integer inputPortNum = 64;
+        public Integer outputPortNum = 64;
+        public String clkPortName = "clk";
+        public String resetPortName = "rst";
+    }
+
+    private enum CellType {
+        LUT2(Unisim.LUT2, 1, 2),
+        LUT3(Unisim.LUT3, 1, 3),
+        LUT4(Unisim.LUT4, 1, 4),
+        LUT5(Unisim.LUT5, 1, 5),
+        LUT6(Unisim.LUT6, 1, 6),
+        FF(Unisim.FDRE, 1, 1),
+        CARRY(Unisim.CARRY8, 8, 16),
+        DSP(Unisim.DSP48E2, 16, 32),
+        BRAM(Unisim.RAMB36E2, 16, 25);
+
+        public final Unisim unisim;
+        public final String[] outPins;
+        public final String[] inPins;
+
+        CellType(Unisim unisim, int outPinNum, int inPinNum) {
+            this.unisim = unisim;
+            this.outPins = new String[outPinNum];
+            this.inPins = new String[inPinNum];
+        }
+
+        public boolean isComb() {
+            return this != FF && this != DSP && this != BRAM;
+        }
+
+        // only a subset of the data pins of DSPs and BRAMs is connected
+        static {
+            for (CellType type : new CellType[] {LUT2, LUT3, LUT4, LUT5, LUT6}) {
+                type.outPins[0] = "O";
+                for (int i = 0; i < type.inPins.length; i++) {
+                    type.inPins[i] = "I" + i;
+                }
+            }
+            FF.outPins[0] = "Q";
+            FF.inPins[0] = "D";
+            for (int i = 0; i < 8; i++) {
+                CARRY.outPins[i] = "O[" + i + "]";
+                CARRY.inPins[i] = "S[" + i + "]";
+                CARRY.inPins[i + 8] = "DI[" + i + "]";
+            }
+            for (int i = 0; i < 16; i++) {
+                DSP.outPins[i] = "P[" + i + "]";
+                DSP.inPins[i] = "A[" + i + "]";
+                DSP.inPins[i + 16] = "B[" + i + "]";
+                BRAM.outPins[i] = "DOUTADOUT[" + i + "]";
+                BRAM.inPins[i] = "DINADIN[" + i + "]";
+            }
+            for (int i = 0; i < 9; i++) {
+                BRAM.inPins[i + 16] = "ADDRARDADDR[" + (i + 6) + "]";
+            }
+        }
+    }
+
+    private static final int MAX_SAMPLE_TRIAL = 32;
+    private static final int TRIALS_PER_LEVEL = 4;
+
+    private HierarchicalLogger logger;
+    private Config config;
+    private Random random;
+
+    private EDIFNetlist netlist;
+    private EDIFCell topCell;
+    private EDIFNet clkNet;
+    private EDIFNet resetNet;
+    private EDIFNet vccNet;
+    private EDIFNet gndNet;
+    private EDIFNet[] inPortNets;
+    private EDIFNet[] clkEnableNets;
+    private String nameFormat;
+
+    private int cellNum;
+    private CellType[] cellTypes;
+    private int[] cellLevels;
+    private EDIFCellInst[] cellInsts;
+
+    // outputs of cell i are signals firstSignals[i] to firstSignals[i + 1] - 1
+    private int[] firstSignals;
+    private int[] signal2Cell;
+    private int[] signalFanouts;
+    private EDIFNet[] signalNets;
+
+    private double[] levelCdf;
+
+    public SyntheticNetlistGenerator(HierarchicalLogger logger, Config config) {
+        this.logger = logger;
+        this.config = config;
+        this.random = new Random(config.seed);
+        this.cellNum = config.cellNum;
+
+        assert cellNum > 1;
+        assert config.rentExponent > 0.0 && config.rentExponent < 1.0;
+        assert config.pipelineDepth >= 1 && config.carryChainLength >= 1;
+        assert config.driverChoiceNum >= 1 && config.maxFanout >= 1;
+        assert config.lutSizeWeights.size() == 5;
+        assert config.inputPortNum >= 1 && config.outputPortNum >= 0;
+        assert config.highFanoutNetNum >= 1 && config.maxResetFanout >= 1;
+    }
+
+    public static Design generate(HierarchicalLogger logger, String designName, Config config) {
+        return new SyntheticNetlistGenerator(logger, config).generate(designName);
+    }
+
+    public Design generate(String designName) {
+        logger.info("Start generating synthetic netlist with " + cellNum + " cells");
+        logger.newSubStep();
+
+        Design design = new Design(designName, config.partName);
+        design.setAutoIOBuffers(false);
+        netlist = design.getNetlist();
+        topCell = netlist.getTopCell();
+        EDIFLibrary primLib = netlist.getHDIPrimitivesLibrary();
+        for (CellType type : CellType.values()) {
+            if (primLib.getCell(type.unisim.name()) == null) {
+                primLib.addCell(Design.getUnisimCell(type.unisim));
+            }
+        }
+        // zero-padded names keep port insts of high-fanout nets appended in creation order
+        nameFormat = "%s_%0" + String.valueOf(cellNum).length() + "d";
+
+        createPortsAndControlNets();
+        createCells();
+        connectControlPins();
+        connectCellInputs();
+        connectRegisterInputs();
+        connectOutputPorts();
+
+        reportStatistics();
+        logger.endSubStep();
+        logger.info("Complete generating synthetic netlist");
+        return design;
+    }
+
+    private void createPortsAndControlNets() {
+        clkNet = createInputPortNet(config.clkPortName);
+        resetNet = createInputPortNet(config.resetPortName);
+        gndNet = EDIFTools.getStaticNet(NetType.GND, topCell, netlist);
+        vccNet = EDIFTools.getStaticNet(NetType.VCC, topCell, netlist);
+
+        inPortNets = new EDIFNet[config.inputPortNum];
+        for (int i = 0; i < inPortNets.length; i++) {
+            inPortNets[i] = createInputPortNet(String.format(nameFormat, "in", i));
+        }
+
+        // each clock-enable net is driven by a register sampling an input port
+        clkEnableNets = new EDIFNet[config.highFanoutNetNum];
+        for (int i = 0; i < clkEnableNets.length; i++) {
+            EDIFCellInst ceReg = createCellInst(CellType.FF, String.format(nameFormat, "ce_reg", i));
+            clkEnableNets[i] = topCell.createNet(String.format(nameFormat, "ce_net", i));
+            clkEnableNets[i].createPortInst("Q", ceReg);
+            inPortNets[i % inPortNets.length].createPortInst("D", ceReg);
+            clkNet.createPortInst("C", ceReg);
+            vccNet.createPortInst("CE", ceReg);
+            gndNet.createPortInst("R", ceReg);
+        }
+    }
+
+    private EDIFNet createInputPortNet(String portName) {
+        EDIFPort port = topCell.createPort(portName, EDIFDirection.INPUT, 1);
+        EDIFNet net = topCell.createNet(portName);
+        net.createPortInst(port);
+        return net;
+    }
+
+    private void createCells() {
+        double[] typeCdf = new double[CellType.values().length];
+        double ratioSum = config.lutRatio + config.ffRatio + config.carryRatio + config.dspRatio + config.bramRatio;
+        double lutWeightSum = config.lutSizeWeights.stream().mapToDouble(Double::doubleValue).sum();
+        double probSum = 0.0;
+        for (CellType type : CellType.values()) {
+            double prob;
+            switch (type) {
+                case FF: prob = config.ffRatio; break;
+                // a chain is drawn at once
+                case CARRY: prob = config.carryRatio / config.carryChainLength; break;
+                case DSP: prob = config.dspRatio; break;
+                case BRAM: prob = config.bramRatio; break;
+                default: prob = config.lutRatio * config.lutSizeWeights.get(type.ordinal()) / lutWeightSum; break;
+            }
+            probSum += prob / ratioSum;
+            typeCdf[type.ordinal()] = probSum;
+        }
+
+        cellTypes = new CellType[cellNum];
+        cellLevels = new int[cellNum];
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            CellType type = CellType.values()[lowerBound(typeCdf, random.nextDouble() * probSum)];
+            if (type == CellType.CARRY) {
+                // carry chains are contiguous, CI of each carry is driven by CO[7] of the preceding one
+                int baseLevel = 1 + random.nextInt(config.pipelineDepth);
+                int chainEnd = Math.min(cellId + config.carryChainLength, cellNum);
+                for (int i = 0; cellId < chainEnd; i++, cellId++) {
+                    cellTypes[cellId] = CellType.CARRY;
+                    cellLevels[cellId] = baseLevel + i;
+                }
+                cellId--;
+            } else {
+                cellTypes[cellId] = type;
+                cellLevels[cellId] = type.isComb() ? 1 + random.nextInt(config.pipelineDepth) : 0;
+            }
+        }
+
+        cellInsts = new EDIFCellInst[cellNum];
+        firstSignals = new int[cellNum + 1];
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            cellInsts[cellId] = createCellInst(cellTypes[cellId], String.format(nameFormat, "cell", cellId));
+            firstSignals[cellId + 1] = firstSignals[cellId] + cellTypes[cellId].outPins.length;
+        }
+
+        int signalNum = firstSignals[cellNum];
+        signal2Cell = new int[signalNum];
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            Arrays.fill(signal2Cell, firstSignals[cellId], firstSignals[cellId + 1], cellId);
+        }
+        signalFanouts = new int[signalNum];
+        signalNets = new EDIFNet[signalNum];
+
+        int levelNum = 32 - Integer.numberOfLeadingZeros(cellNum - 1);
+        levelCdf = new double[levelNum];
+        double levelProbSum = 0.0;
+        for (int level = 1; level <= levelNum; level++) {
+            levelProbSum += Math.pow(2.0, level * (config.rentExponent - 1.0));
+            levelCdf[level - 1] = levelProbSum;
+        }
+    }
+
+    private EDIFCellInst createCellInst(CellType type, String name) {
+        EDIFCellInst cellInst = netlist.getHDIPrimitivesLibrary().getCell(type.unisim.name()).createCellInst(name, topCell);
+        if (!type.isComb() || type == CellType.CARRY) return cellInst;
+
+        int initWidth = 1 << type.inPins.length;
+        long init = random.nextLong();
+        if (initWidth < 64) {
+            init &= (1L << initWidth) - 1;
+        }
+        cellInst.addProperty("INIT", String.format("%d'h%X", initWidth, init));
+        return cellInst;
+    }
+
+    // pins of high-fanout nets are connected in index order of their sinks
+    private void connectControlPins() {
+        int resetRegNum = 0;
+        int resetFanout = config.maxResetFanout;
+        EDIFNet localResetNet = null;
+
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            EDIFCellInst cellInst = cellInsts[cellId];
+            switch (cellTypes[cellId]) {
+                case FF:
+                    clkNet.createPortInst("C", cellInst);
+                    if (random.nextDouble() < config.clkEnableRatio) {
+                        clkEnableNets[(int) ((long) cellId * clkEnableNets.length / cellNum)].createPortInst("CE", cellInst);
+                    } else {
+                        vccNet.createPortInst("CE", cellInst);
+                    }
+                    if (random.nextDouble() < config.resetRatio) {
+                        if (resetFanout == config.maxResetFanout) {
+                            // registers of consecutive cells share a replicated reset
+                            EDIFCellInst resetReg = createCellInst(CellType.FF, String.format(nameFormat, "rst_reg", resetRegNum));
+                            localResetNet = topCell.createNet(String.format(nameFormat, "rst_net", resetRegNum));
+                            localResetNet.createPortInst("Q", resetReg);
+                            resetRegNum++;
+                            resetFanout = 0;
+                        }
+                        localResetNet.createPortInst("R", cellInst);
+                        resetFanout++;
+                    } else {
+                        gndNet.createPortInst("R", cellInst);
+                    }
+                    break;
+
+                case CARRY:
+                    boolean isChainHead = cellId == 0 || cellTypes[cellId - 1] != CellType.CARRY
+                        || cellLevels[cellId - 1] != cellLevels[cellId] - 1;
+                    if (isChainHead) {
+                        gndNet.createPortInst("CI", cellInst);
+                    } else {
+                        EDIFNet carryNet = topCell.createNet(String.format(nameFormat, "co_net", cellId));
+                        carryNet.createPortInst("CO[7]", cellInsts[cellId - 1]);
+                        carryNet.createPortInst("CI", cellInst);
+                    }
+                    gndNet.createPortInst("CI_TOP", cellInst);
+                    break;
+
+                case DSP:
+                    clkNet.createPortInst("CLK", cellInst);
+                    break;
+
+                case BRAM:
+                    clkNet.createPortInst("CLKARDCLK", cellInst);
+                    clkNet.createPortInst("CLKBWRCLK", cellInst);
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        for (int i = 0; i < resetRegNum; i++) {
+            EDIFCellInst resetReg = topCell.getCellInst(String.format(nameFormat, "rst_reg", i));
+            resetNet.createPortInst("D", resetReg);
+            clkNet.createPortInst("C", resetReg);
+            vccNet.createPortInst("CE", resetReg);
+            gndNet.createPortInst("R", resetReg);
+        }
+        logger.info("Number of replicated reset registers: " + resetRegNum);
+    }
+
+    private void connectCellInputs() {
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            CellType type = cellTypes[cellId];
+            if (type == CellType.FF) continue;
+
+            int levelLimit = type.isComb() ? cellLevels[cellId] : Integer.MAX_VALUE;
+            for (String pinName : type.inPins) {
+                connectDriver(sampleDriver(cellId, levelLimit), cellId, pinName);
+            }
+        }
+    }
+
+    // D pins of registers absorb the nearest LUT, carry, DSP and BRAM outputs left without fanout,
+    // registers nearest to evenly spaced positions sample the input ports
+    private void connectRegisterInputs() {
+        BitSet danglingSignals = new BitSet(signalFanouts.length);
+        for (int signal = 0; signal < signalFanouts.length; signal++) {
+            if (signalFanouts[signal] == 0 && cellTypes[signal2Cell[signal]] != CellType.FF) {
+                danglingSignals.set(signal);
+            }
+        }
+
+        BitSet inputRegs = new BitSet(cellNum);
+        for (int i = 0; i < inPortNets.length; i++) {
+            int cellId = nextCellOfType(CellType.FF, (int) ((long) i * cellNum / inPortNets.length), inputRegs);
+            if (cellId < 0) break;
+            inPortNets[i].createPortInst("D", cellInsts[cellId]);
+            inputRegs.set(cellId);
+        }
+
+        for (int cellId = 0; cellId < cellNum; cellId++) {
+            if (cellTypes[cellId] != CellType.FF || inputRegs.get(cellId)) continue;
+
+            int level = sampleHierLevel();
+            int subtreeBegin = (cellId >> level) << level;
+            int subtreeEnd = Math.min(subtreeBegin + (1 << level), cellNum);
+            int signalBegin = firstSignals[subtreeBegin];
+            int signalEnd = firstSignals[subtreeEnd];
+
+            int prevSignal = danglingSignals.previousSetBit(firstSignals[cellId]);
+            int nextSignal = danglingSignals.nextSetBit(firstSignals[cellId]);
+            int driver = -1;
+            if (prevSignal >= signalBegin) {
+                driver = prevSignal;
+            }
+            if (nextSignal >= 0 && nextSignal < signalEnd) {
+                if (driver < 0 || nextSignal - firstSignals[cellId] < firstSignals[cellId] - driver) {
+                    driver = nextSignal;
+                }
+            }
+
+            if (driver >= 0) {
+                danglingSignals.clear(driver);
+            } else {
+                driver = sampleDriver(cellId, Integer.MAX_VALUE);
+            }
+            connectDriver(driver, cellId, "D");
+        }
+    }
+
+    private void connectOutputPorts() {
+        BitSet outputRegs = new BitSet(cellNum);
+        for (int i = 0; i < config.outputPortNum; i++) {
+            int position = (int) ((2L * i + 1) * cellNum / (2L * config.outputPortNum));
+            int cellId = nextCellOfType(CellType.FF, position, outputRegs);
+            if (cellId < 0) break;
+            outputRegs.set(cellId);
+
+            String portName = String.format(nameFormat, "out", i);
+            EDIFPort port = topCell.createPort(portName, EDIFDirection.OUTPUT, 1);
+            int signal = firstSignals[cellId];
+            getSignalNet(signal).createPortInst(port);
+            signalFanouts[signal]++;
+        }
+    }
+
+    // first cell of the given type at or after position (wrapping around) that is not excluded, -1 if none
+    private int nextCellOfType(CellType type, int position, BitSet excluded) {
+        for (int i = 0; i < cellNum; i++) {
+            int cellId = (position + i) % cellNum;
+            if (cellTypes[cellId] == type && !excluded.get(cellId)) return cellId;
+        }
+        return -1;
+    }
+
+    // signal driving a data input of sinkCell with a logic level below levelLimit, or -1 for an input port.
+    // The level of the hierarchy widens every TRIALS_PER_LEVEL failed trials.
+    private int sampleDriver(int sinkCell, int levelLimit) {
+        for (int trial = 0; trial < MAX_SAMPLE_TRIAL; trial++) {
+            int level = Math.min(sampleHierLevel() + trial / TRIALS_PER_LEVEL, levelCdf.length);
+            int subtreeBegin = (sinkCell >> level) << level;
+            int subtreeSize = Math.min(1 << level, cellNum - subtreeBegin);
+
+            int bestSignal = -1;
+            for (int choice = 0; choice < config.driverChoiceNum; choice++) {
+                int cellId = subtreeBegin + random.nextInt(subtreeSize);
+                if (cellId == sinkCell || cellLevels[cellId] >= levelLimit) continue;
+
+                int signal = firstSignals[cellId] + random.nextInt(firstSignals[cellId + 1] - firstSignals[cellId]);
+                if (signalFanouts[signal] >= config.maxFanout) continue;
+                if (bestSignal < 0 || signalFanouts[signal] < signalFanouts[bestSignal]) {
+                    bestSignal = signal;
+                }
+            }
+            if (bestSignal >= 0) return bestSignal;
+        }
+        return -1;
+    }
+
+    private void connectDriver(int signal, int sinkCell, String pinName) {
+        if (signal < 0) {
+            inPortNets[(int) ((long) sinkCell * inPortNets.length / cellNum)].createPortInst(pinName, cellInsts[sinkCell]);
+            return;
+        }
+        getSignalNet(signal).createPortInst(pinName, cellInsts[sinkCell]);
+        signalFanouts[signal]++;
+    }
+
+    private EDIFNet getSignalNet(int signal) {
+        if (signalNets[signal] == null) {
+            int cellId = signal2Cell[signal];
+            EDIFNet net = topCell.createNet(String.format(nameFormat, "net", signal));
+            net.createPortInst(cellTypes[cellId].outPins[signal - firstSignals[cellId]], cellInsts[cellId]);
+            signalNets[signal] = net;
+        }
+        return signalNets[signal];
+    }
+
+    private int sampleHierLevel() {
+        return 1 + lowerBound(levelCdf, random.nextDouble() * levelCdf[levelCdf.length - 1]);
+    }
+
+    private void reportStatistics() {
+        int[] typeCounts = new int[CellType.values().length];
+        for (CellType type : cellTypes) {
+            typeCounts[type.ordinal()]++;
+        }
+        for (CellType type : CellType.values()) {
+            logger.info(String.format("Number of %s cells: %d", type.unisim.name(), typeCounts[type.ordinal()]));
+        }
+
+        int danglingNum = 0;
+        long pinNum = 0;
+        int maxFanout = 0;
+        for (int fanout : signalFanouts) {
+            if (fanout == 0) danglingNum++;
+            pinNum += fanout;
+            maxFanout = Math.max(maxFanout, fanout);
+        }
+        int netNum = signalFanouts.length - danglingNum;
+        logger.info("Number of data nets: " + netNum);
+        logger.info(String.format("Average fanout of data nets: %.2f", netNum > 0 ? (double) pinNum / netNum : 0.0));
+        logger.info("Max fanout of data nets: " + maxFanout);
+        logger.info("Number of outputs without fanout: " + danglingNum);
+    }
+
+    // index of the first element not less than value
+    private static int lowerBound(double[] cdf, double value) {
+        int idx = Arrays.binarySearch(cdf, value);
+        idx = idx >= 0 ? idx : -idx - 1;
+        return Math.min(idx, cdf.length - 1);
+    }
+
+    public static Config readConfig(Path jsonFilePath) {
+        Gson gson = new GsonBuilder().create();
+        try (FileReader reader = new FileReader(jsonFilePath.toFile())) {
+            return gson.fromJson(reader, Config.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to read synthetic netlist config: " + jsonFilePath, e);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: SyntheticNetlistGenerator <config json> <output dcp>");
+            return;
+        }
+        Config config = readConfig(Path.of(args[0]));
+        Path dcpPath = Path.of(args[1]).toAbsolutePath();
+        String designName = dcpPath.getFileName().toString().replaceFirst("\\.dcp$", "");
+
+        HierarchicalLogger logger = HierarchicalLogger.createLogger("SyntheticNetlist", null, true);
+        Design design = generate(logger, designName, config);
+        design.writeCheckpoint(dcpPath.toString());
+        logger.info("Write synthetic netlist to " + dcpPath);
+    }
+}
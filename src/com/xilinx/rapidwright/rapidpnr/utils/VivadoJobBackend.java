@@ -0,0 +1,19 @@
+package com.xilinx.rapidwright.rapidpnr.utils;
+
+import java.nio.file.Path;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.util.Job;
+import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.TclCmdFile;
+
+public class VivadoJobBackend implements ImplJobBackend {
+
+    public Job createJob(Design design, Path workDir, TclCmdFile tclCmdFile) {
+        VivadoProject project = new VivadoProject(design, workDir, tclCmdFile);
+        return project.createVivadoJob();
+    }
+
+    public void setMaxThreadOfJob(Job job, int maxThread) {
+        VivadoProject.setMaxThreadOfJob(job, maxThread);
+    }
+}
@@ -1,12 +1,17 @@
 package com.xilinx.rapidwright.rapidpnr.utils;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.xilinx.rapidwright.design.Design;
 import com.xilinx.rapidwright.util.Job;
 import com.xilinx.rapidwright.util.LocalJob;
 import com.xilinx.rapidwright.util.FileTools;
 import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.TclCmdFile;
+import com.xilinx.rapidwright.rapidpnr.utils.VivadoTclUtils.VivadoTclCmd;
 
 public class VivadoProject {
     public static String VIVADO_CMD = "vivado";
@@ -60,7 +65,21 @@ public class VivadoProject {
     }
 
     public Job createVivadoJob() {
-        //// setup execution environment
+        writeJobInputs();
+
+        //
+        assert FileTools.isExecutableOnPath(VIVADO_CMD);
+        String launchVivadoCmd = String.format("%s -mode batch -source %s", VIVADO_CMD, workDir.resolve(BUILD_TCL_NAME).toString());
+
+        Job job = new LocalJob();
+        job.setRunDir(workDir.toString());
+        job.setCommand(launchVivadoCmd);
+
+        return job;
+    }
+
+    // setup execution environment: work directory, design checkpoint and tcl command file
+    public void writeJobInputs() {
         // create work directory
         if (!workDir.toFile().exists()) {
             workDir.toFile().mkdirs();
@@ -75,15 +94,30 @@ public class VivadoProject {
         // write tcl command file
         Path tclPath = workDir.resolve(BUILD_TCL_NAME);
         tclCmdFile.writeToFile(tclPath);
+    }
 
-        //
-        assert FileTools.isExecutableOnPath(VIVADO_CMD);
-        String launchVivadoCmd = String.format("%s -mode batch -source %s", VIVADO_CMD, tclPath.toString());
-
-        Job job = new LocalJob();
-        job.setRunDir(workDir.toString());
-        job.setCommand(launchVivadoCmd);
-
-        return job;
+    // overrides the thread limit in the tcl file of a prepared job, only valid before the job is launched
+    static public void setMaxThreadOfJob(Job job, int maxThread) {
+        Path tclPath = Path.of(job.getRunDir()).resolve(BUILD_TCL_NAME);
+        String maxThreadCmd = VivadoTclCmd.setMaxThread(maxThread);
+        String cmdPrefix = maxThreadCmd.substring(0, maxThreadCmd.lastIndexOf(' '));
+
+        try {
+            List<String> lines = new ArrayList<>();
+            boolean found = false;
+            for (String line : Files.readAllLines(tclPath)) {
+                if (line.startsWith(cmdPrefix)) {
+                    line = maxThreadCmd;
+                    found = true;
+                }
+                lines.add(line);
+            }
+            if (!found) {
+                lines.add(0, maxThreadCmd);
+            }
+            Files.write(tclPath, lines);
+        } catch (IOException e) {
+            throw new RuntimeException("Fail to set max thread of job in " + job.getRunDir(), e);
+        }
     }
 }
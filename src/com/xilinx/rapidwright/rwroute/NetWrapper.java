@@ -106,6 +106,10 @@ public class NetWrapper{
         yCenter = (float)ySum / count;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public Net getNet() {
         return net;
     }
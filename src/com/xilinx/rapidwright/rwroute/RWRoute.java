@@ -1857,10 +1857,29 @@ public class RWRoute {
         final boolean longParent = config.isTimingDriven() && DelayEstimatorBase.isLong(rnode);
         final Connection connection = state.connection;
         final int sequence = state.sequence;
-        final PriorityQueue<RouteNode> queue = state.queue;
         final NetWrapper netWrapper = connection.getNetWrapper();
         final RouteNodeType rnodeType = rnode.getType();
         final boolean rnodeIsLaguna = Utils.isLaguna(rnode.getTile().getTileTypeEnum());
+        final RouteNodeArrays arrays = routingGraph.rnodeArrays;
+
+        if (arrays != null) {
+            // Walk the flat children ids so that visited children are skipped without dereferencing them
+            final RouteNodeArrays.ArrayRouteNode arrayRnode = (RouteNodeArrays.ArrayRouteNode) rnode;
+            arrayRnode.createChildren(routingGraph);
+            final int id = arrayRnode.getId();
+            for (int i = arrays.getChildrenBegin(id), end = arrays.getChildrenEnd(id); i < end; i++) {
+                int childId = arrays.getChildId(i);
+                if (arrays.isVisited(childId, sequence)) {
+                    // Node must be in queue already (see below)
+                    assert(!arrays.getRnode(childId).isTarget() || arrays.getRnode(childId).willOverUse(netWrapper));
+                    continue;
+                }
+                if (exploreChild(state, rnode, rnodeType, rnodeIsLaguna, longParent, arrays.getRnode(childId))) {
+                    break;
+                }
+            }
+            return;
+        }
 
         for (RouteNode childRNode : rnode.getChildren(routingGraph)) {
             if (childRNode.isVisited(sequence)) {
@@ -1874,137 +1893,164 @@ public class RWRoute {
                 // already in the queue, this opportunity is discarded
                 continue;
             }
+            if (exploreChild(state, rnode, rnodeType, rnodeIsLaguna, longParent, childRNode)) {
+                break;
+            }
+        }
+    }
 
-            // If childRnode is preserved, then it must be preserved for the current net we're routing
-            Net preservedNet;
-            assert((preservedNet = routingGraph.getPreservedNet(childRNode)) == null ||
-                    preservedNet == connection.getNet());
-
-            boolean lookahead = false;
-            if (childRNode.isTarget()) {
-                if (childRNode.getType().isAnyExclusiveSink()) {
-                    // This sink must be exclusively reserved for this connection already
-                    assert((childRNode == connection.getSinkRnode() && !connection.hasAltSinks()) ||
-                           // Or be an exclusive BOUNCE sink for a different connection on the same net
-                           childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
-                    assert(!childRNode.isOverUsed());
-                    assert(!childRNode.willOverUse(netWrapper));
-                    assert(childRNode.countConnectionsOfUser(netWrapper) == 1 ||
-                           childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
-                    state.earlyTermination = true;
-                } else {
-                    // Target is not an exclusive sink, only early terminate if this net will not
-                    // (further) overuse this node
-                    state.earlyTermination = !childRNode.willOverUse(netWrapper);
-                }
+    /**
+     * Explores a child (downhill rnode) of a rnode that has not been visited by the connection being routed,
+     * and pushes it into the queue if it is the target or is an accessible routing resource.
+     * @param state State from the connection that is being routed.
+     * @param rnode The rnode popped out from the queue.
+     * @param rnodeType The type of rnode.
+     * @param rnodeIsLaguna True if rnode is in a Laguna tile.
+     * @param longParent A boolean value to indicate if rnode is a Long node.
+     * @param childRNode The child in question.
+     * @return True if the target has been reached without (further) overuse and expansion should stop.
+     */
+    private boolean exploreChild(ConnectionState state,
+                                 RouteNode rnode,
+                                 RouteNodeType rnodeType,
+                                 boolean rnodeIsLaguna,
+                                 boolean longParent,
+                                 RouteNode childRNode) {
+        final Connection connection = state.connection;
+        final int sequence = state.sequence;
+        final PriorityQueue<RouteNode> queue = state.queue;
+        final NetWrapper netWrapper = connection.getNetWrapper();
 
-                if (state.earlyTermination) {
-                    assert(!childRNode.isVisited(sequence));
-                    nodesPushed.addAndGet(queue.size());
-                    queue.clear();
-                }
-            } else {
-                if (!isAccessible(childRNode, connection)) {
-                    continue;
-                }
-                RouteNodeType childType = childRNode.getType();
-                switch (childType) {
-                    case LOCAL_EAST_LEADING_TO_NORTHBOUND_LAGUNA:
-                    case LOCAL_EAST_LEADING_TO_SOUTHBOUND_LAGUNA:
-                    case LOCAL_WEST_LEADING_TO_NORTHBOUND_LAGUNA:
-                    case LOCAL_WEST_LEADING_TO_SOUTHBOUND_LAGUNA:
-                        // Lookahead beyond child nodes leading to a Laguna if it won't get overused
-                        lookahead = !childRNode.willOverUse(netWrapper);
-                        // Fall-through
-                    case LOCAL_BOTH:
-                    case LOCAL_EAST:
-                    case LOCAL_WEST:
-                    case LOCAL_RESERVED:
-                        if (!routingGraph.isAccessible(childRNode, rnode, connection)) {
-                            continue;
-                        }
-                        // Verify invariant that east/west wires stay east/west ...
-                        assert(!rnodeType.isEastLocal() || childType.isEastLocal() ||
-                                // ... unless it's an exclusive sink using a LOCAL_RESERVED node
-                                (childType == RouteNodeType.LOCAL_RESERVED && connection.getSinkRnode().getType() == RouteNodeType.EXCLUSIVE_SINK_BOTH));
-                        assert(!rnodeType.isWestLocal() || childType.isWestLocal() ||
-                                (childType == RouteNodeType.LOCAL_RESERVED && connection.getSinkRnode().getType() == RouteNodeType.EXCLUSIVE_SINK_BOTH));
-                        break;
-                    case NON_LOCAL_LEADING_TO_NORTHBOUND_LAGUNA:
-                    case NON_LOCAL_LEADING_TO_SOUTHBOUND_LAGUNA:
-                        if (connection.isCrossSLR() && connection.getSinkRnode().getSLRIndex(routingGraph) != childRNode.getSLRIndex(routingGraph) &&
-                                ((connection.isCrossSLRnorth() && childType == RouteNodeType.NON_LOCAL_LEADING_TO_NORTHBOUND_LAGUNA) ||
-                                 (connection.isCrossSLRsouth() && childType == RouteNodeType.NON_LOCAL_LEADING_TO_SOUTHBOUND_LAGUNA))) {
-                            // Only lookahead beyond child nodes leading to a Laguna if we require an SLR crossing in that direction,
-                            // and it won't get overused
-                            lookahead = !childRNode.willOverUse(netWrapper);
-                        }
-                        // Fall-through
-                    case NON_LOCAL:
-                        // LOCALs cannot connect to NON_LOCALs except
-                        //   (a) IMUX (LOCAL_*_LEADING_TO_*_LAGUNA) -> LAG_MUX_ATOM_\\d+_TXOUT
-                        //   (b) via a LUT routethru: IMUX (LOCAL*) -> CLE_CLE_*_SITE_0_[A-H]_O
-                        assert(!rnodeType.isAnyLocal() || rnodeType.isLocalLeadingToLaguna() ||
-                               (routingGraph.lutRoutethru && rnode.getIntentCode() == IntentCode.NODE_PINFEED));
-
-                        if (!routingGraph.isAccessible(childRNode, rnode, connection)) {
-                            continue;
-                        }
-                        if (!config.isUseUTurnNodes() && childRNode.getDelay() > 10000) {
-                            // To filter out those nodes that are considered to be excluded with the masking resource approach,
-                            // such as U-turn shape nodes near the boundary
-                            continue;
-                        }
+        // If childRnode is preserved, then it must be preserved for the current net we're routing
+        Net preservedNet;
+        assert((preservedNet = routingGraph.getPreservedNet(childRNode)) == null ||
+                preservedNet == connection.getNet());
 
-                        // Lookahead if parent or child is in a Laguna tile
-                        // (e.g. LAG_MUX_ATOM_\\d+_TXOUT -> UBUMP\\d+
-                        //       LAG_LAGUNA_SITE_[0-3]_RXD[0-5] -> RXD\\d+
-                        //       RXD\\d+ -> INT_NODE_SDQ_\\d+_INT_OUT[01]
-                        // )
-                        // NOTE: UBUMP\\d+ wires have RouteNodeType.SUPER_LONG_LINE
-                        lookahead |= (rnodeIsLaguna || Utils.isLaguna(childRNode.getTile().getTileTypeEnum()));
-                        break;
-                    case EXCLUSIVE_SINK_BOTH:
-                    case EXCLUSIVE_SINK_EAST:
-                    case EXCLUSIVE_SINK_WEST:
-                    case EXCLUSIVE_SINK_NON_LOCAL:
-                        assert(childType != RouteNodeType.EXCLUSIVE_SINK_EAST || rnodeType == RouteNodeType.LOCAL_EAST ||
-                                // Must be an INODE that services Laguna but also feedsthrough above/below to a SLICE sink
-                                rnodeType.isLocalLeadingToLaguna());
-                        assert(childType != RouteNodeType.EXCLUSIVE_SINK_WEST || rnodeType == RouteNodeType.LOCAL_WEST ||
-                                // Must be an INODE that services Laguna but also feedsthrough above/below to a SLICE sink
-                                rnodeType.isLocalLeadingToLaguna());
-                        assert(childType != RouteNodeType.EXCLUSIVE_SINK_BOTH || rnodeType == RouteNodeType.LOCAL_BOTH ||
-                               // [BC]NODEs are LOCAL_{EAST,WEST} since they connect to INODEs, but also service CTRL sinks
-                               (routingGraph.isVersal && EnumSet.of(IntentCode.NODE_CLE_BNODE, IntentCode.NODE_CLE_CNODE,
-                                                                    IntentCode.NODE_INTF_BNODE, IntentCode.NODE_INTF_CNODE)
-                                       .contains(rnode.getIntentCode())));
-                        if (!isAccessibleSink(childRNode, connection)) {
-                            continue;
-                        }
-                        assert(childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
-                        assert(childRNode.countConnectionsOfUser(netWrapper) > 0);
-                        assert(!childRNode.willOverUse(netWrapper));
-                        break;
-                    case SUPER_LONG_LINE:
-                        assert(connection.isCrossSLR() &&
-                               connection.getSinkRnode().getSLRIndex(routingGraph) != rnode.getSLRIndex(routingGraph));
-                        // Do not lookahead beyond the SLL, since looking-ahead may push many SLLs onto the queue,
-                        // and we want to pick the best (least expensive/congested) one
-                        assert(!lookahead);
-                        break;
-                    default:
-                        throw new RuntimeException("Unexpected rnode type: " + childType);
-                }
+        boolean lookahead = false;
+        if (childRNode.isTarget()) {
+            if (childRNode.getType().isAnyExclusiveSink()) {
+                // This sink must be exclusively reserved for this connection already
+                assert((childRNode == connection.getSinkRnode() && !connection.hasAltSinks()) ||
+                       // Or be an exclusive BOUNCE sink for a different connection on the same net
+                       childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
+                assert(!childRNode.isOverUsed());
+                assert(!childRNode.willOverUse(netWrapper));
+                assert(childRNode.countConnectionsOfUser(netWrapper) == 1 ||
+                       childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
+                state.earlyTermination = true;
+            } else {
+                // Target is not an exclusive sink, only early terminate if this net will not
+                // (further) overuse this node
+                state.earlyTermination = !childRNode.willOverUse(netWrapper);
             }
 
-            evaluateCostAndPush(state, rnode, longParent, childRNode, lookahead);
             if (state.earlyTermination) {
-                assert(queue.size() == 1 && queue.peek().isTarget() && !queue.peek().willOverUse(netWrapper));
-                // Target is uncongested and the only thing in the (previously cleared) queue, abandon immediately
-                break;
+                assert(!childRNode.isVisited(sequence));
+                nodesPushed.addAndGet(queue.size());
+                queue.clear();
+            }
+        } else {
+            if (!isAccessible(childRNode, connection)) {
+                return false;
+            }
+            RouteNodeType childType = childRNode.getType();
+            switch (childType) {
+                case LOCAL_EAST_LEADING_TO_NORTHBOUND_LAGUNA:
+                case LOCAL_EAST_LEADING_TO_SOUTHBOUND_LAGUNA:
+                case LOCAL_WEST_LEADING_TO_NORTHBOUND_LAGUNA:
+                case LOCAL_WEST_LEADING_TO_SOUTHBOUND_LAGUNA:
+                    // Lookahead beyond child nodes leading to a Laguna if it won't get overused
+                    lookahead = !childRNode.willOverUse(netWrapper);
+                    // Fall-through
+                case LOCAL_BOTH:
+                case LOCAL_EAST:
+                case LOCAL_WEST:
+                case LOCAL_RESERVED:
+                    if (!routingGraph.isAccessible(childRNode, rnode, connection)) {
+                        return false;
+                    }
+                    // Verify invariant that east/west wires stay east/west ...
+                    assert(!rnodeType.isEastLocal() || childType.isEastLocal() ||
+                            // ... unless it's an exclusive sink using a LOCAL_RESERVED node
+                            (childType == RouteNodeType.LOCAL_RESERVED && connection.getSinkRnode().getType() == RouteNodeType.EXCLUSIVE_SINK_BOTH));
+                    assert(!rnodeType.isWestLocal() || childType.isWestLocal() ||
+                            (childType == RouteNodeType.LOCAL_RESERVED && connection.getSinkRnode().getType() == RouteNodeType.EXCLUSIVE_SINK_BOTH));
+                    break;
+                case NON_LOCAL_LEADING_TO_NORTHBOUND_LAGUNA:
+                case NON_LOCAL_LEADING_TO_SOUTHBOUND_LAGUNA:
+                    if (connection.isCrossSLR() && connection.getSinkRnode().getSLRIndex(routingGraph) != childRNode.getSLRIndex(routingGraph) &&
+                            ((connection.isCrossSLRnorth() && childType == RouteNodeType.NON_LOCAL_LEADING_TO_NORTHBOUND_LAGUNA) ||
+                             (connection.isCrossSLRsouth() && childType == RouteNodeType.NON_LOCAL_LEADING_TO_SOUTHBOUND_LAGUNA))) {
+                        // Only lookahead beyond child nodes leading to a Laguna if we require an SLR crossing in that direction,
+                        // and it won't get overused
+                        lookahead = !childRNode.willOverUse(netWrapper);
+                    }
+                    // Fall-through
+                case NON_LOCAL:
+                    // LOCALs cannot connect to NON_LOCALs except
+                    //   (a) IMUX (LOCAL_*_LEADING_TO_*_LAGUNA) -> LAG_MUX_ATOM_\\d+_TXOUT
+                    //   (b) via a LUT routethru: IMUX (LOCAL*) -> CLE_CLE_*_SITE_0_[A-H]_O
+                    assert(!rnodeType.isAnyLocal() || rnodeType.isLocalLeadingToLaguna() ||
+                           (routingGraph.lutRoutethru && rnode.getIntentCode() == IntentCode.NODE_PINFEED));
+
+                    if (!routingGraph.isAccessible(childRNode, rnode, connection)) {
+                        return false;
+                    }
+                    if (!config.isUseUTurnNodes() && childRNode.getDelay() > 10000) {
+                        // To filter out those nodes that are considered to be excluded with the masking resource approach,
+                        // such as U-turn shape nodes near the boundary
+                        return false;
+                    }
+
+                    // Lookahead if parent or child is in a Laguna tile
+                    // (e.g. LAG_MUX_ATOM_\\d+_TXOUT -> UBUMP\\d+
+                    //       LAG_LAGUNA_SITE_[0-3]_RXD[0-5] -> RXD\\d+
+                    //       RXD\\d+ -> INT_NODE_SDQ_\\d+_INT_OUT[01]
+                    // )
+                    // NOTE: UBUMP\\d+ wires have RouteNodeType.SUPER_LONG_LINE
+                    lookahead |= (rnodeIsLaguna || Utils.isLaguna(childRNode.getTile().getTileTypeEnum()));
+                    break;
+                case EXCLUSIVE_SINK_BOTH:
+                case EXCLUSIVE_SINK_EAST:
+                case EXCLUSIVE_SINK_WEST:
+                case EXCLUSIVE_SINK_NON_LOCAL:
+                    assert(childType != RouteNodeType.EXCLUSIVE_SINK_EAST || rnodeType == RouteNodeType.LOCAL_EAST ||
+                            // Must be an INODE that services Laguna but also feedsthrough above/below to a SLICE sink
+                            rnodeType.isLocalLeadingToLaguna());
+                    assert(childType != RouteNodeType.EXCLUSIVE_SINK_WEST || rnodeType == RouteNodeType.LOCAL_WEST ||
+                            // Must be an INODE that services Laguna but also feedsthrough above/below to a SLICE sink
+                            rnodeType.isLocalLeadingToLaguna());
+                    assert(childType != RouteNodeType.EXCLUSIVE_SINK_BOTH || rnodeType == RouteNodeType.LOCAL_BOTH ||
+                           // [BC]NODEs are LOCAL_{EAST,WEST} since they connect to INODEs, but also service CTRL sinks
+                           (routingGraph.isVersal && EnumSet.of(IntentCode.NODE_CLE_BNODE, IntentCode.NODE_CLE_CNODE,
+                                                                IntentCode.NODE_INTF_BNODE, IntentCode.NODE_INTF_CNODE)
+                                   .contains(rnode.getIntentCode())));
+                    if (!isAccessibleSink(childRNode, connection)) {
+                        return false;
+                    }
+                    assert(childRNode.getIntentCode() == IntentCode.NODE_PINBOUNCE);
+                    assert(childRNode.countConnectionsOfUser(netWrapper) > 0);
+                    assert(!childRNode.willOverUse(netWrapper));
+                    break;
+                case SUPER_LONG_LINE:
+                    assert(connection.isCrossSLR() &&
+                           connection.getSinkRnode().getSLRIndex(routingGraph) != rnode.getSLRIndex(routingGraph));
+                    // Do not lookahead beyond the SLL, since looking-ahead may push many SLLs onto the queue,
+                    // and we want to pick the best (least expensive/congested) one
+                    assert(!lookahead);
+                    break;
+                default:
+                    throw new RuntimeException("Unexpected rnode type: " + childType);
             }
         }
+
+        evaluateCostAndPush(state, rnode, longParent, childRNode, lookahead);
+        if (state.earlyTermination) {
+            assert(queue.size() == 1 && queue.peek().isTarget() && !queue.peek().willOverUse(netWrapper));
+            // Target is uncongested and the only thing in the (previously cleared) queue, abandon immediately
+            return true;
+        }
+        return false;
     }
 
     /**
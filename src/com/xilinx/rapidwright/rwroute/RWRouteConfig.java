@@ -106,6 +106,8 @@ public class RWRouteConfig {
     private float husActivateThreshold;
     /* PBlock within which RWRoute must stay within */
     private String pblock;
+    /* true to hold the search state of the routing graph in a struct-of-arrays store */
+    private boolean arrayGraphStore;
 
     /** Constructs a Configuration Object */
     public RWRouteConfig(String[] arguments) {
@@ -142,6 +144,7 @@ public class RWRouteConfig {
         husBeta = 2f;
         husInitialCongestedThreshold = 0.5f;
         husActivateThreshold = 0.4f;
+        arrayGraphStore = false;
         if (arguments != null) {
             parseArguments(arguments);
         }
@@ -268,6 +271,9 @@ public class RWRouteConfig {
             case "--pblock":
                 setPBlock(arguments[++i]);
                 break;
+            case "--arrayGraphStore":
+                setArrayGraphStore(true);
+                break;
             default:
                 throw new IllegalArgumentException("ERROR: RWRoute argument '" + arg + "' not recognized.");
             }
@@ -1035,6 +1041,28 @@ public class RWRouteConfig {
         return pblock;
     }
 
+    /**
+     * Gets the flag indicating if the search state of the routing graph (upstream path cost, lower bound
+     * total path cost, prev pointer, visited stamp and children) is held in a struct-of-arrays store indexed
+     * by dense rnode ids, rather than in the fields of each rnode.
+     * Default: false. To enable it, please add "--arrayGraphStore" to the arguments.
+     *
+     * @return True if the flag is set, false otherwise.
+     */
+    public boolean isArrayGraphStore() {
+        return arrayGraphStore;
+    }
+
+    /**
+     * Sets a flag indicating if the search state of the routing graph is held in a struct-of-arrays store.
+     * Default: false.
+     *
+     * @param arrayGraphStore true to use the struct-of-arrays store.
+     */
+    public void setArrayGraphStore(boolean arrayGraphStore) {
+        this.arrayGraphStore = arrayGraphStore;
+    }
+
     @Override
     public String toString() {
         StringBuilder s = new StringBuilder();
@@ -1071,6 +1099,7 @@ public class RWRouteConfig {
         s.append(MessageGenerator.formatString("Historical congestion factor: ", historicalCongestionFactor));
         s.append(MessageGenerator.formatString("LUT pin swapping: ", isLutPinSwapping()));
         s.append(MessageGenerator.formatString("LUT routethrus: ", isLutRoutethru()));
+        s.append(MessageGenerator.formatString("Array graph store: ", isArrayGraphStore()));
         s.append(MessageGenerator.formatString("Use Hybrid Updating Strategy: ", isHus()));
         if (isHus()) {
             s.append(MessageGenerator.formatString("HUS alpha: ", husAlpha));
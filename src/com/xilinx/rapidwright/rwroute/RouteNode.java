@@ -76,13 +76,17 @@ public class RouteNode extends Node implements Comparable<RouteNode> {
     /** A variable that stores the parent of a rnode during expansion to facilitate tracing back */
     private RouteNode prev;
     /**
-     * A map that records users of a rnode based on all routed connections.
+     * The users of a rnode based on all routed connections.
      * Each user is a {@link NetWrapper} instance that corresponds to a {@link Net} instance.
      * It is often the case that multiple connections of the user are using a same rnode.
      * We count the number of connections from the net.
      * The number is used for the sharing mechanism of RWRoute.
+     * Since most rnodes have at most one user, the first user is stored inline and further users
+     * overflow into a lazily allocated {@link RouteNodeUsers} map.
      */
-    private Map<NetWrapper, Integer> usersConnectionCounts;
+    private NetWrapper user;
+    private int userConnectionCount;
+    private RouteNodeUsers overflowUsers;
 
     /** Flag to enable really comprehensive (but performance-impacting) assertions */
     protected final static boolean enableComprehensiveAssertions = false;
@@ -97,7 +101,7 @@ public class RouteNode extends Node implements Comparable<RouteNode> {
         children = null;
         setBaseCost(routingGraph.design.getSeries());
         historicalCongestionCost = initialHistoricalCongestionCost;
-        usersConnectionCounts = null;
+        assert(user == null && overflowUsers == null);
         visited = 0;
         assert(prev == null);
         assert(!isTarget);
@@ -568,47 +572,78 @@ public class RouteNode extends Node implements Comparable<RouteNode> {
      * Each user is a {@link NetWrapper} instance representing a {@link Net} instance.
      * It is often the case that multiple connections of a net are using a same rnode.
      * So we count connections of each user to facilitate the sharing mechanism of RWRoute.
+     * The map is a snapshot built on each call and is intended for reporting and debugging only;
+     * use {@link #countConnectionsOfUser(NetWrapper)} and {@link #getOccupancy()} on hot paths.
      * @return A map between users, i.e., {@link NetWrapper} instances representing by {@link Net} instances,
-     *  and numbers of connections from different users.
+     *  and numbers of connections from different users, or null if there are no users.
      */
     public Map<NetWrapper, Integer> getUsersConnectionCounts() {
+        if (uniqueUserCount() == 0) {
+            return null;
+        }
+        Map<NetWrapper, Integer> usersConnectionCounts = new IdentityHashMap<>();
+        if (user != null) {
+            usersConnectionCounts.put(user, userConnectionCount);
+        }
+        if (overflowUsers != null) {
+            overflowUsers.putAllInto(usersConnectionCounts);
+        }
         return usersConnectionCounts;
     }
 
     /**
-     * Adds an user {@link NetWrapper} instance to the user map, of which a key is a {@link NetWrapper} instance and
-     * the value is the number of connections that are using a rnode.
-     * If the user is already stored in the map, increment the connection count of the user by 1. Otherwise, put the user
-     * into the map and initialize the connection count as 1.
+     * Adds an user {@link NetWrapper} instance to the users of a rnode, each with the number of connections that are using it.
+     * If the user is already stored, increment the connection count of the user by 1. Otherwise, store the user
+     * and initialize the connection count as 1.
      * @param user The user net in question.
      */
     public void incrementUser(NetWrapper user) {
-        if (usersConnectionCounts == null) {
-            usersConnectionCounts = new IdentityHashMap<>();
+        if (this.user == user) {
+            userConnectionCount++;
+        } else if (overflowUsers != null && overflowUsers.get(user) > 0) {
+            overflowUsers.increment(user);
+        } else if (this.user == null) {
+            this.user = user;
+            userConnectionCount = 1;
+        } else {
+            if (overflowUsers == null) {
+                overflowUsers = new RouteNodeUsers();
+            }
+            overflowUsers.increment(user);
         }
-        usersConnectionCounts.merge(user, 1, Integer::sum);
     }
 
     /**
      * Gets the number of unique users.
-     * @return The number of unique {@link NetWrapper} instances in the user map, i.e, the key set size of the user map.
+     * @return The number of unique {@link NetWrapper} instances using this rnode.
      */
     public int uniqueUserCount() {
-        if (usersConnectionCounts == null) {
-            return 0;
+        int count = (user == null) ? 0 : 1;
+        if (overflowUsers != null) {
+            count += overflowUsers.size();
         }
-        return usersConnectionCounts.size();
+        return count;
     }
 
     /**
      * Decrements the connection count of a user that is represented by a
      * {@link NetWrapper} instance corresponding to a {@link Net} instance.
-     * If there is only one connection of the user that is using a RouteNode instance, remove the user from the map.
+     * If there is only one connection of the user that is using a RouteNode instance, remove the user.
      * Otherwise, decrement the connection count by 1.
-     * @param user The user to be decremented from the user map.
+     * @param user The user to be decremented.
      */
     public void decrementUser(NetWrapper user) {
-        usersConnectionCounts.compute(user, (k,v) -> (v == 1) ? null : v - 1);
+        if (this.user == user) {
+            if (--userConnectionCount == 0) {
+                this.user = null;
+            }
+            return;
+        }
+        assert(overflowUsers != null);
+        overflowUsers.decrement(user);
+        if (overflowUsers.size() == 0) {
+            overflowUsers = null;
+        }
     }
 
     /**
@@ -617,10 +652,13 @@ public class RouteNode extends Node implements Comparable<RouteNode> {
      * @return The total number of connections of the user.
      */
     public int countConnectionsOfUser(NetWrapper user) {
-        if (usersConnectionCounts == null) {
+        if (this.user == user) {
+            return userConnectionCount;
+        }
+        if (overflowUsers == null) {
             return 0;
         }
-        return usersConnectionCounts.getOrDefault(user, 0);
+        return overflowUsers.get(user);
     }
 
     /**
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2026, Advanced Micro Devices, Inc.
+ * All rights reserved.
+ *
+ * This file is part of RapidWright.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xilinx.rapidwright.rwroute;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.xilinx.rapidwright.device.Node;
+
+/**
+ * A struct-of-arrays store for the per-search state of the rnodes in a {@link RouteNodeGraph}.
+ * Each rnode is an {@link ArrayRouteNode} identified by its dense {@link ArrayRouteNode#getId()}, which
+ * indexes parallel primitive arrays holding the upstream path cost, the lower bound total path cost,
+ * the id of the prev rnode and the visited stamp. Children are kept as ranges of rnode ids within one
+ * flat int array, so that the wavefront expansion can test children for being visited without
+ * dereferencing them. A range is reused when the children of its rnode are regenerated, and only moves
+ * when it has to grow.
+ * All arrays are allocated in fixed-size pages that never move, so that rnodes created by one thread
+ * do not invalidate the state read or written by others (see {@link RouteNodeGraph#nodesMap}).
+ */
+final class RouteNodeArrays {
+    /** Value of a prev id denoting no prev rnode */
+    static final int NO_RNODE = -1;
+    /** Value of a children end offset denoting that children have not been created yet */
+    private static final int NO_CHILDREN = -1;
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = 1 << (Integer.SIZE - 1 - PAGE_BITS);
+
+    /**
+     * A rnode whose state of the search is held by the {@link RouteNodeArrays} of its graph.
+     * The search state fields inherited from {@link RouteNode} are left unused, except for
+     * the children which are only held there while being computed.
+     */
+    static class ArrayRouteNode extends RouteNode {
+        /** The dense index of this rnode within the store */
+        private final int id;
+        private final RouteNodeArrays arrays;
+
+        protected ArrayRouteNode(RouteNodeGraph routingGraph, Node node, RouteNodeType type) {
+            super(routingGraph, node, type);
+            arrays = routingGraph.rnodeArrays;
+            id = arrays.nextId.getAndIncrement();
+        }
+
+        /**
+         * Gets the dense index of this rnode, assigned in order of creation.
+         * @return The index of this rnode.
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * Creates the children of this rnode in the store, if they do not exist yet.
+         */
+        void createChildren(RouteNodeGraph routingGraph) {
+            if (!arrays.hasChildren(id)) {
+                arrays.setChildren(id, super.getChildren(routingGraph));
+                super.resetChildren();
+            }
+        }
+
+        @Override
+        public int compareTo(RouteNode that) {
+            return (int) Math.signum(getLowerBoundTotalPathCost() - that.getLowerBoundTotalPathCost());
+        }
+
+        @Override
+        public short getEndTileYCoordinate() {
+            RouteNode prev = getPrev();
+            boolean reverseSLL = (getType() == RouteNodeType.SUPER_LONG_LINE &&
+                    prev != null &&
+                    ((ArrayRouteNode) prev).getNodeEndTileYCoordinate() == getNodeEndTileYCoordinate());
+            return reverseSLL ? (short) getTile().getTileYCoordinate() : getNodeEndTileYCoordinate();
+        }
+
+        /**
+         * Gets the Y coordinate of the INT tile that the associated node stops at, regardless of the prev rnode.
+         * The prev rnode inherited from {@link RouteNode} is never set, so the inherited getter gives just that.
+         */
+        private short getNodeEndTileYCoordinate() {
+            return super.getEndTileYCoordinate();
+        }
+
+        /**
+         * Gets the children of this rnode, copied into a new array on each call;
+         * use {@link #createChildren(RouteNodeGraph)} and the children ids on hot paths instead.
+         */
+        @Override
+        public RouteNode[] getChildren(RouteNodeGraph routingGraph) {
+            createChildren(routingGraph);
+            return arrays.getChildren(id);
+        }
+
+        @Override
+        public void resetChildren() {
+            arrays.resetChildren(id);
+        }
+
+        @Override
+        public void setLowerBoundTotalPathCost(float totalPathCost) {
+            arrays.setLowerBoundTotalPathCost(id, totalPathCost);
+        }
+
+        @Override
+        public void setUpstreamPathCost(float newPartialPathCost) {
+            arrays.setUpstreamPathCost(id, newPartialPathCost);
+        }
+
+        @Override
+        public float getLowerBoundTotalPathCost() {
+            return arrays.getLowerBoundTotalPathCost(id);
+        }
+
+        @Override
+        public float getUpstreamPathCost() {
+            return arrays.getUpstreamPathCost(id);
+        }
+
+        @Override
+        public RouteNode getPrev() {
+            int prevId = arrays.getPrev(id);
+            return (prevId == NO_RNODE) ? null : arrays.getRnode(prevId);
+        }
+
+        @Override
+        public void setPrev(RouteNode prev) {
+            assert(prev != null);
+            arrays.setPrev(id, ((ArrayRouteNode) prev).id);
+        }
+
+        @Override
+        public int numChildren() {
+            return arrays.hasChildren(id) ? arrays.getChildrenEnd(id) - arrays.getChildrenBegin(id) : 0;
+        }
+
+        @Override
+        public boolean isVisited(int seq) {
+            return arrays.isVisited(id, seq);
+        }
+
+        @Override
+        public int getVisited() {
+            return arrays.getVisited(id);
+        }
+
+        @Override
+        public void setVisited(int seq) {
+            assert(seq > 0);
+            arrays.setVisited(id, seq);
+        }
+    }
+
+    private final AtomicInteger nextId;
+
+    private final ArrayRouteNode[][] rnodes;
+    private final float[][] upstreamPathCosts;
+    private final float[][] lowerBoundTotalPathCosts;
+    private final int[][] prevs;
+    private final int[][] visited;
+    private final int[][] childrenBegins;
+    private final int[][] childrenEnds;
+    /** Offsets past the range reserved for the children of each rnode, which may exceed its children end */
+    private final int[][] childrenLimits;
+
+    /** Children ids of all rnodes; the children of one rnode never straddle a page */
+    private final int[][] childIds;
+    private int childIdsSize;
+
+    RouteNodeArrays() {
+        nextId = new AtomicInteger();
+        rnodes = new ArrayRouteNode[MAX_PAGES][];
+        upstreamPathCosts = new float[MAX_PAGES][];
+        lowerBoundTotalPathCosts = new float[MAX_PAGES][];
+        prevs = new int[MAX_PAGES][];
+        visited = new int[MAX_PAGES][];
+        childrenBegins = new int[MAX_PAGES][];
+        childrenEnds = new int[MAX_PAGES][];
+        childrenLimits = new int[MAX_PAGES][];
+        childIds = new int[MAX_PAGES][];
+        childIdsSize = 0;
+    }
+
+    /**
+     * Adds a newly created rnode to the store, initializing its search state.
+     * @param rnode The rnode to be added.
+     */
+    synchronized void add(ArrayRouteNode rnode) {
+        int id = rnode.getId();
+        int page = id >>> PAGE_BITS;
+        if (rnodes[page] == null) {
+            rnodes[page] = new ArrayRouteNode[PAGE_SIZE];
+            upstreamPathCosts[page] = new float[PAGE_SIZE];
+            lowerBoundTotalPathCosts[page] = new float[PAGE_SIZE];
+            prevs[page] = new int[PAGE_SIZE];
+            Arrays.fill(prevs[page], NO_RNODE);
+            visited[page] = new int[PAGE_SIZE];
+            childrenBegins[page] = new int[PAGE_SIZE];
+            childrenEnds[page] = new int[PAGE_SIZE];
+            Arrays.fill(childrenEnds[page], NO_CHILDREN);
+            childrenLimits[page] = new int[PAGE_SIZE];
+        }
+        rnodes[page][id & PAGE_MASK] = rnode;
+    }
+
+    ArrayRouteNode getRnode(int id) {
+        return rnodes[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    float getUpstreamPathCost(int id) {
+        return upstreamPathCosts[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    void setUpstreamPathCost(int id, float upstreamPathCost) {
+        upstreamPathCosts[id >>> PAGE_BITS][id & PAGE_MASK] = upstreamPathCost;
+    }
+
+    float getLowerBoundTotalPathCost(int id) {
+        return lowerBoundTotalPathCosts[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    void setLowerBoundTotalPathCost(int id, float lowerBoundTotalPathCost) {
+        lowerBoundTotalPathCosts[id >>> PAGE_BITS][id & PAGE_MASK] = lowerBoundTotalPathCost;
+    }
+
+    int getPrev(int id) {
+        return prevs[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    void setPrev(int id, int prevId) {
+        prevs[id >>> PAGE_BITS][id & PAGE_MASK] = prevId;
+    }
+
+    int getVisited(int id) {
+        return visited[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    boolean isVisited(int id, int seq) {
+        return visited[id >>> PAGE_BITS][id & PAGE_MASK] == seq;
+    }
+
+    void setVisited(int id, int seq) {
+        visited[id >>> PAGE_BITS][id & PAGE_MASK] = seq;
+    }
+
+    /**
+     * Checks if the children of an rnode have been created.
+     * @param id The id of the rnode in question.
+     * @return true, if the children have been set.
+     */
+    boolean hasChildren(int id) {
+        return childrenEnds[id >>> PAGE_BITS][id & PAGE_MASK] != NO_CHILDREN;
+    }
+
+    /**
+     * Gets the offset of the first child of an rnode, to be passed to {@link #getChildId(int)}.
+     * @param id The id of the rnode in question, whose children must have been set.
+     * @return The offset of the first child.
+     */
+    int getChildrenBegin(int id) {
+        assert(hasChildren(id));
+        return childrenBegins[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    /**
+     * Gets the offset past the last child of an rnode.
+     * @param id The id of the rnode in question, whose children must have been set.
+     * @return The offset past the last child.
+     */
+    int getChildrenEnd(int id) {
+        assert(hasChildren(id));
+        return childrenEnds[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    int getChildId(int offset) {
+        return childIds[offset >>> PAGE_BITS][offset & PAGE_MASK];
+    }
+
+    /**
+     * Sets the children of an rnode, writing their ids into the range reserved for this rnode if they fit,
+     * or else appending them to the flat children array.
+     * @param id The id of the rnode in question.
+     * @param children The children rnodes.
+     */
+    synchronized void setChildren(int id, RouteNode[] children) {
+        assert(children.length <= PAGE_SIZE);
+        int page = id >>> PAGE_BITS;
+        int index = id & PAGE_MASK;
+        int begin = childrenBegins[page][index];
+        if (childrenLimits[page][index] - begin < children.length) {
+            begin = childIdsSize;
+            if ((begin & PAGE_MASK) + children.length > PAGE_SIZE) {
+                // Start a new page rather than straddling two
+                begin = (begin | PAGE_MASK) + 1;
+            }
+            childIdsSize = begin + children.length;
+            childrenBegins[page][index] = begin;
+            childrenLimits[page][index] = childIdsSize;
+        }
+        int childPage = begin >>> PAGE_BITS;
+        if (childIds[childPage] == null) {
+            childIds[childPage] = new int[PAGE_SIZE];
+        }
+        int[] childIdPage = childIds[childPage];
+        int offset = begin & PAGE_MASK;
+        for (RouteNode child : children) {
+            childIdPage[offset++] = ((ArrayRouteNode) child).getId();
+        }
+        childrenEnds[page][index] = begin + children.length;
+    }
+
+    /**
+     * Gets the children of an rnode as a newly allocated array.
+     * @param id The id of the rnode in question, whose children must have been set.
+     * @return The children rnodes.
+     */
+    RouteNode[] getChildren(int id) {
+        int begin = getChildrenBegin(id);
+        int end = getChildrenEnd(id);
+        if (begin == end) {
+            return RouteNode.EMPTY_ARRAY;
+        }
+        RouteNode[] children = new RouteNode[end - begin];
+        for (int i = begin; i < end; i++) {
+            children[i - begin] = getRnode(getChildId(i));
+        }
+        return children;
+    }
+
+    /**
+     * Clears the children of an rnode so that they can be regenerated.
+     * The range of the previous children stays reserved for the regenerated ones.
+     * @param id The id of the rnode in question.
+     */
+    void resetChildren(int id) {
+        childrenEnds[id >>> PAGE_BITS][id & PAGE_MASK] = NO_CHILDREN;
+    }
+}
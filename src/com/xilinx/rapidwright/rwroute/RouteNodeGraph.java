@@ -73,6 +73,12 @@ public class RouteNodeGraph {
     protected final RouteNode[][] nodesMap;
     private final AtomicInteger nodesMapSize;
 
+    /**
+     * The struct-of-arrays store of the search state of all rnodes ({@link RouteNodeArrays.ArrayRouteNode}),
+     * or null if this state is held by the rnodes themselves ({@link RouteNode})
+     */
+    protected final RouteNodeArrays rnodeArrays;
+
     /**
      * A map of preserved nodes to their nets
      */
@@ -147,6 +153,7 @@ public class RouteNodeGraph {
 
         this.nodesMap = new RouteNode[getTileCount(design)][];
         nodesMapSize = new AtomicInteger();
+        rnodeArrays = config.isArrayGraphStore() ? new RouteNodeArrays() : null;
         preservedMap = new AtomicReferenceArray<>(getTileCount(design));
         preservedMapSize = new AtomicInteger();
         asyncPreserveOutstanding = new CountUpDownLatch();
@@ -841,6 +848,9 @@ public class RouteNodeGraph {
     }
 
     protected RouteNode create(Node node, RouteNodeType type) {
+        if (rnodeArrays != null) {
+            return new RouteNodeArrays.ArrayRouteNode(this, node, type);
+        }
         return new RouteNode(this, node, type);
     }
 
@@ -863,6 +873,9 @@ public class RouteNodeGraph {
             rnode = create(node, type);
             rnodes[wireIndex] = rnode;
             nodesMapSize.incrementAndGet();
+            if (rnodeArrays != null) {
+                rnodeArrays.add((RouteNodeArrays.ArrayRouteNode) rnode);
+            }
         }
         return rnode;
     }
@@ -131,8 +131,30 @@ public class RouteNodeGraphTimingDriven extends RouteNodeGraph {
         }
     }
 
+    /**
+     * The counterpart of {@link RouteNodeTimingDriven} whose state of the search is held by {@link RouteNodeArrays}.
+     */
+    protected static class ArrayRouteNodeTimingDriven extends RouteNodeArrays.ArrayRouteNode {
+
+        /** The delay of this rnode computed based on the timing model */
+        private final float delay;
+
+        protected ArrayRouteNodeTimingDriven(RouteNodeGraphTimingDriven routingGraph, Node node, RouteNodeType type) {
+            super(routingGraph, node, type);
+            delay = RouterHelper.computeNodeDelay(routingGraph.delayEstimator, node);
+        }
+
+        @Override
+        public float getDelay() {
+            return delay;
+        }
+    }
+
     @Override
     protected RouteNode create(Node node, RouteNodeType type) {
+        if (rnodeArrays != null) {
+            return new ArrayRouteNodeTimingDriven(this, node, type);
+        }
         return new RouteNodeTimingDriven(this, node, type);
     }
 
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026, Advanced Micro Devices, Inc.
+ * All rights reserved.
+ *
+ * This file is part of RapidWright.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xilinx.rapidwright.rwroute;
+
+import java.util.Map;
+
+/**
+ * An open-addressed map from {@link NetWrapper} users to their connection counts, keyed by the dense
+ * {@link NetWrapper#getId()} index with linear probing and backward-shift deletion.
+ * It holds the users of a {@link RouteNode} that do not fit into its inline user slot, so counts are
+ * kept as primitives and lookups do not allocate.
+ */
+final class RouteNodeUsers {
+    private static final int INITIAL_CAPACITY = 4;
+    /** Marks an empty slot in {@link #ids}, which are stored with an offset of one */
+    private static final int EMPTY = 0;
+
+    private int[] ids;
+    private int[] counts;
+    private NetWrapper[] users;
+    private int size;
+
+    RouteNodeUsers() {
+        ids = new int[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        users = new NetWrapper[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Gets the number of users in the map.
+     * @return The number of users.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the connection count of a user.
+     * @param user The user in question.
+     * @return The connection count of the user, or 0 if it is not in the map.
+     */
+    int get(NetWrapper user) {
+        int slot = find(user.getId() + 1);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    /**
+     * Increments the connection count of a user by 1, adding the user with a count of 1 if it is not in the map.
+     * @param user The user to be incremented.
+     */
+    void increment(NetWrapper user) {
+        int key = user.getId() + 1;
+        int mask = ids.length - 1;
+        int slot = hash(key) & mask;
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = key;
+        counts[slot] = 1;
+        users[slot] = user;
+        // Keep the load factor at or below 1/2 so that probe sequences stay short
+        if (++size * 2 > ids.length) {
+            rehash(ids.length * 2);
+        }
+    }
+
+    /**
+     * Decrements the connection count of a user by 1, removing the user when its count drops to 0.
+     * @param user The user to be decremented, which must be in the map.
+     */
+    void decrement(NetWrapper user) {
+        int slot = find(user.getId() + 1);
+        assert(slot >= 0);
+        if (--counts[slot] > 0) {
+            return;
+        }
+        size--;
+        // Backward-shift deletion: move later entries of the probe run into the hole so that no tombstones are needed
+        int mask = ids.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (ids[next] != EMPTY) {
+            int home = hash(ids[next]) & mask;
+            // The entry at next may fill the hole only if its home slot does not lie cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                counts[hole] = counts[next];
+                users[hole] = users[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        ids[hole] = EMPTY;
+        counts[hole] = 0;
+        users[hole] = null;
+    }
+
+    /**
+     * Puts all users and their connection counts into the given map.
+     * @param map The map to be filled.
+     */
+    void putAllInto(Map<NetWrapper, Integer> map) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != EMPTY) {
+                map.put(users[i], counts[i]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int mask = ids.length - 1;
+        int slot = hash(key) & mask;
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        int[] oldCounts = counts;
+        NetWrapper[] oldUsers = users;
+        ids = new int[capacity];
+        counts = new int[capacity];
+        users = new NetWrapper[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] == EMPTY) continue;
+            int slot = hash(oldIds[i]) & mask;
+            while (ids[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = oldIds[i];
+            counts[slot] = oldCounts[i];
+            users[slot] = oldUsers[i];
+        }
+    }
+
+    private static int hash(int key) {
+        // Fibonacci hashing spreads consecutive ids over the table
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -34,11 +34,21 @@ import java.util.List;
  * It also supports a user case of {@link RuntimeTrackerTree} instance for runtime analysis of an entire program.
  */
 public class RuntimeTracker {
+    /**
+     * Receives the start and stop events of runtime trackers, e.g. to collect resource usage per tracked stage.
+     */
+    public interface Listener {
+        void onStart(RuntimeTracker tracker);
+
+        void onStop(RuntimeTracker tracker, long elapsedTime);
+    }
+
     private String name;
     private long time;
     private long start;
     private short level;
     private List<RuntimeTracker> children;
+    private Listener listener;
 
     public RuntimeTracker(String name) {
         this.name = name + ":";
@@ -99,7 +109,16 @@ public class RuntimeTracker {
         return now() - start;
     }
 
+    /**
+     * Sets the listener notified on each start and stop, null to disable notifications.
+     * @param listener The listener of this runtime tracker.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
     public void start() {
+        if (listener != null) listener.onStart(this);
         this.start = now();
     }
 
@@ -107,7 +126,9 @@ public class RuntimeTracker {
      * Stops the runtime tracker and stores the total time elapsed in nanoseconds.
      */
     public void stop() {
-        this.time += elapsed(this.start);
+        long elapsedTime = elapsed(this.start);
+        this.time += elapsedTime;
+        if (listener != null) listener.onStop(this, elapsedTime);
     }
 
     /**
@@ -34,6 +34,7 @@ import java.util.Map;
 public class RuntimeTrackerTree {
     Map<String, RuntimeTracker> runtimeTrackers;
     private RuntimeTracker root;
+    private RuntimeTracker.Listener listener;
 
     boolean verbose = false;
 
@@ -64,6 +65,7 @@ public class RuntimeTrackerTree {
         RuntimeTracker newTracker = this.runtimeTrackers.get(name);
         if (newTracker == null) {
             newTracker = new RuntimeTracker(name, (short) (parentTracker.getLevel() + 1));
+            newTracker.setListener(listener);
             parentTracker.addChild(newTracker);
             this.runtimeTrackers.put(name, newTracker);
         }
@@ -86,10 +88,22 @@ public class RuntimeTrackerTree {
 
     public RuntimeTracker createStandAloneRuntimeTracker(String name) {
         RuntimeTracker tracker = new RuntimeTracker(name);
+        tracker.setListener(listener);
         this.runtimeTrackers.put(name, tracker);
         return tracker;
     }
 
+    /**
+     * Sets the listener of all runtime trackers in the tree, including those created later.
+     * @param listener The listener notified on start and stop of the runtime trackers.
+     */
+    public void setListener(RuntimeTracker.Listener listener) {
+        this.listener = listener;
+        for (RuntimeTracker tracker : runtimeTrackers.values()) {
+            tracker.setListener(listener);
+        }
+    }
+
     /**
      * Gets the name of the root runtime tracker.
      * @return The name of the root runtime tracker.
@@ -0,0 +1,52 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// Inputs shared by the rapidpnr benchmarks. An input is either "synthetic-<nodeNum>",
+// a hypergraph in hMETIS format (*.hgr) or a hypergraph in the binary format of HyperGraphIO.
+public class BenchmarkInputs {
+    public static final long SEED = 999;
+
+    public static HyperGraph readHyperGraph(String input) {
+        if (SyntheticHyperGraph.isSyntheticName(input)) {
+            return SyntheticHyperGraph.generate(input, SEED);
+        }
+
+        Path inputPath = Path.of(input).toAbsolutePath();
+        HyperGraph hyperGraph;
+        if (inputPath.toString().endsWith(".hgr")) {
+            List<Double> weightFactor = Arrays.asList(1.0);
+            hyperGraph = HyperGraph.readGraphFromHmetisFormat(inputPath, weightFactor, weightFactor);
+        } else {
+            hyperGraph = HyperGraph.readGraphFromBinaryFormat(inputPath);
+        }
+        if (hyperGraph == null) {
+            throw new IllegalArgumentException("Fail to read hypergraph from " + inputPath);
+        }
+        return hyperGraph;
+    }
+
+    // kernels log through HierarchicalLogger, which would flood the benchmark output
+    public static HierarchicalLogger createQuietLogger(String name) {
+        return HierarchicalLogger.createPseduoLogger(name);
+    }
+
+    public static double getCutSize(HyperGraph hyperGraph, List<Integer> partResult) {
+        return hyperGraph.getEdgeWeightsSum(hyperGraph.getCutSize(partResult));
+    }
+
+    // relative excess of the largest block over the average block size in the first weight dimension
+    public static double getImbalance(HyperGraph hyperGraph, List<Integer> partResult, int blockNum) {
+        double maxBlockSize = 0.0;
+        for (List<Double> blockSize : hyperGraph.getBlockSize(partResult)) {
+            maxBlockSize = Math.max(maxBlockSize, blockSize.get(0));
+        }
+        double avgBlockSize = hyperGraph.getTotalNodeWeight().get(0) / blockNum;
+        return maxBlockSize / avgBlockSize - 1.0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Quality of results (cut size, imbalance, ...) of benchmark invocations, reported next to the
+// JMH throughput and gc profiler numbers. Each trial prints its summary and appends it as CSV to the
+// file given by system property rapidpnr.jmh.qualityFile, so runtime and quality can be joined by
+// benchmark and input.
+public class QualityReport {
+    public static final String QUALITY_FILE_PROPERTY = "rapidpnr.jmh.qualityFile";
+    public static final String DEFAULT_QUALITY_FILE = "build/reports/jmh/quality.csv";
+    private static final String CSV_HEADER = "benchmark,input,config,metric,count,mean,min,max";
+
+    private String benchmarkName;
+    private String input;
+    private String config;
+    private Map<String, DoubleSummaryStatistics> metric2Stats = new LinkedHashMap<>();
+    private boolean measuring = false; // results of warmup iterations are not recorded
+
+    public QualityReport(String benchmarkName, String input, String config) {
+        this.benchmarkName = benchmarkName;
+        this.input = input;
+        this.config = config;
+    }
+
+    public synchronized void setMeasuring(boolean measuring) {
+        this.measuring = measuring;
+    }
+
+    public synchronized void record(String metric, double value) {
+        if (!measuring) return;
+        metric2Stats.computeIfAbsent(metric, k -> new DoubleSummaryStatistics()).accept(value);
+    }
+
+    public synchronized void report() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, DoubleSummaryStatistics> entry : metric2Stats.entrySet()) {
+            DoubleSummaryStatistics stats = entry.getValue();
+            System.out.println(String.format("Quality %s [%s %s] %s: mean=%.4f min=%.4f max=%.4f (%d runs)",
+                benchmarkName, input, config, entry.getKey(), stats.getAverage(), stats.getMin(), stats.getMax(), stats.getCount()));
+            lines.add(String.format("%s,%s,%s,%s,%d,%f,%f,%f",
+                benchmarkName, input, config, entry.getKey(), stats.getCount(), stats.getAverage(), stats.getMin(), stats.getMax()));
+        }
+        metric2Stats.clear();
+        if (lines.isEmpty()) return;
+
+        Path reportPath = Path.of(System.getProperty(QUALITY_FILE_PROPERTY, DEFAULT_QUALITY_FILE));
+        try {
+            if (reportPath.getParent() != null) {
+                Files.createDirectories(reportPath.getParent());
+            }
+            if (!Files.exists(reportPath)) {
+                Files.write(reportPath, List.of(CSV_HEADER));
+            }
+            Files.write(reportPath, lines, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Fail to write quality report " + reportPath + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.xilinx.rapidwright.rapidpnr;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// Generates hypergraphs with Rent's-rule locality for benchmarking partitioning kernels.
+// Nodes are leaves of a binary hierarchy: every node drives one edge (plus extra edges from random drivers),
+// each edge picks a level of the hierarchy and draws its other pins from the subtree of the driver at that level.
+// Level l is picked with probability proportional to 2^(l * (rentExponent - 1)), so the number of edges leaving
+// a subtree of size n grows with n^rentExponent as in placed netlists.
+public class SyntheticHyperGraph {
+    public static final double DEFAULT_RENT_EXPONENT = 0.65;
+    public static final double DEFAULT_EDGE_NODE_RATIO = 1.1;
+
+    // cumulative distribution of edge degrees 2, 3, 4, 5-8, 9-16, 17-64
+    private static final double[] DEGREE_CDF = {0.55, 0.72, 0.82, 0.93, 0.98, 1.0};
+    private static final int[][] DEGREE_RANGES = {{2, 2}, {3, 3}, {4, 4}, {5, 8}, {9, 16}, {17, 64}};
+
+    // input names of the form "synthetic-<nodeNum>"
+    public static final String NAME_PREFIX = "synthetic-";
+
+    public static boolean isSyntheticName(String name) {
+        return name.startsWith(NAME_PREFIX);
+    }
+
+    public static HyperGraph generate(String name, long seed) {
+        int nodeNum = Integer.parseInt(name.substring(NAME_PREFIX.length()));
+        return generate(nodeNum, DEFAULT_EDGE_NODE_RATIO, DEFAULT_RENT_EXPONENT, seed);
+    }
+
+    public static HyperGraph generate(int nodeNum, double edgeNodeRatio, double rentExponent, long seed) {
+        assert nodeNum > 1;
+        assert rentExponent > 0.0 && rentExponent < 1.0;
+        assert edgeNodeRatio >= 1.0;
+
+        Random random = new Random(seed);
+        List<Double> unitWeight = Arrays.asList(1.0);
+        HyperGraph hyperGraph = new HyperGraph(unitWeight, unitWeight);
+        for (int nodeId = 0; nodeId < nodeNum; nodeId++) {
+            hyperGraph.addNode(unitWeight);
+        }
+
+        int levelNum = 32 - Integer.numberOfLeadingZeros(nodeNum - 1);
+        double[] levelCdf = new double[levelNum];
+        double probSum = 0.0;
+        for (int level = 1; level <= levelNum; level++) {
+            probSum += Math.pow(2.0, level * (rentExponent - 1.0));
+            levelCdf[level - 1] = probSum;
+        }
+
+        int edgeNum = (int) (nodeNum * edgeNodeRatio);
+        Set<Integer> pins = new HashSet<>();
+        for (int edgeId = 0; edgeId < edgeNum; edgeId++) {
+            boolean isDrivenEdge = edgeId < nodeNum;
+            int driver = isDrivenEdge ? edgeId : random.nextInt(nodeNum);
+            int level = 1 + lowerBound(levelCdf, random.nextDouble() * probSum);
+            if (isDrivenEdge && driver > 0) {
+                // the subtree has to contain a preceding node, see below
+                level = Math.max(level, Integer.numberOfTrailingZeros(driver) + 1);
+            }
+
+            int subtreeBegin = (driver >> level) << level;
+            int subtreeSize = Math.min(1 << level, nodeNum - subtreeBegin);
+            int degree = Math.min(sampleDegree(random), subtreeSize);
+
+            pins.clear();
+            pins.add(driver);
+            if (isDrivenEdge && driver > 0) {
+                // connecting every node to a preceding one keeps the graph connected like a real netlist
+                pins.add(subtreeBegin + random.nextInt(driver - subtreeBegin));
+            }
+            while (pins.size() < degree) {
+                pins.add(subtreeBegin + random.nextInt(subtreeSize));
+            }
+            if (pins.size() < 2) continue;
+            hyperGraph.addEdge(pins, unitWeight);
+        }
+
+        hyperGraph.trimToSize();
+        return hyperGraph;
+    }
+
+    private static int sampleDegree(Random random) {
+        int rangeId = lowerBound(DEGREE_CDF, random.nextDouble());
+        int[] range = DEGREE_RANGES[rangeId];
+        return range[0] + random.nextInt(range[1] - range[0] + 1);
+    }
+
+    // index of the first element not less than value
+    private static int lowerBound(double[] cdf, double value) {
+        int idx = Arrays.binarySearch(cdf, value);
+        idx = idx >= 0 ? idx : -idx - 1;
+        return Math.min(idx, cdf.length - 1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.xilinx.rapidwright.rapidpnr.BenchmarkInputs;
+import com.xilinx.rapidwright.rapidpnr.QualityReport;
+import com.xilinx.rapidwright.rapidpnr.utils.HierHyperGraph;
+
+// One level of coarsening of the input hypergraph
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CoarserBenchmark {
+
+    @Param({"synthetic-100000", "synthetic-1000000"})
+    public String input;
+
+    @Param({"FC", "PFC"})
+    public String scheme;
+
+    private HierHyperGraph hierGraph;
+    private Coarser.Config config;
+    private QualityReport qualityReport;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hierGraph = HierHyperGraph.convertToHierHyperGraph(BenchmarkInputs.readHyperGraph(input));
+        config = new Coarser.Config(Coarser.Scheme.valueOf(scheme), (int) BenchmarkInputs.SEED);
+        qualityReport = new QualityReport("coarsenLevel", input, scheme);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration(IterationParams params) {
+        qualityReport.setMeasuring(params.getType() == IterationType.MEASUREMENT);
+    }
+
+    @Benchmark
+    public HierHyperGraph coarsenLevel() {
+        HierHyperGraph coarseGraph = Coarser.coarsening(config, hierGraph);
+        qualityReport.record("shrinkRatio", (double) hierGraph.getNodeNum() / coarseGraph.getNodeNum());
+        qualityReport.record("pinRatio", (double) hierGraph.getPinNum() / coarseGraph.getPinNum());
+        return coarseGraph;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        qualityReport.report();
+    }
+}
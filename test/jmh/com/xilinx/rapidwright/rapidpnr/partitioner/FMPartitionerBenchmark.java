@@ -0,0 +1,103 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.xilinx.rapidwright.rapidpnr.BenchmarkInputs;
+import com.xilinx.rapidwright.rapidpnr.QualityReport;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// A single FM pass from the same random balanced bipartition, partition states are built outside of the measurement
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FMPartitionerBenchmark {
+
+    @Param({"synthetic-10000", "synthetic-50000"})
+    public String input;
+
+    private HierarchicalLogger logger = BenchmarkInputs.createQuietLogger("FMPartitionerBenchmark");
+    private HyperGraph hyperGraph;
+    private FMPartitioner.Config config;
+    private List<Integer> initialPartRes;
+    private double initialCutSize;
+    private FMPartitioner partitioner;
+    private List<Integer> partRes;
+    private QualityReport qualityReport;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hyperGraph = BenchmarkInputs.readHyperGraph(input);
+
+        config = new FMPartitioner.Config();
+        config.maxPassNum = 1;
+        config.imbFactors = Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.01);
+        config.verbose = false;
+
+        List<Integer> nodeIds = new ArrayList<>();
+        for (int nodeId = 0; nodeId < hyperGraph.getNodeNum(); nodeId++) {
+            nodeIds.add(nodeId);
+        }
+        Collections.shuffle(nodeIds, new Random(BenchmarkInputs.SEED));
+        initialPartRes = new ArrayList<>(Collections.nCopies(hyperGraph.getNodeNum(), 0));
+        for (int i = 0; i < nodeIds.size(); i++) {
+            initialPartRes.set(nodeIds.get(i), i % 2);
+        }
+        initialCutSize = BenchmarkInputs.getCutSize(hyperGraph, initialPartRes);
+
+        qualityReport = new QualityReport("fmPass", input, "maxPassNum=1");
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration(IterationParams params) {
+        qualityReport.setMeasuring(params.getType() == IterationType.MEASUREMENT);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        partitioner = new FMPartitioner(logger, config, hyperGraph);
+    }
+
+    @Benchmark
+    public List<Integer> fmPass() {
+        partRes = partitioner.run(initialPartRes);
+        return partRes;
+    }
+
+    // quality is evaluated outside of the measured region
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        double cutSize = BenchmarkInputs.getCutSize(hyperGraph, partRes);
+        qualityReport.record("cutSize", cutSize);
+        qualityReport.record("cutReduction", initialCutSize - cutSize);
+        qualityReport.record("imbalance", BenchmarkInputs.getImbalance(hyperGraph, partRes, 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        qualityReport.report();
+    }
+}
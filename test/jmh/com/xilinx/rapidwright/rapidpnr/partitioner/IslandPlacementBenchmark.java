@@ -0,0 +1,108 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.xilinx.rapidwright.rapidpnr.BenchmarkInputs;
+import com.xilinx.rapidwright.rapidpnr.QualityReport;
+import com.xilinx.rapidwright.rapidpnr.utils.Coordinate2D;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// Direct k-way placement of nodes onto the island grid, configured as in IslandPlacer.kWayPartitionPlace
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandPlacementBenchmark {
+
+    @Param({"synthetic-50000", "synthetic-200000"})
+    public String input;
+
+    @Param({"2x2", "4x2"})
+    public String gridDim;
+
+    private HierarchicalLogger logger = BenchmarkInputs.createQuietLogger("IslandPlacementBenchmark");
+    private HyperGraph hyperGraph;
+    private MultiLevelPartitioner.Config config;
+    private List<Integer> partRes;
+    private QualityReport qualityReport;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hyperGraph = BenchmarkInputs.readHyperGraph(input);
+
+        String[] dims = gridDim.split("x");
+        Coordinate2D grid = Coordinate2D.of(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]));
+
+        config = new MultiLevelPartitioner.Config();
+        config.gridDim = grid;
+        config.blockNum = grid.getX() * grid.getY();
+        config.randomSeed = (int) BenchmarkInputs.SEED;
+        config.imbFactors = Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.05);
+        config.verbose = false;
+
+        qualityReport = new QualityReport("kWayIslandPlacement", input, "grid=" + gridDim);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration(IterationParams params) {
+        qualityReport.setMeasuring(params.getType() == IterationType.MEASUREMENT);
+    }
+
+    @Benchmark
+    public List<Integer> kWayPlace() {
+        MultiLevelPartitioner partitioner = new MultiLevelPartitioner(logger, config, hyperGraph);
+        partRes = partitioner.run();
+        return partRes;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        qualityReport.record("cutSize", BenchmarkInputs.getCutSize(hyperGraph, partRes));
+        qualityReport.record("imbalance", BenchmarkInputs.getImbalance(hyperGraph, partRes, config.blockNum));
+        qualityReport.record("gridWirelength", getGridWirelength());
+    }
+
+    // weighted half-perimeter of island bounding boxes of all edges
+    private double getGridWirelength() {
+        double wirelength = 0.0;
+        for (int edgeId = 0; edgeId < hyperGraph.getEdgeNum(); edgeId++) {
+            int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            for (int pinIdx = 0; pinIdx < hyperGraph.getDegreeOfEdge(edgeId); pinIdx++) {
+                Coordinate2D loc = config.gridDim.getLocOf(partRes.get(hyperGraph.getNodeOfEdge(edgeId, pinIdx)));
+                minX = Math.min(minX, loc.getX());
+                maxX = Math.max(maxX, loc.getX());
+                minY = Math.min(minY, loc.getY());
+                maxY = Math.max(maxY, loc.getY());
+            }
+            wirelength += hyperGraph.getEdgeWeightsSum(edgeId) * (maxX - minX + maxY - minY);
+        }
+        return wirelength;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        qualityReport.report();
+    }
+}
@@ -0,0 +1,89 @@
+package com.xilinx.rapidwright.rapidpnr.partitioner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.xilinx.rapidwright.rapidpnr.BenchmarkInputs;
+import com.xilinx.rapidwright.rapidpnr.QualityReport;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.HyperGraph;
+
+// Full multi-level bipartition: coarsening, initial partition and uncoarsening with FM refinement
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultiLevelPartitionerBenchmark {
+
+    @Param({"synthetic-50000", "synthetic-200000"})
+    public String input;
+
+    @Param({"FC", "PFC"})
+    public String scheme;
+
+    @Param({"1", "4"})
+    public int parallelRunNum;
+
+    private HierarchicalLogger logger = BenchmarkInputs.createQuietLogger("MultiLevelPartitionerBenchmark");
+    private HyperGraph hyperGraph;
+    private MultiLevelPartitioner.Config config;
+    private List<Integer> partRes;
+    private QualityReport qualityReport;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hyperGraph = BenchmarkInputs.readHyperGraph(input);
+
+        config = new MultiLevelPartitioner.Config();
+        config.blockNum = 2;
+        config.randomSeed = (int) BenchmarkInputs.SEED;
+        config.imbFactors = Collections.nCopies(hyperGraph.getNodeWeightDim(), 0.01);
+        config.parallelRunNum = parallelRunNum;
+        config.verbose = false;
+        config.coarserConfig.scheme = Coarser.Scheme.valueOf(scheme);
+
+        qualityReport = new QualityReport("multiLevelBipartition", input, scheme + " parallelRunNum=" + parallelRunNum);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration(IterationParams params) {
+        qualityReport.setMeasuring(params.getType() == IterationType.MEASUREMENT);
+    }
+
+    @Benchmark
+    public List<Integer> bipartition() {
+        MultiLevelPartitioner partitioner = new MultiLevelPartitioner(logger, config, hyperGraph);
+        partRes = partitioner.run();
+        return partRes;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        qualityReport.record("cutSize", BenchmarkInputs.getCutSize(hyperGraph, partRes));
+        qualityReport.record("imbalance", BenchmarkInputs.getImbalance(hyperGraph, partRes, config.blockNum));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        qualityReport.report();
+    }
+}
@@ -0,0 +1,64 @@
+package com.xilinx.rapidwright.rapidpnr.timing;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.xilinx.rapidwright.design.Design;
+import com.xilinx.rapidwright.rapidpnr.BenchmarkInputs;
+import com.xilinx.rapidwright.rapidpnr.DesignParams;
+import com.xilinx.rapidwright.rapidpnr.NetlistDatabase;
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+import com.xilinx.rapidwright.rapidpnr.utils.SyntheticNetlistGenerator;
+
+// Construction of the timing graph with logic levels and fanouts of the netlist of a RapidPnR design json,
+// e.g. -p designJson=workspace/json/<design>.json, which may describe a synthetic netlist instead of a DCP
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimingPredictorBenchmark {
+
+    @Param({""})
+    public String designJson;
+
+    @Param({"1", "8"})
+    public int threadNum;
+
+    private HierarchicalLogger logger = BenchmarkInputs.createQuietLogger("TimingPredictorBenchmark");
+    private NetlistDatabase netlistDB;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (designJson.isEmpty()) {
+            throw new IllegalArgumentException("TimingPredictorBenchmark requires -p designJson=<path of design json>");
+        }
+        DesignParams designParams = new DesignParams(Path.of(designJson).toAbsolutePath());
+        Design design;
+        if (designParams.isSyntheticNetlist()) {
+            design = SyntheticNetlistGenerator.generate(logger, designParams.getDesignName(), designParams.getSyntheticNetlistConfig());
+        } else {
+            design = Design.readCheckpoint(designParams.getInputDcpPath().toString());
+        }
+        netlistDB = new NetlistDatabase(logger, design, designParams);
+    }
+
+    @Benchmark
+    public SimpleTimingPredictor build() {
+        return new SimpleTimingPredictor(logger, netlistDB, threadNum);
+    }
+}
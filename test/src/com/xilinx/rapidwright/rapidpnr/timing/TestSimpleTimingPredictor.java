@@ -0,0 +1,192 @@
+package com.xilinx.rapidwright.rapidpnr.timing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.xilinx.rapidwright.rapidpnr.utils.HierarchicalLogger;
+
+public class TestSimpleTimingPredictor {
+
+    // random DAG of layers wide enough to be split into several chunks per topological level
+    private static List<int[]> generateLayeredDAG(int layerNum, int layerSize, long seed) {
+        Random random = new Random(seed);
+        List<Integer> srcs = new ArrayList<>();
+        List<Integer> dsts = new ArrayList<>();
+        List<Integer> netFanouts = new ArrayList<>();
+        for (int layer = 1; layer < layerNum; layer++) {
+            for (int i = 0; i < layerSize; i++) {
+                int dst = layer * layerSize + i;
+                int faninNum = 1 + random.nextInt(3);
+                for (int j = 0; j < faninNum; j++) {
+                    int srcLayer = random.nextInt(layer);
+                    int src = srcLayer * layerSize + random.nextInt(layerSize);
+                    srcs.add(src);
+                    dsts.add(dst);
+                    netFanouts.add(random.nextBoolean() ? 0 : 1 + random.nextInt(16));
+                }
+            }
+        }
+        List<int[]> edges = new ArrayList<>();
+        edges.add(srcs.stream().mapToInt(Integer::intValue).toArray());
+        edges.add(dsts.stream().mapToInt(Integer::intValue).toArray());
+        edges.add(netFanouts.stream().mapToInt(Integer::intValue).toArray());
+        return edges;
+    }
+
+    @Test
+    public void testParallelMatchesSerialPropagation() {
+        int layerNum = 40;
+        int layerSize = 2000;
+        HierarchicalLogger logger = HierarchicalLogger.createPseduoLogger("TestSimpleTimingPredictor");
+        for (long seed = 0; seed < 3; seed++) {
+            List<int[]> edges = generateLayeredDAG(layerNum, layerSize, seed);
+            int vertexNum = layerNum * layerSize;
+            SimpleTimingPredictor serial = new SimpleTimingPredictor(logger, vertexNum, edges.get(0), edges.get(1), edges.get(2), 1);
+            SimpleTimingPredictor parallel = new SimpleTimingPredictor(logger, vertexNum, edges.get(0), edges.get(1), edges.get(2), 8);
+
+            Assertions.assertArrayEquals(serial.getRecvLogicLevels(), parallel.getRecvLogicLevels());
+            Assertions.assertArrayEquals(serial.getRecvFanouts(), parallel.getRecvFanouts());
+            Assertions.assertArrayEquals(serial.getRecvDelays(), parallel.getRecvDelays());
+            Assertions.assertArrayEquals(serial.getDriveLogicLevels(), parallel.getDriveLogicLevels());
+            Assertions.assertArrayEquals(serial.getDriveFanouts(), parallel.getDriveFanouts());
+            Assertions.assertArrayEquals(serial.getDriveDelays(), parallel.getDriveDelays());
+        }
+    }
+
+    // edges of a DAG whose vertex ids increase along every edge, net edges carry the net edge count of their driver
+    private static class EdgeList {
+        List<Integer> srcs = new ArrayList<>();
+        List<Integer> dsts = new ArrayList<>();
+        List<Boolean> isNets = new ArrayList<>();
+        Set<Long> keys = new HashSet<>();
+
+        boolean add(int src, int dst, boolean isNet) {
+            assert src < dst;
+            if (!keys.add((long) src << 32 | dst)) return false;
+            srcs.add(src);
+            dsts.add(dst);
+            isNets.add(isNet);
+            return true;
+        }
+
+        void remove(int idx) {
+            keys.remove((long) srcs.get(idx) << 32 | dsts.get(idx));
+            int last = srcs.size() - 1;
+            srcs.set(idx, srcs.get(last));
+            dsts.set(idx, dsts.get(last));
+            isNets.set(idx, isNets.get(last));
+            srcs.remove(last);
+            dsts.remove(last);
+            isNets.remove(last);
+        }
+
+        int[] getNetFanouts(int vertexNum) {
+            int[] netEdgeNums = new int[vertexNum];
+            for (int i = 0; i < srcs.size(); i++) {
+                if (isNets.get(i)) netEdgeNums[srcs.get(i)]++;
+            }
+            int[] netFanouts = new int[srcs.size()];
+            for (int i = 0; i < srcs.size(); i++) {
+                netFanouts[i] = isNets.get(i) ? netEdgeNums[srcs.get(i)] : 0;
+            }
+            return netFanouts;
+        }
+
+        SimpleTimingPredictor build(HierarchicalLogger logger, int vertexNum) {
+            int[] src = srcs.stream().mapToInt(Integer::intValue).toArray();
+            int[] dst = dsts.stream().mapToInt(Integer::intValue).toArray();
+            return new SimpleTimingPredictor(logger, vertexNum, src, dst, getNetFanouts(vertexNum), 1);
+        }
+    }
+
+    private static void assertSameTiming(SimpleTimingPredictor expected, SimpleTimingPredictor actual) {
+        Assertions.assertArrayEquals(expected.getRecvLogicLevels(), actual.getRecvLogicLevels());
+        Assertions.assertArrayEquals(expected.getRecvFanouts(), actual.getRecvFanouts());
+        Assertions.assertArrayEquals(expected.getRecvDelays(), actual.getRecvDelays());
+        Assertions.assertArrayEquals(expected.getDriveLogicLevels(), actual.getDriveLogicLevels());
+        Assertions.assertArrayEquals(expected.getDriveFanouts(), actual.getDriveFanouts());
+        Assertions.assertArrayEquals(expected.getDriveDelays(), actual.getDriveDelays());
+    }
+
+    @Test
+    public void testIncrementalUpdateMatchesFullBuild() {
+        int vertexNum = 3000;
+        int roundNum = 40;
+        int editNum = 200;
+        HierarchicalLogger logger = HierarchicalLogger.createPseduoLogger("TestSimpleTimingPredictor");
+        for (long seed = 0; seed < 3; seed++) {
+            Random random = new Random(seed);
+            EdgeList edges = new EdgeList();
+            while (edges.srcs.size() < 2 * vertexNum) {
+                int src = random.nextInt(vertexNum - 1);
+                edges.add(src, src + 1 + random.nextInt(Math.min(200, vertexNum - 1 - src)), random.nextBoolean());
+            }
+            SimpleTimingPredictor predictor = edges.build(logger, vertexNum);
+
+            // each round removes twice as many edges as it adds, so removed edges pile up until the graph is compacted
+            for (int round = 0; round < roundNum; round++) {
+                List<Integer> removedSrc = new ArrayList<>();
+                List<Integer> removedDst = new ArrayList<>();
+                for (int i = 0; i < editNum; i++) {
+                    int idx = random.nextInt(edges.srcs.size());
+                    removedSrc.add(edges.srcs.get(idx));
+                    removedDst.add(edges.dsts.get(idx));
+                    edges.remove(idx);
+                }
+                List<Integer> addedSrc = new ArrayList<>();
+                List<Integer> addedDst = new ArrayList<>();
+                List<Integer> addedNetFanout = new ArrayList<>();
+                for (int i = 0; i < editNum / 2; i++) {
+                    // concentrate on few drivers so that their adjacency ranges overflow and are relocated
+                    int src = random.nextInt(vertexNum / 10);
+                    int dst = src + 1 + random.nextInt(vertexNum - 1 - src);
+                    boolean isNet = random.nextBoolean();
+                    if (!edges.add(src, dst, isNet)) continue;
+                    addedSrc.add(src);
+                    addedDst.add(dst);
+                    addedNetFanout.add(isNet ? 1 : 0);
+                }
+                predictor.updateEdges(toArray(removedSrc), toArray(removedDst), toArray(addedSrc), toArray(addedDst), toArray(addedNetFanout));
+                assertSameTiming(edges.build(logger, vertexNum), predictor);
+            }
+        }
+    }
+
+    // a sink moved from net A to net B, e.g. behind a new buffer, changes the fanout of both nets
+    @Test
+    public void testIncrementalUpdateOfMovedSink() {
+        HierarchicalLogger logger = HierarchicalLogger.createPseduoLogger("TestSimpleTimingPredictor");
+        int vertexNum = 10;
+        EdgeList edges = new EdgeList();
+        // net A driven by 0 with sinks 2, 3 and 4, net B driven by 1 with sink 5
+        edges.add(0, 2, true);
+        edges.add(0, 3, true);
+        edges.add(0, 4, true);
+        edges.add(1, 5, true);
+        // logic edges behind the sinks, so stale fanouts would propagate further
+        edges.add(2, 6, false);
+        edges.add(3, 7, false);
+        edges.add(4, 8, false);
+        edges.add(5, 9, false);
+        SimpleTimingPredictor predictor = edges.build(logger, vertexNum);
+
+        edges.remove(edges.dsts.indexOf(4));
+        edges.add(1, 4, true);
+        predictor.updateEdges(new int[] {0}, new int[] {4}, new int[] {1}, new int[] {4}, new int[] {1});
+
+        SimpleTimingPredictor expected = edges.build(logger, vertexNum);
+        assertSameTiming(expected, predictor);
+        Assertions.assertEquals(2, predictor.getRecvFanouts()[6]);
+        Assertions.assertEquals(2, predictor.getRecvFanouts()[9]);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
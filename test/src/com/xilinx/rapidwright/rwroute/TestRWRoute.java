@@ -181,6 +181,20 @@ public class TestRWRoute {
         VivadoToolsHelper.assertFullyRouted(design);
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    @LargeTest(max_memory_gb = 8)
+    public void testFullRoutingWithArrayGraphStore(boolean timingDriven) {
+        Design design = RapidWrightDCP.loadDCP("bnn.dcp");
+        RWRoute.routeDesignWithUserDefinedArguments(design, new String[] {
+                timingDriven ? "--timingDriven" : "--nonTimingDriven",
+                "--arrayGraphStore"
+        });
+        assertAllSourcesRoutedFlagSet(design);
+        assertAllPinsRouted(design);
+        VivadoToolsHelper.assertFullyRouted(design);
+    }
+
     @ParameterizedTest
     @CsvSource({
             "bnn.dcp,false,false",
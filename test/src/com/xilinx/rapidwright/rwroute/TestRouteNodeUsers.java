@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026, Advanced Micro Devices, Inc.
+ * All rights reserved.
+ *
+ * This file is part of RapidWright.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.xilinx.rapidwright.rwroute;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestRouteNodeUsers {
+    @Test
+    public void testIncrementDecrement() {
+        RouteNodeUsers users = new RouteNodeUsers();
+        NetWrapper a = new NetWrapper(0, null);
+        NetWrapper b = new NetWrapper(1, null);
+
+        users.increment(a);
+        users.increment(a);
+        users.increment(b);
+        Assertions.assertEquals(2, users.size());
+        Assertions.assertEquals(2, users.get(a));
+        Assertions.assertEquals(1, users.get(b));
+
+        users.decrement(a);
+        Assertions.assertEquals(1, users.get(a));
+        users.decrement(b);
+        Assertions.assertEquals(0, users.get(b));
+        Assertions.assertEquals(1, users.size());
+
+        Map<NetWrapper, Integer> map = new IdentityHashMap<>();
+        users.putAllInto(map);
+        Assertions.assertEquals(1, map.size());
+        Assertions.assertEquals(1, map.get(a));
+    }
+
+    @Test
+    public void testMatchesReferenceMap() {
+        // Ids that are multiples of the table size collide, exercising probing, growth and backward-shift deletion
+        NetWrapper[] nets = new NetWrapper[64];
+        for (int i = 0; i < nets.length; i++) {
+            nets[i] = new NetWrapper((i % 2 == 0) ? i * 64 : i, null);
+        }
+
+        Random random = new Random(0);
+        RouteNodeUsers users = new RouteNodeUsers();
+        Map<NetWrapper, Integer> reference = new HashMap<>();
+        for (int step = 0; step < 10000; step++) {
+            NetWrapper net = nets[random.nextInt(nets.length)];
+            if (random.nextBoolean() || !reference.containsKey(net)) {
+                users.increment(net);
+                reference.merge(net, 1, Integer::sum);
+            } else {
+                users.decrement(net);
+                reference.compute(net, (k, v) -> (v == 1) ? null : v - 1);
+            }
+
+            Assertions.assertEquals(reference.size(), users.size());
+            for (NetWrapper n : nets) {
+                Assertions.assertEquals(reference.getOrDefault(n, 0), users.get(n));
+            }
+        }
+    }
+}